@@ -0,0 +1,87 @@
+package it.gov.pagopa.receipt.pdf.helpdesk;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.HttpMethod;
+import com.microsoft.azure.functions.HttpRequestMessage;
+import com.microsoft.azure.functions.HttpResponseMessage;
+import com.microsoft.azure.functions.HttpStatus;
+import com.microsoft.azure.functions.annotation.AuthorizationLevel;
+import com.microsoft.azure.functions.annotation.BindingName;
+import com.microsoft.azure.functions.annotation.FunctionName;
+import com.microsoft.azure.functions.annotation.HttpTrigger;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.ProblemJson;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.RecoveryJobServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Azure Functions with HTTP Trigger.
+ */
+public class CancelRecoveryJob {
+
+    private final Logger logger = LoggerFactory.getLogger(CancelRecoveryJob.class);
+
+    private final RecoveryJobService recoveryJobService;
+
+    public CancelRecoveryJob() {
+        this.recoveryJobService = new RecoveryJobServiceImpl();
+    }
+
+    CancelRecoveryJob(RecoveryJobService recoveryJobService) {
+        this.recoveryJobService = recoveryJobService;
+    }
+
+    /**
+     * This function will be invoked when a Http Trigger occurs.
+     * <p>
+     * It requests the cancellation of the massive recovery job with the specified id. A running job stops after the
+     * page it is processing, a queued job is cancelled before it starts, an ended job is left unchanged.
+     *
+     * @return response with {@link HttpStatus#ACCEPTED} and the job if found
+     */
+    @FunctionName("CancelRecoveryJob")
+    public HttpResponseMessage run(
+            @HttpTrigger(name = "CancelRecoveryJobTrigger",
+                    methods = {HttpMethod.DELETE},
+                    route = "jobs/{job-id}",
+                    authLevel = AuthorizationLevel.ANONYMOUS)
+            HttpRequestMessage<Optional<String>> request,
+            @BindingName("job-id") String jobId,
+            final ExecutionContext context) {
+        logger.info("[{}] function called at {}", context.getFunctionName(), LocalDateTime.now());
+
+        if (jobId == null || jobId.isBlank()) {
+            return request
+                    .createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body(ProblemJson.builder()
+                            .title(HttpStatus.BAD_REQUEST.name())
+                            .detail("Please pass a valid job id")
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .build())
+                    .build();
+        }
+
+        RecoveryJob job = this.recoveryJobService.cancelJob(jobId);
+        if (job == null) {
+            String responseMsg = String.format("Unable to retrieve the recovery job with id %s", jobId);
+            logger.error("[{}] {}", context.getFunctionName(), responseMsg);
+            return request
+                    .createResponseBuilder(HttpStatus.NOT_FOUND)
+                    .body(ProblemJson.builder()
+                            .title(HttpStatus.NOT_FOUND.name())
+                            .detail(responseMsg)
+                            .status(HttpStatus.NOT_FOUND.value())
+                            .build())
+                    .build();
+        }
+        return request
+                .createResponseBuilder(HttpStatus.ACCEPTED)
+                .body(job)
+                .build();
+    }
+}
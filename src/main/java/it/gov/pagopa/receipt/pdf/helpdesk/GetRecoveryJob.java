@@ -0,0 +1,87 @@
+package it.gov.pagopa.receipt.pdf.helpdesk;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.HttpMethod;
+import com.microsoft.azure.functions.HttpRequestMessage;
+import com.microsoft.azure.functions.HttpResponseMessage;
+import com.microsoft.azure.functions.HttpStatus;
+import com.microsoft.azure.functions.annotation.AuthorizationLevel;
+import com.microsoft.azure.functions.annotation.BindingName;
+import com.microsoft.azure.functions.annotation.FunctionName;
+import com.microsoft.azure.functions.annotation.HttpTrigger;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.ProblemJson;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.RecoveryJobServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Azure Functions with HTTP Trigger.
+ */
+public class GetRecoveryJob {
+
+    private final Logger logger = LoggerFactory.getLogger(GetRecoveryJob.class);
+
+    private final RecoveryJobService recoveryJobService;
+
+    public GetRecoveryJob() {
+        this.recoveryJobService = new RecoveryJobServiceImpl();
+    }
+
+    GetRecoveryJob(RecoveryJobService recoveryJobService) {
+        this.recoveryJobService = recoveryJobService;
+    }
+
+    /**
+     * This function will be invoked when a Http Trigger occurs.
+     * <p>
+     * It retrieves the massive recovery job with the specified id, with its state and its progress: processed,
+     * succeeded and failed documents and throughput in documents per second.
+     *
+     * @return response with {@link HttpStatus#OK} and the job if found
+     */
+    @FunctionName("GetRecoveryJob")
+    public HttpResponseMessage run(
+            @HttpTrigger(name = "GetRecoveryJobTrigger",
+                    methods = {HttpMethod.GET},
+                    route = "jobs/{job-id}",
+                    authLevel = AuthorizationLevel.ANONYMOUS)
+            HttpRequestMessage<Optional<String>> request,
+            @BindingName("job-id") String jobId,
+            final ExecutionContext context) {
+        logger.info("[{}] function called at {}", context.getFunctionName(), LocalDateTime.now());
+
+        if (jobId == null || jobId.isBlank()) {
+            return request
+                    .createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body(ProblemJson.builder()
+                            .title(HttpStatus.BAD_REQUEST.name())
+                            .detail("Please pass a valid job id")
+                            .status(HttpStatus.BAD_REQUEST.value())
+                            .build())
+                    .build();
+        }
+
+        RecoveryJob job = this.recoveryJobService.getJob(jobId);
+        if (job == null) {
+            String responseMsg = String.format("Unable to retrieve the recovery job with id %s", jobId);
+            logger.error("[{}] {}", context.getFunctionName(), responseMsg);
+            return request
+                    .createResponseBuilder(HttpStatus.NOT_FOUND)
+                    .body(ProblemJson.builder()
+                            .title(HttpStatus.NOT_FOUND.name())
+                            .detail(responseMsg)
+                            .status(HttpStatus.NOT_FOUND.value())
+                            .build())
+                    .build();
+        }
+        return request
+                .createResponseBuilder(HttpStatus.OK)
+                .body(job)
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package it.gov.pagopa.receipt.pdf.helpdesk;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.OutputBinding;
+import com.microsoft.azure.functions.annotation.CosmosDBOutput;
+import com.microsoft.azure.functions.annotation.FunctionName;
+import com.microsoft.azure.functions.annotation.TimerTrigger;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.BizEventCosmosClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.BizEventCosmosClientImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.BizEventToReceiptServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.ReceiptCosmosServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.ChangeFeedRecoveryUtils.isChangeFeedRecoveryEnabled;
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.ChangeFeedRecoveryUtils.recoverDueReceipts;
+
+/**
+ * Azure Functions with Timer trigger.
+ */
+public class RecoverDueReceiptScheduled {
+
+    private final Logger logger = LoggerFactory.getLogger(RecoverDueReceiptScheduled.class);
+
+    private final BizEventToReceiptService bizEventToReceiptService;
+    private final BizEventCosmosClient bizEventCosmosClient;
+    private final ReceiptCosmosService receiptCosmosService;
+
+    public RecoverDueReceiptScheduled() {
+        this.bizEventToReceiptService = new BizEventToReceiptServiceImpl();
+        this.receiptCosmosService = new ReceiptCosmosServiceImpl();
+        this.bizEventCosmosClient = BizEventCosmosClientImpl.getInstance();
+    }
+
+    RecoverDueReceiptScheduled(BizEventToReceiptService bizEventToReceiptService,
+                               BizEventCosmosClient bizEventCosmosClient,
+                               ReceiptCosmosService receiptCosmosService) {
+        this.bizEventToReceiptService = bizEventToReceiptService;
+        this.bizEventCosmosClient = bizEventCosmosClient;
+        this.receiptCosmosService = receiptCosmosService;
+    }
+
+    /**
+     * This function will be invoked periodically according to the specified schedule.
+     * <p>
+     * It recovers the receipts of the due-time index filled by {@link RecoverReceiptChangeFeed}, so its cost depends on
+     * the receipts changed since the last execution instead of on all the receipts to recover.
+     * The failed receipts are recovered as in {@link RecoverFailedReceiptScheduled} and the not notified ones as in
+     * {@link RecoverNotNotifiedReceiptScheduled}. The recovered receipts are saved page by page before their entries
+     * are removed from the index, see {@link it.gov.pagopa.receipt.pdf.helpdesk.utils.ChangeFeedRecoveryUtils}.
+     */
+    @FunctionName("RecoverDueReceiptScheduled")
+    public void run(
+            @TimerTrigger(name = "timerInfoDue", schedule = "%RECOVER_DUE_RECEIPT_CRON%") String timerInfo,
+            @CosmosDBOutput(
+                    name = "ReceiptDatastore",
+                    databaseName = "db",
+                    containerName = "receipts",
+                    connection = "COSMOS_RECEIPTS_CONN_STRING")
+            OutputBinding<List<Receipt>> documentdb,
+            final ExecutionContext context
+    ) {
+        if (isChangeFeedRecoveryEnabled()) {
+            logger.info("[{}] function called at {}", context.getFunctionName(), LocalDateTime.now());
+
+            MassiveRecoverResult recoverResult = recoverDueReceipts(
+                    context, bizEventToReceiptService, bizEventCosmosClient, receiptCosmosService, logger);
+            if (recoverResult.getErrorCounter() > 0) {
+                logger.error("[{}] Error recovering {} due receipts", context.getFunctionName(), recoverResult.getErrorCounter());
+            }
+            logger.info("[{}] Recovered {} due receipts", context.getFunctionName(), recoverResult.getRecoveredCounter());
+
+            documentdb.setValue(recoverResult.getReceiptList());
+        }
+    }
+}
@@ -121,7 +121,7 @@ public class RecoverFailedCart {
                         .build();
             }
 
-            List<BizEvent> bizEventList = this.bizEventToReceiptService.getCartBizEvents(cartForReceipt.getId());
+            List<BizEvent> bizEventList = this.bizEventToReceiptService.getCartBizEvents(cartForReceipt);
             Receipt receipt = this.bizEventToReceiptService.createCartReceipt(bizEventList);
 
             if (!isReceiptStatusValid(receipt)) {
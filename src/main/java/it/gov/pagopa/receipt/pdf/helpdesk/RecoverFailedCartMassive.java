@@ -17,7 +17,12 @@ import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverCartResult;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.ProblemJson;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.BizEventToReceiptServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.ReceiptCosmosServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.RecoveryJobServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryCheckpointer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,6 +31,8 @@ import java.util.List;
 import java.util.Optional;
 
 import static it.gov.pagopa.receipt.pdf.helpdesk.utils.BizEventToReceiptUtils.massiveRecoverCartByStatus;
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryJobUtils.isAsyncJobEnabled;
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryJobUtils.submitJob;
 
 /**
  * Azure Functions with Azure Http trigger.
@@ -36,16 +43,24 @@ public class RecoverFailedCartMassive {
 
     private final BizEventToReceiptService bizEventToReceiptService;
     private final CartReceiptsCosmosClient cartReceiptsCosmosClient;
+    private final ReceiptCosmosService receiptCosmosService;
+    private final RecoveryJobService recoveryJobService;
 
     public RecoverFailedCartMassive() {
         this.bizEventToReceiptService = new BizEventToReceiptServiceImpl();
         this.cartReceiptsCosmosClient = CartReceiptsCosmosClientImpl.getInstance();
+        this.receiptCosmosService = new ReceiptCosmosServiceImpl();
+        this.recoveryJobService = new RecoveryJobServiceImpl();
     }
 
     RecoverFailedCartMassive(BizEventToReceiptService bizEventToReceiptService,
-                             CartReceiptsCosmosClient cartReceiptsCosmosClient) {
+                             CartReceiptsCosmosClient cartReceiptsCosmosClient,
+                             ReceiptCosmosService receiptCosmosService,
+                             RecoveryJobService recoveryJobService) {
         this.bizEventToReceiptService = bizEventToReceiptService;
         this.cartReceiptsCosmosClient = cartReceiptsCosmosClient;
+        this.receiptCosmosService = receiptCosmosService;
+        this.recoveryJobService = recoveryJobService;
     }
 
     /**
@@ -56,6 +71,12 @@ public class RecoverFailedCartMassive {
      * - ({@link it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartStatusType#FAILED})
      * <p>
      * It attempts to recreate and send receipt data based on cart having a failed or stuck status.
+     * <p>
+     * If MASSIVE_RECOVER_CHECKPOINT_ENABLED is true the recovery resumes from the last checkpoint of the same status,
+     * see {@link RecoveryCheckpointer}.
+     * <p>
+     * If MASSIVE_RECOVER_ASYNC_ENABLED is true the recovery is submitted as a background job and the function returns
+     * {@link HttpStatus#ACCEPTED} with the job, whose progress is available at jobs/{id}.
      *
      * @return response with {@link HttpStatus#OK} if the operation succeeded
      */
@@ -102,10 +123,16 @@ public class RecoverFailedCartMassive {
                     .build();
         }
 
+        if (isAsyncJobEnabled()) {
+            return submitJob(request, recoveryJobService, statusType.name(), context, logger);
+        }
+
         MassiveRecoverCartResult recoverResult;
         try {
+            RecoveryCheckpointer checkpointer = RecoveryCheckpointer.open(
+                    "RecoverFailedCartMassive-" + statusType, receiptCosmosService);
             recoverResult = massiveRecoverCartByStatus(
-                    context, bizEventToReceiptService, cartReceiptsCosmosClient, logger, statusType);
+                    context, bizEventToReceiptService, cartReceiptsCosmosClient, logger, statusType, checkpointer);
         } catch (Exception e) {
             logger.error("[{}] Unexpected error during recover of failed cart", context.getFunctionName(), e);
             return request
@@ -122,7 +149,7 @@ public class RecoverFailedCartMassive {
 
         cartForReceiptDocumentdb.setValue(cartItems);
         if (errorCounter > 0) {
-            String msg = String.format("Recovered %s carts but %s encountered an error.", cartItems.size(), errorCounter);
+            String msg = String.format("Recovered %s carts but %s encountered an error.", recoverResult.getRecoveredCounter(), errorCounter);
             return request
                     .createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(ProblemJson.builder()
@@ -132,7 +159,7 @@ public class RecoverFailedCartMassive {
                             .build())
                     .build();
         }
-        String responseMsg = String.format("Recovered %s carts", cartItems.size());
+        String responseMsg = String.format("Recovered %s carts", recoverResult.getRecoveredCounter());
         return request.createResponseBuilder(HttpStatus.OK)
                 .body(responseMsg)
                 .build();
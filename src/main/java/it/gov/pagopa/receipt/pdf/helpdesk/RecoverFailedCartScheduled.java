@@ -7,11 +7,19 @@ import com.microsoft.azure.functions.annotation.FunctionName;
 import com.microsoft.azure.functions.annotation.TimerTrigger;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.CartReceiptsCosmosClient;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.CartReceiptsCosmosClientImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.LeaseFencedCartReceiptsCosmosClientImpl;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartForReceipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.RecoveryLeaseLostException;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverCartResult;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.BizEventToReceiptServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.LeaseFencedBizEventToReceiptServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.LeaseFencedReceiptCosmosServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.ReceiptCosmosServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryCheckpointer;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryLeaseLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,15 +43,20 @@ public class RecoverFailedCartScheduled {
 
     private final CartReceiptsCosmosClient cartReceiptsCosmosClient;
 
+    private final ReceiptCosmosService receiptCosmosService;
+
     public RecoverFailedCartScheduled() {
         this.bizEventToReceiptService = new BizEventToReceiptServiceImpl();
         this.cartReceiptsCosmosClient = CartReceiptsCosmosClientImpl.getInstance();
+        this.receiptCosmosService = new ReceiptCosmosServiceImpl();
     }
 
     RecoverFailedCartScheduled(BizEventToReceiptService bizEventToReceiptService,
-                               CartReceiptsCosmosClient cartReceiptsCosmosClient) {
+                               CartReceiptsCosmosClient cartReceiptsCosmosClient,
+                               ReceiptCosmosService receiptCosmosService) {
         this.bizEventToReceiptService = bizEventToReceiptService;
         this.cartReceiptsCosmosClient = cartReceiptsCosmosClient;
+        this.receiptCosmosService = receiptCosmosService;
     }
 
     /**
@@ -54,6 +67,11 @@ public class RecoverFailedCartScheduled {
      * - ({@link it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartStatusType#FAILED})
      * <p>
      * It creates the receipts if not exist and send on queue the event in order to proceed with the receipt generation.
+     * <p>
+     * Only one instance at a time runs the recovery, see {@link RecoveryLeaseLock}, and every write of the recovery
+     * checks the lease is still held. If RECOVERY_TIME_BUDGET_SECONDS is
+     * positive the recovery stops at the end of its time budget and continues on the next execution, see
+     * {@link RecoveryCheckpointer#openWithDeadline}.
      */
     @FunctionName("CartNotSentRecoverScheduled")
     public void run(
@@ -66,30 +84,63 @@ public class RecoverFailedCartScheduled {
             OutputBinding<List<CartForReceipt>> cartForReceiptDocumentdb,
             final ExecutionContext context
     ) {
-        if (isEnabled) {
+        if (!isEnabled) {
+            return;
+        }
+        try (RecoveryLeaseLock lease = RecoveryLeaseLock.tryAcquire("CartNotSentRecoverScheduled", receiptCosmosService)) {
+            if (!lease.isHeld()) {
+                return;
+            }
             logger.info("[{}] function called at {}", context.getFunctionName(), LocalDateTime.now());
+            long deadline = RecoveryCheckpointer.getTimeBudgetDeadline();
+            BizEventToReceiptService fencedBizEventToReceiptService =
+                    new LeaseFencedBizEventToReceiptServiceImpl(bizEventToReceiptService, lease);
+            CartReceiptsCosmosClient fencedCartReceiptsCosmosClient =
+                    new LeaseFencedCartReceiptsCosmosClientImpl(cartReceiptsCosmosClient, lease);
+            ReceiptCosmosService fencedReceiptCosmosService = new LeaseFencedReceiptCosmosServiceImpl(receiptCosmosService, lease);
             List<CartForReceipt> cartForReceipts = new ArrayList<>();
 
-            cartForReceipts.addAll(recover(context, CartStatusType.INSERTED));
-            cartForReceipts.addAll(recover(context, CartStatusType.FAILED));
+            for (CartStatusType statusType : List.of(CartStatusType.INSERTED, CartStatusType.FAILED)) {
+                MassiveRecoverCartResult recoverResult = recover(context, statusType, deadline,
+                        fencedBizEventToReceiptService, fencedCartReceiptsCosmosClient, fencedReceiptCosmosService);
+                cartForReceipts.addAll(recoverResult.getCartItems());
+                if (recoverResult.isInterrupted()) {
+                    logger.info("[{}] Time budget exhausted, the recovery continues on the next execution",
+                            context.getFunctionName());
+                    break;
+                }
+            }
 
+            if (!lease.verify()) {
+                logger.warn("[{}] Lease lost, {} recovered carts discarded", context.getFunctionName(), cartForReceipts.size());
+                return;
+            }
             cartForReceiptDocumentdb.setValue(cartForReceipts);
+        } catch (RecoveryLeaseLostException e) {
+            logger.warn("[{}] Recovery stopped: {}", context.getFunctionName(), e.getMessage());
         }
     }
 
-    private List<CartForReceipt> recover(ExecutionContext context, CartStatusType statusType) {
+    private MassiveRecoverCartResult recover(ExecutionContext context, CartStatusType statusType, long deadline,
+                                             BizEventToReceiptService fencedBizEventToReceiptService,
+                                             CartReceiptsCosmosClient fencedCartReceiptsCosmosClient,
+                                             ReceiptCosmosService fencedReceiptCosmosService) {
         try {
             MassiveRecoverCartResult recoverResult = massiveRecoverCartByStatus(
-                    context, bizEventToReceiptService, cartReceiptsCosmosClient, logger, statusType);
+                    context, fencedBizEventToReceiptService, fencedCartReceiptsCosmosClient, logger, statusType,
+                    RecoveryCheckpointer.openWithDeadline("CartNotSentRecoverScheduled-" + statusType,
+                            fencedReceiptCosmosService, deadline));
             if (recoverResult.getErrorCounter() > 0) {
                 logger.error("[{}] Error recovering {} failed cart for status {}",
                         context.getFunctionName(), recoverResult.getErrorCounter(), statusType);
             }
-            return recoverResult.getCartItems();
+            return recoverResult;
+        } catch (RecoveryLeaseLostException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("[{}] Unexpected error during recover of failed cart for status {}",
                     context.getFunctionName(), statusType, e);
-            return Collections.emptyList();
+            return MassiveRecoverCartResult.builder().cartItems(Collections.emptyList()).build();
         }
     }
 }
\ No newline at end of file
@@ -18,8 +18,11 @@ import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverResult;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.ProblemJson;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.BizEventToReceiptServiceImpl;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.ReceiptCosmosServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.RecoveryJobServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryCheckpointer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,6 +32,8 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import static it.gov.pagopa.receipt.pdf.helpdesk.utils.BizEventToReceiptUtils.massiveRecoverByStatus;
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryJobUtils.isAsyncJobEnabled;
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryJobUtils.submitJob;
 
 /**
  * Azure Functions with Azure Http trigger.
@@ -40,19 +45,23 @@ public class RecoverFailedReceiptMassive {
     private final BizEventToReceiptService bizEventToReceiptService;
     private final BizEventCosmosClient bizEventCosmosClient;
     private final ReceiptCosmosService receiptCosmosService;
+    private final RecoveryJobService recoveryJobService;
 
     public RecoverFailedReceiptMassive() {
         this.bizEventToReceiptService = new BizEventToReceiptServiceImpl();
         this.receiptCosmosService = new ReceiptCosmosServiceImpl();
+        this.recoveryJobService = new RecoveryJobServiceImpl();
         this.bizEventCosmosClient = BizEventCosmosClientImpl.getInstance();
     }
 
     RecoverFailedReceiptMassive(BizEventToReceiptService bizEventToReceiptService,
                                 BizEventCosmosClient bizEventCosmosClient,
-                                ReceiptCosmosService receiptCosmosService) {
+                                ReceiptCosmosService receiptCosmosService,
+                                RecoveryJobService recoveryJobService) {
         this.bizEventToReceiptService = bizEventToReceiptService;
         this.bizEventCosmosClient = bizEventCosmosClient;
         this.receiptCosmosService = receiptCosmosService;
+        this.recoveryJobService = recoveryJobService;
     }
 
     /**
@@ -64,6 +73,12 @@ public class RecoverFailedReceiptMassive {
      * - ({@link ReceiptStatusType#NOT_QUEUE_SENT})
      * <p>
      * It creates the receipts if not exist and send on queue the event in order to proceed with the receipt generation.
+     * <p>
+     * If MASSIVE_RECOVER_CHECKPOINT_ENABLED is true the recovery resumes from the last checkpoint of the same status,
+     * see {@link RecoveryCheckpointer}.
+     * <p>
+     * If MASSIVE_RECOVER_ASYNC_ENABLED is true the recovery is submitted as a background job and the function returns
+     * {@link HttpStatus#ACCEPTED} with the job, whose progress is available at jobs/{id}.
      *
      * @return response with {@link HttpStatus#OK} if the operation succeeded
      */
@@ -110,10 +125,16 @@ public class RecoverFailedReceiptMassive {
                     .build();
         }
 
+        if (isAsyncJobEnabled()) {
+            return submitJob(request, recoveryJobService, statusType.name(), context, logger);
+        }
+
         MassiveRecoverResult recoverResult;
         try {
-            recoverResult = massiveRecoverByStatus(
-                    context, bizEventToReceiptService, bizEventCosmosClient, receiptCosmosService, logger, statusType);
+            RecoveryCheckpointer checkpointer = RecoveryCheckpointer.open(
+                    "RecoverFailedReceiptMassive-" + statusType, receiptCosmosService);
+            recoverResult = massiveRecoverByStatus(context, bizEventToReceiptService, bizEventCosmosClient,
+                    receiptCosmosService, logger, statusType, checkpointer);
         } catch (NoSuchElementException e) {
             logger.error("[{}] Unexpected error during recover of failed receipt", context.getFunctionName(), e);
             return request
@@ -130,7 +151,7 @@ public class RecoverFailedReceiptMassive {
 
         documentdb.setValue(receiptList);
         if (errorCounter > 0) {
-            String msg = String.format("Recovered %s receipts but %s encountered an error.", receiptList.size(), errorCounter);
+            String msg = String.format("Recovered %s receipts but %s encountered an error.", recoverResult.getRecoveredCounter(), errorCounter);
             return request
                     .createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(ProblemJson.builder()
@@ -140,7 +161,7 @@ public class RecoverFailedReceiptMassive {
                             .build())
                     .build();
         }
-        String responseMsg = String.format("Recovered %s receipts", receiptList.size());
+        String responseMsg = String.format("Recovered %s receipts", recoverResult.getRecoveredCounter());
         return request.createResponseBuilder(HttpStatus.OK)
                 .body(responseMsg)
                 .build();
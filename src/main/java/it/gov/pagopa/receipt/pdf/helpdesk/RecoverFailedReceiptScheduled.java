@@ -9,21 +9,27 @@ import it.gov.pagopa.receipt.pdf.helpdesk.client.BizEventCosmosClient;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.BizEventCosmosClientImpl;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.RecoveryLeaseLostException;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverResult;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.BizEventToReceiptServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.LeaseFencedBizEventToReceiptServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.LeaseFencedReceiptCosmosServiceImpl;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.ReceiptCosmosServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryCheckpointer;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryLeaseLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
-import static it.gov.pagopa.receipt.pdf.helpdesk.utils.BizEventToReceiptUtils.massiveRecoverByStatus;
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryPlanner.massiveRecoverByStatuses;
 
 /**
  * Azure Functions with Timer trigger.
@@ -60,7 +66,15 @@ public class RecoverFailedReceiptScheduled {
      * - ({@link ReceiptStatusType#FAILED})
      * - ({@link ReceiptStatusType#NOT_QUEUE_SENT})
      * <p>
+     * The failed and not queue sent receipts are read by the same query and are recovered with a single scan, see
+     * {@link it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryPlanner}.
+     * <p>
      * It creates the receipts if not exist and send on queue the event in order to proceed with the receipt generation.
+     * <p>
+     * Only one instance at a time runs the recovery, see {@link RecoveryLeaseLock}, and every write of the recovery
+     * checks the lease is still held. If RECOVERY_TIME_BUDGET_SECONDS is
+     * positive the recovery stops at the end of its time budget and continues on the next execution, see
+     * {@link RecoveryCheckpointer#openWithDeadline}.
      */
     @FunctionName("RecoverFailedReceiptScheduled")
     public void run(
@@ -73,34 +87,54 @@ public class RecoverFailedReceiptScheduled {
             OutputBinding<List<Receipt>> documentdb,
             final ExecutionContext context
     ) {
-        if (isEnabled) {
+        if (!isEnabled) {
+            return;
+        }
+        try (RecoveryLeaseLock lease = RecoveryLeaseLock.tryAcquire("RecoverFailedReceiptScheduled", receiptCosmosService)) {
+            if (!lease.isHeld()) {
+                return;
+            }
             logger.info("[{}] function called at {}", context.getFunctionName(), LocalDateTime.now());
-            List<Receipt> receiptList = new ArrayList<>();
-
-            receiptList.addAll(recover(context, ReceiptStatusType.INSERTED));
-            receiptList.addAll(recover(context, ReceiptStatusType.FAILED));
-            receiptList.addAll(recover(context, ReceiptStatusType.NOT_QUEUE_SENT));
+            long deadline = RecoveryCheckpointer.getTimeBudgetDeadline();
+            List<Receipt> receiptList = recover(context, EnumSet.of(
+                    ReceiptStatusType.INSERTED, ReceiptStatusType.FAILED, ReceiptStatusType.NOT_QUEUE_SENT), deadline,
+                    new LeaseFencedBizEventToReceiptServiceImpl(bizEventToReceiptService, lease),
+                    new LeaseFencedReceiptCosmosServiceImpl(receiptCosmosService, lease));
 
+            if (!lease.verify()) {
+                logger.warn("[{}] Lease lost, {} recovered receipts discarded", context.getFunctionName(), receiptList.size());
+                return;
+            }
             documentdb.setValue(receiptList);
+        } catch (RecoveryLeaseLostException e) {
+            logger.warn("[{}] Recovery stopped: {}", context.getFunctionName(), e.getMessage());
         }
     }
 
-    private List<Receipt> recover(ExecutionContext context, ReceiptStatusType statusType) {
+    private List<Receipt> recover(ExecutionContext context, Set<ReceiptStatusType> statusTypes, long deadline,
+                                  BizEventToReceiptService fencedBizEventToReceiptService,
+                                  ReceiptCosmosService fencedReceiptCosmosService) {
         try {
-            MassiveRecoverResult recoverResult = massiveRecoverByStatus(
-                    context, bizEventToReceiptService, bizEventCosmosClient, receiptCosmosService, logger, statusType);
+            MassiveRecoverResult recoverResult = massiveRecoverByStatuses(context, fencedBizEventToReceiptService,
+                    bizEventCosmosClient, fencedReceiptCosmosService, logger, statusTypes,
+                    "RecoverFailedReceiptScheduled", deadline);
             if (recoverResult.getErrorCounter() > 0) {
-                logger.error("[{}] Error recovering {} failed receipts for status {}",
-                        context.getFunctionName(), recoverResult.getErrorCounter(), statusType);
+                logger.error("[{}] Error recovering {} failed receipts for statuses {}",
+                        context.getFunctionName(), recoverResult.getErrorCounter(), statusTypes);
             }
             List<String> idList = recoverResult.getReceiptList().parallelStream().map(Receipt::getId).toList();
-            logger.info("[{}] Recovered {} receipts for status {} with ids: {}",
-                    context.getFunctionName(), recoverResult.getReceiptList().size(), statusType, idList);
+            logger.info("[{}] Recovered {} receipts for statuses {} with counts by status {} and ids: {}",
+                    context.getFunctionName(), recoverResult.getRecoveredCounter(), statusTypes,
+                    recoverResult.getRecoveredByStatus(), idList);
+            if (recoverResult.isInterrupted()) {
+                logger.info("[{}] Time budget exhausted, the recovery continues on the next execution",
+                        context.getFunctionName());
+            }
             return recoverResult.getReceiptList();
         } catch (NoSuchElementException e) {
-            logger.error("[{}] Unexpected error during recover of failed receipt for status {}",
-                    context.getFunctionName(), statusType, e);
+            logger.error("[{}] Unexpected error during recover of failed receipt for statuses {}",
+                    context.getFunctionName(), statusTypes, e);
             return Collections.emptyList();
         }
     }
-}
\ No newline at end of file
+}
@@ -10,9 +10,13 @@ import com.microsoft.azure.functions.OutputBinding;
 import com.microsoft.azure.functions.annotation.*;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverResult;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.ProblemJson;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.ReceiptCosmosServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.RecoveryJobServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryCheckpointer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,8 +25,10 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
-import static it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoverNotNotifiedReceiptUtils.receiptMassiveRestore;
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoverNotNotifiedReceiptUtils.receiptMassiveRestoreByStatus;
 import static it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoverNotNotifiedReceiptUtils.restoreReceipt;
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryJobUtils.isAsyncJobEnabled;
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryJobUtils.submitJob;
 
 /**
  * Azure Functions with HTTP Trigger.
@@ -32,13 +38,16 @@ public class RecoverNotNotifiedReceiptMassive {
     private final Logger logger = LoggerFactory.getLogger(RecoverNotNotifiedReceiptMassive.class);
 
     private final ReceiptCosmosService receiptCosmosService;
+    private final RecoveryJobService recoveryJobService;
 
     public RecoverNotNotifiedReceiptMassive() {
         this.receiptCosmosService = new ReceiptCosmosServiceImpl();
+        this.recoveryJobService = new RecoveryJobServiceImpl();
     }
 
-    RecoverNotNotifiedReceiptMassive(ReceiptCosmosService receiptCosmosService) {
+    RecoverNotNotifiedReceiptMassive(ReceiptCosmosService receiptCosmosService, RecoveryJobService recoveryJobService) {
         this.receiptCosmosService = receiptCosmosService;
+        this.recoveryJobService = recoveryJobService;
     }
 
     /**
@@ -49,6 +58,12 @@ public class RecoverNotNotifiedReceiptMassive {
      * It recovers the receipt with failed notification ({@link ReceiptStatusType#IO_ERROR_TO_NOTIFY}) or notification
      * not triggered ({@link ReceiptStatusType#GENERATED} by clearing the errors and update the status to the
      * previous step ({@link ReceiptStatusType#GENERATED}).
+     * <p>
+     * If MASSIVE_RECOVER_CHECKPOINT_ENABLED is true the restore resumes from the last checkpoint of the same status,
+     * see {@link RecoveryCheckpointer}.
+     * <p>
+     * If MASSIVE_RECOVER_ASYNC_ENABLED is true the restore is submitted as a background job and the function returns
+     * {@link HttpStatus#ACCEPTED} with the job, whose progress is available at jobs/{id}.
      *
      * @return response with {@link HttpStatus#OK} if the operation succeeded
      */
@@ -108,13 +123,19 @@ public class RecoverNotNotifiedReceiptMassive {
                     .build();
         }
 
-        List<Receipt> receiptList = receiptMassiveRestore(statusType, receiptCosmosService);
-        if (receiptList.isEmpty()) {
+        if (isAsyncJobEnabled()) {
+            return submitJob(request, recoveryJobService, statusType.name(), context, logger);
+        }
+
+        RecoveryCheckpointer checkpointer = RecoveryCheckpointer.open(
+                "RecoverNotNotifiedReceiptMassive-" + statusType, receiptCosmosService);
+        MassiveRecoverResult restoreResult = receiptMassiveRestoreByStatus(statusType, receiptCosmosService, checkpointer);
+        if (restoreResult.getRecoveredCounter() == 0) {
             return request.createResponseBuilder(HttpStatus.OK).body("No receipts restored").build();
         }
 
-        documentReceipts.setValue(receiptList);
-        String msg = String.format("Restored %s receipt with success", receiptList.size());
+        documentReceipts.setValue(restoreResult.getReceiptList());
+        String msg = String.format("Restored %s receipt with success", restoreResult.getRecoveredCounter());
         return request.createResponseBuilder(HttpStatus.OK).body(msg).build();
     }
 
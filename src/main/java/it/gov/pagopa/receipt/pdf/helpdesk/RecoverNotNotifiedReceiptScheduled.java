@@ -7,8 +7,13 @@ import com.microsoft.azure.functions.annotation.FunctionName;
 import com.microsoft.azure.functions.annotation.TimerTrigger;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.RecoveryLeaseLostException;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverResult;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.LeaseFencedReceiptCosmosServiceImpl;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.ReceiptCosmosServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryCheckpointer;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryLeaseLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,7 +21,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
-import static it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoverNotNotifiedReceiptUtils.receiptMassiveRestore;
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoverNotNotifiedReceiptUtils.receiptMassiveRestoreByStatus;
 
 public class RecoverNotNotifiedReceiptScheduled {
 
@@ -42,7 +47,11 @@ public class RecoverNotNotifiedReceiptScheduled {
      * It recovers the receipt with failed notification ({@link ReceiptStatusType#IO_ERROR_TO_NOTIFY}) or notification
      * not triggered ({@link ReceiptStatusType#GENERATED} by clearing the errors and update the status to the
      * previous step ({@link ReceiptStatusType#GENERATED}).
-     *
+     * <p>
+     * Only one instance at a time runs the recovery, see {@link RecoveryLeaseLock}, and every write of the recovery
+     * checks the lease is still held. If RECOVERY_TIME_BUDGET_SECONDS is
+     * positive the recovery stops at the end of its time budget and continues on the next execution, see
+     * {@link RecoveryCheckpointer#openWithDeadline}.
      */
     @FunctionName("RecoverNotNotifiedTimerTriggerProcessor")
     public void processRecoverNotNotifiedScheduledTrigger(
@@ -59,26 +68,54 @@ public class RecoverNotNotifiedReceiptScheduled {
             OutputBinding<List<Receipt>> documentReceipts,
             final ExecutionContext context) {
 
-        if (isEnabled) {
-
+        if (!isEnabled) {
+            return;
+        }
+        try (RecoveryLeaseLock lease = RecoveryLeaseLock.tryAcquire("RecoverNotNotifiedTimerTriggerProcessor", receiptCosmosService)) {
+            if (!lease.isHeld()) {
+                return;
+            }
             logger.info("[{}] function called at {}", context.getFunctionName(), LocalDateTime.now());
 
+            long deadline = RecoveryCheckpointer.getTimeBudgetDeadline();
+            ReceiptCosmosService fencedReceiptCosmosService = new LeaseFencedReceiptCosmosServiceImpl(receiptCosmosService, lease);
             List<Receipt> receiptList = new ArrayList<>();
-            receiptList.addAll(process(context, ReceiptStatusType.IO_ERROR_TO_NOTIFY));
-            receiptList.addAll(process(context, ReceiptStatusType.GENERATED));
-
+            for (ReceiptStatusType statusType : List.of(ReceiptStatusType.IO_ERROR_TO_NOTIFY, ReceiptStatusType.GENERATED)) {
+                MassiveRecoverResult restoreResult = process(context, statusType, deadline, fencedReceiptCosmosService);
+                receiptList.addAll(restoreResult.getReceiptList());
+                if (restoreResult.isInterrupted()) {
+                    logger.info("[{}] Time budget exhausted, the recovery continues on the next execution",
+                            context.getFunctionName());
+                    break;
+                }
+            }
+
+            if (!lease.verify()) {
+                logger.warn("[{}] Lease lost, {} recovered receipts discarded", context.getFunctionName(), receiptList.size());
+                return;
+            }
             documentReceipts.setValue(receiptList);
+        } catch (RecoveryLeaseLostException e) {
+            logger.warn("[{}] Recovery stopped: {}", context.getFunctionName(), e.getMessage());
         }
 
     }
 
-    private List<Receipt> process(ExecutionContext context, ReceiptStatusType statusType) {
-        List<Receipt> receiptList = receiptMassiveRestore(statusType, receiptCosmosService);
+    private MassiveRecoverResult process(ExecutionContext context, ReceiptStatusType statusType, long deadline,
+                                         ReceiptCosmosService fencedReceiptCosmosService) {
+        MassiveRecoverResult restoreResult = receiptMassiveRestoreByStatus(statusType, fencedReceiptCosmosService,
+                RecoveryCheckpointer.openWithDeadline("RecoverNotNotifiedTimerTriggerProcessor-" + statusType,
+                        fencedReceiptCosmosService, deadline));
+        if (restoreResult.getErrorCounter() > 0) {
+            logger.error("[{}] Error saving {} restored receipts for status {} with ids: {}",
+                    context.getFunctionName(), restoreResult.getErrorCounter(), statusType, restoreResult.getFailedSaveIds());
+        }
 
+        List<Receipt> receiptList = restoreResult.getReceiptList();
         List<String> idList = receiptList.parallelStream().map(Receipt::getId).toList();
         logger.info("[{}] Recovered {} receipts for status {} with ids: {}",
-                context.getFunctionName(), receiptList.size(), statusType, idList);
-        return receiptList;
+                context.getFunctionName(), restoreResult.getRecoveredCounter(), statusType, idList);
+        return restoreResult;
     }
 
 }
@@ -0,0 +1,71 @@
+package it.gov.pagopa.receipt.pdf.helpdesk;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.OutputBinding;
+import com.microsoft.azure.functions.annotation.CosmosDBOutput;
+import com.microsoft.azure.functions.annotation.CosmosDBTrigger;
+import com.microsoft.azure.functions.annotation.FunctionName;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptRecoveryCandidate;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.ChangeFeedRecoveryUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Objects;
+
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.ChangeFeedRecoveryUtils.isChangeFeedRecoveryEnabled;
+
+/**
+ * Azure Functions with CosmosDB trigger on the receipt change feed.
+ */
+public class RecoverReceiptChangeFeed {
+
+    private final Logger logger = LoggerFactory.getLogger(RecoverReceiptChangeFeed.class);
+
+    /**
+     * This function will be invoked for every batch of changed receipts.
+     * <p>
+     * It saves in the due-time index the receipts with a recoverable status, see {@link ChangeFeedRecoveryUtils}.
+     * The changes are tracked with the leases of the lease container, so every receipt change is processed once.
+     * <p>
+     * The function reads the change feed only if the app setting
+     * AzureWebJobs.RecoverReceiptChangeFeedProcessor.Disabled is false, so the environments with
+     * CHANGE_FEED_RECOVERY_ENABLED false neither create the lease container nor read the feed. When first enabled,
+     * with an empty lease container, the feed is read from the beginning so that the receipts already waiting to be
+     * recovered are indexed too.
+     */
+    @FunctionName("RecoverReceiptChangeFeedProcessor")
+    public void processReceiptChanges(
+            @CosmosDBTrigger(
+                    name = "ReceiptChangeFeed",
+                    databaseName = "db",
+                    containerName = "receipts",
+                    leaseContainerName = "receipts-recovery-leases",
+                    createLeaseContainerIfNotExists = true,
+                    startFromBeginning = true,
+                    maxItemsPerInvocation = 100,
+                    connection = "COSMOS_RECEIPTS_CONN_STRING")
+            List<Receipt> items,
+            @CosmosDBOutput(
+                    name = "RecoveryIndexDatastore",
+                    databaseName = "db",
+                    containerName = "receipts-recovery-index",
+                    connection = "COSMOS_RECEIPTS_CONN_STRING")
+            OutputBinding<List<ReceiptRecoveryCandidate>> candidates,
+            final ExecutionContext context
+    ) {
+        if (!isChangeFeedRecoveryEnabled()) {
+            return;
+        }
+        List<ReceiptRecoveryCandidate> candidateList = items.stream()
+                .map(ChangeFeedRecoveryUtils::toRecoveryCandidate)
+                .filter(Objects::nonNull)
+                .toList();
+        logger.debug("[{}] Indexed {} recovery candidates out of {} changed receipts",
+                context.getFunctionName(), candidateList.size(), items.size());
+        if (!candidateList.isEmpty()) {
+            candidates.setValue(candidateList);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package it.gov.pagopa.receipt.pdf.helpdesk;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.annotation.FunctionName;
+import com.microsoft.azure.functions.annotation.QueueTrigger;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.RecoveryJobState;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.RecoveryJobServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+
+/**
+ * Azure Functions with Azure Queue trigger.
+ */
+public class RecoveryJobPoisonProcessor {
+
+    private final Logger logger = LoggerFactory.getLogger(RecoveryJobPoisonProcessor.class);
+
+    private final RecoveryJobService recoveryJobService;
+
+    public RecoveryJobPoisonProcessor() {
+        this.recoveryJobService = new RecoveryJobServiceImpl();
+    }
+
+    RecoveryJobPoisonProcessor(RecoveryJobService recoveryJobService) {
+        this.recoveryJobService = recoveryJobService;
+    }
+
+    /**
+     * This function will be invoked when a massive recovery job is moved to the poison queue, after all the
+     * executions of the job failed without completing it (e.g. by reaching the function timeout).
+     * <p>
+     * The job is marked as failed, keeping the progress saved by its last checkpoint, so that it does not stay
+     * running forever.
+     *
+     * @param jobId   the id of the job
+     * @param context Function context
+     */
+    @FunctionName("RecoveryJobPoisonProcessor")
+    public void processRecoveryJobPoison(
+            @QueueTrigger(
+                    name = "QueueRecoveryJobPoison",
+                    queueName = "%RECOVERY_JOB_QUEUE_TOPIC%-poison",
+                    connection = "RECEIPTS_STORAGE_CONN_STRING")
+            String jobId,
+            final ExecutionContext context) {
+        logger.info("[{}] function called at {} for job {}", context.getFunctionName(), LocalDateTime.now(), jobId);
+
+        RecoveryJob job = this.recoveryJobService.getJob(jobId);
+        if (job == null) {
+            logger.error("[{}] Recovery job {} not found", context.getFunctionName(), jobId);
+            return;
+        }
+        if (RecoveryJobServiceImpl.isEnded(job)) {
+            logger.info("[{}] Recovery job {} already ended with state {}", context.getFunctionName(), jobId, job.getState());
+            return;
+        }
+
+        this.recoveryJobService.completeJob(job, RecoveryJobState.FAILED, job.getSucceeded(), job.getFailed(),
+                "The job executions failed without completing it");
+        logger.error("[{}] Recovery job {} moved to the poison queue, marked as failed", context.getFunctionName(), jobId);
+    }
+}
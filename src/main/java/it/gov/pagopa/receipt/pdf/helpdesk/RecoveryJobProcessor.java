@@ -0,0 +1,155 @@
+package it.gov.pagopa.receipt.pdf.helpdesk;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.annotation.FunctionName;
+import com.microsoft.azure.functions.annotation.QueueTrigger;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.BizEventCosmosClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.CartReceiptsCosmosClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.BizEventCosmosClientImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.CartReceiptsCosmosClientImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.RecoveryJobState;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.RecoveryJobCancelledException;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverCartResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.BizEventToReceiptServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.ReceiptCosmosServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.RecoveryJobServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryJobCheckpointer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.BizEventToReceiptUtils.massiveRecoverByStatus;
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.BizEventToReceiptUtils.massiveRecoverCartByStatus;
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoverNotNotifiedReceiptUtils.receiptMassiveRestoreByStatus;
+
+/**
+ * Azure Functions with Azure Queue trigger.
+ */
+public class RecoveryJobProcessor {
+
+    private final Logger logger = LoggerFactory.getLogger(RecoveryJobProcessor.class);
+
+    private final BizEventToReceiptService bizEventToReceiptService;
+    private final BizEventCosmosClient bizEventCosmosClient;
+    private final CartReceiptsCosmosClient cartReceiptsCosmosClient;
+    private final ReceiptCosmosService receiptCosmosService;
+    private final RecoveryJobService recoveryJobService;
+
+    public RecoveryJobProcessor() {
+        this.bizEventToReceiptService = new BizEventToReceiptServiceImpl();
+        this.bizEventCosmosClient = BizEventCosmosClientImpl.getInstance();
+        this.cartReceiptsCosmosClient = CartReceiptsCosmosClientImpl.getInstance();
+        this.receiptCosmosService = new ReceiptCosmosServiceImpl();
+        this.recoveryJobService = new RecoveryJobServiceImpl();
+    }
+
+    RecoveryJobProcessor(BizEventToReceiptService bizEventToReceiptService,
+                         BizEventCosmosClient bizEventCosmosClient,
+                         CartReceiptsCosmosClient cartReceiptsCosmosClient,
+                         ReceiptCosmosService receiptCosmosService,
+                         RecoveryJobService recoveryJobService) {
+        this.bizEventToReceiptService = bizEventToReceiptService;
+        this.bizEventCosmosClient = bizEventCosmosClient;
+        this.cartReceiptsCosmosClient = cartReceiptsCosmosClient;
+        this.receiptCosmosService = receiptCosmosService;
+        this.recoveryJobService = recoveryJobService;
+    }
+
+    /**
+     * This function will be invoked when a massive recovery job is submitted on queue.
+     * <p>
+     * It executes the massive recovery of the job, saving the recovered documents and the progress of the job after
+     * every page. The job stops after the current page if its cancellation is requested.
+     * <p>
+     * The job is always checkpointed: an execution that reaches RECOVERY_JOB_TIME_BUDGET_SECONDS stops after the
+     * current page and queues the job again, so that the next execution resumes from the last page before the
+     * function timeout. A job that ended with an error is marked as failed.
+     *
+     * @param jobId   the id of the job
+     * @param context Function context
+     */
+    @FunctionName("RecoveryJobProcessor")
+    public void processRecoveryJob(
+            @QueueTrigger(
+                    name = "QueueRecoveryJob",
+                    queueName = "%RECOVERY_JOB_QUEUE_TOPIC%",
+                    connection = "RECEIPTS_STORAGE_CONN_STRING")
+            String jobId,
+            final ExecutionContext context) {
+        logger.info("[{}] function called at {} for job {}", context.getFunctionName(), LocalDateTime.now(), jobId);
+
+        RecoveryJob job = this.recoveryJobService.getJob(jobId);
+        if (job == null) {
+            logger.error("[{}] Recovery job {} not found", context.getFunctionName(), jobId);
+            return;
+        }
+        if (RecoveryJobServiceImpl.isEnded(job)) {
+            logger.info("[{}] Recovery job {} already ended with state {}", context.getFunctionName(), jobId, job.getState());
+            return;
+        }
+        if (job.isCancelRequested()) {
+            this.recoveryJobService.completeJob(job, RecoveryJobState.CANCELLED, job.getSucceeded(), job.getFailed(), null);
+            return;
+        }
+
+        RecoveryJob runningJob = this.recoveryJobService.startJob(job);
+        RecoveryJobCheckpointer checkpointer =
+                RecoveryJobCheckpointer.open(runningJob, this.receiptCosmosService, this.recoveryJobService);
+        try {
+            JobOutcome outcome = runJob(runningJob, checkpointer, context);
+            if (outcome.interrupted()) {
+                this.recoveryJobService.requeueJob(runningJob, outcome.succeeded(), outcome.failed());
+                logger.info("[{}] Recovery job {} reached its time budget and was queued again: {} recovered, {} errors",
+                        context.getFunctionName(), jobId, outcome.succeeded(), outcome.failed());
+                return;
+            }
+            this.recoveryJobService.completeJob(runningJob, RecoveryJobState.COMPLETED,
+                    outcome.succeeded(), outcome.failed(), null);
+            logger.info("[{}] Recovery job {} completed: {} recovered, {} errors",
+                    context.getFunctionName(), jobId, outcome.succeeded(), outcome.failed());
+        } catch (RecoveryJobCancelledException e) {
+            logger.info("[{}] Recovery job {} cancelled", context.getFunctionName(), jobId);
+            checkpointer.complete();
+            this.recoveryJobService.completeJob(runningJob, RecoveryJobState.CANCELLED,
+                    checkpointer.getSucceeded(), checkpointer.getFailed(), null);
+        } catch (Exception e) {
+            logger.error("[{}] Recovery job {} failed", context.getFunctionName(), jobId, e);
+            checkpointer.complete();
+            this.recoveryJobService.completeJob(runningJob, RecoveryJobState.FAILED,
+                    checkpointer.getSucceeded(), checkpointer.getFailed(), e.getMessage());
+        }
+    }
+
+    private JobOutcome runJob(RecoveryJob job, RecoveryJobCheckpointer checkpointer, ExecutionContext context) {
+        switch (job.getType()) {
+            case "RecoverFailedReceiptMassive" -> {
+                MassiveRecoverResult result = massiveRecoverByStatus(context, this.bizEventToReceiptService,
+                        this.bizEventCosmosClient, this.receiptCosmosService, logger,
+                        ReceiptStatusType.valueOf(job.getStatus()), checkpointer);
+                return new JobOutcome(result.getRecoveredCounter(), result.getErrorCounter(), result.isInterrupted());
+            }
+            case "RecoverNotNotifiedReceiptMassive" -> {
+                MassiveRecoverResult result = receiptMassiveRestoreByStatus(
+                        ReceiptStatusType.valueOf(job.getStatus()), this.receiptCosmosService, checkpointer);
+                return new JobOutcome(result.getRecoveredCounter(), result.getErrorCounter(), result.isInterrupted());
+            }
+            case "RecoverFailedCartMassive" -> {
+                MassiveRecoverCartResult result = massiveRecoverCartByStatus(context, this.bizEventToReceiptService,
+                        this.cartReceiptsCosmosClient, logger, CartStatusType.valueOf(job.getStatus()), checkpointer);
+                return new JobOutcome(result.getRecoveredCounter(), result.getErrorCounter(), result.isInterrupted());
+            }
+            default -> throw new IllegalArgumentException(String.format("Unknown recovery job type %s", job.getType()));
+        }
+    }
+
+    private record JobOutcome(int succeeded, int failed, boolean interrupted) {
+    }
+}
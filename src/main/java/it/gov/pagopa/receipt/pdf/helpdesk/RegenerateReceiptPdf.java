@@ -184,9 +184,12 @@ public class RegenerateReceiptPdf {
 
     		//Generate and save PDF
     		PdfGeneration pdfGeneration;
-    		Path workingDirPath = Path.of("-");
+    		Path workingDirPath = null;
     		try {
-    			workingDirPath = createWorkingDirectory();
+    			//In streaming mode the PDFs are piped to the Blob Storage without a working directory
+    			if (!isPdfStreamingEnabled()) {
+    				workingDirPath = createWorkingDirectory();
+    			}
 
     			pdfGeneration = generateReceiptPdfService.generateReceipts(receipt, isCart ?
     					listBizEvent : Collections.singletonList(bizEvent), workingDirPath);
@@ -217,7 +220,9 @@ public class RegenerateReceiptPdf {
     							.build())
     					.build();
     		} finally {
-    			deleteTempFolder(workingDirPath, logger);
+    			if (workingDirPath != null) {
+    				deleteTempFolder(workingDirPath, logger);
+    			}
     		}
 
     	}
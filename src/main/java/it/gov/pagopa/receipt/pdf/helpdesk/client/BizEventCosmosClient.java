@@ -4,6 +4,9 @@ import com.azure.cosmos.models.FeedResponse;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.BizEvent;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.BizEventNotFoundException;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface BizEventCosmosClient {
 
     /**
@@ -34,4 +37,13 @@ public interface BizEventCosmosClient {
      * @return a list of biz-event document
      */
     Iterable<FeedResponse<BizEvent>> getAllBizEventDocument(String transactionId, String continuationToken, Integer pageSize);
+
+    /**
+     * Retrieve the biz-event documents with the given ids from CosmosDB database
+     *
+     * @param operation the name of the operation the retrieval is recorded under in the metrics
+     * @param eventIds  the biz-event ids
+     * @return the biz-event documents found, the missing ones are ignored
+     */
+    List<BizEvent> getBizEventDocuments(String operation, Collection<String> eventIds);
 }
@@ -18,6 +18,14 @@ public interface CartReceiptsCosmosClient {
 
     CosmosItemResponse<CartForReceipt> saveCart(CartForReceipt receipt);
 
+    /**
+     * Create or replace the cart on Cosmos
+     *
+     * @param cart the cart
+     * @return the upsert response
+     */
+    CosmosItemResponse<CartForReceipt> upsertCart(CartForReceipt cart);
+
     Iterable<FeedResponse<CartForReceipt>> getFailedCarts(String continuationToken, int size);
 
     Iterable<FeedResponse<CartForReceipt>> getInsertedCarts(String continuationToken, int size);
@@ -1,5 +1,6 @@
 package it.gov.pagopa.receipt.pdf.helpdesk.client;
 
+import com.azure.core.util.BinaryData;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.BlobStorageClientException;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.response.BlobStorageResponse;
 
@@ -9,5 +10,6 @@ import java.io.InputStream;
 public interface ReceiptBlobClient {
 
     BlobStorageResponse savePdfToBlobStorage(InputStream pdf, String fileName);
+    BlobStorageResponse savePdfDataToBlobStorage(BinaryData pdf, String fileName);
     File getAttachmentFromBlobStorage(String fileName) throws BlobStorageClientException;
 }
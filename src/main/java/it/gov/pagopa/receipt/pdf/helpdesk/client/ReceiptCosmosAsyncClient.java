@@ -0,0 +1,72 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.client;
+
+import com.azure.cosmos.models.FeedResponse;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptSummary;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking client for the receipts scanned by the massive recovery.
+ * <p>
+ * The paged methods return a cold {@link Flux}: every page is requested to CosmosDB only when the subscriber asks
+ * for it, so the consumer controls how many pages are prefetched.
+ */
+public interface ReceiptCosmosAsyncClient {
+
+    /**
+     * Retrieve the failed receipt documents with {@link ReceiptStatusType#INSERTED} status
+     *
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return the pages of receipt documents
+     */
+    Flux<FeedResponse<Receipt>> getInsertedReceiptDocumentsAsync(String continuationToken, Integer pageSize);
+
+    /**
+     * Retrieve the failed receipt documents with {@link ReceiptStatusType#FAILED} or
+     * {@link ReceiptStatusType#NOT_QUEUE_SENT} status
+     *
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return the pages of receipt documents
+     */
+    Flux<FeedResponse<Receipt>> getFailedReceiptDocumentsAsync(String continuationToken, Integer pageSize);
+
+    /**
+     * Retrieve the summary of the receipt documents with {@link ReceiptStatusType#INSERTED} status
+     *
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return the pages of receipt summaries
+     */
+    Flux<FeedResponse<ReceiptSummary>> getInsertedReceiptSummariesAsync(String continuationToken, Integer pageSize);
+
+    /**
+     * Retrieve the summary of the receipt documents with {@link ReceiptStatusType#FAILED} or
+     * {@link ReceiptStatusType#NOT_QUEUE_SENT} status
+     *
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return the pages of receipt summaries
+     */
+    Flux<FeedResponse<ReceiptSummary>> getFailedReceiptSummariesAsync(String continuationToken, Integer pageSize);
+
+    /**
+     * Retrieve the not notified receipt documents with {@link ReceiptStatusType#GENERATED}
+     *
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return the pages of receipt documents
+     */
+    Flux<FeedResponse<Receipt>> getGeneratedReceiptDocumentsAsync(String continuationToken, Integer pageSize);
+
+    /**
+     * Retrieve the receipt not notified documents with {@link ReceiptStatusType#IO_ERROR_TO_NOTIFY}
+     *
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return the pages of receipt documents
+     */
+    Flux<FeedResponse<Receipt>> getIOErrorToNotifyReceiptDocumentsAsync(String continuationToken, Integer pageSize);
+}
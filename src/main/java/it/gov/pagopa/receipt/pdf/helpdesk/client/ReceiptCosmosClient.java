@@ -1,17 +1,37 @@
 package it.gov.pagopa.receipt.pdf.helpdesk.client;
 
+import com.azure.cosmos.models.CosmosBulkOperationResponse;
 import com.azure.cosmos.models.CosmosItemResponse;
+import com.azure.cosmos.models.CosmosPatchOperations;
+import com.azure.cosmos.models.FeedRange;
 import com.azure.cosmos.models.FeedResponse;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.IOMessage;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptError;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptRecoveryCandidate;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryCheckpoint;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryLease;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptSummary;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.IoMessageNotFoundException;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.ReceiptNotFoundException;
 
+import java.util.List;
+
 public interface ReceiptCosmosClient {
 
     Receipt getReceiptDocument(String eventId) throws ReceiptNotFoundException;
+
+    /**
+     * Retrieve the receipt document with a point read on its id
+     *
+     * @param receiptId the receipt id
+     * @return receipt document
+     * @throws ReceiptNotFoundException in case no receipt has been found with the given id
+     */
+    Receipt getReceiptDocumentById(String receiptId) throws ReceiptNotFoundException;
+
     /**
      * Retrieve the failed receipt documents with {@link ReceiptStatusType#INSERTED} status
      *
@@ -21,6 +41,16 @@ public interface ReceiptCosmosClient {
      */
     Iterable<FeedResponse<Receipt>> getInsertedReceiptDocuments(String continuationToken, Integer pageSize);
 
+    /**
+     * Retrieve the failed receipt documents with {@link ReceiptStatusType#INSERTED} status in the given feed range
+     *
+     * @param feedRange the range of the receipt container to query
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return receipt documents
+     */
+    Iterable<FeedResponse<Receipt>> getInsertedReceiptDocuments(FeedRange feedRange, String continuationToken, Integer pageSize);
+
     /**
      * Retrieve the failed receipt documents with {@link ReceiptStatusType#FAILED} or
      * {@link ReceiptStatusType#NOT_QUEUE_SENT} status
@@ -31,8 +61,102 @@ public interface ReceiptCosmosClient {
      */
     Iterable<FeedResponse<Receipt>> getFailedReceiptDocuments(String continuationToken, Integer pageSize);
 
+    /**
+     * Retrieve the failed receipt documents with {@link ReceiptStatusType#FAILED} or
+     * {@link ReceiptStatusType#NOT_QUEUE_SENT} status in the given feed range
+     *
+     * @param feedRange the range of the receipt container to query
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return receipt documents
+     */
+    Iterable<FeedResponse<Receipt>> getFailedReceiptDocuments(FeedRange feedRange, String continuationToken, Integer pageSize);
+
+    /**
+     * Retrieve the feed ranges of the receipt container, every range can be queried independently from the others
+     *
+     * @return the feed ranges
+     */
+    List<FeedRange> getReceiptFeedRanges();
+
+    /**
+     * Retrieve the summary of the receipt documents with {@link ReceiptStatusType#INSERTED} status
+     *
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return receipt summaries
+     */
+    Iterable<FeedResponse<ReceiptSummary>> getInsertedReceiptSummaries(String continuationToken, Integer pageSize);
+
+    /**
+     * Retrieve the summary of the receipt documents with {@link ReceiptStatusType#INSERTED} status in the given feed range
+     *
+     * @param feedRange the range of the receipt container to query
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return receipt summaries
+     */
+    Iterable<FeedResponse<ReceiptSummary>> getInsertedReceiptSummaries(FeedRange feedRange, String continuationToken, Integer pageSize);
+
+    /**
+     * Retrieve the summary of the receipt documents with {@link ReceiptStatusType#FAILED} or
+     * {@link ReceiptStatusType#NOT_QUEUE_SENT} status
+     *
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return receipt summaries
+     */
+    Iterable<FeedResponse<ReceiptSummary>> getFailedReceiptSummaries(String continuationToken, Integer pageSize);
+
+    /**
+     * Retrieve the summary of the receipt documents with {@link ReceiptStatusType#FAILED} or
+     * {@link ReceiptStatusType#NOT_QUEUE_SENT} status in the given feed range
+     *
+     * @param feedRange the range of the receipt container to query
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return receipt summaries
+     */
+    Iterable<FeedResponse<ReceiptSummary>> getFailedReceiptSummaries(FeedRange feedRange, String continuationToken, Integer pageSize);
+
     CosmosItemResponse<Receipt> saveReceipts(Receipt receipt);
 
+    /**
+     * Upsert the receipts on CosmosDB with a single bulk execution
+     *
+     * @param receipts the receipts to upsert
+     * @return the response of every upsert operation
+     */
+    Iterable<CosmosBulkOperationResponse<Object>> upsertReceiptsInBulk(List<Receipt> receipts);
+
+    /**
+     * Patch a receipt on CosmosDB, if it matches the filter predicate
+     *
+     * @param receiptId       the id of the receipt
+     * @param patchOperations the operations applied to the receipt
+     * @param filterPredicate the condition the receipt must satisfy to be patched, otherwise the patch fails with
+     *                        status 412 (precondition failed)
+     * @return the patch response
+     */
+    CosmosItemResponse<Receipt> patchReceipt(String receiptId, CosmosPatchOperations patchOperations, String filterPredicate);
+
+    /**
+     * Patch the receipts on CosmosDB with a single bulk execution.
+     * <p>
+     * Every patch is applied only if the receipt still has the etag of the provided summary and matches the filter
+     * predicate, otherwise its response has status 412 (precondition failed).
+     *
+     * @param receipts the summaries of the receipts to patch, with their etag
+     * @param patchOperations the operations applied to every receipt
+     * @param filterPredicate the condition the receipts must satisfy to be patched
+     * @return the response of every patch operation
+     */
+    Iterable<CosmosBulkOperationResponse<Object>> patchReceiptsInBulk(
+            List<ReceiptSummary> receipts,
+            CosmosPatchOperations patchOperations,
+            String filterPredicate
+    );
+
     ReceiptError getReceiptError(String bizEventId) throws  ReceiptNotFoundException;
 
     Iterable<FeedResponse<ReceiptError>> getToReviewReceiptsError(String continuationToken, Integer pageSize);
@@ -46,6 +170,16 @@ public interface ReceiptCosmosClient {
      */
     Iterable<FeedResponse<Receipt>> getGeneratedReceiptDocuments(String continuationToken, Integer pageSize);
 
+    /**
+     * Retrieve the not notified receipt documents with {@link ReceiptStatusType#GENERATED} in the given feed range
+     *
+     * @param feedRange the range of the receipt container to query
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return receipt documents
+     */
+    Iterable<FeedResponse<Receipt>> getGeneratedReceiptDocuments(FeedRange feedRange, String continuationToken, Integer pageSize);
+
     /**
      * Retrieve the receipt not notified documents with {@link ReceiptStatusType#IO_ERROR_TO_NOTIFY}
      *
@@ -55,7 +189,169 @@ public interface ReceiptCosmosClient {
      */
     Iterable<FeedResponse<Receipt>> getIOErrorToNotifyReceiptDocuments(String continuationToken, Integer pageSize);
 
+    /**
+     * Retrieve the receipt not notified documents with {@link ReceiptStatusType#IO_ERROR_TO_NOTIFY} in the given
+     * feed range
+     *
+     * @param feedRange the range of the receipt container to query
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return receipt documents
+     */
+    Iterable<FeedResponse<Receipt>> getIOErrorToNotifyReceiptDocuments(FeedRange feedRange, String continuationToken, Integer pageSize);
+
+    /**
+     * Retrieve the summary of the not notified receipt documents with {@link ReceiptStatusType#GENERATED}
+     *
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return receipt summaries
+     */
+    Iterable<FeedResponse<ReceiptSummary>> getGeneratedReceiptSummaries(String continuationToken, Integer pageSize);
+
+    /**
+     * Retrieve the summary of the not notified receipt documents with {@link ReceiptStatusType#IO_ERROR_TO_NOTIFY}
+     *
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return receipt summaries
+     */
+    Iterable<FeedResponse<ReceiptSummary>> getIOErrorToNotifyReceiptSummaries(String continuationToken, Integer pageSize);
+
     IOMessage getIoMessage(String messageId) throws IoMessageNotFoundException;
+
+    /**
+     * Retrieve the receipt recovery candidates whose due time is passed
+     *
+     * @param now the current time in milliseconds
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return recovery candidates
+     */
+    Iterable<FeedResponse<ReceiptRecoveryCandidate>> getDueRecoveryCandidates(long now, String continuationToken, Integer pageSize);
+
+    /**
+     * Remove the candidate from the receipt recovery index
+     *
+     * @param candidate the recovery candidate
+     * @return the delete response
+     */
+    CosmosItemResponse<Object> deleteRecoveryCandidate(ReceiptRecoveryCandidate candidate);
+
+    /**
+     * Retrieve the checkpoint of a massive recovery job
+     *
+     * @param jobId the id of the job
+     * @return the checkpoint, null if the job has no checkpoint
+     */
+    RecoveryCheckpoint getRecoveryCheckpoint(String jobId);
+
+    /**
+     * Create or replace the checkpoint of a massive recovery job
+     *
+     * @param checkpoint the checkpoint
+     * @return the upsert response
+     */
+    CosmosItemResponse<RecoveryCheckpoint> upsertRecoveryCheckpoint(RecoveryCheckpoint checkpoint);
+
+    /**
+     * Remove the checkpoint of a massive recovery job
+     *
+     * @param jobId the id of the job
+     * @return the delete response
+     */
+    CosmosItemResponse<Object> deleteRecoveryCheckpoint(String jobId);
+
+    /**
+     * Create the checkpoint of a massive recovery job, the creation fails with status 409 (conflict) if the
+     * checkpoint exists
+     *
+     * @param checkpoint the checkpoint
+     * @return the create response
+     */
+    CosmosItemResponse<RecoveryCheckpoint> createRecoveryCheckpoint(RecoveryCheckpoint checkpoint);
+
+    /**
+     * Patch the checkpoint of a massive recovery job, if it matches the filter predicate
+     *
+     * @param jobId           the id of the job
+     * @param patchOperations the operations applied to the checkpoint
+     * @param filterPredicate the condition the checkpoint must satisfy to be patched, otherwise the patch fails with
+     *                        status 412 (precondition failed)
+     * @return the patch response
+     */
+    CosmosItemResponse<RecoveryCheckpoint> patchRecoveryCheckpoint(
+            String jobId,
+            CosmosPatchOperations patchOperations,
+            String filterPredicate
+    );
+
+    /**
+     * Delete the checkpoint of a massive recovery job, if it did not change since it was read, otherwise the delete
+     * fails with status 412 (precondition failed)
+     *
+     * @param checkpoint the checkpoint, with its etag
+     * @return the delete response
+     */
+    CosmosItemResponse<Object> deleteRecoveryCheckpoint(RecoveryCheckpoint checkpoint);
+
+    /**
+     * Retrieve a massive recovery job
+     *
+     * @param jobId the id of the job
+     * @return the job, null if it does not exist
+     */
+    RecoveryJob getRecoveryJob(String jobId);
+
+    /**
+     * Create a massive recovery job
+     *
+     * @param job the job
+     * @return the create response
+     */
+    CosmosItemResponse<RecoveryJob> createRecoveryJob(RecoveryJob job);
+
+    /**
+     * Patch a massive recovery job, so that the progress of the job and its cancellation do not overwrite each other
+     *
+     * @param jobId           the id of the job
+     * @param patchOperations the operations applied to the job
+     * @return the patch response, with the updated job
+     */
+    CosmosItemResponse<RecoveryJob> patchRecoveryJob(String jobId, CosmosPatchOperations patchOperations);
+
+    /**
+     * Retrieve the lease of a scheduled recovery
+     *
+     * @param leaseId the id of the lease
+     * @return the lease, null if it does not exist
+     */
+    RecoveryLease getRecoveryLease(String leaseId);
+
+    /**
+     * Create the lease of a scheduled recovery, the creation fails with status 409 (conflict) if the lease exists
+     *
+     * @param lease the lease
+     * @return the create response, with the created lease
+     */
+    CosmosItemResponse<RecoveryLease> createRecoveryLease(RecoveryLease lease);
+
+    /**
+     * Replace the lease of a scheduled recovery only if it still has the etag of the provided lease, otherwise the
+     * replace fails with status 412 (precondition failed)
+     *
+     * @param lease the new lease, with the etag of the replaced one
+     * @return the replace response, with the replaced lease
+     */
+    CosmosItemResponse<RecoveryLease> replaceRecoveryLease(RecoveryLease lease);
+
+    /**
+     * Remove the lease of a scheduled recovery only if it still has the etag of the provided lease
+     *
+     * @param lease the lease, with its etag
+     * @return the delete response
+     */
+    CosmosItemResponse<Object> deleteRecoveryLease(RecoveryLease lease);
     
     CosmosItemResponse<Object> deleteReceipt(Receipt receipt);
 }
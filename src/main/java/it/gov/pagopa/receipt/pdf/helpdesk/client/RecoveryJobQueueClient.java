@@ -0,0 +1,9 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.client;
+
+import com.azure.core.http.rest.Response;
+import com.azure.storage.queue.models.SendMessageResult;
+
+public interface RecoveryJobQueueClient {
+
+    Response<SendMessageResult> sendMessageToQueue(String messageText);
+}
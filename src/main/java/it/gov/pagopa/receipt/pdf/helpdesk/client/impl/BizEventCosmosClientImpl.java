@@ -1,16 +1,27 @@
 package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
 
 import com.azure.cosmos.CosmosClient;
-import com.azure.cosmos.CosmosClientBuilder;
 import com.azure.cosmos.CosmosContainer;
-import com.azure.cosmos.CosmosDatabase;
-import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosItemIdentity;
+import com.azure.cosmos.models.CosmosItemResponse;
 import com.azure.cosmos.models.FeedResponse;
+import com.azure.cosmos.models.PartitionKey;
+import com.azure.cosmos.models.SqlParameter;
 import com.azure.cosmos.util.CosmosPagedIterable;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.BizEventCosmosClient;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.BizEvent;
-import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.enumeration.BizEventStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.BizEventNotFoundException;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.CosmosMetricsUtils;
+import org.apache.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static it.gov.pagopa.receipt.pdf.helpdesk.client.query.BizEventQueries.*;
 
 /**
  * Client for the CosmosDB database
@@ -21,17 +32,20 @@ public class BizEventCosmosClientImpl implements BizEventCosmosClient {
 
     private final String databaseId = System.getenv("COSMOS_BIZ_EVENT_DB_NAME");
     private final String containerId = System.getenv("COSMOS_BIZ_EVENT_CONTAINER_NAME");
+    private final String partitionKeyPath = System.getenv().getOrDefault("COSMOS_BIZ_EVENT_PARTITION_KEY_PATH", "");
+
+    private static final String ID_PARTITION_KEY_PATH = "/id";
 
     private final CosmosClient cosmosClient;
+    private final Map<String, CosmosContainer> containers = new ConcurrentHashMap<>();
 
     private BizEventCosmosClientImpl() {
         String azureKey = System.getenv("COSMOS_BIZ_EVENT_KEY");
         String serviceEndpoint = System.getenv("COSMOS_BIZ_EVENT_SERVICE_ENDPOINT");
 
-        this.cosmosClient = new CosmosClientBuilder()
-                .endpoint(serviceEndpoint)
-                .key(azureKey)
-                .buildClient();
+        CosmosConnectionManager connectionManager = CosmosConnectionManager.getInstance();
+        this.cosmosClient = connectionManager.getClient(serviceEndpoint, azureKey, null);
+        connectionManager.prewarm(getContainer(containerId));
     }
 
     public BizEventCosmosClientImpl(CosmosClient cosmosClient) {
@@ -47,18 +61,46 @@ public class BizEventCosmosClientImpl implements BizEventCosmosClient {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * If the container is partitioned by id (COSMOS_BIZ_EVENT_PARTITION_KEY_PATH set to /id) the document is retrieved
+     * with a point read and its status is verified by the client, otherwise with a cross-partition query.
      */
     @Override
     public BizEvent getBizEventDocument(String eventId) throws BizEventNotFoundException {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(containerId);
+        CosmosContainer cosmosContainer = getContainer(containerId);
 
-        //Build query
-        String query = String.format("SELECT * FROM c WHERE c.eventStatus IN ('%s','%s') AND c.id = '%s'", BizEventStatusType.DONE, BizEventStatusType.INGESTED, eventId);
+        if (ID_PARTITION_KEY_PATH.equals(this.partitionKeyPath)) {
+            return readBizEventDocument(cosmosContainer, eventId);
+        }
+        return queryBizEventDocument(cosmosContainer, eventId);
+    }
 
+    private BizEvent readBizEventDocument(CosmosContainer cosmosContainer, String eventId) throws BizEventNotFoundException {
+        long start = System.nanoTime();
+        CosmosItemResponse<BizEvent> response;
+        try {
+            response = cosmosContainer.readItem(eventId, new PartitionKey(eventId), BizEvent.class);
+        } catch (CosmosException e) {
+            CosmosMetricsUtils.recordFailure(containerId, GET_BIZ_EVENT_OPERATION, CosmosMetricsUtils.PATH_POINT_READ, start, e);
+            if (e.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+                throw new BizEventNotFoundException("Document not found in the defined container", e);
+            }
+            throw e;
+        }
+        CosmosMetricsUtils.recordOperation(containerId, GET_BIZ_EVENT_OPERATION, CosmosMetricsUtils.PATH_POINT_READ, start,
+                response.getRequestCharge(), response.getDiagnostics());
+
+        BizEvent bizEvent = response.getItem();
+        if (bizEvent == null || !VALID_STATUSES.contains(bizEvent.getEventStatus())) {
+            throw new BizEventNotFoundException("Document not found in the defined container");
+        }
+        return bizEvent;
+    }
+
+    private BizEvent queryBizEventDocument(CosmosContainer cosmosContainer, String eventId) throws BizEventNotFoundException {
         //Query the container
-        CosmosPagedIterable<BizEvent> queryResponse = cosmosContainer
-                .queryItems(query, new CosmosQueryRequestOptions(), BizEvent.class);
+        CosmosPagedIterable<BizEvent> queryResponse = BIZ_EVENT_BY_ID.execute(cosmosContainer,
+                new SqlParameter("@eventId", eventId));
 
         if (queryResponse.iterator().hasNext()) {
             return queryResponse.iterator().next();
@@ -69,16 +111,12 @@ public class BizEventCosmosClientImpl implements BizEventCosmosClient {
 
     @Override
     public BizEvent getBizEventDocumentByOrganizationFiscalCodeAndIUV(String organizationFiscalCode, String iuv) throws BizEventNotFoundException {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(containerId);
-
-        //Build query
-        String query = String.format("SELECT * FROM c WHERE c.creditor.idPA = '%s' AND c.debtorPosition.iuv = '%s'",
-                organizationFiscalCode, iuv);
+        CosmosContainer cosmosContainer = getContainer(containerId);
 
         //Query the container
-        CosmosPagedIterable<BizEvent> queryResponse = cosmosContainer
-                .queryItems(query, new CosmosQueryRequestOptions(), BizEvent.class);
+        CosmosPagedIterable<BizEvent> queryResponse = BIZ_EVENT_BY_ORGANIZATION_FISCAL_CODE_AND_IUV.execute(cosmosContainer,
+                new SqlParameter("@organizationFiscalCode", organizationFiscalCode),
+                new SqlParameter("@iuv", iuv));
 
         if (queryResponse.iterator().hasNext()) {
             return queryResponse.iterator().next();
@@ -91,17 +129,44 @@ public class BizEventCosmosClientImpl implements BizEventCosmosClient {
      */
     @Override
     public Iterable<FeedResponse<BizEvent>> getAllBizEventDocument(String transactionId, String continuationToken, Integer pageSize) {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(containerId);
-
-        //Build query
-        String query = String.format("SELECT * FROM c WHERE c.transactionDetails.transaction.transactionId = '%s'",
-                transactionId);
+        CosmosContainer cosmosContainer = getContainer(containerId);
 
         //Query the container
-        return cosmosContainer
-                .queryItems(query, new CosmosQueryRequestOptions(), BizEvent.class)
+        return BIZ_EVENTS_BY_TRANSACTION_ID.execute(cosmosContainer, new SqlParameter("@transactionId", transactionId))
                 .iterableByPage(continuationToken, pageSize);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the container is partitioned by id (COSMOS_BIZ_EVENT_PARTITION_KEY_PATH set to /id) the documents are
+     * retrieved with a single read-many, otherwise with a cross-partition query.
+     */
+    @Override
+    public List<BizEvent> getBizEventDocuments(String operation, Collection<String> eventIds) {
+        CosmosContainer cosmosContainer = getContainer(containerId);
+
+        if (ID_PARTITION_KEY_PATH.equals(this.partitionKeyPath)) {
+            long start = System.nanoTime();
+            FeedResponse<BizEvent> response = cosmosContainer.readMany(toItemIdentities(eventIds), BizEvent.class);
+            CosmosMetricsUtils.recordOperation(containerId, operation, CosmosMetricsUtils.PATH_READ_MANY, start,
+                    response.getRequestCharge(), response.getCosmosDiagnostics());
+            return response.getResults();
+        }
+        List<BizEvent> bizEventList = new ArrayList<>();
+        BIZ_EVENTS_BY_IDS.withName(operation).execute(cosmosContainer, new SqlParameter("@eventIds", eventIds))
+                .forEach(bizEventList::add);
+        return bizEventList;
+    }
+
+    private static List<CosmosItemIdentity> toItemIdentities(Collection<String> eventIds) {
+        return eventIds.stream()
+                .map(eventId -> new CosmosItemIdentity(new PartitionKey(eventId), eventId))
+                .toList();
+    }
+
+    private CosmosContainer getContainer(String container) {
+        return this.containers.computeIfAbsent(String.valueOf(container),
+                k -> this.cosmosClient.getDatabase(databaseId).getContainer(container));
+    }
 }
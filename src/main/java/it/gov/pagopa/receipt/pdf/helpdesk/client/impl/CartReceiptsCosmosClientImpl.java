@@ -2,21 +2,23 @@ package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
 
 import com.azure.cosmos.ConsistencyLevel;
 import com.azure.cosmos.CosmosClient;
-import com.azure.cosmos.CosmosClientBuilder;
 import com.azure.cosmos.CosmosContainer;
-import com.azure.cosmos.CosmosDatabase;
 import com.azure.cosmos.models.CosmosItemResponse;
-import com.azure.cosmos.models.CosmosQueryRequestOptions;
 import com.azure.cosmos.models.FeedResponse;
+import com.azure.cosmos.models.SqlParameter;
 import com.azure.cosmos.util.CosmosPagedIterable;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.CartReceiptsCosmosClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.query.CosmosQuery;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartForReceipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.CartNotFoundException;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.CosmosMetricsUtils;
 
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CartReceiptsCosmosClientImpl implements CartReceiptsCosmosClient {
 
@@ -28,17 +30,28 @@ public class CartReceiptsCosmosClientImpl implements CartReceiptsCosmosClient {
 
     private final String numDaysCartNotSent = System.getenv().getOrDefault("RECOVER_CART_MASSIVE_MAX_DAYS", "0");
 
+    private static final String SAVE_CART_OPERATION = "saveCart";
+    private static final String UPSERT_CART_OPERATION = "upsertCart";
+    private static final CosmosQuery<CartForReceipt> CART_BY_ID = CosmosQuery.of("getCartItem",
+            "SELECT * FROM c WHERE c.id = @cartId", CartForReceipt.class);
+    private static final CosmosQuery<CartForReceipt> FAILED_CARTS = CosmosQuery.of("getFailedCarts",
+            String.format("SELECT * FROM c WHERE (c.status = '%s') AND c.inserted_at >= @minInsertedAt", CartStatusType.FAILED),
+            CartForReceipt.class);
+    private static final CosmosQuery<CartForReceipt> INSERTED_CARTS = CosmosQuery.of("getInsertedCarts",
+            String.format("SELECT * FROM c WHERE (c.status = '%s' AND c.inserted_at >= @minInsertedAt " +
+                    "AND (@now - c.inserted_at) >= @minAgeMillis)", ReceiptStatusType.INSERTED),
+            CartForReceipt.class);
+
     private final CosmosClient cosmosClient;
+    private final Map<String, CosmosContainer> containers = new ConcurrentHashMap<>();
 
     private CartReceiptsCosmosClientImpl() {
         String azureKey = System.getenv("COSMOS_RECEIPT_KEY");
         String serviceEndpoint = System.getenv("COSMOS_RECEIPT_SERVICE_ENDPOINT");
 
-        this.cosmosClient = new CosmosClientBuilder()
-                .endpoint(serviceEndpoint)
-                .key(azureKey)
-                .consistencyLevel(ConsistencyLevel.STRONG)
-                .buildClient();
+        CosmosConnectionManager connectionManager = CosmosConnectionManager.getInstance();
+        this.cosmosClient = connectionManager.getClient(serviceEndpoint, azureKey, ConsistencyLevel.STRONG);
+        connectionManager.prewarm(getContainer(cartForReceiptContainerName));
     }
 
     public CartReceiptsCosmosClientImpl(CosmosClient cosmosClient) {
@@ -58,15 +71,11 @@ public class CartReceiptsCosmosClientImpl implements CartReceiptsCosmosClient {
      */
     @Override
     public CartForReceipt getCartItem(String cartId) throws CartNotFoundException {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(cartForReceiptContainerName);
-
-        //Build query
-        String query = String.format("SELECT * FROM c WHERE c.id = '%s'", cartId);
+        CosmosContainer cosmosContainer = getContainer(cartForReceiptContainerName);
 
         //Query the container
-        CosmosPagedIterable<CartForReceipt> queryResponse = cosmosContainer
-                .queryItems(query, new CosmosQueryRequestOptions(), CartForReceipt.class);
+        CosmosPagedIterable<CartForReceipt> queryResponse = CART_BY_ID.execute(cosmosContainer,
+                new SqlParameter("@cartId", cartId));
 
         if (queryResponse.iterator().hasNext()) {
             return queryResponse.iterator().next();
@@ -82,45 +91,51 @@ public class CartReceiptsCosmosClientImpl implements CartReceiptsCosmosClient {
      */
     @Override
     public CosmosItemResponse<CartForReceipt> saveCart(CartForReceipt receipt)  {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(cartForReceiptContainerName);
-        return cosmosContainer.createItem(receipt);
+        CosmosContainer cosmosContainer = getContainer(cartForReceiptContainerName);
+        return CosmosMetricsUtils.recordItemOperation(cartForReceiptContainerName, SAVE_CART_OPERATION,
+                CosmosMetricsUtils.PATH_WRITE, () -> cosmosContainer.createItem(receipt));
     }
 
+    /**
+     * {@inheritDoc}
+     */
     @Override
-    public Iterable<FeedResponse<CartForReceipt>> getFailedCarts(String continuationToken, int size) {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(cartForReceiptContainerName);
+    public CosmosItemResponse<CartForReceipt> upsertCart(CartForReceipt cart) {
+        CosmosContainer cosmosContainer = getContainer(cartForReceiptContainerName);
+        return CosmosMetricsUtils.recordItemOperation(cartForReceiptContainerName, UPSERT_CART_OPERATION,
+                CosmosMetricsUtils.PATH_WRITE, () -> cosmosContainer.upsertItem(cart));
+    }
 
-        //Build query
-        String query = String.format("SELECT * FROM c WHERE (c.status = '%s') AND c.inserted_at >= %s",
-                CartStatusType.FAILED,
-                OffsetDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(
-                        Long.parseLong(numDaysCartNotSent)).toInstant().toEpochMilli());
+    @Override
+    public Iterable<FeedResponse<CartForReceipt>> getFailedCarts(String continuationToken, int size) {
+        CosmosContainer cosmosContainer = getContainer(cartForReceiptContainerName);
 
         //Query the container
-        return cosmosContainer
-                .queryItems(query, new CosmosQueryRequestOptions(), CartForReceipt.class)
+        return FAILED_CARTS.execute(cosmosContainer,
+                        new SqlParameter("@minInsertedAt", OffsetDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(
+                                Long.parseLong(numDaysCartNotSent)).toInstant().toEpochMilli()))
                 .iterableByPage(continuationToken,size);
     }
 
     @Override
     public Iterable<FeedResponse<CartForReceipt>> getInsertedCarts(String continuationToken, int size) {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(cartForReceiptContainerName);
-
-        //Build query
-        String query =  String.format("SELECT * FROM c WHERE (c.status = '%s' AND c.inserted_at >= %s " +
-                        "AND ( %s - c.inserted_at) >= %s)",
-                ReceiptStatusType.INSERTED,
-                OffsetDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(
-                        Long.parseLong(numDaysCartNotSent)).toInstant().toEpochMilli(),
-                OffsetDateTime.now().toInstant().toEpochMilli(), millisDiff);
+        CosmosContainer cosmosContainer = getContainer(cartForReceiptContainerName);
 
         //Query the container
-        return cosmosContainer
-                .queryItems(query, new CosmosQueryRequestOptions(), CartForReceipt.class)
+        return INSERTED_CARTS.execute(cosmosContainer,
+                        new SqlParameter("@minInsertedAt", OffsetDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(
+                                Long.parseLong(numDaysCartNotSent)).toInstant().toEpochMilli()),
+                        new SqlParameter("@now", OffsetDateTime.now().toInstant().toEpochMilli()),
+                        new SqlParameter("@minAgeMillis", toLongOrNull(millisDiff)))
                 .iterableByPage(continuationToken,100);
     }
 
+    private static Long toLongOrNull(String value) {
+        return value != null ? Long.valueOf(value) : null;
+    }
+
+    private CosmosContainer getContainer(String container) {
+        return this.containers.computeIfAbsent(String.valueOf(container),
+                k -> this.cosmosClient.getDatabase(databaseId).getContainer(container));
+    }
 }
@@ -0,0 +1,143 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
+
+import com.azure.cosmos.ConnectionMode;
+import com.azure.cosmos.ConsistencyLevel;
+import com.azure.cosmos.CosmosAsyncClient;
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosClient;
+import com.azure.cosmos.CosmosClientBuilder;
+import com.azure.cosmos.CosmosContainer;
+import com.azure.cosmos.DirectConnectionConfig;
+import com.azure.cosmos.GatewayConnectionConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Manager of the CosmosDB connections shared by all the Cosmos clients.
+ * <p>
+ * A single {@link CosmosClient} (and {@link CosmosAsyncClient}) is built for every endpoint and consistency level,
+ * configured with the connection mode, the preferred regions and the connection pool sizes from the environment.
+ */
+public class CosmosConnectionManager {
+
+    private static CosmosConnectionManager instance;
+
+    private final Logger logger = LoggerFactory.getLogger(CosmosConnectionManager.class);
+
+    private final ConnectionMode connectionMode = ConnectionMode.valueOf(
+            System.getenv().getOrDefault("COSMOS_CONNECTION_MODE", ConnectionMode.DIRECT.name()).toUpperCase(Locale.ROOT));
+    private final String preferredRegions = System.getenv().getOrDefault("COSMOS_PREFERRED_REGIONS", "");
+    private final int directMaxConnectionsPerEndpoint = Integer.parseInt(
+            System.getenv().getOrDefault("COSMOS_DIRECT_MAX_CONNECTIONS_PER_ENDPOINT", "130"));
+    private final int gatewayMaxConnectionPoolSize = Integer.parseInt(
+            System.getenv().getOrDefault("COSMOS_GATEWAY_MAX_CONNECTION_POOL_SIZE", "1000"));
+    private final boolean prewarmEnabled = Boolean.parseBoolean(
+            System.getenv().getOrDefault("COSMOS_PREWARM_ENABLED", "true"));
+
+    private final Map<String, CosmosClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, CosmosAsyncClient> asyncClients = new ConcurrentHashMap<>();
+
+    CosmosConnectionManager() {
+    }
+
+    public static CosmosConnectionManager getInstance() {
+        if (instance == null) {
+            instance = new CosmosConnectionManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Retrieve the client connected to the given endpoint, building it on the first invocation
+     *
+     * @param serviceEndpoint  the CosmosDB endpoint
+     * @param key              the CosmosDB key
+     * @param consistencyLevel the consistency level of the client, null to use the account default
+     * @return the shared client
+     */
+    public CosmosClient getClient(String serviceEndpoint, String key, ConsistencyLevel consistencyLevel) {
+        return this.clients.computeIfAbsent(clientKey(serviceEndpoint, consistencyLevel),
+                k -> newClientBuilder(serviceEndpoint, key, consistencyLevel).buildClient());
+    }
+
+    /**
+     * Retrieve the non-blocking client connected to the given endpoint, building it on the first invocation
+     *
+     * @param serviceEndpoint  the CosmosDB endpoint
+     * @param key              the CosmosDB key
+     * @param consistencyLevel the consistency level of the client, null to use the account default
+     * @return the shared client
+     */
+    public CosmosAsyncClient getAsyncClient(String serviceEndpoint, String key, ConsistencyLevel consistencyLevel) {
+        return this.asyncClients.computeIfAbsent(clientKey(serviceEndpoint, consistencyLevel),
+                k -> newClientBuilder(serviceEndpoint, key, consistencyLevel).buildAsyncClient());
+    }
+
+    /**
+     * Open the connections to the given container and initialize the SDK caches, so that the first request does not
+     * pay the cold-start latency. A failure is only logged, the connections are opened anyway by the first request.
+     *
+     * @param container the container
+     */
+    public void prewarm(CosmosContainer container) {
+        if (!this.prewarmEnabled) {
+            return;
+        }
+        try {
+            container.openConnectionsAndInitCaches();
+        } catch (RuntimeException e) {
+            logger.warn("Unable to pre-warm the CosmosDB container {}", container.getId(), e);
+        }
+    }
+
+    /**
+     * Open the connections to the given container and initialize the SDK caches without waiting for the result.
+     * A failure is only logged, the connections are opened anyway by the first request.
+     *
+     * @param container the container
+     */
+    public void prewarm(CosmosAsyncContainer container) {
+        if (!this.prewarmEnabled) {
+            return;
+        }
+        container.openConnectionsAndInitCaches()
+                .subscribe(null, e -> logger.warn("Unable to pre-warm the CosmosDB container {}", container.getId(), e));
+    }
+
+    CosmosClientBuilder newClientBuilder(String serviceEndpoint, String key, ConsistencyLevel consistencyLevel) {
+        CosmosClientBuilder builder = new CosmosClientBuilder()
+                .endpoint(serviceEndpoint)
+                .key(key);
+
+        if (consistencyLevel != null) {
+            builder.consistencyLevel(consistencyLevel);
+        }
+
+        if (this.connectionMode == ConnectionMode.GATEWAY) {
+            builder.gatewayMode(new GatewayConnectionConfig()
+                    .setMaxConnectionPoolSize(this.gatewayMaxConnectionPoolSize));
+        } else {
+            builder.directMode(new DirectConnectionConfig()
+                    .setMaxConnectionsPerEndpoint(this.directMaxConnectionsPerEndpoint));
+        }
+
+        List<String> regions = Arrays.stream(this.preferredRegions.split(","))
+                .map(String::trim)
+                .filter(region -> !region.isEmpty())
+                .toList();
+        if (!regions.isEmpty()) {
+            builder.preferredRegions(regions);
+        }
+        return builder;
+    }
+
+    private static String clientKey(String serviceEndpoint, ConsistencyLevel consistencyLevel) {
+        return serviceEndpoint + "|" + consistencyLevel;
+    }
+}
@@ -0,0 +1,65 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
+
+import com.azure.cosmos.models.CosmosItemResponse;
+import com.azure.cosmos.models.FeedResponse;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.CartReceiptsCosmosClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartForReceipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.CartNotFoundException;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryLeaseLock;
+
+/**
+ * {@link CartReceiptsCosmosClient} of a scheduled recovery that writes the carts only while it holds its lease, see
+ * {@link RecoveryLeaseLock#checkHeld()}.
+ */
+public class LeaseFencedCartReceiptsCosmosClientImpl implements CartReceiptsCosmosClient {
+
+    private final CartReceiptsCosmosClient delegate;
+    private final RecoveryLeaseLock lease;
+
+    public LeaseFencedCartReceiptsCosmosClientImpl(CartReceiptsCosmosClient delegate, RecoveryLeaseLock lease) {
+        this.delegate = delegate;
+        this.lease = lease;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CartForReceipt getCartItem(String cartId) throws CartNotFoundException {
+        return this.delegate.getCartItem(cartId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CosmosItemResponse<CartForReceipt> saveCart(CartForReceipt receipt) {
+        this.lease.checkHeld();
+        return this.delegate.saveCart(receipt);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CosmosItemResponse<CartForReceipt> upsertCart(CartForReceipt cart) {
+        this.lease.checkHeld();
+        return this.delegate.upsertCart(cart);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<CartForReceipt>> getFailedCarts(String continuationToken, int size) {
+        return this.delegate.getFailedCarts(continuationToken, size);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<CartForReceipt>> getInsertedCarts(String continuationToken, int size) {
+        return this.delegate.getInsertedCarts(continuationToken, size);
+    }
+}
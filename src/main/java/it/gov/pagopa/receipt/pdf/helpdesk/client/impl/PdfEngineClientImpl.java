@@ -1,28 +1,46 @@
 package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
 
+import io.micrometer.core.instrument.Gauge;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.PdfEngineClient;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.PdfEngineErrorResponse;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.TemplateBundle;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.request.PdfEngineRequest;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.response.PdfContent;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.response.PdfEngineResponse;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.MetricsRegistryUtils;
 import it.gov.pagopa.receipt.pdf.helpdesk.utils.ObjectMapperUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.mime.HttpMultipartMode;
+import org.apache.http.entity.mime.MIME;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+import org.apache.http.entity.mime.content.ContentBody;
 import org.apache.http.entity.mime.content.StringBody;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
 
 /**
  * Client for the PDF Engine
@@ -38,15 +56,50 @@ public class PdfEngineClientImpl implements PdfEngineClient {
     private static final String ZIP_FILE_NAME = "template.zip";
     private static final String TEMPLATE_KEY = "template";
     private static final String DATA_KEY = "data";
+    private static final ContentType ZIP_CONTENT_TYPE = ContentType.create("application/zip");
 
-    private final HttpClientBuilder httpClientBuilder;
+    private static final String POOL_METRIC_NAME = "pdf.engine.http.pool.connections";
+    private static final String POOL_METRIC_STATE_TAG = "state";
+
+    private final int poolMaxTotal = Integer.parseInt(System.getenv().getOrDefault("PDF_ENGINE_POOL_MAX_TOTAL", "20"));
+    private final int poolMaxPerRoute = Integer.parseInt(System.getenv().getOrDefault("PDF_ENGINE_POOL_MAX_PER_ROUTE", "20"));
+    private final long keepAliveMillis = Long.parseLong(System.getenv().getOrDefault("PDF_ENGINE_KEEP_ALIVE_MILLIS", "30000"));
+    private final long idleEvictionMillis = Long.parseLong(System.getenv().getOrDefault("PDF_ENGINE_IDLE_EVICTION_MILLIS", "60000"));
+    private final int validateAfterInactivityMillis = Integer.parseInt(System.getenv().getOrDefault("PDF_ENGINE_VALIDATE_AFTER_INACTIVITY_MILLIS", "2000"));
+    private final int connectTimeoutMillis = Integer.parseInt(System.getenv().getOrDefault("PDF_ENGINE_CONNECT_TIMEOUT_MILLIS", "5000"));
+    private final int socketTimeoutMillis = Integer.parseInt(System.getenv().getOrDefault("PDF_ENGINE_SOCKET_TIMEOUT_MILLIS", "120000"));
+    private final int streamingMaxInMemoryBytes = Integer.parseInt(System.getenv().getOrDefault("PDF_STREAMING_MAX_IN_MEMORY_BYTES", "10485760"));
+    private final int connectionRequestTimeoutMillis = Integer.parseInt(System.getenv().getOrDefault("PDF_ENGINE_CONNECTION_REQUEST_TIMEOUT_MILLIS", "10000"));
+
+    private final CloseableHttpClient httpClient;
 
     private PdfEngineClientImpl() {
-        this.httpClientBuilder = HttpClientBuilder.create();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(this.poolMaxTotal);
+        connectionManager.setDefaultMaxPerRoute(this.poolMaxPerRoute);
+        connectionManager.setValidateAfterInactivity(this.validateAfterInactivityMillis);
+        registerPoolGauges(connectionManager);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(this.connectTimeoutMillis)
+                .setSocketTimeout(this.socketTimeoutMillis)
+                .setConnectionRequestTimeout(this.connectionRequestTimeoutMillis)
+                .build();
+
+        this.httpClient = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return keepAlive > 0 ? keepAlive : this.keepAliveMillis;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(this.idleEvictionMillis, TimeUnit.MILLISECONDS)
+                .build();
     }
 
     PdfEngineClientImpl(HttpClientBuilder clientBuilder) {
-        this.httpClientBuilder = clientBuilder;
+        this.httpClient = clientBuilder.build();
     }
 
     public static PdfEngineClientImpl getInstance() {
@@ -58,7 +111,30 @@ public class PdfEngineClientImpl implements PdfEngineClient {
     }
 
     /**
-     * Generate the client, builds the request and returns the response
+     * Register the gauges exposing the leased, available, pending and max connections of the pool
+     *
+     * @param connectionManager the pooling connection manager
+     */
+    private static void registerPoolGauges(PoolingHttpClientConnectionManager connectionManager) {
+        registerPoolGauge(connectionManager, "leased", PoolStats::getLeased);
+        registerPoolGauge(connectionManager, "available", PoolStats::getAvailable);
+        registerPoolGauge(connectionManager, "pending", PoolStats::getPending);
+        registerPoolGauge(connectionManager, "max", PoolStats::getMax);
+    }
+
+    private static void registerPoolGauge(
+            PoolingHttpClientConnectionManager connectionManager,
+            String state,
+            ToIntFunction<PoolStats> statsValue
+    ) {
+        Gauge.builder(POOL_METRIC_NAME, connectionManager, cm -> statsValue.applyAsInt(cm.getTotalStats()))
+                .description("Connections of the PDF Engine HTTP client pool")
+                .tag(POOL_METRIC_STATE_TAG, state)
+                .register(MetricsRegistryUtils.getRegistry());
+    }
+
+    /**
+     * Builds the request with the pooled client and returns the response
      *
      * @param pdfEngineRequest Request to the client
      * @return response with the PDF or error message and the status
@@ -68,16 +144,14 @@ public class PdfEngineClientImpl implements PdfEngineClient {
 
         PdfEngineResponse pdfEngineResponse = new PdfEngineResponse();
 
-        //Generate client
-        try (CloseableHttpClient client = this.httpClientBuilder.build(); InputStream is = pdfEngineRequest.getTemplate().openStream()) {
+        try {
             //Encode template and data
-
             StringBody dataBody = new StringBody(pdfEngineRequest.getData(), ContentType.APPLICATION_JSON);
 
             //Build the multipart request
             MultipartEntityBuilder builder = MultipartEntityBuilder.create();
             builder.setMode(HttpMultipartMode.BROWSER_COMPATIBLE);
-            builder.addBinaryBody(TEMPLATE_KEY, is.readAllBytes(), ContentType.create("application/zip"), ZIP_FILE_NAME);
+            builder.addPart(TEMPLATE_KEY, buildTemplateBody(pdfEngineRequest));
             builder.addPart(DATA_KEY, dataBody);
             HttpEntity entity = builder.build();
 
@@ -86,7 +160,7 @@ public class PdfEngineClientImpl implements PdfEngineClient {
             request.setHeader(HEADER_AUTH_KEY, ocpAimSubKey);
             request.setEntity(entity);
 
-            pdfEngineResponse = handlePdfEngineResponse(client, request, workingDirPath);
+            pdfEngineResponse = handlePdfEngineResponse(this.httpClient, request, workingDirPath, pdfEngineRequest.isStreamResponse());
         } catch (IOException e) {
             handleExceptionErrorMessage(pdfEngineResponse, e);
         }
@@ -94,14 +168,33 @@ public class PdfEngineClientImpl implements PdfEngineClient {
         return pdfEngineResponse;
     }
 
+    /**
+     * Build the template part of the request, sharing the in-memory bundle if provided,
+     * otherwise reading the template from its URL
+     *
+     * @param pdfEngineRequest Request to the client
+     * @return the template part
+     * @throws IOException in case of error reading the template from the URL
+     */
+    private ContentBody buildTemplateBody(PdfEngineRequest pdfEngineRequest) throws IOException {
+        if (pdfEngineRequest.getTemplateBundle() != null) {
+            return new TemplateBundleBody(pdfEngineRequest.getTemplateBundle());
+        }
+        try (InputStream is = pdfEngineRequest.getTemplate().openStream()) {
+            return new TemplateBundleBody(TemplateBundle.of(ZIP_FILE_NAME, is.readAllBytes()));
+        }
+    }
+
     /**
      * Calls the PDF Engine and handles its response, updating the PdfEngineResponse accordingly
      *
-     * @param client  The previously generated client
+     * @param client  The pooled client
      * @param request The request to the PDF engine
+     * @param workingDirPath The directory where the PDF is saved, if not streamed
+     * @param streamResponse true if the PDF has to be kept in memory instead of being saved as temporary file
      * @return pdf engine response
      */
-    private PdfEngineResponse handlePdfEngineResponse(CloseableHttpClient client, HttpPost request, Path workingDirPath) {
+    private PdfEngineResponse handlePdfEngineResponse(CloseableHttpClient client, HttpPost request, Path workingDirPath, boolean streamResponse) {
         PdfEngineResponse pdfEngineResponse = new PdfEngineResponse();
         //Execute call
         try (CloseableHttpResponse response = client.execute(request)) {
@@ -113,12 +206,18 @@ public class PdfEngineClientImpl implements PdfEngineClient {
                 try (InputStream inputStream = entityResponse.getContent()) {
                     pdfEngineResponse.setStatusCode(HttpStatus.SC_OK);
 
-                    saveTempPdf(pdfEngineResponse, inputStream, workingDirPath);
+                    if (streamResponse) {
+                        pdfEngineResponse.setPdfContent(readPdfContent(inputStream, entityResponse.getContentLength(), workingDirPath));
+                    } else {
+                        saveTempPdf(pdfEngineResponse, inputStream, workingDirPath);
+                    }
                 }
             } else {
                 pdfEngineResponse.setStatusCode(HttpStatus.SC_INTERNAL_SERVER_ERROR);
 
                 handleErrorResponse(pdfEngineResponse, response, entityResponse);
+                //Fully consume the entity so that the connection is released to the pool
+                EntityUtils.consume(entityResponse);
             }
         } catch (Exception e) {
             handleExceptionErrorMessage(pdfEngineResponse, e);
@@ -141,6 +240,44 @@ public class PdfEngineClientImpl implements PdfEngineClient {
         pdfEngineResponse.setTempPdfPath(targetFile.getAbsolutePath());
     }
 
+    /**
+     * Reads the pdf in a bounded in-memory buffer, spilling it over to a temporary file only if bigger than
+     * the configured threshold
+     *
+     * @param inputStream    InputStream pdf
+     * @param contentLength  Length of the pdf, negative if unknown
+     * @param workingDirPath Directory of the spill-over file, if null the default temporary directory is used
+     * @return the pdf content
+     * @throws IOException In case of error reading the pdf
+     */
+    private PdfContent readPdfContent(InputStream inputStream, long contentLength, Path workingDirPath) throws IOException {
+        if (contentLength >= 0 && contentLength <= this.streamingMaxInMemoryBytes) {
+            byte[] bytes = new byte[(int) contentLength];
+            int read = inputStream.readNBytes(bytes, 0, bytes.length);
+            if (read != bytes.length) {
+                throw new IOException(String.format("PDF truncated: expected %s bytes, read %s", contentLength, read));
+            }
+            return PdfContent.inMemory(bytes);
+        }
+
+        byte[] head = inputStream.readNBytes(this.streamingMaxInMemoryBytes + 1);
+        if (head.length <= this.streamingMaxInMemoryBytes) {
+            return PdfContent.inMemory(head);
+        }
+
+        Path spillFile = workingDirPath != null ?
+                Files.createTempFile(workingDirPath, "tempFile", ".pdf") :
+                Files.createTempFile("tempFile", ".pdf");
+        try (OutputStream out = Files.newOutputStream(spillFile)) {
+            out.write(head);
+            long length = head.length + inputStream.transferTo(out);
+            return PdfContent.spilled(spillFile, length);
+        } catch (IOException e) {
+            Files.deleteIfExists(spillFile);
+            throw e;
+        }
+    }
+
     /**
      * Handles error message in case of error thrown
      *
@@ -193,4 +330,42 @@ public class PdfEngineClientImpl implements PdfEngineClient {
             pdfEngineResponse.setErrorMessage("Unknown error in PDF engine function");
         }
     }
+
+    /**
+     * Multipart body writing a template bundle straight from its read-only buffer, without copying it
+     */
+    private static class TemplateBundleBody extends AbstractContentBody {
+
+        private final TemplateBundle bundle;
+
+        TemplateBundleBody(TemplateBundle bundle) {
+            super(ZIP_CONTENT_TYPE);
+            this.bundle = bundle;
+        }
+
+        @Override
+        public String getFilename() {
+            return ZIP_FILE_NAME;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            ByteBuffer content = this.bundle.getContent();
+            WritableByteChannel channel = Channels.newChannel(out);
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            out.flush();
+        }
+
+        @Override
+        public String getTransferEncoding() {
+            return MIME.ENC_BINARY;
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.bundle.getSize();
+        }
+    }
 }
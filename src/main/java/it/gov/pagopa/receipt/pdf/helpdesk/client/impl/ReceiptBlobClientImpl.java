@@ -1,6 +1,7 @@
 package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
 
 import com.azure.core.http.rest.Response;
+import com.azure.core.util.BinaryData;
 import com.azure.core.util.Context;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
@@ -74,6 +75,21 @@ public class ReceiptBlobClientImpl implements ReceiptBlobClient {
      * @return blob storage response with PDF metadata or error message and status
      */
     public BlobStorageResponse savePdfToBlobStorage(InputStream pdf, String fileName) {
+        return uploadPdf(new BlobParallelUploadOptions(pdf), fileName);
+    }
+
+    /**
+     * Handles saving the PDF, whose length is known in advance, to the blob storage
+     *
+     * @param pdf      PDF content
+     * @param fileName Filename to save the PDF with
+     * @return blob storage response with PDF metadata or error message and status
+     */
+    public BlobStorageResponse savePdfDataToBlobStorage(BinaryData pdf, String fileName) {
+        return uploadPdf(new BlobParallelUploadOptions(pdf), fileName);
+    }
+
+    private BlobStorageResponse uploadPdf(BlobParallelUploadOptions uploadOptions, String fileName) {
 
         //Create the container and return a container client object
         BlobContainerClient blobContainerClient = this.blobServiceClient.getBlobContainerClient(containerName);
@@ -86,10 +102,7 @@ public class ReceiptBlobClientImpl implements ReceiptBlobClient {
         BlobClient blobClient = blobContainerClient.getBlobClient(fileNamePdf);
 
         //Upload the blob
-        Response<BlockBlobItem> blockBlobItemResponse = blobClient.uploadWithResponse(
-                new BlobParallelUploadOptions(
-                        pdf
-                ), null, null);
+        Response<BlockBlobItem> blockBlobItemResponse = blobClient.uploadWithResponse(uploadOptions, null, null);
 
         BlobStorageResponse blobStorageResponse = new BlobStorageResponse();
 
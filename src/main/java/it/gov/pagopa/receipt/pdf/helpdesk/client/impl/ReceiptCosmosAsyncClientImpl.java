@@ -0,0 +1,110 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
+
+import com.azure.cosmos.CosmosAsyncClient;
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.models.FeedResponse;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.ReceiptCosmosAsyncClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.ReceiptCosmosClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptSummary;
+import reactor.core.publisher.Flux;
+
+import static it.gov.pagopa.receipt.pdf.helpdesk.client.query.ReceiptQueries.*;
+
+/**
+ * Client for the CosmosDB database based on the non-blocking {@link CosmosAsyncClient}.
+ * <p>
+ * It only streams the receipts scanned by the massive recovery, every other operation goes through the blocking
+ * {@link ReceiptCosmosClient}.
+ */
+public class ReceiptCosmosAsyncClientImpl implements ReceiptCosmosAsyncClient {
+
+    private static ReceiptCosmosAsyncClientImpl instance;
+
+    private final String databaseId = System.getenv().getOrDefault("COSMOS_RECEIPT_DB_NAME", "db");
+    private final String containerId = System.getenv().getOrDefault("COSMOS_RECEIPT_CONTAINER_NAME", "receipt");
+
+    private final String millisDiff = System.getenv("MAX_DATE_DIFF_MILLIS");
+    private final String millisNotifyDif = System.getenv("MAX_DATE_DIFF_NOTIFY_MILLIS");
+
+    private final String numDaysRecoverFailed = System.getenv().getOrDefault("RECOVER_FAILED_MASSIVE_MAX_DAYS", "0");
+
+    private final String numDaysRecoverNotNotified = System.getenv().getOrDefault("RECOVER_NOT_NOTIFIED_MASSIVE_MAX_DAYS", "0");
+
+    private final CosmosAsyncContainer container;
+
+    private ReceiptCosmosAsyncClientImpl() {
+        String azureKey = System.getenv("COSMOS_RECEIPT_KEY");
+        String serviceEndpoint = System.getenv("COSMOS_RECEIPT_SERVICE_ENDPOINT");
+
+        CosmosConnectionManager connectionManager = CosmosConnectionManager.getInstance();
+        this.container = connectionManager.getAsyncClient(serviceEndpoint, azureKey, null)
+                .getDatabase(databaseId).getContainer(containerId);
+        connectionManager.prewarm(this.container);
+    }
+
+    public ReceiptCosmosAsyncClientImpl(CosmosAsyncClient cosmosAsyncClient) {
+        this.container = cosmosAsyncClient.getDatabase(databaseId).getContainer(containerId);
+    }
+
+    public static ReceiptCosmosAsyncClientImpl getInstance() {
+        if (instance == null) {
+            instance = new ReceiptCosmosAsyncClientImpl();
+        }
+        return instance;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Flux<FeedResponse<Receipt>> getInsertedReceiptDocumentsAsync(String continuationToken, Integer pageSize) {
+        return INSERTED_RECEIPTS.execute(this.container, insertedReceiptsParameters(numDaysRecoverFailed, millisDiff))
+                .byPage(continuationToken, pageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Flux<FeedResponse<Receipt>> getFailedReceiptDocumentsAsync(String continuationToken, Integer pageSize) {
+        return FAILED_RECEIPTS.execute(this.container, failedReceiptsParameters(numDaysRecoverFailed))
+                .byPage(continuationToken, pageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Flux<FeedResponse<ReceiptSummary>> getInsertedReceiptSummariesAsync(String continuationToken, Integer pageSize) {
+        return INSERTED_RECEIPT_SUMMARIES.execute(this.container, insertedReceiptsParameters(numDaysRecoverFailed, millisDiff))
+                .byPage(continuationToken, pageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Flux<FeedResponse<ReceiptSummary>> getFailedReceiptSummariesAsync(String continuationToken, Integer pageSize) {
+        return FAILED_RECEIPT_SUMMARIES.execute(this.container, failedReceiptsParameters(numDaysRecoverFailed))
+                .byPage(continuationToken, pageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Flux<FeedResponse<Receipt>> getGeneratedReceiptDocumentsAsync(String continuationToken, Integer pageSize) {
+        return GENERATED_RECEIPTS.execute(this.container, generatedReceiptsParameters(numDaysRecoverNotNotified, millisNotifyDif))
+                .byPage(continuationToken, pageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Flux<FeedResponse<Receipt>> getIOErrorToNotifyReceiptDocumentsAsync(String continuationToken, Integer pageSize) {
+        return IO_ERROR_TO_NOTIFY_RECEIPTS.execute(this.container, ioErrorToNotifyReceiptsParameters(numDaysRecoverNotNotified))
+                .byPage(continuationToken, pageSize);
+    }
+}
@@ -1,26 +1,42 @@
 package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
 
 import com.azure.cosmos.CosmosClient;
-import com.azure.cosmos.CosmosClientBuilder;
 import com.azure.cosmos.CosmosContainer;
-import com.azure.cosmos.CosmosDatabase;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosBulkExecutionOptions;
+import com.azure.cosmos.models.CosmosBulkOperationResponse;
+import com.azure.cosmos.models.CosmosBulkOperations;
+import com.azure.cosmos.models.CosmosBulkPatchItemRequestOptions;
+import com.azure.cosmos.models.CosmosItemOperation;
 import com.azure.cosmos.models.CosmosItemRequestOptions;
 import com.azure.cosmos.models.CosmosItemResponse;
-import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.models.CosmosPatchItemRequestOptions;
+import com.azure.cosmos.models.CosmosPatchOperations;
+import com.azure.cosmos.models.FeedRange;
 import com.azure.cosmos.models.FeedResponse;
 import com.azure.cosmos.models.PartitionKey;
+import com.azure.cosmos.models.SqlParameter;
 import com.azure.cosmos.util.CosmosPagedIterable;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.ReceiptCosmosClient;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.IOMessage;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptError;
-import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptErrorStatusType;
-import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptRecoveryCandidate;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryCheckpoint;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryLease;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptSummary;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.IoMessageNotFoundException;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.ReceiptNotFoundException;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.CosmosMetricsUtils;
+import org.apache.http.HttpStatus;
 
-import java.time.OffsetDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static it.gov.pagopa.receipt.pdf.helpdesk.client.query.ReceiptQueries.*;
 
 /**
  * Client for the CosmosDB database
@@ -33,6 +49,10 @@ public class ReceiptCosmosClientImpl implements ReceiptCosmosClient {
     private final String containerId = System.getenv().getOrDefault("COSMOS_RECEIPT_CONTAINER_NAME", "receipt");
     private final String containerMessageId = System.getenv().getOrDefault("COSMOS_RECEIPT_MESSAGE_CONTAINER_NAME", "receipts-io-messages-evt");
     private final String containerReceiptErrorId = System.getenv().getOrDefault("COSMOS_RECEIPT_ERROR_CONTAINER_NAME", "receipts-message-errors");
+    private final String containerRecoveryIndexId = System.getenv().getOrDefault("COSMOS_RECEIPT_RECOVERY_INDEX_CONTAINER_NAME", "receipts-recovery-index");
+    private final String containerRecoveryCheckpointId = System.getenv().getOrDefault("COSMOS_RECEIPT_RECOVERY_CHECKPOINT_CONTAINER_NAME", "receipts-recovery-checkpoints");
+    private final String containerRecoveryJobId = System.getenv().getOrDefault("COSMOS_RECEIPT_RECOVERY_JOB_CONTAINER_NAME", "receipts-recovery-jobs");
+    private final String containerRecoveryLockId = System.getenv().getOrDefault("COSMOS_RECEIPT_RECOVERY_LOCK_CONTAINER_NAME", "receipts-recovery-locks");
 
     private final String millisDiff = System.getenv("MAX_DATE_DIFF_MILLIS");
     private final String millisNotifyDif = System.getenv("MAX_DATE_DIFF_NOTIFY_MILLIS");
@@ -41,20 +61,24 @@ public class ReceiptCosmosClientImpl implements ReceiptCosmosClient {
 
     private final String numDaysRecoverNotNotified = System.getenv().getOrDefault("RECOVER_NOT_NOTIFIED_MASSIVE_MAX_DAYS", "0");
 
+    private final int bulkMaxMicroBatchConcurrency = Integer.parseInt(System.getenv().getOrDefault("COSMOS_BULK_MAX_MICRO_BATCH_CONCURRENCY", "1"));
+
     private final int recordsLimitRecoverNotNotified = Integer.parseInt(System.getenv().getOrDefault("RECOVER_NOT_NOTIFIED_MASSIVE_MAX_RECORDS", "200"));
 
     private static final String DOCUMENT_NOT_FOUND_ERR_MSG = "Document not found in the defined container";
 
     private final CosmosClient cosmosClient;
+    private final Map<String, CosmosContainer> containers = new ConcurrentHashMap<>();
 
     private ReceiptCosmosClientImpl() {
         String azureKey = System.getenv("COSMOS_RECEIPT_KEY");
         String serviceEndpoint = System.getenv("COSMOS_RECEIPT_SERVICE_ENDPOINT");
 
-        this.cosmosClient = new CosmosClientBuilder()
-                .endpoint(serviceEndpoint)
-                .key(azureKey)
-                .buildClient();
+        CosmosConnectionManager connectionManager = CosmosConnectionManager.getInstance();
+        this.cosmosClient = connectionManager.getClient(serviceEndpoint, azureKey, null);
+        connectionManager.prewarm(getContainer(containerId));
+        connectionManager.prewarm(getContainer(containerMessageId));
+        connectionManager.prewarm(getContainer(containerReceiptErrorId));
     }
 
     public ReceiptCosmosClientImpl(CosmosClient cosmosClient) {
@@ -76,15 +100,11 @@ public class ReceiptCosmosClientImpl implements ReceiptCosmosClient {
      * @throws ReceiptNotFoundException in case no receipt has been found with the given idEvent
      */
     public Receipt getReceiptDocument(String eventId) throws ReceiptNotFoundException {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(containerId);
-
-        //Build query
-        String query = String.format("SELECT * FROM c WHERE c.eventId = '%s'", eventId);
+        CosmosContainer cosmosContainer = getContainer(containerId);
 
         //Query the container
-        CosmosPagedIterable<Receipt> queryResponse = cosmosContainer
-                .queryItems(query, new CosmosQueryRequestOptions(), Receipt.class);
+        CosmosPagedIterable<Receipt> queryResponse = RECEIPT_BY_EVENT_ID.execute(cosmosContainer,
+                new SqlParameter("@eventId", eventId));
 
         if (queryResponse.iterator().hasNext()) {
             return queryResponse.iterator().next();
@@ -92,48 +112,121 @@ public class ReceiptCosmosClientImpl implements ReceiptCosmosClient {
         throw new ReceiptNotFoundException(DOCUMENT_NOT_FOUND_ERR_MSG);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Receipt getReceiptDocumentById(String receiptId) throws ReceiptNotFoundException {
+        CosmosContainer cosmosContainer = getContainer(containerId);
+
+        long start = System.nanoTime();
+        CosmosItemResponse<Receipt> response;
+        try {
+            response = cosmosContainer.readItem(receiptId, new PartitionKey(receiptId), Receipt.class);
+        } catch (CosmosException e) {
+            CosmosMetricsUtils.recordFailure(containerId, GET_RECEIPT_BY_ID_OPERATION, CosmosMetricsUtils.PATH_POINT_READ, start, e);
+            if (e.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+                throw new ReceiptNotFoundException(DOCUMENT_NOT_FOUND_ERR_MSG, e);
+            }
+            throw e;
+        }
+        CosmosMetricsUtils.recordOperation(containerId, GET_RECEIPT_BY_ID_OPERATION, CosmosMetricsUtils.PATH_POINT_READ, start,
+                response.getRequestCharge(), response.getDiagnostics());
+
+        if (response.getItem() == null) {
+            throw new ReceiptNotFoundException(DOCUMENT_NOT_FOUND_ERR_MSG);
+        }
+        return response.getItem();
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public Iterable<FeedResponse<Receipt>> getFailedReceiptDocuments(String continuationToken, Integer pageSize)  {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(containerId);
+        return getFailedReceiptDocuments(null, continuationToken, pageSize);
+    }
 
-        //Build query
-        String query = String.format("SELECT * FROM c WHERE (c.status = '%s' or c.status = '%s') AND c.inserted_at >= %s",
-                ReceiptStatusType.FAILED, ReceiptStatusType.NOT_QUEUE_SENT,
-                OffsetDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(
-                        Long.parseLong(numDaysRecoverFailed)).toInstant().toEpochMilli());
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<Receipt>> getFailedReceiptDocuments(FeedRange feedRange, String continuationToken, Integer pageSize) {
+        CosmosContainer cosmosContainer = getContainer(containerId);
 
         //Query the container
-        return cosmosContainer
-                .queryItems(query, new CosmosQueryRequestOptions(), Receipt.class)
+        return FAILED_RECEIPTS.execute(cosmosContainer, feedRange, failedReceiptsParameters(numDaysRecoverFailed))
                 .iterableByPage(continuationToken,pageSize);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FeedRange> getReceiptFeedRanges() {
+        return getContainer(containerId).getFeedRanges();
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public Iterable<FeedResponse<Receipt>> getInsertedReceiptDocuments(String continuationToken, Integer pageSize) {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(containerId);
+        return getInsertedReceiptDocuments(null, continuationToken, pageSize);
+    }
 
-        //Build query
-        String query =  String.format("SELECT * FROM c WHERE (c.status = '%s' AND c.inserted_at >= %s " +
-                        "AND ( %s - c.inserted_at) >= %s)",
-                ReceiptStatusType.INSERTED,
-                OffsetDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(
-                        Long.parseLong(numDaysRecoverFailed)).toInstant().toEpochMilli(),
-                OffsetDateTime.now().toInstant().toEpochMilli(), millisDiff);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<Receipt>> getInsertedReceiptDocuments(FeedRange feedRange, String continuationToken, Integer pageSize) {
+        CosmosContainer cosmosContainer = getContainer(containerId);
 
         //Query the container
-        return cosmosContainer
-                .queryItems(query, new CosmosQueryRequestOptions(), Receipt.class)
+        return INSERTED_RECEIPTS.execute(cosmosContainer, feedRange, insertedReceiptsParameters(numDaysRecoverFailed, millisDiff))
                 .iterableByPage(continuationToken,pageSize);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<ReceiptSummary>> getFailedReceiptSummaries(String continuationToken, Integer pageSize) {
+        return getFailedReceiptSummaries(null, continuationToken, pageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<ReceiptSummary>> getFailedReceiptSummaries(FeedRange feedRange, String continuationToken, Integer pageSize) {
+        CosmosContainer cosmosContainer = getContainer(containerId);
+
+        //Query the container
+        return FAILED_RECEIPT_SUMMARIES.execute(cosmosContainer, feedRange, failedReceiptsParameters(numDaysRecoverFailed))
+                .iterableByPage(continuationToken, pageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<ReceiptSummary>> getInsertedReceiptSummaries(String continuationToken, Integer pageSize) {
+        return getInsertedReceiptSummaries(null, continuationToken, pageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<ReceiptSummary>> getInsertedReceiptSummaries(FeedRange feedRange, String continuationToken, Integer pageSize) {
+        CosmosContainer cosmosContainer = getContainer(containerId);
+
+        //Query the container
+        return INSERTED_RECEIPT_SUMMARIES.execute(cosmosContainer, feedRange, insertedReceiptsParameters(numDaysRecoverFailed, millisDiff))
+                .iterableByPage(continuationToken, pageSize);
+    }
+
     /**
      * Save Receipts on CosmosDB database
      *
@@ -142,10 +235,49 @@ public class ReceiptCosmosClientImpl implements ReceiptCosmosClient {
      */
     @Override
     public CosmosItemResponse<Receipt> saveReceipts(Receipt receipt)  {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(containerId);
+        CosmosContainer cosmosContainer = getContainer(containerId);
+
+        return CosmosMetricsUtils.recordItemOperation(containerId, SAVE_RECEIPT_OPERATION, CosmosMetricsUtils.PATH_WRITE,
+                () -> cosmosContainer.createItem(receipt));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CosmosItemResponse<Receipt> patchReceipt(String receiptId, CosmosPatchOperations patchOperations, String filterPredicate) {
+        CosmosContainer cosmosContainer = getContainer(containerId);
+        CosmosPatchItemRequestOptions options = new CosmosPatchItemRequestOptions().setFilterPredicate(filterPredicate);
+
+        return CosmosMetricsUtils.recordItemOperation(containerId, PATCH_RECEIPT_OPERATION, CosmosMetricsUtils.PATH_WRITE,
+                () -> cosmosContainer.patchItem(receiptId, new PartitionKey(receiptId), patchOperations, options, Receipt.class));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<CosmosBulkOperationResponse<Object>> upsertReceiptsInBulk(List<Receipt> receipts) {
+        CosmosContainer cosmosContainer = getContainer(containerId);
 
-        return cosmosContainer.createItem(receipt);
+        return recordBulkOperations(UPSERT_RECEIPTS_BULK_OPERATION,
+                cosmosContainer.executeBulkOperations(toUpsertOperations(receipts), newBulkExecutionOptions()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<CosmosBulkOperationResponse<Object>> patchReceiptsInBulk(
+            List<ReceiptSummary> receipts,
+            CosmosPatchOperations patchOperations,
+            String filterPredicate
+    ) {
+        CosmosContainer cosmosContainer = getContainer(containerId);
+
+        return recordBulkOperations(PATCH_RECEIPTS_BULK_OPERATION,
+                cosmosContainer.executeBulkOperations(toPatchOperations(receipts, patchOperations, filterPredicate),
+                        newBulkExecutionOptions()));
     }
 
     /**
@@ -157,16 +289,11 @@ public class ReceiptCosmosClientImpl implements ReceiptCosmosClient {
      */
     @Override
     public ReceiptError getReceiptError(String bizEventId) throws  ReceiptNotFoundException {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(containerReceiptErrorId);
-
-        //Build query
-        String query = "SELECT * FROM c WHERE c.bizEventId = " + "'" + bizEventId + "'";
+        CosmosContainer cosmosContainer = getContainer(containerReceiptErrorId);
 
         //Query the container
-        CosmosPagedIterable<ReceiptError> queryResponse = cosmosContainer
-                .queryItems(query, new CosmosQueryRequestOptions(), ReceiptError.class);
+        CosmosPagedIterable<ReceiptError> queryResponse = RECEIPT_ERROR_BY_BIZ_EVENT_ID.execute(cosmosContainer,
+                new SqlParameter("@bizEventId", bizEventId));
 
         if (queryResponse.iterator().hasNext()) {
             return queryResponse.iterator().next();
@@ -182,16 +309,10 @@ public class ReceiptCosmosClientImpl implements ReceiptCosmosClient {
      */
     @Override
     public Iterable<FeedResponse<ReceiptError>> getToReviewReceiptsError(String continuationToken, Integer pageSize){
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(containerReceiptErrorId);
-
-        //Build query
-        String query = String.format("SELECT * FROM c WHERE c.status = '%s'", ReceiptErrorStatusType.TO_REVIEW);
+        CosmosContainer cosmosContainer = getContainer(containerReceiptErrorId);
 
         //Query the container
-        return cosmosContainer
-                .queryItems(query, new CosmosQueryRequestOptions(), ReceiptError.class)
+        return TO_REVIEW_RECEIPT_ERRORS.execute(cosmosContainer)
                 .iterableByPage(continuationToken,pageSize);
     }
 
@@ -200,19 +321,18 @@ public class ReceiptCosmosClientImpl implements ReceiptCosmosClient {
      */
     @Override
     public Iterable<FeedResponse<Receipt>> getGeneratedReceiptDocuments(String continuationToken, Integer pageSize)  {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(containerId);
+        return getGeneratedReceiptDocuments(null, continuationToken, pageSize);
+    }
 
-        //Build query
-        String query =  String.format("SELECT * FROM c WHERE (c.status = '%s' AND c.generated_at >= %s AND ( %s - c.generated_at) >= %s)",
-                ReceiptStatusType.GENERATED,
-                OffsetDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(
-                        Long.parseLong(numDaysRecoverNotNotified)).toInstant().toEpochMilli(),
-                OffsetDateTime.now().toInstant().toEpochMilli(), millisNotifyDif);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<Receipt>> getGeneratedReceiptDocuments(FeedRange feedRange, String continuationToken, Integer pageSize) {
+        CosmosContainer cosmosContainer = getContainer(containerId);
 
         //Query the container
-        return cosmosContainer
-                .queryItems(query, new CosmosQueryRequestOptions(), Receipt.class)
+        return GENERATED_RECEIPTS.execute(cosmosContainer, feedRange, generatedReceiptsParameters(numDaysRecoverNotNotified, millisNotifyDif))
                 .iterableByPage(continuationToken,pageSize);
     }
 
@@ -221,8 +341,15 @@ public class ReceiptCosmosClientImpl implements ReceiptCosmosClient {
      */
     @Override
     public Iterable<FeedResponse<Receipt>> getIOErrorToNotifyReceiptDocuments(String continuationToken, Integer pageSize)  {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(containerId);
+        return getIOErrorToNotifyReceiptDocuments(null, continuationToken, pageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<Receipt>> getIOErrorToNotifyReceiptDocuments(FeedRange feedRange, String continuationToken, Integer pageSize) {
+        CosmosContainer cosmosContainer = getContainer(containerId);
 
         //Build query
         // String query = String.format("SELECT * FROM c WHERE c.status = '%s' AND c.generated_at >= %s OFFSET 0 LIMIT %s",
@@ -231,18 +358,35 @@ public class ReceiptCosmosClientImpl implements ReceiptCosmosClient {
         //                 Long.parseLong(numDaysRecoverNotNotified)).toInstant().toEpochMilli(),
         //         recordsLimitRecoverNotNotified
         // );
-        String query = String.format("SELECT * FROM c WHERE c.status = '%s' AND c.generated_at >= %s",
-                ReceiptStatusType.IO_ERROR_TO_NOTIFY,
-                OffsetDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(
-                        Long.parseLong(numDaysRecoverNotNotified)).toInstant().toEpochMilli()
-        );
-
         //Query the container
-        return cosmosContainer
-                .queryItems(query, new CosmosQueryRequestOptions(), Receipt.class)
+        return IO_ERROR_TO_NOTIFY_RECEIPTS.execute(cosmosContainer, feedRange, ioErrorToNotifyReceiptsParameters(numDaysRecoverNotNotified))
                 .iterableByPage(continuationToken,pageSize);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<ReceiptSummary>> getGeneratedReceiptSummaries(String continuationToken, Integer pageSize) {
+        CosmosContainer cosmosContainer = getContainer(containerId);
+
+        //Query the container
+        return GENERATED_RECEIPT_SUMMARIES.execute(cosmosContainer, generatedReceiptsParameters(numDaysRecoverNotNotified, millisNotifyDif))
+                .iterableByPage(continuationToken, pageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<ReceiptSummary>> getIOErrorToNotifyReceiptSummaries(String continuationToken, Integer pageSize) {
+        CosmosContainer cosmosContainer = getContainer(containerId);
+
+        //Query the container
+        return IO_ERROR_TO_NOTIFY_RECEIPT_SUMMARIES.execute(cosmosContainer, ioErrorToNotifyReceiptsParameters(numDaysRecoverNotNotified))
+                .iterableByPage(continuationToken, pageSize);
+    }
+
     /**
      * Retrieve receipt document from CosmosDB database
      *
@@ -252,15 +396,11 @@ public class ReceiptCosmosClientImpl implements ReceiptCosmosClient {
      */
     @Override
     public IOMessage getIoMessage(String messageId) throws IoMessageNotFoundException {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(containerMessageId);
-
-        //Build query
-        String query = String.format("SELECT * FROM c WHERE c.messageId = '%s'", messageId);
+        CosmosContainer cosmosContainer = getContainer(containerMessageId);
 
         //Query the container
-        CosmosPagedIterable<IOMessage> queryResponse = cosmosContainer
-                .queryItems(query, new CosmosQueryRequestOptions(), IOMessage.class);
+        CosmosPagedIterable<IOMessage> queryResponse = IO_MESSAGE_BY_MESSAGE_ID.execute(cosmosContainer,
+                new SqlParameter("@messageId", messageId));
 
         if (queryResponse.iterator().hasNext()) {
             return queryResponse.iterator().next();
@@ -270,14 +410,260 @@ public class ReceiptCosmosClientImpl implements ReceiptCosmosClient {
     
     @Override
     public CosmosItemResponse<Object> deleteReceipt(Receipt receipt)  {
-        CosmosDatabase cosmosDatabase = this.cosmosClient.getDatabase(databaseId);
-        CosmosContainer cosmosContainer = cosmosDatabase.getContainer(containerId);
+        CosmosContainer cosmosContainer = getContainer(containerId);
+
+        return CosmosMetricsUtils.recordItemOperation(containerId, DELETE_RECEIPT_OPERATION, CosmosMetricsUtils.PATH_WRITE,
+                () -> cosmosContainer.deleteItem(
+                        receipt.getId(),
+                        new PartitionKey(receipt.getId()),
+                        new CosmosItemRequestOptions()
+                ));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<ReceiptRecoveryCandidate>> getDueRecoveryCandidates(long now, String continuationToken, Integer pageSize) {
+        CosmosContainer cosmosContainer = getContainer(containerRecoveryIndexId);
+
+        //Query the container
+        return DUE_RECOVERY_CANDIDATES.execute(cosmosContainer, new SqlParameter("@now", now))
+                .iterableByPage(continuationToken, pageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CosmosItemResponse<Object> deleteRecoveryCandidate(ReceiptRecoveryCandidate candidate) {
+        CosmosContainer cosmosContainer = getContainer(containerRecoveryIndexId);
+
+        return CosmosMetricsUtils.recordItemOperation(containerRecoveryIndexId, DELETE_RECOVERY_CANDIDATE_OPERATION,
+                CosmosMetricsUtils.PATH_WRITE,
+                () -> cosmosContainer.deleteItem(candidate.getId(), new PartitionKey(candidate.getId()), new CosmosItemRequestOptions()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryCheckpoint getRecoveryCheckpoint(String jobId) {
+        CosmosContainer cosmosContainer = getContainer(containerRecoveryCheckpointId);
+
+        try {
+            return CosmosMetricsUtils.recordItemOperation(containerRecoveryCheckpointId, GET_RECOVERY_CHECKPOINT_OPERATION,
+                    CosmosMetricsUtils.PATH_POINT_READ,
+                    () -> cosmosContainer.readItem(jobId, new PartitionKey(jobId), RecoveryCheckpoint.class)).getItem();
+        } catch (CosmosException e) {
+            if (e.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CosmosItemResponse<RecoveryCheckpoint> upsertRecoveryCheckpoint(RecoveryCheckpoint checkpoint) {
+        CosmosContainer cosmosContainer = getContainer(containerRecoveryCheckpointId);
 
-        return cosmosContainer.deleteItem(
-        	    receipt.getId(),
-        	    new PartitionKey(receipt.getId()),
-        	    new CosmosItemRequestOptions()
-        	);
+        return CosmosMetricsUtils.recordItemOperation(containerRecoveryCheckpointId, UPSERT_RECOVERY_CHECKPOINT_OPERATION,
+                CosmosMetricsUtils.PATH_WRITE, () -> cosmosContainer.upsertItem(checkpoint));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CosmosItemResponse<Object> deleteRecoveryCheckpoint(String jobId) {
+        CosmosContainer cosmosContainer = getContainer(containerRecoveryCheckpointId);
+
+        return CosmosMetricsUtils.recordItemOperation(containerRecoveryCheckpointId, DELETE_RECOVERY_CHECKPOINT_OPERATION,
+                CosmosMetricsUtils.PATH_WRITE,
+                () -> cosmosContainer.deleteItem(jobId, new PartitionKey(jobId), new CosmosItemRequestOptions()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CosmosItemResponse<RecoveryCheckpoint> createRecoveryCheckpoint(RecoveryCheckpoint checkpoint) {
+        CosmosContainer cosmosContainer = getContainer(containerRecoveryCheckpointId);
+
+        return CosmosMetricsUtils.recordItemOperation(containerRecoveryCheckpointId, CREATE_RECOVERY_CHECKPOINT_OPERATION,
+                CosmosMetricsUtils.PATH_WRITE, () -> cosmosContainer.createItem(checkpoint));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CosmosItemResponse<RecoveryCheckpoint> patchRecoveryCheckpoint(
+            String jobId,
+            CosmosPatchOperations patchOperations,
+            String filterPredicate
+    ) {
+        CosmosContainer cosmosContainer = getContainer(containerRecoveryCheckpointId);
+        CosmosPatchItemRequestOptions options = new CosmosPatchItemRequestOptions().setFilterPredicate(filterPredicate);
+
+        return CosmosMetricsUtils.recordItemOperation(containerRecoveryCheckpointId, PATCH_RECOVERY_CHECKPOINT_OPERATION,
+                CosmosMetricsUtils.PATH_WRITE,
+                () -> cosmosContainer.patchItem(jobId, new PartitionKey(jobId), patchOperations, options, RecoveryCheckpoint.class));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CosmosItemResponse<Object> deleteRecoveryCheckpoint(RecoveryCheckpoint checkpoint) {
+        CosmosContainer cosmosContainer = getContainer(containerRecoveryCheckpointId);
+
+        return CosmosMetricsUtils.recordItemOperation(containerRecoveryCheckpointId, DELETE_RECOVERY_CHECKPOINT_OPERATION,
+                CosmosMetricsUtils.PATH_WRITE,
+                () -> cosmosContainer.deleteItem(checkpoint.getId(), new PartitionKey(checkpoint.getId()),
+                        new CosmosItemRequestOptions().setIfMatchETag(checkpoint.getEtag())));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryJob getRecoveryJob(String jobId) {
+        CosmosContainer cosmosContainer = getContainer(containerRecoveryJobId);
+
+        try {
+            return CosmosMetricsUtils.recordItemOperation(containerRecoveryJobId, GET_RECOVERY_JOB_OPERATION,
+                    CosmosMetricsUtils.PATH_POINT_READ,
+                    () -> cosmosContainer.readItem(jobId, new PartitionKey(jobId), RecoveryJob.class)).getItem();
+        } catch (CosmosException e) {
+            if (e.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CosmosItemResponse<RecoveryJob> createRecoveryJob(RecoveryJob job) {
+        CosmosContainer cosmosContainer = getContainer(containerRecoveryJobId);
+
+        return CosmosMetricsUtils.recordItemOperation(containerRecoveryJobId, CREATE_RECOVERY_JOB_OPERATION,
+                CosmosMetricsUtils.PATH_WRITE, () -> cosmosContainer.createItem(job));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CosmosItemResponse<RecoveryJob> patchRecoveryJob(String jobId, CosmosPatchOperations patchOperations) {
+        CosmosContainer cosmosContainer = getContainer(containerRecoveryJobId);
+
+        return CosmosMetricsUtils.recordItemOperation(containerRecoveryJobId, PATCH_RECOVERY_JOB_OPERATION,
+                CosmosMetricsUtils.PATH_WRITE,
+                () -> cosmosContainer.patchItem(jobId, new PartitionKey(jobId), patchOperations, RecoveryJob.class));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryLease getRecoveryLease(String leaseId) {
+        CosmosContainer cosmosContainer = getContainer(containerRecoveryLockId);
+
+        try {
+            return CosmosMetricsUtils.recordItemOperation(containerRecoveryLockId, GET_RECOVERY_LEASE_OPERATION,
+                    CosmosMetricsUtils.PATH_POINT_READ,
+                    () -> cosmosContainer.readItem(leaseId, new PartitionKey(leaseId), RecoveryLease.class)).getItem();
+        } catch (CosmosException e) {
+            if (e.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CosmosItemResponse<RecoveryLease> createRecoveryLease(RecoveryLease lease) {
+        CosmosContainer cosmosContainer = getContainer(containerRecoveryLockId);
+
+        return CosmosMetricsUtils.recordItemOperation(containerRecoveryLockId, CREATE_RECOVERY_LEASE_OPERATION,
+                CosmosMetricsUtils.PATH_WRITE, () -> cosmosContainer.createItem(lease));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CosmosItemResponse<RecoveryLease> replaceRecoveryLease(RecoveryLease lease) {
+        CosmosContainer cosmosContainer = getContainer(containerRecoveryLockId);
+
+        return CosmosMetricsUtils.recordItemOperation(containerRecoveryLockId, REPLACE_RECOVERY_LEASE_OPERATION,
+                CosmosMetricsUtils.PATH_WRITE,
+                () -> cosmosContainer.replaceItem(lease, lease.getId(), new PartitionKey(lease.getId()),
+                        new CosmosItemRequestOptions().setIfMatchETag(lease.getEtag())));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CosmosItemResponse<Object> deleteRecoveryLease(RecoveryLease lease) {
+        CosmosContainer cosmosContainer = getContainer(containerRecoveryLockId);
+
+        return CosmosMetricsUtils.recordItemOperation(containerRecoveryLockId, DELETE_RECOVERY_LEASE_OPERATION,
+                CosmosMetricsUtils.PATH_WRITE,
+                () -> cosmosContainer.deleteItem(lease.getId(), new PartitionKey(lease.getId()),
+                        new CosmosItemRequestOptions().setIfMatchETag(lease.getEtag())));
+    }
+
+    private Iterable<CosmosBulkOperationResponse<Object>> recordBulkOperations(
+            String operation,
+            Iterable<CosmosBulkOperationResponse<Object>> responses
+    ) {
+        List<CosmosBulkOperationResponse<Object>> recordedResponses = new ArrayList<>();
+        for (CosmosBulkOperationResponse<Object> response : responses) {
+            CosmosMetricsUtils.recordBulkOperation(containerId, operation, response);
+            recordedResponses.add(response);
+        }
+        return recordedResponses;
+    }
+
+    private static List<CosmosItemOperation> toUpsertOperations(List<Receipt> receipts) {
+        return receipts.stream()
+                .map(receipt -> CosmosBulkOperations.getUpsertItemOperation(receipt, new PartitionKey(receipt.getId())))
+                .toList();
+    }
+
+    private static List<CosmosItemOperation> toPatchOperations(
+            List<ReceiptSummary> receipts,
+            CosmosPatchOperations patchOperations,
+            String filterPredicate
+    ) {
+        return receipts.stream()
+                .map(receipt -> CosmosBulkOperations.getPatchItemOperation(receipt.getId(),
+                        new PartitionKey(receipt.getId()),
+                        patchOperations,
+                        new CosmosBulkPatchItemRequestOptions()
+                                .setIfMatchETag(receipt.getEtag())
+                                .setFilterPredicate(filterPredicate)))
+                .toList();
+    }
+
+    private CosmosBulkExecutionOptions newBulkExecutionOptions() {
+        return new CosmosBulkExecutionOptions().setMaxMicroBatchConcurrency(this.bulkMaxMicroBatchConcurrency);
+    }
+
+    private CosmosContainer getContainer(String container) {
+        return this.containers.computeIfAbsent(String.valueOf(container),
+                k -> this.cosmosClient.getDatabase(databaseId).getContainer(container));
+    }
 }
@@ -0,0 +1,49 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
+
+import com.azure.core.http.rest.Response;
+import com.azure.storage.queue.QueueClient;
+import com.azure.storage.queue.QueueClientBuilder;
+import com.azure.storage.queue.models.SendMessageResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.RecoveryJobQueueClient;
+
+/**
+ * Client for the Queue of the massive recovery jobs
+ */
+public class RecoveryJobQueueClientImpl implements RecoveryJobQueueClient {
+
+    private static RecoveryJobQueueClientImpl instance;
+
+    private final QueueClient queueClient;
+
+    private RecoveryJobQueueClientImpl() {
+        String recoveryJobQueueConnString = System.getenv("RECEIPTS_STORAGE_CONN_STRING");
+        String recoveryJobQueueTopic = System.getenv().getOrDefault("RECOVERY_JOB_QUEUE_TOPIC", "recovery-jobs");
+
+        this.queueClient = new QueueClientBuilder()
+                .connectionString(recoveryJobQueueConnString)
+                .queueName(recoveryJobQueueTopic)
+                .buildClient();
+    }
+
+    public RecoveryJobQueueClientImpl(QueueClient queueClient) {
+        this.queueClient = queueClient;
+    }
+
+    public static RecoveryJobQueueClientImpl getInstance() {
+        if (instance == null) {
+            instance = new RecoveryJobQueueClientImpl();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Send string message to the queue
+     *
+     * @param messageText the id of the job to execute
+     * @return response from the queue
+     */
+    public Response<SendMessageResult> sendMessageToQueue(String messageText) {
+        return this.queueClient.sendMessageWithResponse(messageText, null, null, null, null);
+    }
+}
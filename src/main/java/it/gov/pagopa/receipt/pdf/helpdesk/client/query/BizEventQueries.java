@@ -0,0 +1,48 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.client.query;
+
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.BizEvent;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.enumeration.BizEventStatusType;
+
+import java.util.Set;
+
+/**
+ * Queries on the biz-event container, shared by the blocking and the reactive clients
+ */
+public class BizEventQueries {
+
+    public static final String GET_BIZ_EVENT_OPERATION = "getBizEventDocument";
+    /**
+     * Operation of the retrieval of the biz-events of a cart, shared by the query and the read-many paths so that
+     * their request charge and latency can be compared
+     */
+    public static final String GET_CART_BIZ_EVENTS_OPERATION = "getAllBizEventDocument";
+    /**
+     * Operation of the retrieval of the biz-events of a massive recovery page, recorded apart from the cart ones
+     */
+    public static final String PREFETCH_BIZ_EVENTS_OPERATION = "prefetchBizEventDocuments";
+
+    /**
+     * Status of the biz-events that can be used to generate a receipt
+     */
+    public static final Set<BizEventStatusType> VALID_STATUSES = Set.of(BizEventStatusType.DONE, BizEventStatusType.INGESTED);
+
+    public static final CosmosQuery<BizEvent> BIZ_EVENT_BY_ID = CosmosQuery.of(GET_BIZ_EVENT_OPERATION,
+            String.format("SELECT * FROM c WHERE c.eventStatus IN ('%s','%s') AND c.id = @eventId",
+                    BizEventStatusType.DONE, BizEventStatusType.INGESTED),
+            BizEvent.class);
+    public static final CosmosQuery<BizEvent> BIZ_EVENT_BY_ORGANIZATION_FISCAL_CODE_AND_IUV = CosmosQuery.of(
+            "getBizEventDocumentByOrganizationFiscalCodeAndIUV",
+            "SELECT * FROM c WHERE c.creditor.idPA = @organizationFiscalCode AND c.debtorPosition.iuv = @iuv",
+            BizEvent.class);
+    public static final CosmosQuery<BizEvent> BIZ_EVENTS_BY_TRANSACTION_ID = CosmosQuery.of(GET_CART_BIZ_EVENTS_OPERATION,
+            "SELECT * FROM c WHERE c.transactionDetails.transaction.transactionId = @transactionId",
+            BizEvent.class);
+    public static final CosmosQuery<BizEvent> BIZ_EVENTS_BY_IDS = CosmosQuery.of(GET_CART_BIZ_EVENTS_OPERATION,
+            "SELECT * FROM c WHERE ARRAY_CONTAINS(@eventIds, c.id)", BizEvent.class);
+
+    /**
+     * Hide from public usage.
+     */
+    private BizEventQueries() {
+    }
+}
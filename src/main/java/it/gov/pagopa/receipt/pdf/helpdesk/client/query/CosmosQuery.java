@@ -0,0 +1,140 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.client.query;
+
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosContainer;
+import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.models.FeedRange;
+import com.azure.cosmos.models.FeedResponse;
+import com.azure.cosmos.models.SqlParameter;
+import com.azure.cosmos.models.SqlQuerySpec;
+import com.azure.cosmos.util.CosmosPagedFlux;
+import com.azure.cosmos.util.CosmosPagedIterable;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.CosmosMetricsUtils;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.RequestUnitBudget;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Named and reusable CosmosDB query definition.
+ * <p>
+ * The query text is constant and the variable values are always bound as {@link SqlParameter}s, so that the
+ * query plan can be cached by the SDK. The request charge, the latency and the diagnostics of every page are
+ * recorded with the name of the query.
+ *
+ * @param <T> the type of the documents returned by the query
+ */
+@Getter
+public class CosmosQuery<T> {
+
+    private final String name;
+    private final String text;
+    private final Class<T> itemType;
+
+    private CosmosQuery(String name, String text, Class<T> itemType) {
+        this.name = name;
+        this.text = text;
+        this.itemType = itemType;
+    }
+
+    /**
+     * Define a new query
+     *
+     * @param name     the name of the query, used as operation in the recorded metrics
+     * @param text     the query text, referring to the parameters by name (e.g. {@code @eventId})
+     * @param itemType the type of the documents returned by the query
+     * @param <T>      the type of the documents returned by the query
+     * @return the query definition
+     */
+    public static <T> CosmosQuery<T> of(String name, String text, Class<T> itemType) {
+        return new CosmosQuery<>(name, text, itemType);
+    }
+
+    /**
+     * Define the same query recorded under another name, for the callers that have to be told apart in the metrics
+     *
+     * @param name the name of the query, used as operation in the recorded metrics
+     * @return the query definition
+     */
+    public CosmosQuery<T> withName(String name) {
+        return new CosmosQuery<>(name, this.text, this.itemType);
+    }
+
+    /**
+     * Build the query spec binding the given parameters
+     *
+     * @param parameters the parameters
+     * @return the query spec
+     */
+    public SqlQuerySpec toSpec(SqlParameter... parameters) {
+        return new SqlQuerySpec(this.text, parameters);
+    }
+
+    /**
+     * Execute the query on the given container
+     *
+     * @param container  the container
+     * @param parameters the parameters
+     * @return the paged query response
+     */
+    public CosmosPagedIterable<T> execute(CosmosContainer container, SqlParameter... parameters) {
+        return execute(container, null, parameters);
+    }
+
+    /**
+     * Execute the query on the given range of the container
+     *
+     * @param container  the container
+     * @param feedRange  the range of the container to query, all the container if null
+     * @param parameters the parameters
+     * @return the paged query response
+     */
+    public CosmosPagedIterable<T> execute(CosmosContainer container, FeedRange feedRange, SqlParameter... parameters) {
+        String containerId = container.getId();
+        RequestUnitBudget budget = RequestUnitBudget.current();
+        return container
+                .queryItems(toSpec(parameters), newRequestOptions(feedRange), this.itemType)
+                .handle(page -> recordPage(containerId, budget, page));
+    }
+
+    /**
+     * Execute the query on the given container without blocking, pages are fetched on demand
+     *
+     * @param container  the container
+     * @param parameters the parameters
+     * @return the paged query response
+     */
+    public CosmosPagedFlux<T> execute(CosmosAsyncContainer container, SqlParameter... parameters) {
+        String containerId = container.getId();
+        RequestUnitBudget budget = RequestUnitBudget.current();
+        return container
+                .queryItems(toSpec(parameters), new CosmosQueryRequestOptions(), this.itemType)
+                .handle(page -> recordPage(containerId, budget, page));
+    }
+
+    /**
+     * Record a page of the query, charging it to the budget of the job that executed the query: the pages are
+     * fetched by the threads of the SDK
+     */
+    private void recordPage(String containerId, RequestUnitBudget budget, FeedResponse<T> page) {
+        try (RequestUnitBudget.Scope ignored = RequestUnitBudget.bind(budget)) {
+            CosmosMetricsUtils.recordOperation(containerId, this.name, CosmosMetricsUtils.PATH_QUERY, getDuration(page),
+                    page.getRequestCharge(), page.getCosmosDiagnostics());
+        }
+    }
+
+    private static CosmosQueryRequestOptions newRequestOptions(FeedRange feedRange) {
+        CosmosQueryRequestOptions options = new CosmosQueryRequestOptions();
+        if (feedRange != null) {
+            options.setFeedRange(feedRange);
+        }
+        return options;
+    }
+
+    private static Duration getDuration(FeedResponse<?> page) {
+        if (page.getCosmosDiagnostics() == null || page.getCosmosDiagnostics().getDuration() == null) {
+            return Duration.ZERO;
+        }
+        return page.getCosmosDiagnostics().getDuration();
+    }
+}
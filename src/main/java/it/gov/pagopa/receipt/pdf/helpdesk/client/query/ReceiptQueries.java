@@ -0,0 +1,151 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.client.query;
+
+import com.azure.cosmos.models.SqlParameter;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.IOMessage;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptError;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptRecoveryCandidate;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptSummary;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptErrorStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Queries on the receipt containers, shared by the blocking and the reactive clients
+ */
+public class ReceiptQueries {
+
+    public static final CosmosQuery<Receipt> RECEIPT_BY_EVENT_ID = CosmosQuery.of("getReceiptDocument",
+            "SELECT * FROM c WHERE c.eventId = @eventId", Receipt.class);
+    public static final String GET_RECEIPT_BY_ID_OPERATION = "getReceiptDocumentById";
+    public static final String SAVE_RECEIPT_OPERATION = "saveReceipts";
+    public static final String DELETE_RECEIPT_OPERATION = "deleteReceipt";
+    public static final String UPSERT_RECEIPTS_BULK_OPERATION = "upsertReceiptsInBulk";
+    public static final String PATCH_RECEIPTS_BULK_OPERATION = "patchReceiptsInBulk";
+    public static final String PATCH_RECEIPT_OPERATION = "patchReceipt";
+    public static final String DELETE_RECOVERY_CANDIDATE_OPERATION = "deleteRecoveryCandidate";
+    public static final String GET_RECOVERY_CHECKPOINT_OPERATION = "getRecoveryCheckpoint";
+    public static final String UPSERT_RECOVERY_CHECKPOINT_OPERATION = "upsertRecoveryCheckpoint";
+    public static final String CREATE_RECOVERY_CHECKPOINT_OPERATION = "createRecoveryCheckpoint";
+    public static final String PATCH_RECOVERY_CHECKPOINT_OPERATION = "patchRecoveryCheckpoint";
+    public static final String DELETE_RECOVERY_CHECKPOINT_OPERATION = "deleteRecoveryCheckpoint";
+    public static final String GET_RECOVERY_JOB_OPERATION = "getRecoveryJob";
+    public static final String CREATE_RECOVERY_JOB_OPERATION = "createRecoveryJob";
+    public static final String PATCH_RECOVERY_JOB_OPERATION = "patchRecoveryJob";
+    public static final String GET_RECOVERY_LEASE_OPERATION = "getRecoveryLease";
+    public static final String CREATE_RECOVERY_LEASE_OPERATION = "createRecoveryLease";
+    public static final String REPLACE_RECOVERY_LEASE_OPERATION = "replaceRecoveryLease";
+    public static final String DELETE_RECOVERY_LEASE_OPERATION = "deleteRecoveryLease";
+
+    private static final String RECEIPT_SUMMARY_FIELDS = "c.id, c.eventId, c.status, c.isCart, c.mdAttach, " +
+            "c.mdAttachPayer, c.inserted_at, c.generated_at, c.notified_at, c.recoverNumRetry, c._etag";
+    private static final String FAILED_RECEIPTS_FILTER = String.format(
+            "(c.status = '%s' or c.status = '%s') AND c.inserted_at >= @minInsertedAt " +
+                    "AND (NOT IS_DEFINED(c.next_recover_at) OR c.next_recover_at <= @now)",
+            ReceiptStatusType.FAILED, ReceiptStatusType.NOT_QUEUE_SENT);
+    private static final String INSERTED_RECEIPTS_FILTER = String.format(
+            "(c.status = '%s' AND c.inserted_at >= @minInsertedAt AND (@now - c.inserted_at) >= @minAgeMillis)",
+            ReceiptStatusType.INSERTED);
+    private static final String GENERATED_RECEIPTS_FILTER = String.format(
+            "(c.status = '%s' AND c.generated_at >= @minGeneratedAt AND (@now - c.generated_at) >= @minAgeMillis)",
+            ReceiptStatusType.GENERATED);
+    private static final String IO_ERROR_TO_NOTIFY_RECEIPTS_FILTER = String.format(
+            "c.status = '%s' AND c.generated_at >= @minGeneratedAt", ReceiptStatusType.IO_ERROR_TO_NOTIFY);
+
+    public static final CosmosQuery<Receipt> FAILED_RECEIPTS = CosmosQuery.of("getFailedReceiptDocuments",
+            "SELECT * FROM c WHERE " + FAILED_RECEIPTS_FILTER, Receipt.class);
+    public static final CosmosQuery<ReceiptSummary> FAILED_RECEIPT_SUMMARIES = CosmosQuery.of("getFailedReceiptSummaries",
+            "SELECT " + RECEIPT_SUMMARY_FIELDS + " FROM c WHERE " + FAILED_RECEIPTS_FILTER, ReceiptSummary.class);
+    public static final CosmosQuery<Receipt> INSERTED_RECEIPTS = CosmosQuery.of("getInsertedReceiptDocuments",
+            "SELECT * FROM c WHERE " + INSERTED_RECEIPTS_FILTER, Receipt.class);
+    public static final CosmosQuery<ReceiptSummary> INSERTED_RECEIPT_SUMMARIES = CosmosQuery.of("getInsertedReceiptSummaries",
+            "SELECT " + RECEIPT_SUMMARY_FIELDS + " FROM c WHERE " + INSERTED_RECEIPTS_FILTER, ReceiptSummary.class);
+    public static final CosmosQuery<ReceiptError> RECEIPT_ERROR_BY_BIZ_EVENT_ID = CosmosQuery.of("getReceiptError",
+            "SELECT * FROM c WHERE c.bizEventId = @bizEventId", ReceiptError.class);
+    public static final CosmosQuery<ReceiptError> TO_REVIEW_RECEIPT_ERRORS = CosmosQuery.of("getToReviewReceiptsError",
+            String.format("SELECT * FROM c WHERE c.status = '%s'", ReceiptErrorStatusType.TO_REVIEW),
+            ReceiptError.class);
+    public static final CosmosQuery<Receipt> GENERATED_RECEIPTS = CosmosQuery.of("getGeneratedReceiptDocuments",
+            "SELECT * FROM c WHERE " + GENERATED_RECEIPTS_FILTER, Receipt.class);
+    public static final CosmosQuery<ReceiptSummary> GENERATED_RECEIPT_SUMMARIES = CosmosQuery.of("getGeneratedReceiptSummaries",
+            "SELECT " + RECEIPT_SUMMARY_FIELDS + " FROM c WHERE " + GENERATED_RECEIPTS_FILTER, ReceiptSummary.class);
+    public static final CosmosQuery<Receipt> IO_ERROR_TO_NOTIFY_RECEIPTS = CosmosQuery.of("getIOErrorToNotifyReceiptDocuments",
+            "SELECT * FROM c WHERE " + IO_ERROR_TO_NOTIFY_RECEIPTS_FILTER, Receipt.class);
+    public static final CosmosQuery<ReceiptSummary> IO_ERROR_TO_NOTIFY_RECEIPT_SUMMARIES = CosmosQuery.of("getIOErrorToNotifyReceiptSummaries",
+            "SELECT " + RECEIPT_SUMMARY_FIELDS + " FROM c WHERE " + IO_ERROR_TO_NOTIFY_RECEIPTS_FILTER, ReceiptSummary.class);
+    public static final CosmosQuery<ReceiptRecoveryCandidate> DUE_RECOVERY_CANDIDATES = CosmosQuery.of("getDueRecoveryCandidates",
+            "SELECT * FROM c WHERE c.dueAt <= @now", ReceiptRecoveryCandidate.class);
+    public static final CosmosQuery<IOMessage> IO_MESSAGE_BY_MESSAGE_ID = CosmosQuery.of("getIoMessage",
+            "SELECT * FROM c WHERE c.messageId = @messageId", IOMessage.class);
+
+    /**
+     * Hide from public usage.
+     */
+    private ReceiptQueries() {
+    }
+
+    /**
+     * Build the parameters of {@link #FAILED_RECEIPTS} and {@link #FAILED_RECEIPT_SUMMARIES}, the receipts whose next
+     * recovery attempt is not due yet are excluded
+     *
+     * @param numDays the number of days to look back
+     * @return the query parameters
+     */
+    public static SqlParameter[] failedReceiptsParameters(String numDays) {
+        return new SqlParameter[]{
+                new SqlParameter("@minInsertedAt", startOfDaysAgo(numDays)),
+                new SqlParameter("@now", OffsetDateTime.now().toInstant().toEpochMilli())
+        };
+    }
+
+    /**
+     * Build the parameters of {@link #INSERTED_RECEIPTS} and {@link #INSERTED_RECEIPT_SUMMARIES}
+     *
+     * @param numDays    the number of days to look back
+     * @param millisDiff the minimum age of the receipts in milliseconds
+     * @return the query parameters
+     */
+    public static SqlParameter[] insertedReceiptsParameters(String numDays, String millisDiff) {
+        return new SqlParameter[]{
+                new SqlParameter("@minInsertedAt", startOfDaysAgo(numDays)),
+                new SqlParameter("@now", OffsetDateTime.now().toInstant().toEpochMilli()),
+                new SqlParameter("@minAgeMillis", toLongOrNull(millisDiff))
+        };
+    }
+
+    /**
+     * Build the parameters of {@link #GENERATED_RECEIPTS} and {@link #GENERATED_RECEIPT_SUMMARIES}
+     *
+     * @param numDays    the number of days to look back
+     * @param millisDiff the minimum age of the receipts in milliseconds
+     * @return the query parameters
+     */
+    public static SqlParameter[] generatedReceiptsParameters(String numDays, String millisDiff) {
+        return new SqlParameter[]{
+                new SqlParameter("@minGeneratedAt", startOfDaysAgo(numDays)),
+                new SqlParameter("@now", OffsetDateTime.now().toInstant().toEpochMilli()),
+                new SqlParameter("@minAgeMillis", toLongOrNull(millisDiff))
+        };
+    }
+
+    /**
+     * Build the parameters of {@link #IO_ERROR_TO_NOTIFY_RECEIPTS} and {@link #IO_ERROR_TO_NOTIFY_RECEIPT_SUMMARIES}
+     *
+     * @param numDays the number of days to look back
+     * @return the query parameters
+     */
+    public static SqlParameter[] ioErrorToNotifyReceiptsParameters(String numDays) {
+        return new SqlParameter[]{new SqlParameter("@minGeneratedAt", startOfDaysAgo(numDays))};
+    }
+
+    private static long startOfDaysAgo(String numDays) {
+        return OffsetDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(Long.parseLong(numDays))
+                .toInstant().toEpochMilli();
+    }
+
+    private static Long toLongOrNull(String value) {
+        return value != null ? Long.valueOf(value) : null;
+    }
+}
@@ -32,4 +32,6 @@ public class Receipt {
     private long generated_at;
     private long notified_at;
     private Boolean isCart;
+    private int recoverNumRetry;
+    private long next_recover_at;
 }
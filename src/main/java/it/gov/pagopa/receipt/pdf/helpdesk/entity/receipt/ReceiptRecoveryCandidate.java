@@ -0,0 +1,29 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt;
+
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Entry of the due-time index of the receipts to recover, kept up to date by the receipt change feed.
+ * <p>
+ * The id is the one of the receipt, so a receipt has at most one entry with its last recoverable status.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class ReceiptRecoveryCandidate {
+
+    private String id;
+    private String eventId;
+    private ReceiptStatusType status;
+    private Boolean isCart;
+    private long dueAt;
+}
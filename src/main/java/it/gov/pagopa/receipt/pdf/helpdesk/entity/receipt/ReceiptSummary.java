@@ -0,0 +1,35 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Projection of a {@link Receipt} with only the fields needed to decide how to recover it
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class ReceiptSummary {
+
+    private String id;
+    private String eventId;
+    private ReceiptStatusType status;
+    private Boolean isCart;
+    private ReceiptMetadata mdAttach;
+    private ReceiptMetadata mdAttachPayer;
+    private long inserted_at;
+    private long generated_at;
+    private long notified_at;
+    private int recoverNumRetry;
+    @JsonProperty("_etag")
+    private String etag;
+}
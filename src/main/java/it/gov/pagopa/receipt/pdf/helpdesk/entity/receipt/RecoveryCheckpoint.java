@@ -0,0 +1,37 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Progress of a massive recovery job, saved after every processed page so that the job can be resumed.
+ * <p>
+ * The id identifies the job, e.g. the function name and the recovered status. The counters include all the
+ * invocations of the job since it was started.
+ * <p>
+ * The fencing token is the one of the lease held by the scheduled recovery that saved the checkpoint, 0 if the
+ * recovery holds no lease.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class RecoveryCheckpoint {
+
+    private String id;
+    private String continuationToken;
+    private String lastProcessedId;
+    private int recoveredCounter;
+    private int errorCounter;
+    private long updatedAt;
+    private long fencingToken;
+    @JsonProperty("_etag")
+    private String etag;
+}
@@ -0,0 +1,39 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt;
+
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.RecoveryJobState;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Massive recovery job submitted through the HTTP API and executed in background.
+ * <p>
+ * The type is the name of the massive function that submitted the job and the status is the recovered status.
+ * The progress is updated after every processed page, the throughput is expressed in documents per second.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class RecoveryJob {
+
+    private String id;
+    private String type;
+    private String status;
+    private RecoveryJobState state;
+    private boolean cancelRequested;
+    private int processed;
+    private int succeeded;
+    private int failed;
+    private double throughput;
+    private String errorMessage;
+    private long createdAt;
+    private long startedAt;
+    private long updatedAt;
+    private long completedAt;
+}
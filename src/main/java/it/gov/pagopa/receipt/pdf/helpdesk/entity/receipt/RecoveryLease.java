@@ -0,0 +1,33 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Lease of a scheduled recovery, held by a single function instance at a time.
+ * <p>
+ * The fencing token is incremented every time the lease changes owner, the ttl lets CosmosDB remove the leases of
+ * the instances that stopped without releasing them.
+ */
+@Getter
+@Setter
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class RecoveryLease {
+
+    private String id;
+    private String owner;
+    private long fencingToken;
+    private long acquiredAt;
+    private long expiresAt;
+    private Integer ttl;
+    @JsonProperty("_etag")
+    private String etag;
+}
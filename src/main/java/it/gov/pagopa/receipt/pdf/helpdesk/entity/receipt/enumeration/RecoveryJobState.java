@@ -0,0 +1,5 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration;
+
+public enum RecoveryJobState {
+    QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+}
@@ -0,0 +1,16 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.exception;
+
+/**
+ * Thrown by a massive recovery job that stops because its cancellation was requested
+ */
+public class RecoveryJobCancelledException extends RuntimeException {
+
+    /**
+     * Constructs new exception with provided message
+     *
+     * @param message Detail message
+     */
+    public RecoveryJobCancelledException(String message) {
+        super(message);
+    }
+}
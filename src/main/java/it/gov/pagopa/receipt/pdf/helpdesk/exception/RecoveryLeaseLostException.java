@@ -0,0 +1,16 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.exception;
+
+/**
+ * Thrown by a scheduled recovery that is about to write after losing its lease
+ */
+public class RecoveryLeaseLostException extends RuntimeException {
+
+    /**
+     * Constructs new exception with provided message
+     *
+     * @param message Detail message
+     */
+    public RecoveryLeaseLostException(String message) {
+        super(message);
+    }
+}
@@ -14,4 +14,21 @@ public class MassiveRecoverCartResult {
 
     private List<CartForReceipt> cartItems;
     private int errorCounter;
+    /**
+     * Number of carts already saved on CosmosDB by a checkpointed recovery, not included in the cart items
+     */
+    private int savedCounter;
+
+    /**
+     * True if the recovery stopped at its deadline before scanning all the carts, see
+     * {@link it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryCheckpointer#isDeadlineReached()}
+     */
+    private boolean interrupted;
+
+    /**
+     * @return the number of recovered carts, either returned in the cart items or already saved
+     */
+    public int getRecoveredCounter() {
+        return this.cartItems.size() + this.savedCounter;
+    }
 }
@@ -1,10 +1,14 @@
 package it.gov.pagopa.receipt.pdf.helpdesk.model;
 
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
 import lombok.Builder;
 import lombok.Data;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
@@ -12,4 +16,31 @@ public class MassiveRecoverResult {
 
     private List<Receipt> receiptList;
     private int errorCounter;
+    /**
+     * Number of receipts already saved on CosmosDB with the bulk write, not included in the receipt list
+     */
+    private int savedCounter;
+    /**
+     * Ids of the receipts whose bulk write failed, they are also counted in the error counter
+     */
+    @Builder.Default
+    private List<String> failedSaveIds = new ArrayList<>();
+    /**
+     * Number of recovered receipts by the status they had before the recovery
+     */
+    @Builder.Default
+    private Map<ReceiptStatusType, Integer> recoveredByStatus = new EnumMap<>(ReceiptStatusType.class);
+
+    /**
+     * True if the recovery stopped at its deadline before scanning all the receipts, see
+     * {@link it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryCheckpointer#isDeadlineReached()}
+     */
+    private boolean interrupted;
+
+    /**
+     * @return the number of recovered receipts, either returned in the receipt list or already saved
+     */
+    public int getRecoveredCounter() {
+        return this.receiptList.size() + this.savedCounter;
+    }
 }
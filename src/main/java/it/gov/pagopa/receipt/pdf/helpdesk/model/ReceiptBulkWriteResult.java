@@ -0,0 +1,17 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk write of receipts on CosmosDB
+ */
+@Data
+@Builder
+public class ReceiptBulkWriteResult {
+
+    private int savedCounter;
+    private List<String> failedIds;
+}
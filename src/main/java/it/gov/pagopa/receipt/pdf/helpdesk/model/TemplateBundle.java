@@ -0,0 +1,61 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.model;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Immutable PDF template bundle (zip archive) identified by the SHA-256 hash of its content
+ */
+@Getter
+public class TemplateBundle {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final String name;
+    private final String hash;
+    private final ByteBuffer content;
+
+    private TemplateBundle(String name, String hash, ByteBuffer content) {
+        this.name = name;
+        this.hash = hash;
+        this.content = content;
+    }
+
+    /**
+     * Build a bundle copying the provided bytes into a read-only buffer
+     *
+     * @param name  the file name of the bundle
+     * @param bytes the content of the bundle
+     * @return the bundle
+     */
+    public static TemplateBundle of(String name, byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length).put(bytes).flip();
+        return new TemplateBundle(name, computeHash(bytes), buffer.asReadOnlyBuffer());
+    }
+
+    /**
+     * @return a read-only view of the content with its own position, safe to be consumed concurrently
+     */
+    public ByteBuffer getContent() {
+        return this.content.duplicate();
+    }
+
+    /**
+     * @return the size in bytes of the bundle
+     */
+    public int getSize() {
+        return this.content.remaining();
+    }
+
+    private static String computeHash(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance(HASH_ALGORITHM).digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
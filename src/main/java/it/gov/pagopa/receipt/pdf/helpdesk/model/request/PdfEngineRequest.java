@@ -1,5 +1,6 @@
 package it.gov.pagopa.receipt.pdf.helpdesk.model.request;
 
+import it.gov.pagopa.receipt.pdf.helpdesk.model.TemplateBundle;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -15,6 +16,8 @@ import java.net.URL;
 public class PdfEngineRequest {
 
     URL template;
+    TemplateBundle templateBundle;
     String data;
     boolean applySignature;
+    boolean streamResponse;
 }
@@ -0,0 +1,61 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.model.response;
+
+import com.azure.core.util.BinaryData;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * PDF returned by the PDF Engine in streaming mode, kept in memory or, above the configured threshold,
+ * spilled over to a temporary file that is deleted on close
+ */
+@Getter
+public class PdfContent implements Closeable {
+
+    private final byte[] bytes;
+    private final Path spillFile;
+    private final long length;
+
+    private PdfContent(byte[] bytes, Path spillFile, long length) {
+        this.bytes = bytes;
+        this.spillFile = spillFile;
+        this.length = length;
+    }
+
+    public static PdfContent inMemory(byte[] bytes) {
+        return new PdfContent(bytes, null, bytes.length);
+    }
+
+    public static PdfContent spilled(Path spillFile, long length) {
+        return new PdfContent(null, spillFile, length);
+    }
+
+    /**
+     * @return true if the content has been spilled over to disk
+     */
+    public boolean isSpilled() {
+        return this.spillFile != null;
+    }
+
+    /**
+     * @return the content as {@link BinaryData} with known length, without copying the in-memory bytes
+     */
+    public BinaryData toBinaryData() {
+        return isSpilled() ? BinaryData.fromFile(this.spillFile) : BinaryData.fromBytes(this.bytes);
+    }
+
+    /**
+     * Delete the spill-over file, if any
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        if (isSpilled()) {
+            Files.deleteIfExists(this.spillFile);
+        }
+    }
+}
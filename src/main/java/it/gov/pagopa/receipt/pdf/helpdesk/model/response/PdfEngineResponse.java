@@ -13,6 +13,7 @@ import lombok.Setter;
 public class PdfEngineResponse {
 
     String tempPdfPath;
+    PdfContent pdfContent;
     int statusCode;
     String errorMessage;
 
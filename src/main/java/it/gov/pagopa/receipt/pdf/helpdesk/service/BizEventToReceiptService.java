@@ -1,6 +1,7 @@
 package it.gov.pagopa.receipt.pdf.helpdesk.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartForReceipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.BizEvent;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.EventData;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
@@ -48,6 +49,15 @@ public interface BizEventToReceiptService {
      */
     List<BizEvent> getCartBizEvents(String cartId);
 
+    /**
+     * Retrieve all events that are associated to the cart, reading them by id if the cart already holds the ids of
+     * its items
+     *
+     * @param cart the cart
+     * @return a list of biz-events
+     */
+    List<BizEvent> getCartBizEvents(CartForReceipt cart);
+
     /**
      * Creates the receipt for a cart, using the tokenizer service to mask the PII, based on
      * the provided list of BizEvent
@@ -1,14 +1,26 @@
 package it.gov.pagopa.receipt.pdf.helpdesk.service;
 
+import com.azure.cosmos.models.CosmosPatchOperations;
+import com.azure.cosmos.models.FeedRange;
 import com.azure.cosmos.models.FeedResponse;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.ReceiptCosmosClient;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartForReceipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.IOMessage;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptRecoveryCandidate;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryCheckpoint;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryLease;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptSummary;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.CartNotFoundException;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.IoMessageNotFoundException;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.ReceiptNotFoundException;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.RecoveryLeaseLostException;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.ReceiptBulkWriteResult;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
 
 /**
  * Service that handle the input and output for the {@link ReceiptCosmosClient}
@@ -24,6 +36,15 @@ public interface ReceiptCosmosService {
      */
     Receipt getReceipt(String eventId) throws ReceiptNotFoundException;
 
+    /**
+     * Retrieve the receipt with the provided id
+     *
+     * @param receiptId the receipt id
+     * @return the receipt
+     * @throws ReceiptNotFoundException if the receipt was not found
+     */
+    Receipt getReceiptById(String receiptId) throws ReceiptNotFoundException;
+
     /**
      * Retrieve the not notified receipt with the provided {@link ReceiptStatusType} status
      *
@@ -52,6 +73,261 @@ public interface ReceiptCosmosService {
             ReceiptStatusType statusType
     );
 
+    /**
+     * Retrieve the not notified receipt with the provided {@link ReceiptStatusType} status in the given feed range
+     *
+     * @param feedRange the range of the receipt container to query
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @param statusType the status of the receipts
+     * @return receipt documents
+     */
+    Iterable<FeedResponse<Receipt>> getNotNotifiedReceiptByStatus(
+            FeedRange feedRange,
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    );
+
+    /**
+     * Retrieve the failed receipt with the provided {@link ReceiptStatusType} status in the given feed range
+     *
+     * @param feedRange the range of the receipt container to query
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @param statusType the status of the receipts
+     * @return receipt documents
+     */
+    Iterable<FeedResponse<Receipt>> getFailedReceiptByStatus(
+            FeedRange feedRange,
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    );
+
+    /**
+     * Retrieve the feed ranges of the receipt container, to scan it in parallel
+     *
+     * @return the feed ranges
+     */
+    List<FeedRange> getReceiptFeedRanges();
+
+    /**
+     * Retrieve the summary of the not notified receipt with the provided {@link ReceiptStatusType} status
+     *
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @param statusType the status of the receipts
+     * @return receipt summaries
+     */
+    Iterable<FeedResponse<ReceiptSummary>> getNotNotifiedReceiptSummaryByStatus(
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    );
+
+    /**
+     * Retrieve the summary of the failed receipt with the provided {@link ReceiptStatusType} status
+     *
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @param statusType the status of the receipts
+     * @return receipt summaries
+     */
+    Iterable<FeedResponse<ReceiptSummary>> getFailedReceiptSummaryByStatus(
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    );
+
+    /**
+     * Retrieve the summary of the failed receipt with the provided {@link ReceiptStatusType} status in the given feed range
+     *
+     * @param feedRange the range of the receipt container to query
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @param statusType the status of the receipts
+     * @return receipt summaries
+     */
+    Iterable<FeedResponse<ReceiptSummary>> getFailedReceiptSummaryByStatus(
+            FeedRange feedRange,
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    );
+
+    /**
+     * Stream the not notified receipt with the provided {@link ReceiptStatusType} status, the pages are fetched
+     * from CosmosDB only when requested by the subscriber
+     *
+     * @param pageSize the page size
+     * @param statusType the status of the receipts
+     * @return the pages of receipt documents
+     */
+    Flux<FeedResponse<Receipt>> streamNotNotifiedReceiptByStatus(Integer pageSize, ReceiptStatusType statusType);
+
+    /**
+     * Stream the failed receipt with the provided {@link ReceiptStatusType} status, the pages are fetched
+     * from CosmosDB only when requested by the subscriber
+     *
+     * @param pageSize the page size
+     * @param statusType the status of the receipts
+     * @return the pages of receipt documents
+     */
+    Flux<FeedResponse<Receipt>> streamFailedReceiptByStatus(Integer pageSize, ReceiptStatusType statusType);
+
+    /**
+     * Stream the summary of the failed receipt with the provided {@link ReceiptStatusType} status, the pages are
+     * fetched from CosmosDB only when requested by the subscriber
+     *
+     * @param pageSize the page size
+     * @param statusType the status of the receipts
+     * @return the pages of receipt summaries
+     */
+    Flux<FeedResponse<ReceiptSummary>> streamFailedReceiptSummaryByStatus(Integer pageSize, ReceiptStatusType statusType);
+
+    /**
+     * Save the receipts on CosmosDB with a bulk upsert
+     *
+     * @param receipts the receipts to save
+     * @return the number of saved receipts and the ids of the ones that could not be saved
+     */
+    ReceiptBulkWriteResult saveReceiptsInBulk(List<Receipt> receipts);
+
+    /**
+     * Retrieve the receipt recovery candidates whose due time is passed
+     *
+     * @param now the current time in milliseconds
+     * @param continuationToken Paged query continuation token
+     * @param pageSize the page size
+     * @return recovery candidates
+     */
+    Iterable<FeedResponse<ReceiptRecoveryCandidate>> getDueRecoveryCandidates(long now, String continuationToken, Integer pageSize);
+
+    /**
+     * Remove the candidate from the receipt recovery index
+     *
+     * @param candidate the recovery candidate
+     */
+    void deleteRecoveryCandidate(ReceiptRecoveryCandidate candidate);
+
+    /**
+     * Retrieve the checkpoint of a massive recovery job
+     *
+     * @param jobId the id of the job
+     * @return the checkpoint, null if the job has no checkpoint
+     */
+    RecoveryCheckpoint getRecoveryCheckpoint(String jobId);
+
+    /**
+     * Create or replace the checkpoint of a massive recovery job.
+     * <p>
+     * If the checkpoint has a fencing token the checkpoint is written only if the stored one was not saved with a
+     * greater token, i.e. by a later holder of the lease of the job.
+     *
+     * @param checkpoint the checkpoint
+     * @throws RecoveryLeaseLostException if the stored checkpoint was saved with a greater fencing token
+     */
+    void saveRecoveryCheckpoint(RecoveryCheckpoint checkpoint);
+
+    /**
+     * Remove the checkpoint of a massive recovery job
+     *
+     * @param jobId the id of the job
+     */
+    void deleteRecoveryCheckpoint(String jobId);
+
+    /**
+     * Remove the checkpoint of a massive recovery job, only if it was not saved with a greater fencing token, i.e. by
+     * a later holder of the lease of the job
+     *
+     * @param jobId        the id of the job
+     * @param fencingToken the fencing token of the lease held by the job, 0 if the job holds no lease
+     * @throws RecoveryLeaseLostException if the stored checkpoint was saved with a greater fencing token
+     */
+    void deleteRecoveryCheckpoint(String jobId, long fencingToken);
+
+    /**
+     * Retrieve a massive recovery job
+     *
+     * @param jobId the id of the job
+     * @return the job, null if it does not exist
+     */
+    RecoveryJob getRecoveryJob(String jobId);
+
+    /**
+     * Create a massive recovery job
+     *
+     * @param job the job
+     */
+    void createRecoveryJob(RecoveryJob job);
+
+    /**
+     * Patch a massive recovery job
+     *
+     * @param jobId           the id of the job
+     * @param patchOperations the operations applied to the job
+     * @return the updated job
+     */
+    RecoveryJob patchRecoveryJob(String jobId, CosmosPatchOperations patchOperations);
+
+    /**
+     * Patch a receipt, if it matches the filter predicate
+     *
+     * @param receiptId       the id of the receipt
+     * @param patchOperations the operations applied to the receipt
+     * @param filterPredicate the condition the receipt must satisfy to be patched, otherwise the patch fails with
+     *                        status 412 (precondition failed)
+     */
+    void patchReceipt(String receiptId, CosmosPatchOperations patchOperations, String filterPredicate);
+
+    /**
+     * Retrieve the lease of a scheduled recovery
+     *
+     * @param leaseId the id of the lease
+     * @return the lease, null if it does not exist
+     */
+    RecoveryLease getRecoveryLease(String leaseId);
+
+    /**
+     * Create the lease of a scheduled recovery
+     *
+     * @param lease the lease
+     * @return the created lease, null if the lease already exists
+     */
+    RecoveryLease createRecoveryLease(RecoveryLease lease);
+
+    /**
+     * Replace the lease of a scheduled recovery if it has not changed since it was read
+     *
+     * @param lease the new lease, with the etag of the replaced one
+     * @return the replaced lease, null if the lease changed or no longer exists
+     */
+    RecoveryLease replaceRecoveryLease(RecoveryLease lease);
+
+    /**
+     * Remove the lease of a scheduled recovery if it has not changed since it was read
+     *
+     * @param lease the lease, with its etag
+     */
+    void deleteRecoveryLease(RecoveryLease lease);
+
+    /**
+     * Patch the receipts on CosmosDB with a bulk execution, conditioned on their etag and on the filter predicate.
+     * <p>
+     * The receipts that changed since they were read or no longer match the predicate are neither saved nor failed.
+     *
+     * @param receipts the summaries of the receipts to patch, with their etag
+     * @param patchOperations the operations applied to every receipt
+     * @param filterPredicate the condition the receipts must satisfy to be patched
+     * @return the number of patched receipts and the ids of the ones that could not be patched
+     */
+    ReceiptBulkWriteResult patchReceiptsInBulk(
+            List<ReceiptSummary> receipts,
+            CosmosPatchOperations patchOperations,
+            String filterPredicate
+    );
+
     /**
      *
      * @param messageId
@@ -0,0 +1,73 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.service;
+
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.RecoveryJobState;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.UnableToQueueException;
+
+public interface RecoveryJobService {
+
+    /**
+     * Create a massive recovery job and send it on queue to be executed in background
+     *
+     * @param type   the name of the massive function that submits the job
+     * @param status the status to recover
+     * @return the queued job
+     * @throws UnableToQueueException if the job cannot be sent on queue, the job is marked as failed
+     */
+    RecoveryJob submitJob(String type, String status) throws UnableToQueueException;
+
+    /**
+     * Retrieve a massive recovery job
+     *
+     * @param jobId the id of the job
+     * @return the job, null if it does not exist
+     */
+    RecoveryJob getJob(String jobId);
+
+    /**
+     * Request the cancellation of a massive recovery job, the job stops after the page it is processing
+     *
+     * @param jobId the id of the job
+     * @return the job, null if it does not exist
+     */
+    RecoveryJob cancelJob(String jobId);
+
+    /**
+     * Mark the job as running, keeping the start time of the previous executions of the same job
+     *
+     * @param job the job
+     * @return the running job
+     */
+    RecoveryJob startJob(RecoveryJob job);
+
+    /**
+     * Update the progress of a running job
+     *
+     * @param job       the running job
+     * @param succeeded the documents recovered so far
+     * @param failed    the documents that failed so far
+     * @return the updated job, with the cancellation requested in the meantime
+     */
+    RecoveryJob updateProgress(RecoveryJob job, int succeeded, int failed);
+
+    /**
+     * Send the job on queue again, to resume from its checkpoint in a new execution
+     *
+     * @param job       the running job
+     * @param succeeded the documents recovered so far
+     * @param failed    the documents that failed so far
+     * @throws UnableToQueueException if the job cannot be sent on queue
+     */
+    void requeueJob(RecoveryJob job, int succeeded, int failed) throws UnableToQueueException;
+
+    /**
+     * Mark the job as ended
+     *
+     * @param job          the job
+     * @param state        the final state of the job
+     * @param succeeded    the documents recovered by the job
+     * @param failed       the documents that failed
+     * @param errorMessage the error that stopped the job, may be null
+     */
+    void completeJob(RecoveryJob job, RecoveryJobState state, int succeeded, int failed, String errorMessage);
+}
@@ -12,6 +12,7 @@ import it.gov.pagopa.receipt.pdf.helpdesk.client.ReceiptQueueClient;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.BizEventCosmosClientImpl;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.ReceiptCosmosClientImpl;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.ReceiptQueueClientImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartForReceipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.BizEvent;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.CartItem;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.EventData;
@@ -33,9 +34,11 @@ import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static it.gov.pagopa.receipt.pdf.helpdesk.client.query.BizEventQueries.GET_CART_BIZ_EVENTS_OPERATION;
 import static it.gov.pagopa.receipt.pdf.helpdesk.utils.BizEventToReceiptUtils.getAmount;
 import static it.gov.pagopa.receipt.pdf.helpdesk.utils.BizEventToReceiptUtils.getItemSubject;
 import static it.gov.pagopa.receipt.pdf.helpdesk.utils.BizEventToReceiptUtils.isFromAuthenticatedOrigin;
@@ -241,6 +244,25 @@ public class BizEventToReceiptServiceImpl implements BizEventToReceiptService {
         return bizEventList;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If not all the biz-events are found by id they are retrieved with the query on the cart id.
+     */
+    @Override
+    public List<BizEvent> getCartBizEvents(CartForReceipt cart) {
+        Set<String> bizEventIds = cart.getCartPaymentId();
+        if (bizEventIds != null && !bizEventIds.isEmpty()) {
+            List<BizEvent> bizEventList = this.bizEventCosmosClient.getBizEventDocuments(GET_CART_BIZ_EVENTS_OPERATION, bizEventIds);
+            if (bizEventList.size() == bizEventIds.size()) {
+                return bizEventList;
+            }
+            logger.warn("Found {} of the {} biz-events of cart with id {} by id, retrieving them by cart id",
+                    bizEventList.size(), bizEventIds.size(), cart.getId());
+        }
+        return getCartBizEvents(cart.getId());
+    }
+
     /**
      * {@inheritDoc}
      */
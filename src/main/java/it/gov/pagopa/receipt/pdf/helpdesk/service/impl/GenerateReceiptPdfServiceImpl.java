@@ -16,11 +16,14 @@ import it.gov.pagopa.receipt.pdf.helpdesk.model.PdfGeneration;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.PdfMetadata;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.request.PdfEngineRequest;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.response.BlobStorageResponse;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.response.PdfContent;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.response.PdfEngineResponse;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.template.ReceiptPDFTemplate;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.BuildTemplateService;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.GenerateReceiptPdfService;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.GenerateReceiptUtils;
 import it.gov.pagopa.receipt.pdf.helpdesk.utils.ObjectMapperUtils;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.TemplateRegistry;
 
 import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
@@ -31,11 +34,19 @@ import io.micrometer.core.instrument.util.StringUtils;
 
 import java.io.BufferedInputStream;
 import java.io.FileInputStream;
-import java.net.URL;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.http.HttpStatus.SC_OK;
 
@@ -43,20 +54,33 @@ public class GenerateReceiptPdfServiceImpl implements GenerateReceiptPdfService
 
     private final Logger logger = LoggerFactory.getLogger(GenerateReceiptPdfServiceImpl.class);
 
+    private static final int PDF_GENERATION_POOL_SIZE = Integer.parseInt(System.getenv().getOrDefault("PDF_GENERATION_POOL_SIZE", "8"));
+    private static final ExecutorService PDF_GENERATION_EXECUTOR = Executors.newFixedThreadPool(PDF_GENERATION_POOL_SIZE, daemonThreadFactory());
+
+    private final long pdfGenerationTimeoutMillis = Long.parseLong(System.getenv().getOrDefault("PDF_GENERATION_TIMEOUT_MILLIS", "120000"));
+
     private final PdfEngineClient pdfEngineClient;
     private final ReceiptBlobClient receiptBlobClient;
     private final BuildTemplateService buildTemplateService;
+    private final TemplateRegistry templateRegistry;
 
     public GenerateReceiptPdfServiceImpl() {
         this.pdfEngineClient = PdfEngineClientImpl.getInstance();
         this.receiptBlobClient = ReceiptBlobClientImpl.getInstance();
         this.buildTemplateService = new BuildTemplateServiceImpl();
+        this.templateRegistry = TemplateRegistry.getInstance();
     }
 
     GenerateReceiptPdfServiceImpl(PdfEngineClient pdfEngineClient, ReceiptBlobClient receiptBlobClient, BuildTemplateService buildTemplateService) {
+        this(pdfEngineClient, receiptBlobClient, buildTemplateService, TemplateRegistry.getInstance());
+    }
+
+    GenerateReceiptPdfServiceImpl(PdfEngineClient pdfEngineClient, ReceiptBlobClient receiptBlobClient,
+                                  BuildTemplateService buildTemplateService, TemplateRegistry templateRegistry) {
         this.pdfEngineClient = pdfEngineClient;
         this.receiptBlobClient = receiptBlobClient;
         this.buildTemplateService = buildTemplateService;
+        this.templateRegistry = templateRegistry;
     }
 
     /**
@@ -140,6 +164,7 @@ public class GenerateReceiptPdfServiceImpl implements GenerateReceiptPdfService
 
     	PdfGeneration pdfGeneration = new PdfGeneration();
 
+    	String payerBlobName = null;
     	if (payerCF != null) {
     		if (payerCF.equals(debtorCF)) {
     			pdfGeneration.setGenerateOnlyDebtor(true);
@@ -148,22 +173,86 @@ public class GenerateReceiptPdfServiceImpl implements GenerateReceiptPdfService
     			pdfGeneration.setDebtorMetadata(generationResult);
     			return pdfGeneration;
     		}
-    		//Generate payer's complete PDF
-    		PdfMetadata generationResult = generateAndSavePDFReceipt(listOfBizEvents, receipt, receipt.getMdAttachPayer().getName(), false, workingDirPath);
-    		pdfGeneration.setPayerMetadata(generationResult);
-
+    		payerBlobName = receipt.getMdAttachPayer().getName();
     	} else {
     		pdfGeneration.setGenerateOnlyDebtor(true);
     	}
-    	//Generate debtor's partial PDF
-    	if (!"ANONIMO".equals(debtorCF)) {
-    		PdfMetadata generationResult = generateAndSavePDFReceipt(listOfBizEvents, receipt, receipt.getMdAttach().getName(), true, workingDirPath);
-    		pdfGeneration.setDebtorMetadata(generationResult);
+    	boolean generateDebtor = !"ANONIMO".equals(debtorCF);
+
+    	if (payerBlobName == null || !generateDebtor) {
+    		//Only one PDF to generate, no need to hand it over to the executor
+    		if (payerBlobName != null) {
+    			//Generate payer's complete PDF
+    			pdfGeneration.setPayerMetadata(generateAndSavePDFReceipt(listOfBizEvents, receipt, payerBlobName, false, workingDirPath));
+    		} else if (generateDebtor) {
+    			//Generate debtor's partial PDF
+    			pdfGeneration.setDebtorMetadata(generateAndSavePDFReceipt(listOfBizEvents, receipt, receipt.getMdAttach().getName(), true, workingDirPath));
+    		}
+    		return pdfGeneration;
+    	}
+
+    	//Generate payer's complete PDF and debtor's partial PDF concurrently
+    	String debtorBlobName = receipt.getMdAttach().getName();
+    	String finalPayerBlobName = payerBlobName;
+    	long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.pdfGenerationTimeoutMillis);
+    	Future<PdfMetadata> payerFuture = PDF_GENERATION_EXECUTOR.submit(() ->
+    			generateAndSavePDFReceipt(listOfBizEvents, receipt, finalPayerBlobName, false, workingDirPath));
+    	Future<PdfMetadata> debtorFuture = PDF_GENERATION_EXECUTOR.submit(() ->
+    			generateAndSavePDFReceipt(listOfBizEvents, receipt, debtorBlobName, true, workingDirPath));
+    	try {
+    		pdfGeneration.setPayerMetadata(awaitPdfGeneration(payerFuture, deadline, receipt));
+    		pdfGeneration.setDebtorMetadata(awaitPdfGeneration(debtorFuture, deadline, receipt));
+    	} catch (RuntimeException | Error e) {
+    		payerFuture.cancel(true);
+    		debtorFuture.cancel(true);
+    		throw e;
     	}
 
     	return pdfGeneration;
     }
 
+    /**
+     * Wait for the PDF generation until the given deadline, rethrowing the unchecked exceptions
+     * as if the generation had been executed in the caller thread
+     *
+     * @param future        the PDF generation
+     * @param deadlineNanos the deadline, in {@link System#nanoTime()} scale
+     * @param receipt       the receipt
+     * @return the PDF metadata, or the error metadata if the deadline is reached
+     */
+    private PdfMetadata awaitPdfGeneration(Future<PdfMetadata> future, long deadlineNanos, Receipt receipt) {
+    	try {
+    		return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    	} catch (TimeoutException e) {
+    		future.cancel(true);
+    		String errMsg = String.format("PDF receipt generation not completed within %s ms", this.pdfGenerationTimeoutMillis);
+    		logger.error("An error occurred when generating or saving the PDF receipt with eventId {}. Error: {}", receipt.getEventId(), errMsg);
+    		return PdfMetadata.builder().statusCode(ReasonErrorCode.ERROR_PDF_ENGINE.getCode()).errorMessage(errMsg).build();
+    	} catch (InterruptedException e) {
+    		Thread.currentThread().interrupt();
+    		future.cancel(true);
+    		return PdfMetadata.builder().statusCode(ReasonErrorCode.ERROR_PDF_ENGINE.getCode()).errorMessage("PDF receipt generation interrupted").build();
+    	} catch (ExecutionException e) {
+    		Throwable cause = e.getCause();
+    		if (cause instanceof RuntimeException runtimeException) {
+    			throw runtimeException;
+    		}
+    		if (cause instanceof Error error) {
+    			throw error;
+    		}
+    		throw new IllegalStateException(cause);
+    	}
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+    	AtomicInteger threadCounter = new AtomicInteger();
+    	return runnable -> {
+    		Thread thread = new Thread(runnable, "pdf-generation-" + threadCounter.incrementAndGet());
+    		thread.setDaemon(true);
+    		return thread;
+    	};
+    }
+
     private PdfMetadata generateAndSavePDFReceipt(List<BizEvent> listOfBizEvents, Receipt receipt, String blobName, boolean isGeneratingDebtor, Path workingDirPath) {
         try {
             ReceiptPDFTemplate template = buildTemplateService.buildTemplate(listOfBizEvents, isGeneratingDebtor, receipt);
@@ -176,14 +265,20 @@ public class GenerateReceiptPdfServiceImpl implements GenerateReceiptPdfService
     }
 
     private PdfMetadata saveToBlobStorage(PdfEngineResponse pdfEngineResponse, String blobName) throws SavePDFToBlobException {
-        String tempPdfPath = pdfEngineResponse.getTempPdfPath();
-
         BlobStorageResponse blobStorageResponse;
         //Save to Blob Storage
-        try (BufferedInputStream pdfStream = new BufferedInputStream(new FileInputStream(tempPdfPath))) {
-            blobStorageResponse = receiptBlobClient.savePdfToBlobStorage(pdfStream, blobName);
-        } catch (Exception e) {
-            throw new SavePDFToBlobException("Error saving pdf to blob storage", ReasonErrorCode.ERROR_BLOB_STORAGE.getCode(), e);
+        if (pdfEngineResponse.getPdfContent() != null) {
+            try (PdfContent pdfContent = pdfEngineResponse.getPdfContent()) {
+                blobStorageResponse = receiptBlobClient.savePdfDataToBlobStorage(pdfContent.toBinaryData(), blobName);
+            } catch (Exception e) {
+                throw new SavePDFToBlobException("Error saving pdf to blob storage", ReasonErrorCode.ERROR_BLOB_STORAGE.getCode(), e);
+            }
+        } else {
+            try (BufferedInputStream pdfStream = new BufferedInputStream(new FileInputStream(pdfEngineResponse.getTempPdfPath()))) {
+                blobStorageResponse = receiptBlobClient.savePdfToBlobStorage(pdfStream, blobName);
+            } catch (Exception e) {
+                throw new SavePDFToBlobException("Error saving pdf to blob storage", ReasonErrorCode.ERROR_BLOB_STORAGE.getCode(), e);
+            }
         }
 
         if (blobStorageResponse.getStatusCode() != com.microsoft.azure.functions.HttpStatus.CREATED.value()) {
@@ -203,11 +298,15 @@ public class GenerateReceiptPdfServiceImpl implements GenerateReceiptPdfService
     private PdfEngineResponse generatePDFReceipt(ReceiptPDFTemplate template, Path workingDirPath) throws PDFReceiptGenerationException {
         PdfEngineRequest request = new PdfEngineRequest();
 
-        URL templateStream = GenerateReceiptPdfServiceImpl.class.getClassLoader().getResource("template.zip");
         //Build the request
-        request.setTemplate(templateStream);
+        try {
+            request.setTemplateBundle(templateRegistry.getActiveTemplate());
+        } catch (IOException e) {
+            throw new GeneratePDFException("Error loading the receipt PDF template", ReasonErrorCode.ERROR_TEMPLATE_PDF.getCode(), e);
+        }
         request.setData(parseTemplateDataToString(template));
         request.setApplySignature(false);
+        request.setStreamResponse(GenerateReceiptUtils.isPdfStreamingEnabled());
 
         PdfEngineResponse pdfEngineResponse = pdfEngineClient.generatePDF(request, workingDirPath);
 
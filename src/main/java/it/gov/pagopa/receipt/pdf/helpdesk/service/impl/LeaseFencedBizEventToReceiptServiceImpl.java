@@ -0,0 +1,87 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartForReceipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.BizEvent;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.EventData;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.PDVTokenizerException;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryLeaseLock;
+
+import java.util.List;
+
+/**
+ * {@link BizEventToReceiptService} of a scheduled recovery that sends messages to the queue and saves receipts only
+ * while it holds its lease, see {@link LeaseFencedReceiptCosmosServiceImpl}.
+ */
+public class LeaseFencedBizEventToReceiptServiceImpl implements BizEventToReceiptService {
+
+    private final BizEventToReceiptService delegate;
+    private final RecoveryLeaseLock lease;
+
+    public LeaseFencedBizEventToReceiptServiceImpl(BizEventToReceiptService delegate, RecoveryLeaseLock lease) {
+        this.delegate = delegate;
+        this.lease = lease;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void handleSendMessageToQueue(List<BizEvent> bizEventList, Receipt receipt) {
+        this.lease.checkHeld();
+        this.delegate.handleSendMessageToQueue(bizEventList, receipt);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getTransactionCreationDate(BizEvent bizEvent) {
+        return this.delegate.getTransactionCreationDate(bizEvent);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void tokenizeFiscalCodes(BizEvent bizEvent, Receipt receipt, EventData eventData)
+            throws JsonProcessingException, PDVTokenizerException {
+        this.delegate.tokenizeFiscalCodes(bizEvent, receipt, eventData);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void handleSaveReceipt(Receipt receipt, ReceiptStatusType regenerationStatus) {
+        this.lease.checkHeld();
+        this.delegate.handleSaveReceipt(receipt, regenerationStatus);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<BizEvent> getCartBizEvents(String cartId) {
+        return this.delegate.getCartBizEvents(cartId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<BizEvent> getCartBizEvents(CartForReceipt cart) {
+        return this.delegate.getCartBizEvents(cart);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Receipt createCartReceipt(List<BizEvent> bizEventList) {
+        return this.delegate.createCartReceipt(bizEventList);
+    }
+}
@@ -0,0 +1,348 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.service.impl;
+
+import com.azure.cosmos.models.CosmosPatchOperations;
+import com.azure.cosmos.models.FeedRange;
+import com.azure.cosmos.models.FeedResponse;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartForReceipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.IOMessage;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptRecoveryCandidate;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryCheckpoint;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryLease;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptSummary;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.CartNotFoundException;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.IoMessageNotFoundException;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.ReceiptNotFoundException;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.ReceiptBulkWriteResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.RecoveryLeaseLock;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * {@link ReceiptCosmosService} of a scheduled recovery that writes only while it holds its lease.
+ * <p>
+ * Every write first checks the lease with {@link RecoveryLeaseLock#checkHeld()}, so an instance that knows it lost
+ * the lease stops with a {@link it.gov.pagopa.receipt.pdf.helpdesk.exception.RecoveryLeaseLostException} instead of
+ * writing together with the new holder. The reads and the writes of the lease itself are not checked.
+ * <p>
+ * The checkpoints are also fenced by CosmosDB: they are saved with the fencing token of the lease and neither saved
+ * nor removed if the stored checkpoint has a greater token, so an instance paused between the check and the write
+ * cannot overwrite the progress of the new holder. The receipts are shared with the other services and carry no
+ * token: for them the local check only narrows the window in which a paused instance can write.
+ */
+public class LeaseFencedReceiptCosmosServiceImpl implements ReceiptCosmosService {
+
+    private final ReceiptCosmosService delegate;
+    private final RecoveryLeaseLock lease;
+
+    public LeaseFencedReceiptCosmosServiceImpl(ReceiptCosmosService delegate, RecoveryLeaseLock lease) {
+        this.delegate = delegate;
+        this.lease = lease;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Receipt getReceipt(String eventId) throws ReceiptNotFoundException {
+        return this.delegate.getReceipt(eventId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Receipt getReceiptById(String receiptId) throws ReceiptNotFoundException {
+        return this.delegate.getReceiptById(receiptId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<Receipt>> getNotNotifiedReceiptByStatus(
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    ) {
+        return this.delegate.getNotNotifiedReceiptByStatus(continuationToken, pageSize, statusType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<Receipt>> getFailedReceiptByStatus(
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    ) {
+        return this.delegate.getFailedReceiptByStatus(continuationToken, pageSize, statusType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<Receipt>> getNotNotifiedReceiptByStatus(
+            FeedRange feedRange,
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    ) {
+        return this.delegate.getNotNotifiedReceiptByStatus(feedRange, continuationToken, pageSize, statusType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<Receipt>> getFailedReceiptByStatus(
+            FeedRange feedRange,
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    ) {
+        return this.delegate.getFailedReceiptByStatus(feedRange, continuationToken, pageSize, statusType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FeedRange> getReceiptFeedRanges() {
+        return this.delegate.getReceiptFeedRanges();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<ReceiptSummary>> getNotNotifiedReceiptSummaryByStatus(
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    ) {
+        return this.delegate.getNotNotifiedReceiptSummaryByStatus(continuationToken, pageSize, statusType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<ReceiptSummary>> getFailedReceiptSummaryByStatus(
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    ) {
+        return this.delegate.getFailedReceiptSummaryByStatus(continuationToken, pageSize, statusType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<ReceiptSummary>> getFailedReceiptSummaryByStatus(
+            FeedRange feedRange,
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    ) {
+        return this.delegate.getFailedReceiptSummaryByStatus(feedRange, continuationToken, pageSize, statusType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Flux<FeedResponse<Receipt>> streamNotNotifiedReceiptByStatus(
+            Integer pageSize,
+            ReceiptStatusType statusType
+    ) {
+        return this.delegate.streamNotNotifiedReceiptByStatus(pageSize, statusType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Flux<FeedResponse<Receipt>> streamFailedReceiptByStatus(Integer pageSize, ReceiptStatusType statusType) {
+        return this.delegate.streamFailedReceiptByStatus(pageSize, statusType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Flux<FeedResponse<ReceiptSummary>> streamFailedReceiptSummaryByStatus(
+            Integer pageSize,
+            ReceiptStatusType statusType
+    ) {
+        return this.delegate.streamFailedReceiptSummaryByStatus(pageSize, statusType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReceiptBulkWriteResult saveReceiptsInBulk(List<Receipt> receipts) {
+        this.lease.checkHeld();
+        return this.delegate.saveReceiptsInBulk(receipts);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<ReceiptRecoveryCandidate>> getDueRecoveryCandidates(
+            long now,
+            String continuationToken,
+            Integer pageSize
+    ) {
+        return this.delegate.getDueRecoveryCandidates(now, continuationToken, pageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteRecoveryCandidate(ReceiptRecoveryCandidate candidate) {
+        this.lease.checkHeld();
+        this.delegate.deleteRecoveryCandidate(candidate);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryCheckpoint getRecoveryCheckpoint(String jobId) {
+        return this.delegate.getRecoveryCheckpoint(jobId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveRecoveryCheckpoint(RecoveryCheckpoint checkpoint) {
+        this.lease.checkHeld();
+        checkpoint.setFencingToken(this.lease.getFencingToken());
+        this.delegate.saveRecoveryCheckpoint(checkpoint);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The checkpoint is removed only if it was not saved by a later holder of the lease.
+     */
+    @Override
+    public void deleteRecoveryCheckpoint(String jobId) {
+        deleteRecoveryCheckpoint(jobId, this.lease.getFencingToken());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteRecoveryCheckpoint(String jobId, long fencingToken) {
+        this.lease.checkHeld();
+        this.delegate.deleteRecoveryCheckpoint(jobId, fencingToken);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryJob getRecoveryJob(String jobId) {
+        return this.delegate.getRecoveryJob(jobId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void createRecoveryJob(RecoveryJob job) {
+        this.delegate.createRecoveryJob(job);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryJob patchRecoveryJob(String jobId, CosmosPatchOperations patchOperations) {
+        return this.delegate.patchRecoveryJob(jobId, patchOperations);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void patchReceipt(String receiptId, CosmosPatchOperations patchOperations, String filterPredicate) {
+        this.lease.checkHeld();
+        this.delegate.patchReceipt(receiptId, patchOperations, filterPredicate);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryLease getRecoveryLease(String leaseId) {
+        return this.delegate.getRecoveryLease(leaseId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryLease createRecoveryLease(RecoveryLease lease) {
+        return this.delegate.createRecoveryLease(lease);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryLease replaceRecoveryLease(RecoveryLease lease) {
+        return this.delegate.replaceRecoveryLease(lease);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteRecoveryLease(RecoveryLease lease) {
+        this.delegate.deleteRecoveryLease(lease);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReceiptBulkWriteResult patchReceiptsInBulk(
+            List<ReceiptSummary> receipts,
+            CosmosPatchOperations patchOperations,
+            String filterPredicate
+    ) {
+        this.lease.checkHeld();
+        return this.delegate.patchReceiptsInBulk(receipts, patchOperations, filterPredicate);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IOMessage getReceiptMessage(String messageId) throws IoMessageNotFoundException {
+        return this.delegate.getReceiptMessage(messageId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CartForReceipt getCart(String cartId) throws CartNotFoundException {
+        return this.delegate.getCart(cartId);
+    }
+}
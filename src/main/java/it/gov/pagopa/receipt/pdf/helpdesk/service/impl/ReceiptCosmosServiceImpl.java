@@ -1,32 +1,61 @@
 package it.gov.pagopa.receipt.pdf.helpdesk.service.impl;
 
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosBulkOperationResponse;
+import com.azure.cosmos.models.CosmosPatchOperations;
+import com.azure.cosmos.models.FeedRange;
 import com.azure.cosmos.models.FeedResponse;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.CartReceiptsCosmosClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.ReceiptCosmosAsyncClient;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.ReceiptCosmosClient;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.CartReceiptsCosmosClientImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.ReceiptCosmosAsyncClientImpl;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.ReceiptCosmosClientImpl;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartForReceipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.IOMessage;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptRecoveryCandidate;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryCheckpoint;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryLease;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptSummary;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.CartNotFoundException;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.IoMessageNotFoundException;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.ReceiptNotFoundException;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.RecoveryLeaseLostException;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.ReceiptBulkWriteResult;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import org.apache.http.HttpStatus;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.CosmosReactiveUtils.isCosmosReactiveEnabled;
 
 public class ReceiptCosmosServiceImpl implements ReceiptCosmosService {
 
     private final ReceiptCosmosClient receiptCosmosClient;
     private final CartReceiptsCosmosClient cartReceiptsCosmosClient;
+    private final ReceiptCosmosAsyncClient receiptCosmosAsyncClient;
 
     public ReceiptCosmosServiceImpl() {
         this.receiptCosmosClient = ReceiptCosmosClientImpl.getInstance();
+        this.receiptCosmosAsyncClient = isCosmosReactiveEnabled() ? ReceiptCosmosAsyncClientImpl.getInstance() : null;
         this.cartReceiptsCosmosClient = CartReceiptsCosmosClientImpl.getInstance();
     }
 
     ReceiptCosmosServiceImpl(ReceiptCosmosClient receiptCosmosClient, CartReceiptsCosmosClient cartReceiptsCosmosClient) {
+        this(receiptCosmosClient, cartReceiptsCosmosClient, null);
+    }
+
+    ReceiptCosmosServiceImpl(ReceiptCosmosClient receiptCosmosClient,
+                             CartReceiptsCosmosClient cartReceiptsCosmosClient,
+                             ReceiptCosmosAsyncClient receiptCosmosAsyncClient) {
         this.receiptCosmosClient = receiptCosmosClient;
         this.cartReceiptsCosmosClient = cartReceiptsCosmosClient;
+        this.receiptCosmosAsyncClient = receiptCosmosAsyncClient;
     }
 
     /**
@@ -49,6 +78,19 @@ public class ReceiptCosmosServiceImpl implements ReceiptCosmosService {
         return receipt;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Receipt getReceiptById(String receiptId) throws ReceiptNotFoundException {
+        try {
+            return this.receiptCosmosClient.getReceiptDocumentById(receiptId);
+        } catch (ReceiptNotFoundException e) {
+            String errorMsg = String.format("Receipt not found with the id %s", receiptId);
+            throw new ReceiptNotFoundException(errorMsg, e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -71,6 +113,82 @@ public class ReceiptCosmosServiceImpl implements ReceiptCosmosService {
         throw new IllegalStateException(errMsg);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<Receipt>> getNotNotifiedReceiptByStatus(
+            FeedRange feedRange,
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    ) {
+        if (statusType == null) {
+            throw new IllegalArgumentException("at least one status must be specified");
+        }
+        if (statusType.equals(ReceiptStatusType.IO_ERROR_TO_NOTIFY)) {
+            return this.receiptCosmosClient.getIOErrorToNotifyReceiptDocuments(feedRange, continuationToken, pageSize);
+        }
+        if (statusType.equals(ReceiptStatusType.GENERATED)) {
+            return this.receiptCosmosClient.getGeneratedReceiptDocuments(feedRange, continuationToken, pageSize);
+        }
+        String errMsg = String.format("Unexpected status for retrieving not notified receipt: %s", statusType);
+        throw new IllegalStateException(errMsg);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<Receipt>> getFailedReceiptByStatus(
+            FeedRange feedRange,
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    ) {
+        if (statusType == null) {
+            throw new IllegalArgumentException("at least one status must be specified");
+        }
+        if (statusType.equals(ReceiptStatusType.FAILED) || statusType.equals(ReceiptStatusType.NOT_QUEUE_SENT)) {
+            return this.receiptCosmosClient.getFailedReceiptDocuments(feedRange, continuationToken, pageSize);
+        }
+        if (statusType.equals(ReceiptStatusType.INSERTED)) {
+            return this.receiptCosmosClient.getInsertedReceiptDocuments(feedRange, continuationToken, pageSize);
+        }
+        String errMsg = String.format("Unexpected status for retrieving failed receipt: %s", statusType);
+        throw new IllegalStateException(errMsg);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FeedRange> getReceiptFeedRanges() {
+        return this.receiptCosmosClient.getReceiptFeedRanges();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<ReceiptSummary>> getNotNotifiedReceiptSummaryByStatus(
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    ) {
+        if (statusType == null) {
+            throw new IllegalArgumentException("at least one status must be specified");
+        }
+        if (statusType.equals(ReceiptStatusType.IO_ERROR_TO_NOTIFY)) {
+            return this.receiptCosmosClient.getIOErrorToNotifyReceiptSummaries(continuationToken, pageSize);
+        }
+        if (statusType.equals(ReceiptStatusType.GENERATED)) {
+            return this.receiptCosmosClient.getGeneratedReceiptSummaries(continuationToken, pageSize);
+        }
+        String errMsg = String.format("Unexpected status for retrieving not notified receipt: %s", statusType);
+        throw new IllegalStateException(errMsg);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -93,6 +211,340 @@ public class ReceiptCosmosServiceImpl implements ReceiptCosmosService {
         throw new IllegalStateException(errMsg);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<ReceiptSummary>> getFailedReceiptSummaryByStatus(
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    ) {
+        if (statusType == null) {
+            throw new IllegalArgumentException("at least one status must be specified");
+        }
+        if (statusType.equals(ReceiptStatusType.FAILED) || statusType.equals(ReceiptStatusType.NOT_QUEUE_SENT)) {
+            return this.receiptCosmosClient.getFailedReceiptSummaries(continuationToken, pageSize);
+        }
+        if (statusType.equals(ReceiptStatusType.INSERTED)) {
+            return this.receiptCosmosClient.getInsertedReceiptSummaries(continuationToken, pageSize);
+        }
+        String errMsg = String.format("Unexpected status for retrieving failed receipt: %s", statusType);
+        throw new IllegalStateException(errMsg);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<ReceiptSummary>> getFailedReceiptSummaryByStatus(
+            FeedRange feedRange,
+            String continuationToken,
+            Integer pageSize,
+            ReceiptStatusType statusType
+    ) {
+        if (statusType == null) {
+            throw new IllegalArgumentException("at least one status must be specified");
+        }
+        if (statusType.equals(ReceiptStatusType.FAILED) || statusType.equals(ReceiptStatusType.NOT_QUEUE_SENT)) {
+            return this.receiptCosmosClient.getFailedReceiptSummaries(feedRange, continuationToken, pageSize);
+        }
+        if (statusType.equals(ReceiptStatusType.INSERTED)) {
+            return this.receiptCosmosClient.getInsertedReceiptSummaries(feedRange, continuationToken, pageSize);
+        }
+        String errMsg = String.format("Unexpected status for retrieving failed receipt: %s", statusType);
+        throw new IllegalStateException(errMsg);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Without the non-blocking client the pages are read through the blocking one.
+     */
+    @Override
+    public Flux<FeedResponse<Receipt>> streamNotNotifiedReceiptByStatus(Integer pageSize, ReceiptStatusType statusType) {
+        if (this.receiptCosmosAsyncClient == null) {
+            return Flux.defer(() -> Flux.fromIterable(getNotNotifiedReceiptByStatus(null, pageSize, statusType)));
+        }
+        if (statusType == null) {
+            return Flux.error(new IllegalArgumentException("at least one status must be specified"));
+        }
+        if (statusType.equals(ReceiptStatusType.IO_ERROR_TO_NOTIFY)) {
+            return this.receiptCosmosAsyncClient.getIOErrorToNotifyReceiptDocumentsAsync(null, pageSize);
+        }
+        if (statusType.equals(ReceiptStatusType.GENERATED)) {
+            return this.receiptCosmosAsyncClient.getGeneratedReceiptDocumentsAsync(null, pageSize);
+        }
+        String errMsg = String.format("Unexpected status for retrieving not notified receipt: %s", statusType);
+        return Flux.error(new IllegalStateException(errMsg));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Without the non-blocking client the pages are read through the blocking one.
+     */
+    @Override
+    public Flux<FeedResponse<Receipt>> streamFailedReceiptByStatus(Integer pageSize, ReceiptStatusType statusType) {
+        if (this.receiptCosmosAsyncClient == null) {
+            return Flux.defer(() -> Flux.fromIterable(getFailedReceiptByStatus(null, pageSize, statusType)));
+        }
+        if (statusType == null) {
+            return Flux.error(new IllegalArgumentException("at least one status must be specified"));
+        }
+        if (statusType.equals(ReceiptStatusType.FAILED) || statusType.equals(ReceiptStatusType.NOT_QUEUE_SENT)) {
+            return this.receiptCosmosAsyncClient.getFailedReceiptDocumentsAsync(null, pageSize);
+        }
+        if (statusType.equals(ReceiptStatusType.INSERTED)) {
+            return this.receiptCosmosAsyncClient.getInsertedReceiptDocumentsAsync(null, pageSize);
+        }
+        String errMsg = String.format("Unexpected status for retrieving failed receipt: %s", statusType);
+        return Flux.error(new IllegalStateException(errMsg));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Without the non-blocking client the pages are read through the blocking one.
+     */
+    @Override
+    public Flux<FeedResponse<ReceiptSummary>> streamFailedReceiptSummaryByStatus(Integer pageSize, ReceiptStatusType statusType) {
+        if (this.receiptCosmosAsyncClient == null) {
+            return Flux.defer(() -> Flux.fromIterable(getFailedReceiptSummaryByStatus(null, pageSize, statusType)));
+        }
+        if (statusType == null) {
+            return Flux.error(new IllegalArgumentException("at least one status must be specified"));
+        }
+        if (statusType.equals(ReceiptStatusType.FAILED) || statusType.equals(ReceiptStatusType.NOT_QUEUE_SENT)) {
+            return this.receiptCosmosAsyncClient.getFailedReceiptSummariesAsync(null, pageSize);
+        }
+        if (statusType.equals(ReceiptStatusType.INSERTED)) {
+            return this.receiptCosmosAsyncClient.getInsertedReceiptSummariesAsync(null, pageSize);
+        }
+        String errMsg = String.format("Unexpected status for retrieving failed receipt: %s", statusType);
+        return Flux.error(new IllegalStateException(errMsg));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReceiptBulkWriteResult saveReceiptsInBulk(List<Receipt> receipts) {
+        if (receipts.isEmpty()) {
+            return toBulkWriteResult(List.of());
+        }
+        return toBulkWriteResult(this.receiptCosmosClient.upsertReceiptsInBulk(receipts));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<FeedResponse<ReceiptRecoveryCandidate>> getDueRecoveryCandidates(long now, String continuationToken, Integer pageSize) {
+        return this.receiptCosmosClient.getDueRecoveryCandidates(now, continuationToken, pageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteRecoveryCandidate(ReceiptRecoveryCandidate candidate) {
+        this.receiptCosmosClient.deleteRecoveryCandidate(candidate);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryCheckpoint getRecoveryCheckpoint(String jobId) {
+        return this.receiptCosmosClient.getRecoveryCheckpoint(jobId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveRecoveryCheckpoint(RecoveryCheckpoint checkpoint) {
+        if (checkpoint.getFencingToken() <= 0) {
+            this.receiptCosmosClient.upsertRecoveryCheckpoint(checkpoint);
+            return;
+        }
+        CosmosPatchOperations patchOperations = CosmosPatchOperations.create()
+                .set("/continuationToken", checkpoint.getContinuationToken())
+                .set("/lastProcessedId", checkpoint.getLastProcessedId())
+                .set("/recoveredCounter", checkpoint.getRecoveredCounter())
+                .set("/errorCounter", checkpoint.getErrorCounter())
+                .set("/updatedAt", checkpoint.getUpdatedAt())
+                .set("/fencingToken", checkpoint.getFencingToken());
+        try {
+            this.receiptCosmosClient.patchRecoveryCheckpoint(checkpoint.getId(), patchOperations,
+                    fencingTokenFilterPredicate(checkpoint.getFencingToken()));
+        } catch (CosmosException e) {
+            if (e.getStatusCode() == HttpStatus.SC_PRECONDITION_FAILED) {
+                throw checkpointFencedException(checkpoint.getId(), checkpoint.getFencingToken());
+            }
+            if (e.getStatusCode() != HttpStatus.SC_NOT_FOUND) {
+                throw e;
+            }
+            createFencedRecoveryCheckpoint(checkpoint);
+        }
+    }
+
+    private void createFencedRecoveryCheckpoint(RecoveryCheckpoint checkpoint) {
+        try {
+            this.receiptCosmosClient.createRecoveryCheckpoint(checkpoint);
+        } catch (CosmosException e) {
+            if (e.getStatusCode() == HttpStatus.SC_CONFLICT) {
+                throw checkpointFencedException(checkpoint.getId(), checkpoint.getFencingToken());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteRecoveryCheckpoint(String jobId) {
+        this.receiptCosmosClient.deleteRecoveryCheckpoint(jobId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteRecoveryCheckpoint(String jobId, long fencingToken) {
+        if (fencingToken <= 0) {
+            deleteRecoveryCheckpoint(jobId);
+            return;
+        }
+        RecoveryCheckpoint checkpoint = this.receiptCosmosClient.getRecoveryCheckpoint(jobId);
+        if (checkpoint == null) {
+            return;
+        }
+        if (checkpoint.getFencingToken() > fencingToken) {
+            throw checkpointFencedException(jobId, fencingToken);
+        }
+        try {
+            this.receiptCosmosClient.deleteRecoveryCheckpoint(checkpoint);
+        } catch (CosmosException e) {
+            if (e.getStatusCode() == HttpStatus.SC_PRECONDITION_FAILED) {
+                throw checkpointFencedException(jobId, fencingToken);
+            }
+            if (e.getStatusCode() != HttpStatus.SC_NOT_FOUND) {
+                throw e;
+            }
+        }
+    }
+
+    private static String fencingTokenFilterPredicate(long fencingToken) {
+        return String.format("FROM c WHERE NOT IS_DEFINED(c.fencingToken) OR c.fencingToken <= %d", fencingToken);
+    }
+
+    private static RecoveryLeaseLostException checkpointFencedException(String jobId, long fencingToken) {
+        return new RecoveryLeaseLostException(String.format(
+                "Checkpoint %s changed by a holder of the lease after fencing token %s", jobId, fencingToken));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryJob getRecoveryJob(String jobId) {
+        return this.receiptCosmosClient.getRecoveryJob(jobId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void createRecoveryJob(RecoveryJob job) {
+        this.receiptCosmosClient.createRecoveryJob(job);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryJob patchRecoveryJob(String jobId, CosmosPatchOperations patchOperations) {
+        return this.receiptCosmosClient.patchRecoveryJob(jobId, patchOperations).getItem();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void patchReceipt(String receiptId, CosmosPatchOperations patchOperations, String filterPredicate) {
+        this.receiptCosmosClient.patchReceipt(receiptId, patchOperations, filterPredicate);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryLease getRecoveryLease(String leaseId) {
+        return this.receiptCosmosClient.getRecoveryLease(leaseId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryLease createRecoveryLease(RecoveryLease lease) {
+        try {
+            return this.receiptCosmosClient.createRecoveryLease(lease).getItem();
+        } catch (CosmosException e) {
+            if (e.getStatusCode() == HttpStatus.SC_CONFLICT) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryLease replaceRecoveryLease(RecoveryLease lease) {
+        try {
+            return this.receiptCosmosClient.replaceRecoveryLease(lease).getItem();
+        } catch (CosmosException e) {
+            if (e.getStatusCode() == HttpStatus.SC_PRECONDITION_FAILED || e.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteRecoveryLease(RecoveryLease lease) {
+        try {
+            this.receiptCosmosClient.deleteRecoveryLease(lease);
+        } catch (CosmosException e) {
+            if (e.getStatusCode() != HttpStatus.SC_PRECONDITION_FAILED && e.getStatusCode() != HttpStatus.SC_NOT_FOUND) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReceiptBulkWriteResult patchReceiptsInBulk(
+            List<ReceiptSummary> receipts,
+            CosmosPatchOperations patchOperations,
+            String filterPredicate
+    ) {
+        if (receipts.isEmpty()) {
+            return toBulkWriteResult(List.of());
+        }
+        return toBulkWriteResult(this.receiptCosmosClient.patchReceiptsInBulk(receipts, patchOperations, filterPredicate));
+    }
+
     @Override
     public IOMessage getReceiptMessage(String messageId) throws IoMessageNotFoundException {
         IOMessage message;
@@ -126,4 +578,21 @@ public class ReceiptCosmosServiceImpl implements ReceiptCosmosService {
         }
         return cartForReceipt;
     }
-}
\ No newline at end of file
+
+    private static ReceiptBulkWriteResult toBulkWriteResult(Iterable<CosmosBulkOperationResponse<Object>> responses) {
+        int savedCounter = 0;
+        List<String> failedIds = new ArrayList<>();
+        for (CosmosBulkOperationResponse<Object> response : responses) {
+            if (response.getResponse() != null && response.getResponse().isSuccessStatusCode()) {
+                savedCounter++;
+            } else if (response.getResponse() == null
+                    || response.getResponse().getStatusCode() != HttpStatus.SC_PRECONDITION_FAILED) {
+                failedIds.add(response.getOperation().getId());
+            }
+        }
+        return ReceiptBulkWriteResult.builder()
+                .savedCounter(savedCounter)
+                .failedIds(failedIds)
+                .build();
+    }
+}
@@ -0,0 +1,165 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.service.impl;
+
+import com.azure.core.http.rest.Response;
+import com.azure.cosmos.models.CosmosPatchOperations;
+import com.azure.storage.queue.models.SendMessageResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.RecoveryJobQueueClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.RecoveryJobQueueClientImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.RecoveryJobState;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.UnableToQueueException;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
+import org.apache.http.HttpStatus;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+public class RecoveryJobServiceImpl implements RecoveryJobService {
+
+    private static final Set<RecoveryJobState> ENDED_STATES =
+            EnumSet.of(RecoveryJobState.COMPLETED, RecoveryJobState.FAILED, RecoveryJobState.CANCELLED);
+
+    private final ReceiptCosmosService receiptCosmosService;
+    private final RecoveryJobQueueClient recoveryJobQueueClient;
+
+    public RecoveryJobServiceImpl() {
+        this.receiptCosmosService = new ReceiptCosmosServiceImpl();
+        this.recoveryJobQueueClient = RecoveryJobQueueClientImpl.getInstance();
+    }
+
+    public RecoveryJobServiceImpl(ReceiptCosmosService receiptCosmosService, RecoveryJobQueueClient recoveryJobQueueClient) {
+        this.receiptCosmosService = receiptCosmosService;
+        this.recoveryJobQueueClient = recoveryJobQueueClient;
+    }
+
+    /**
+     * @param job the job
+     * @return true if the job is completed, failed or cancelled
+     */
+    public static boolean isEnded(RecoveryJob job) {
+        return ENDED_STATES.contains(job.getState());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryJob submitJob(String type, String status) throws UnableToQueueException {
+        long now = System.currentTimeMillis();
+        RecoveryJob job = RecoveryJob.builder()
+                .id(UUID.randomUUID().toString())
+                .type(type)
+                .status(status)
+                .state(RecoveryJobState.QUEUED)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        this.receiptCosmosService.createRecoveryJob(job);
+
+        try {
+            sendJobToQueue(job);
+        } catch (UnableToQueueException e) {
+            completeJob(job, RecoveryJobState.FAILED, 0, 0, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            completeJob(job, RecoveryJobState.FAILED, 0, 0, e.getMessage());
+            throw new UnableToQueueException(String.format("Unable to queue the job %s", job.getId()), e);
+        }
+        return job;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryJob getJob(String jobId) {
+        return this.receiptCosmosService.getRecoveryJob(jobId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryJob cancelJob(String jobId) {
+        RecoveryJob job = this.receiptCosmosService.getRecoveryJob(jobId);
+        if (job == null || isEnded(job) || job.isCancelRequested()) {
+            return job;
+        }
+        return this.receiptCosmosService.patchRecoveryJob(jobId, CosmosPatchOperations.create()
+                .set("/cancelRequested", true)
+                .set("/updatedAt", System.currentTimeMillis()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryJob startJob(RecoveryJob job) {
+        long now = System.currentTimeMillis();
+        long startedAt = job.getStartedAt() > 0 ? job.getStartedAt() : now;
+        return this.receiptCosmosService.patchRecoveryJob(job.getId(), CosmosPatchOperations.create()
+                .set("/state", RecoveryJobState.RUNNING)
+                .set("/startedAt", startedAt)
+                .set("/updatedAt", now));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RecoveryJob updateProgress(RecoveryJob job, int succeeded, int failed) {
+        return this.receiptCosmosService.patchRecoveryJob(job.getId(), progressOperations(job, succeeded, failed));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void requeueJob(RecoveryJob job, int succeeded, int failed) throws UnableToQueueException {
+        this.receiptCosmosService.patchRecoveryJob(job.getId(), progressOperations(job, succeeded, failed)
+                .set("/state", RecoveryJobState.QUEUED));
+        try {
+            sendJobToQueue(job);
+        } catch (UnableToQueueException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UnableToQueueException(String.format("Unable to queue the job %s", job.getId()), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void completeJob(RecoveryJob job, RecoveryJobState state, int succeeded, int failed, String errorMessage) {
+        CosmosPatchOperations operations = progressOperations(job, succeeded, failed)
+                .set("/state", state)
+                .set("/completedAt", System.currentTimeMillis());
+        if (errorMessage != null) {
+            operations.set("/errorMessage", errorMessage);
+        }
+        this.receiptCosmosService.patchRecoveryJob(job.getId(), operations);
+    }
+
+    private void sendJobToQueue(RecoveryJob job) throws UnableToQueueException {
+        Response<SendMessageResult> response = this.recoveryJobQueueClient.sendMessageToQueue(job.getId());
+        if (response.getStatusCode() != HttpStatus.SC_CREATED) {
+            throw new UnableToQueueException(
+                    String.format("Unable to queue the job %s, status code %s", job.getId(), response.getStatusCode()));
+        }
+    }
+
+    private static CosmosPatchOperations progressOperations(RecoveryJob job, int succeeded, int failed) {
+        long now = System.currentTimeMillis();
+        int processed = succeeded + failed;
+        double elapsedSeconds = job.getStartedAt() > 0 ? (now - job.getStartedAt()) / 1000.0 : 0;
+        return CosmosPatchOperations.create()
+                .set("/processed", processed)
+                .set("/succeeded", succeeded)
+                .set("/failed", failed)
+                .set("/throughput", elapsedSeconds > 0 ? processed / elapsedSeconds : 0.0)
+                .set("/updatedAt", now);
+    }
+}
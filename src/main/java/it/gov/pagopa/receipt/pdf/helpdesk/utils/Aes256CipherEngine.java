@@ -0,0 +1,200 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.Aes256Exception;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * AES-256 engine that derives the secret keys once and reuses a {@link Cipher} instance per thread.
+ * <p>
+ * The first key version is the primary one, used to encrypt. The encrypted values are prefixed with the version of
+ * their key, e.g. {@code v2:<Base64>}, so that data encrypted with a rotated key is decrypted directly with its key.
+ * The legacy values without prefix are decrypted only with the legacy key version, the primary one by default: a
+ * wrong key can produce a valid padding, so the key of a value is never guessed.
+ */
+public class Aes256CipherEngine {
+
+    private static final int KEY_LENGTH = 256;
+    private static final int ITERATION_COUNT = 65536;
+    private static final int IV_LENGTH = 16;
+    private static final String PBKDF_2_WITH_HMAC_SHA_256 = "PBKDF2WithHmacSHA256";
+    private static final String AES_CBC_PKCS_5_PADDING = "AES/CBC/PKCS5Padding";
+    private static final String ALGORITHM = "AES";
+    private static final char VERSION_SEPARATOR = ':';
+
+    private static final int AES_UNEXPECTED_ERROR = 701;
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final ThreadLocal<Cipher> CIPHER = new ThreadLocal<>();
+
+    private final List<DerivedKey> derivedKeys;
+    private final DerivedKey legacyKey;
+
+    /**
+     * Build the engine deriving the secret key of every provided version, the values without prefix are decrypted
+     * with the primary one
+     *
+     * @param keyVersions the key versions, the first one is the primary
+     * @throws Aes256Exception if no version is provided or a key cannot be derived
+     */
+    public Aes256CipherEngine(List<KeyVersion> keyVersions) throws Aes256Exception {
+        this(keyVersions, null);
+    }
+
+    /**
+     * Build the engine deriving the secret key of every provided version
+     *
+     * @param keyVersions   the key versions, the first one is the primary
+     * @param legacyVersion the version of the key of the values without prefix, the primary one if null or empty
+     * @throws Aes256Exception if no version is provided, a key cannot be derived or the legacy version is unknown
+     */
+    public Aes256CipherEngine(List<KeyVersion> keyVersions, String legacyVersion) throws Aes256Exception {
+        if (keyVersions == null || keyVersions.isEmpty()) {
+            throw new Aes256Exception("At least one AES key version must be specified", AES_UNEXPECTED_ERROR);
+        }
+        List<DerivedKey> keys = new ArrayList<>();
+        for (KeyVersion keyVersion : keyVersions) {
+            if (keyVersion.version() != null && keyVersion.version().indexOf(VERSION_SEPARATOR) >= 0) {
+                String errMsg = String.format("The AES key version %s must not contain %s", keyVersion.version(), VERSION_SEPARATOR);
+                throw new Aes256Exception(errMsg, AES_UNEXPECTED_ERROR);
+            }
+            try {
+                keys.add(new DerivedKey(keyVersion.version(), deriveKey(keyVersion.secretKey(), keyVersion.salt())));
+            } catch (Exception e) {
+                String errMsg = String.format("Unable to derive the AES key with version %s", keyVersion.version());
+                throw new Aes256Exception(errMsg, AES_UNEXPECTED_ERROR, e);
+            }
+        }
+        this.derivedKeys = List.copyOf(keys);
+        if (legacyVersion == null || legacyVersion.isEmpty()) {
+            this.legacyKey = this.derivedKeys.get(0);
+        } else {
+            this.legacyKey = this.derivedKeys.stream()
+                    .filter(key -> legacyVersion.equals(key.version()))
+                    .findFirst()
+                    .orElseThrow(() -> new Aes256Exception(
+                            String.format("Unknown legacy AES key version %s", legacyVersion), AES_UNEXPECTED_ERROR));
+        }
+    }
+
+    /**
+     * Derive the AES secret key from the provided secret and salt with PBKDF2
+     *
+     * @param secretKey the secret
+     * @param salt      the salt
+     * @return the derived key
+     * @throws GeneralSecurityException if the key cannot be derived
+     */
+    public static SecretKeySpec deriveKey(String secretKey, String salt) throws GeneralSecurityException {
+        SecretKeyFactory factory = SecretKeyFactory.getInstance(PBKDF_2_WITH_HMAC_SHA_256);
+        PBEKeySpec spec = new PBEKeySpec(secretKey.toCharArray(), salt.getBytes(), ITERATION_COUNT, KEY_LENGTH);
+        try {
+            return new SecretKeySpec(factory.generateSecret(spec).getEncoded(), ALGORITHM);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Encrypt the given string with the primary key version
+     *
+     * @param strToEncrypt the plain text
+     * @return the version of the primary key, a colon and the Base64 encoding of the IV followed by the cipher text;
+     * only the Base64 encoding if the primary key has no version
+     * @throws Aes256Exception if an error occur when encrypting
+     */
+    public String encrypt(String strToEncrypt) throws Aes256Exception {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            SECURE_RANDOM.nextBytes(iv);
+
+            //Padding vulnerability rule java:S5542 ignored because encryption is used inside application workflow
+            Cipher cipher = getCipher();
+            cipher.init(Cipher.ENCRYPT_MODE, this.derivedKeys.get(0).secretKeySpec(), new IvParameterSpec(iv));
+
+            byte[] cipherText = cipher.doFinal(strToEncrypt.getBytes(StandardCharsets.UTF_8));
+            byte[] encryptedData = new byte[iv.length + cipherText.length];
+            System.arraycopy(iv, 0, encryptedData, 0, iv.length);
+            System.arraycopy(cipherText, 0, encryptedData, iv.length, cipherText.length);
+
+            String encoded = Base64.getEncoder().encodeToString(encryptedData);
+            String version = getPrimaryVersion();
+            return version == null || version.isEmpty() ? encoded : version + VERSION_SEPARATOR + encoded;
+        } catch (Exception e) {
+            throw new Aes256Exception("Unexpected error when encrypting the given string", AES_UNEXPECTED_ERROR, e);
+        }
+    }
+
+    /**
+     * Decrypt the given string with the key version of its prefix, or with the legacy key version if it has no prefix
+     *
+     * @param strToDecrypt the string returned by {@link #encrypt(String)}
+     * @return the plain text
+     * @throws Aes256Exception if the key version is unknown or the string cannot be decrypted
+     */
+    public String decrypt(String strToDecrypt) throws Aes256Exception {
+        int separatorIndex = strToDecrypt.indexOf(VERSION_SEPARATOR);
+        DerivedKey derivedKey = this.legacyKey;
+        if (separatorIndex >= 0) {
+            String version = strToDecrypt.substring(0, separatorIndex);
+            derivedKey = this.derivedKeys.stream()
+                    .filter(key -> version.equals(key.version()))
+                    .findFirst()
+                    .orElseThrow(() -> new Aes256Exception(
+                            String.format("Unknown AES key version %s", version), AES_UNEXPECTED_ERROR));
+        }
+        try {
+            byte[] encryptedData = Base64.getDecoder().decode(strToDecrypt.substring(separatorIndex + 1));
+            return new String(decrypt(encryptedData, derivedKey), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new Aes256Exception("Unexpected error when decrypting the given string", AES_UNEXPECTED_ERROR, e);
+        }
+    }
+
+    private static byte[] decrypt(byte[] encryptedData, DerivedKey derivedKey) throws GeneralSecurityException {
+        //Padding vulnerability rule java:S5542 ignored because decryption is used inside application workflow
+        Cipher cipher = getCipher();
+        cipher.init(Cipher.DECRYPT_MODE, derivedKey.secretKeySpec(), new IvParameterSpec(encryptedData, 0, IV_LENGTH));
+        return cipher.doFinal(encryptedData, IV_LENGTH, encryptedData.length - IV_LENGTH);
+    }
+
+    /**
+     * @return the version of the key used to encrypt
+     */
+    public String getPrimaryVersion() {
+        return this.derivedKeys.get(0).version();
+    }
+
+    private static Cipher getCipher() throws GeneralSecurityException {
+        Cipher cipher = CIPHER.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(AES_CBC_PKCS_5_PADDING);
+            CIPHER.set(cipher);
+        }
+        return cipher;
+    }
+
+    /**
+     * Secret and salt of a key version
+     *
+     * @param version   the version identifier, written as prefix of the encrypted values, null or empty if the values
+     *                  encrypted with the key have no prefix
+     * @param secretKey the secret
+     * @param salt      the salt
+     */
+    public record KeyVersion(String version, String secretKey, String salt) {
+    }
+
+    private record DerivedKey(String version, SecretKeySpec secretKeySpec) {
+    }
+}
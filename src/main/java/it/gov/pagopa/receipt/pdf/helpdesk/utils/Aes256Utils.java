@@ -2,30 +2,20 @@ package it.gov.pagopa.receipt.pdf.helpdesk.utils;
 
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.Aes256Exception;
 
-import javax.crypto.Cipher;
-import javax.crypto.SecretKey;
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.IvParameterSpec;
-import javax.crypto.spec.PBEKeySpec;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.security.SecureRandom;
-import java.security.spec.KeySpec;
-import java.util.Base64;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 
 public class Aes256Utils {
 
     private static final String AES_SECRET_KEY = System.getenv().getOrDefault("AES_SECRET_KEY", "");
     private static final String AES_SALT = System.getenv().getOrDefault("AES_SALT", "");
-    private static final int KEY_LENGTH = 256;
-    private static final int ITERATION_COUNT = 65536;
-    public static final String PBKDF_2_WITH_HMAC_SHA_256 = "PBKDF2WithHmacSHA256";
-    public static final String AES_CBC_PKCS_5_PADDING = "AES/CBC/PKCS5Padding";
-
-    public static final String ALGORITHM = "AES";
-
-    private static final int AES_UNEXPECTED_ERROR = 701;
+    private static final String AES_PREVIOUS_KEY_VERSIONS = System.getenv().getOrDefault("AES_PREVIOUS_KEY_VERSIONS", "");
+    private static final String AES_KEY_VERSION = System.getenv().getOrDefault("AES_KEY_VERSION", "");
+    private static final String AES_LEGACY_KEY_VERSION = System.getenv().getOrDefault("AES_LEGACY_KEY_VERSION", "");
 
+    private static volatile Aes256CipherEngine engine;
 
     /**
      * Hide from public usage.
@@ -34,58 +24,52 @@ public class Aes256Utils {
     }
 
     public static String encrypt(String strToEncrypt) throws Aes256Exception {
-
-        try {
-
-            SecureRandom secureRandom = new SecureRandom();
-            byte[] iv = new byte[16];
-            secureRandom.nextBytes(iv);
-            IvParameterSpec ivspec = new IvParameterSpec(iv);
-
-            SecretKeyFactory factory = SecretKeyFactory.getInstance(PBKDF_2_WITH_HMAC_SHA_256);
-            KeySpec spec = new PBEKeySpec(AES_SECRET_KEY.toCharArray(), AES_SALT.getBytes(), ITERATION_COUNT, KEY_LENGTH);
-            SecretKey tmp = factory.generateSecret(spec);
-            SecretKeySpec secretKeySpec = new SecretKeySpec(tmp.getEncoded(), ALGORITHM);
-
-            //Padding vulnerability rule java:S5542 ignored because encryption is used inside application workflow
-            Cipher cipher = Cipher.getInstance(AES_CBC_PKCS_5_PADDING);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKeySpec, ivspec);
-
-            byte[] cipherText = cipher.doFinal(strToEncrypt.getBytes(StandardCharsets.UTF_8));
-            byte[] encryptedData = new byte[iv.length + cipherText.length];
-            System.arraycopy(iv, 0, encryptedData, 0, iv.length);
-            System.arraycopy(cipherText, 0, encryptedData, iv.length, cipherText.length);
-
-            return Base64.getEncoder().encodeToString(encryptedData);
-        } catch (Exception e) {
-            throw new Aes256Exception("Unexpected error when encrypting the given string", AES_UNEXPECTED_ERROR, e);
-        }
+        return getEngine().encrypt(strToEncrypt);
     }
 
     public static String decrypt(String strToDecrypt) throws Aes256Exception {
-        try{
-            byte[] encryptedData = Base64.getDecoder().decode(strToDecrypt);
-            byte[] iv = new byte[16];
-            System.arraycopy(encryptedData, 0, iv, 0, iv.length);
-            IvParameterSpec ivspec = new IvParameterSpec(iv);
-
-            SecretKeyFactory factory = SecretKeyFactory.getInstance(PBKDF_2_WITH_HMAC_SHA_256);
-            KeySpec spec = new PBEKeySpec(AES_SECRET_KEY.toCharArray(), AES_SALT.getBytes(), ITERATION_COUNT, KEY_LENGTH);
-            SecretKey tmp = factory.generateSecret(spec);
-            SecretKeySpec secretKeySpec = new SecretKeySpec(tmp.getEncoded(), ALGORITHM);
-
-            //Padding vulnerability rule java:S5542 ignored because decryption is used inside application workflow
-            Cipher cipher = Cipher.getInstance(AES_CBC_PKCS_5_PADDING);
-            cipher.init(Cipher.DECRYPT_MODE, secretKeySpec, ivspec);
-
-            byte[] cipherText = new byte[encryptedData.length - 16];
-            System.arraycopy(encryptedData, 16, cipherText, 0, cipherText.length);
+        return getEngine().decrypt(strToDecrypt);
+    }
 
-            byte[] decryptedText = cipher.doFinal(cipherText);
-            return new String(decryptedText, StandardCharsets.UTF_8);
-        } catch (Exception e) {
-            throw new Aes256Exception("Unexpected error when decrypting the given string", AES_UNEXPECTED_ERROR, e);
+    /**
+     * Retrieve the engine, deriving the keys only on the first successful invocation.
+     * <p>
+     * The current key is taken from AES_SECRET_KEY and AES_SALT, with version AES_KEY_VERSION, while the previous
+     * versions still accepted for decryption are listed in AES_PREVIOUS_KEY_VERSIONS and read from
+     * AES_SECRET_KEY_{version} and AES_SALT_{version}. The values without version prefix are decrypted with the
+     * AES_LEGACY_KEY_VERSION key, the current one if not specified
+     *
+     * @return the engine
+     * @throws Aes256Exception if the keys cannot be derived
+     */
+    private static Aes256CipherEngine getEngine() throws Aes256Exception {
+        Aes256CipherEngine result = engine;
+        if (result == null) {
+            synchronized (Aes256Utils.class) {
+                result = engine;
+                if (result == null) {
+                    result = new Aes256CipherEngine(getKeyVersions(), AES_LEGACY_KEY_VERSION);
+                    engine = result;
+                }
+            }
         }
+        return result;
     }
-}
 
+    private static List<Aes256CipherEngine.KeyVersion> getKeyVersions() {
+        List<Aes256CipherEngine.KeyVersion> keyVersions = new ArrayList<>();
+        keyVersions.add(new Aes256CipherEngine.KeyVersion(AES_KEY_VERSION, AES_SECRET_KEY, AES_SALT));
+
+        Arrays.stream(AES_PREVIOUS_KEY_VERSIONS.split(","))
+                .map(String::trim)
+                .filter(version -> !version.isEmpty())
+                .forEach(version -> {
+                    String suffix = version.toUpperCase(Locale.ROOT);
+                    keyVersions.add(new Aes256CipherEngine.KeyVersion(
+                            version,
+                            System.getenv().getOrDefault("AES_SECRET_KEY_" + suffix, ""),
+                            System.getenv().getOrDefault("AES_SALT_" + suffix, "")));
+                });
+        return keyVersions;
+    }
+}
@@ -14,10 +14,12 @@ import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.enumeration.UserType;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.CartItem;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.EventData;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptSummary;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.BizEventNotFoundException;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.PDVTokenizerException;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.ReceiptNotFoundException;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.RecoveryLeaseLostException;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverCartResult;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverResult;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
@@ -28,16 +30,31 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.text.NumberFormat;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static it.gov.pagopa.receipt.pdf.helpdesk.client.query.BizEventQueries.PREFETCH_BIZ_EVENTS_OPERATION;
+import static it.gov.pagopa.receipt.pdf.helpdesk.client.query.BizEventQueries.VALID_STATUSES;
+
 public class BizEventToReceiptUtils {
 
     private static final String REMITTANCE_INFORMATION_REGEX = "/TXT/(.*)";
     private static final Boolean ECOMMERCE_FILTER_ENABLED = Boolean.parseBoolean(System.getenv().getOrDefault(
             "ECOMMERCE_FILTER_ENABLED", "true"));
     private static final String ECOMMERCE = "CHECKOUT";
+    private static final int MASSIVE_RECOVER_MAX_CONCURRENCY = Integer.parseInt(System.getenv().getOrDefault(
+            "MASSIVE_RECOVER_MAX_CONCURRENCY", "8"));
+    private static final ExecutorService MASSIVE_RECOVER_EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(1, MASSIVE_RECOVER_MAX_CONCURRENCY), daemonThreadFactory());
 
     private static final List<String> listOrigin;
     private static final List<String> listUnwantedRemittanceInfo;
@@ -57,6 +74,28 @@ public class BizEventToReceiptUtils {
             Logger logger,
             Boolean isCart
     ) throws BizEventNotFoundException, PDVTokenizerException, JsonProcessingException {
+        return recoverReceipt(eventId, context, bizEventToReceiptService, bizEventCosmosClient, null,
+                () -> receipt != null ? receipt : receiptCosmosService.getReceipt(eventId), logger, isCart);
+    }
+
+    /**
+     * Recover the receipt of the given biz-event, the receipt is loaded only if the biz-event is valid
+     *
+     * @param prefetchedBizEvents the biz-events of the page by id, see {@link #prefetchBizEvents}, null to retrieve
+     *                            the biz-event of the receipt on its own
+     * @param receiptLoader       loader of the receipt to recover, a new receipt is created if it does not exist
+     * @return the recovered receipt, or null if it does not need to be recovered
+     */
+    private static Receipt recoverReceipt(
+            String eventId,
+            ExecutionContext context,
+            BizEventToReceiptService bizEventToReceiptService,
+            BizEventCosmosClient bizEventCosmosClient,
+            Map<String, BizEvent> prefetchedBizEvents,
+            ReceiptLoader receiptLoader,
+            Logger logger,
+            Boolean isCart
+    ) throws BizEventNotFoundException, PDVTokenizerException, JsonProcessingException {
 
         List<BizEvent> listCart = null;
         BizEvent bizEvent;
@@ -64,6 +103,11 @@ public class BizEventToReceiptUtils {
         if (isCart) {
             listCart = bizEventToReceiptService.getCartBizEvents(eventId);
             bizEvent = listCart.get(0);
+        } else if (prefetchedBizEvents != null) {
+            bizEvent = prefetchedBizEvents.get(eventId);
+            if (bizEvent == null) {
+                throw new BizEventNotFoundException("Document not found in the defined container");
+            }
         } else {
             bizEvent = bizEventCosmosClient.getBizEventDocument(eventId);
         }
@@ -83,35 +127,34 @@ public class BizEventToReceiptUtils {
         }
 
 
-        if (receipt == null) {
-            try {
-                receipt = receiptCosmosService.getReceipt(eventId);
-            } catch (ReceiptNotFoundException e) {
-                receipt = BizEventToReceiptUtils.createReceipt(bizEvent,
-                        bizEventToReceiptService, logger);
-                EventData eventData = receipt.getEventData();
-                if (isCart) {
-                    AtomicReference<BigDecimal> amount = new AtomicReference<>(BigDecimal.ZERO);
-                    List<CartItem> cartItems = new ArrayList<>();
-                    listCart.forEach(event -> {
-                        BigDecimal amountExtracted = getAmount(bizEvent);
-                        amount.updateAndGet(v -> v.add(amountExtracted));
-                        cartItems.add(
-                                CartItem.builder()
-                                        .payeeName(bizEvent.getCreditor() != null ?
-                                                bizEvent.getCreditor().getCompanyName() : null)
-                                        .subject(getItemSubject(bizEvent))
-                                        .build());
-                    });
-
-                    if (!amount.get().equals(BigDecimal.ZERO)) {
-                        eventData.setAmount(formatAmount(amount.get().toString()));
-                    }
-
-                    eventData.setCart(cartItems);
+        Receipt receipt;
+        try {
+            receipt = receiptLoader.load();
+        } catch (ReceiptNotFoundException e) {
+            receipt = BizEventToReceiptUtils.createReceipt(bizEvent,
+                    bizEventToReceiptService, logger);
+            EventData eventData = receipt.getEventData();
+            if (isCart) {
+                AtomicReference<BigDecimal> amount = new AtomicReference<>(BigDecimal.ZERO);
+                List<CartItem> cartItems = new ArrayList<>();
+                listCart.forEach(event -> {
+                    BigDecimal amountExtracted = getAmount(bizEvent);
+                    amount.updateAndGet(v -> v.add(amountExtracted));
+                    cartItems.add(
+                            CartItem.builder()
+                                    .payeeName(bizEvent.getCreditor() != null ?
+                                            bizEvent.getCreditor().getCompanyName() : null)
+                                    .subject(getItemSubject(bizEvent))
+                                    .build());
+                });
+
+                if (!amount.get().equals(BigDecimal.ZERO)) {
+                    eventData.setAmount(formatAmount(amount.get().toString()));
                 }
-                receipt.setStatus(ReceiptStatusType.FAILED);
+
+                eventData.setCart(cartItems);
             }
+            receipt.setStatus(ReceiptStatusType.FAILED);
         }
 
         if (receipt != null && (
@@ -129,12 +172,23 @@ public class BizEventToReceiptUtils {
                 receipt.setInserted_at(System.currentTimeMillis());
                 receipt.setReasonErr(null);
                 receipt.setReasonErrPayer(null);
+                RecoveryBackoff.clearAttempts(receipt);
+            } else {
+                RecoveryBackoff.applyFailedAttempt(receipt);
             }
             return receipt;
         }
         return null;
     }
 
+    /**
+     * Recover the receipts with the provided status.
+     * <p>
+     * The receipts of a page are recovered in parallel, up to MASSIVE_RECOVER_MAX_CONCURRENCY at the same time.
+     * <p>
+     * The request units consumed by the recovery are limited to RECOVER_FAILED_MASSIVE_MAX_RU_PER_SECOND, see
+     * {@link RequestUnitBudget}.
+     */
     public static MassiveRecoverResult massiveRecoverByStatus(
             ExecutionContext context,
             BizEventToReceiptService bizEventToReceiptService,
@@ -142,32 +196,285 @@ public class BizEventToReceiptUtils {
             ReceiptCosmosService receiptCosmosService,
             Logger logger,
             ReceiptStatusType statusType) {
-        int errorCounter = 0;
-        List<Receipt> receiptList = new ArrayList<>();
-        String continuationToken = null;
-        do {
-            Iterable<FeedResponse<Receipt>> feedResponseIterator =
-                    receiptCosmosService.getFailedReceiptByStatus(continuationToken, 100, statusType);
+        return massiveRecoverByStatus(context, bizEventToReceiptService, bizEventCosmosClient, receiptCosmosService,
+                logger, statusType, RecoveryCheckpointer.disabled());
+    }
 
-            for (FeedResponse<Receipt> page : feedResponseIterator) {
-                for (Receipt receipt : page.getResults()) {
-                    try {
-                        Receipt restored = getEvent(receipt.getEventId(), context, bizEventToReceiptService,
-                                bizEventCosmosClient, receiptCosmosService, receipt, logger, receipt.getIsCart() != null ?
-                                        receipt.getIsCart() : false);
-                        receiptList.add(restored);
-                    } catch (Exception e) {
-                        logger.error(e.getMessage(), e);
-                        errorCounter++;
+    /**
+     * Recover the receipts with the provided status, resuming from and saving the checkpoints of the job, see
+     * {@link RecoveryCheckpointer}.
+     * <p>
+     * The request units consumed by the recovery are limited to RECOVER_FAILED_MASSIVE_MAX_RU_PER_SECOND, see
+     * {@link RequestUnitBudget}.
+     */
+    public static MassiveRecoverResult massiveRecoverByStatus(
+            ExecutionContext context,
+            BizEventToReceiptService bizEventToReceiptService,
+            BizEventCosmosClient bizEventCosmosClient,
+            ReceiptCosmosService receiptCosmosService,
+            Logger logger,
+            ReceiptStatusType statusType,
+            RecoveryCheckpointer checkpointer) {
+        try (RequestUnitBudget budget = RequestUnitBudget.open("RECOVER_FAILED_MASSIVE_MAX_RU_PER_SECOND")) {
+            return massiveRecoverByStatus(context, bizEventToReceiptService, bizEventCosmosClient,
+                    receiptCosmosService, logger, statusType, budget, checkpointer);
+        }
+    }
+
+    /**
+     * Recover the receipts choosing how to scan them: with the reactive scan if COSMOS_REACTIVE_ENABLED is true, with
+     * the feed range scan if MASSIVE_RECOVER_FEED_RANGE_ENABLED is true, sequentially otherwise or if the job is
+     * checkpointed. With MASSIVE_RECOVER_PROJECTION_ENABLED true every scan reads only the summaries of the receipts.
+     */
+    private static MassiveRecoverResult massiveRecoverByStatus(
+            ExecutionContext context,
+            BizEventToReceiptService bizEventToReceiptService,
+            BizEventCosmosClient bizEventCosmosClient,
+            ReceiptCosmosService receiptCosmosService,
+            Logger logger,
+            ReceiptStatusType statusType,
+            RequestUnitBudget budget,
+            RecoveryCheckpointer checkpointer) {
+        boolean unresumableScan = checkpointer.allowsUnresumableScan();
+        boolean projection = isMassiveRecoverProjectionEnabled();
+        RecoveredReceiptCollector collector = new RecoveredReceiptCollector(receiptCosmosService, checkpointer.isEnabled());
+        Consumer<List<Receipt>> receiptPageRecovery = receipts -> recoverPage(receipts, context,
+                bizEventToReceiptService, bizEventCosmosClient, receiptCosmosService, logger, collector, budget);
+        Consumer<List<ReceiptSummary>> summaryPageRecovery = summaries -> recoverSummaryPage(summaries, context,
+                bizEventToReceiptService, bizEventCosmosClient, receiptCosmosService, logger, collector, budget);
+
+        if (unresumableScan && CosmosReactiveUtils.isCosmosReactiveEnabled()) {
+            logScanStrategy(logger, statusType, "reactive", projection);
+            if (projection) {
+                CosmosReactiveUtils.forEachPage(
+                        receiptCosmosService.streamFailedReceiptSummaryByStatus(100, statusType), summaryPageRecovery);
+            } else {
+                CosmosReactiveUtils.forEachPage(
+                        receiptCosmosService.streamFailedReceiptByStatus(100, statusType), receiptPageRecovery);
+            }
+            return collector.getResult();
+        }
+        if (unresumableScan && FeedRangeScanner.isFeedRangeScanEnabled()) {
+            logScanStrategy(logger, statusType, "feed range", projection);
+            if (projection) {
+                new FeedRangeScanner().scan(receiptCosmosService.getReceiptFeedRanges(), 100,
+                        (feedRange, token, pageSize) ->
+                                receiptCosmosService.getFailedReceiptSummaryByStatus(feedRange, token, pageSize, statusType),
+                        summaryPageRecovery);
+            } else {
+                new FeedRangeScanner().scan(receiptCosmosService.getReceiptFeedRanges(), 100,
+                        (feedRange, token, pageSize) ->
+                                receiptCosmosService.getFailedReceiptByStatus(feedRange, token, pageSize, statusType),
+                        receiptPageRecovery);
+            }
+            return collector.getResult();
+        }
+        logScanStrategy(logger, statusType, "sequential", projection);
+        if (projection) {
+            return scanSequentially(
+                    token -> receiptCosmosService.getFailedReceiptSummaryByStatus(token, 100, statusType),
+                    summaryPageRecovery, ReceiptSummary::getId, collector, checkpointer);
+        }
+        return scanSequentially(
+                token -> receiptCosmosService.getFailedReceiptByStatus(token, 100, statusType),
+                receiptPageRecovery, Receipt::getId, collector, checkpointer);
+    }
+
+    private static void logScanStrategy(Logger logger, ReceiptStatusType statusType, String scan, boolean projection) {
+        logger.info("[{}] Recovering the receipts with status {} with the {} scan of their {}",
+                BizEventToReceiptUtils.class.getSimpleName(), statusType, scan, projection ? "summaries" : "documents");
+    }
+
+    /**
+     * Recover the pages one after the other, following the continuation token from the checkpoint of the job and
+     * saving a new checkpoint after every page, until the last page or the deadline of the job.
+     */
+    private static <T> MassiveRecoverResult scanSequentially(
+            Function<String, Iterable<FeedResponse<T>>> pageReader,
+            Consumer<List<T>> pageRecovery,
+            Function<T, String> idExtractor,
+            RecoveredReceiptCollector collector,
+            RecoveryCheckpointer checkpointer) {
+        String continuationToken = checkpointer.getContinuationToken();
+        do {
+            for (FeedResponse<T> page : pageReader.apply(continuationToken)) {
+                pageRecovery.accept(page.getResults());
+                continuationToken = page.getContinuationToken();
+                if (continuationToken != null) {
+                    checkpointer.save(continuationToken,
+                            RecoveryCheckpointer.lastProcessedId(page.getResults(), idExtractor),
+                            collector.getSavedCounter(), collector.getErrorCounter());
+                    if (checkpointer.isDeadlineReached()) {
+                        break;
                     }
                 }
-                continuationToken = page.getContinuationToken();
             }
-        } while (continuationToken != null);
-        return MassiveRecoverResult.builder()
-                .receiptList(receiptList)
-                .errorCounter(errorCounter)
-                .build();
+        } while (continuationToken != null && !checkpointer.isDeadlineReached());
+        MassiveRecoverResult result = collector.getResult();
+        if (continuationToken != null) {
+            return checkpointer.interrupt(result);
+        }
+        checkpointer.complete();
+        return checkpointer.addPreviousProgress(result);
+    }
+
+    private static void recoverPage(
+            List<Receipt> receipts,
+            ExecutionContext context,
+            BizEventToReceiptService bizEventToReceiptService,
+            BizEventCosmosClient bizEventCosmosClient,
+            ReceiptCosmosService receiptCosmosService,
+            Logger logger,
+            RecoveredReceiptCollector collector,
+            RequestUnitBudget budget) {
+        Map<String, BizEvent> prefetchedBizEvents = prefetchBizEvents(receipts.stream()
+                .filter(receipt -> !Boolean.TRUE.equals(receipt.getIsCart()))
+                .map(Receipt::getEventId)
+                .toList(), bizEventCosmosClient, logger);
+        forEachInParallel(receipts, receipt -> {
+            budget.acquire();
+            ReceiptStatusType fromStatus = receipt.getStatus();
+            int previousAttempts = receipt.getRecoverNumRetry();
+            try {
+                Receipt restored = recoverReceipt(receipt.getEventId(), context, bizEventToReceiptService,
+                        bizEventCosmosClient, prefetchedBizEvents, () -> receipt, logger,
+                        Boolean.TRUE.equals(receipt.getIsCart()));
+                if (restored == null) {
+                    RecoveryBackoff.recordFailedAttempt(receipt.getId(), fromStatus, previousAttempts, receiptCosmosService);
+                }
+                collector.add(restored, fromStatus);
+            } catch (RecoveryLeaseLostException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+                RecoveryBackoff.recordFailedAttempt(receipt.getId(), fromStatus, previousAttempts, receiptCosmosService);
+                collector.addError();
+            }
+        });
+        collector.flush();
+    }
+
+    /**
+     * Recover the receipts of a page of summaries: the full receipt is read by id only when its biz-event is valid,
+     * so only the receipts that are going to be rewritten are deserialized.
+     */
+    private static void recoverSummaryPage(
+            List<ReceiptSummary> summaries,
+            ExecutionContext context,
+            BizEventToReceiptService bizEventToReceiptService,
+            BizEventCosmosClient bizEventCosmosClient,
+            ReceiptCosmosService receiptCosmosService,
+            Logger logger,
+            RecoveredReceiptCollector collector,
+            RequestUnitBudget budget) {
+        Map<String, BizEvent> prefetchedBizEvents = prefetchBizEvents(summaries.stream()
+                .filter(summary -> !Boolean.TRUE.equals(summary.getIsCart()))
+                .map(ReceiptSummary::getEventId)
+                .toList(), bizEventCosmosClient, logger);
+        forEachInParallel(summaries, summary -> {
+            budget.acquire();
+            try {
+                Receipt restored = recoverReceipt(summary.getEventId(), context, bizEventToReceiptService,
+                        bizEventCosmosClient, prefetchedBizEvents,
+                        () -> receiptCosmosService.getReceiptById(summary.getId()),
+                        logger, Boolean.TRUE.equals(summary.getIsCart()));
+                if (restored == null) {
+                    RecoveryBackoff.recordFailedAttempt(summary.getId(), summary.getStatus(),
+                            summary.getRecoverNumRetry(), receiptCosmosService);
+                }
+                collector.add(restored, summary.getStatus());
+            } catch (RecoveryLeaseLostException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+                RecoveryBackoff.recordFailedAttempt(summary.getId(), summary.getStatus(),
+                        summary.getRecoverNumRetry(), receiptCosmosService);
+                collector.addError();
+            }
+        });
+        collector.flush();
+    }
+
+    /**
+     * Retrieve with a single call the biz-events of the receipts of a page, if MASSIVE_RECOVER_BIZ_EVENT_PREFETCH_ENABLED
+     * is true. Only the biz-events in a valid status are returned, as the single biz-event lookup does.
+     *
+     * @param eventIds the ids of the biz-events of the page, the carts excluded
+     * @return the biz-events by id, or null if the prefetch is disabled or failed and every receipt has to retrieve
+     * its own biz-event
+     */
+    static Map<String, BizEvent> prefetchBizEvents(List<String> eventIds, BizEventCosmosClient bizEventCosmosClient,
+                                                   Logger logger) {
+        if (eventIds.isEmpty() || !isBizEventPrefetchEnabled()) {
+            return null;
+        }
+        try {
+            Map<String, BizEvent> bizEvents = new HashMap<>();
+            for (BizEvent bizEvent : bizEventCosmosClient.getBizEventDocuments(PREFETCH_BIZ_EVENTS_OPERATION, new LinkedHashSet<>(eventIds))) {
+                if (bizEvent != null && VALID_STATUSES.contains(bizEvent.getEventStatus())) {
+                    bizEvents.put(bizEvent.getId(), bizEvent);
+                }
+            }
+            return bizEvents;
+        } catch (Exception e) {
+            logger.warn("Unable to prefetch the biz-events of the page, they are retrieved one by one", e);
+            return null;
+        }
+    }
+
+    private static boolean isBizEventPrefetchEnabled() {
+        return Boolean.parseBoolean(System.getenv().getOrDefault("MASSIVE_RECOVER_BIZ_EVENT_PREFETCH_ENABLED", "false"));
+    }
+
+    /**
+     * Apply the action to every document of a page, with up to MASSIVE_RECOVER_MAX_CONCURRENCY documents in flight
+     * across all the running recoveries. The method returns when the whole page is processed, so the page can be
+     * flushed and checkpointed as a unit.
+     * <p>
+     * The action is expected to handle the errors of its own document: an exception escaping the action stops the
+     * recovery.
+     */
+    static <T> void forEachInParallel(List<T> documents, Consumer<T> action) {
+        if (MASSIVE_RECOVER_MAX_CONCURRENCY <= 1 || documents.size() <= 1) {
+            documents.forEach(action);
+            return;
+        }
+        RequestUnitBudget budget = RequestUnitBudget.current();
+        List<Future<?>> futures = documents.stream()
+                .<Future<?>>map(document -> MASSIVE_RECOVER_EXECUTOR.submit(() -> {
+                    try (RequestUnitBudget.Scope ignored = RequestUnitBudget.bind(budget)) {
+                        action.accept(document);
+                    }
+                }))
+                .toList();
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Massive recovery interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Massive recovery failed", e.getCause());
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "massive-recover-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static boolean isMassiveRecoverProjectionEnabled() {
+        return Boolean.parseBoolean(System.getenv().getOrDefault("MASSIVE_RECOVER_PROJECTION_ENABLED", "false"));
     }
 
     /**
@@ -393,13 +700,46 @@ public class BizEventToReceiptUtils {
         return receipt.getStatus() != ReceiptStatusType.FAILED && receipt.getStatus() != ReceiptStatusType.NOT_QUEUE_SENT;
     }
 
+    /**
+     * Recover the carts with the provided status.
+     * <p>
+     * The request units consumed by the recovery are limited to RECOVER_CART_MASSIVE_MAX_RU_PER_SECOND, see
+     * {@link RequestUnitBudget}.
+     */
     public static MassiveRecoverCartResult massiveRecoverCartByStatus(
             ExecutionContext context, BizEventToReceiptService bizEventToReceiptService,
             CartReceiptsCosmosClient cartReceiptsCosmosClient,
             Logger logger, CartStatusType statusType) {
+        return massiveRecoverCartByStatus(context, bizEventToReceiptService, cartReceiptsCosmosClient, logger,
+                statusType, RecoveryCheckpointer.disabled());
+    }
+
+    /**
+     * Recover the carts with the provided status, resuming from and saving the checkpoints of the job, see
+     * {@link RecoveryCheckpointer}. The recovered carts of a checkpointed job are saved at the end of every page
+     * instead of being returned in the cart items.
+     * <p>
+     * The request units consumed by the recovery are limited to RECOVER_CART_MASSIVE_MAX_RU_PER_SECOND, see
+     * {@link RequestUnitBudget}.
+     */
+    public static MassiveRecoverCartResult massiveRecoverCartByStatus(
+            ExecutionContext context, BizEventToReceiptService bizEventToReceiptService,
+            CartReceiptsCosmosClient cartReceiptsCosmosClient,
+            Logger logger, CartStatusType statusType, RecoveryCheckpointer checkpointer) {
+        try (RequestUnitBudget budget = RequestUnitBudget.open("RECOVER_CART_MASSIVE_MAX_RU_PER_SECOND")) {
+            return massiveRecoverCartByStatus(context, bizEventToReceiptService, cartReceiptsCosmosClient,
+                    logger, statusType, budget, checkpointer);
+        }
+    }
+
+    private static MassiveRecoverCartResult massiveRecoverCartByStatus(
+            ExecutionContext context, BizEventToReceiptService bizEventToReceiptService,
+            CartReceiptsCosmosClient cartReceiptsCosmosClient,
+            Logger logger, CartStatusType statusType, RequestUnitBudget budget, RecoveryCheckpointer checkpointer) {
         int errorCounter = 0;
+        int savedCounter = 0;
         List<CartForReceipt> cartItems = new ArrayList<>();
-        String continuationToken = null;
+        String continuationToken = checkpointer.getContinuationToken();
         if (statusType == null) {
             throw new IllegalArgumentException("at least one status must be specified");
         }
@@ -416,8 +756,9 @@ public class BizEventToReceiptUtils {
             assert feedResponseIterator != null;
             for (FeedResponse<CartForReceipt> page : feedResponseIterator) {
                 for (CartForReceipt cart : page.getResults()) {
+                    budget.acquire();
                     try {
-                        List<BizEvent> bizEventList = bizEventToReceiptService.getCartBizEvents(cart.getId());
+                        List<BizEvent> bizEventList = bizEventToReceiptService.getCartBizEvents(cart);
                         Receipt receipt = bizEventToReceiptService.createCartReceipt(bizEventList);
 
                         if (!isReceiptStatusValid(receipt)) {
@@ -436,19 +777,40 @@ public class BizEventToReceiptUtils {
                         // Send biz event as message to queue (to be processed from the other function)
                         bizEventToReceiptService.handleSendMessageToQueue(bizEventList, receipt);
                         cart.setStatus(CartStatusType.SENT);
-                        cartItems.add(cart);
+                        if (checkpointer.isEnabled()) {
+                            cartReceiptsCosmosClient.upsertCart(cart);
+                            savedCounter++;
+                        } else {
+                            cartItems.add(cart);
+                        }
+                    } catch (RecoveryLeaseLostException e) {
+                        throw e;
                     } catch (Exception e) {
                         logger.error(e.getMessage(), e);
                         errorCounter++;
                     }
                 }
                 continuationToken = page.getContinuationToken();
+                if (continuationToken != null) {
+                    checkpointer.save(continuationToken,
+                            RecoveryCheckpointer.lastProcessedId(page.getResults(), CartForReceipt::getId),
+                            savedCounter, errorCounter);
+                    if (checkpointer.isDeadlineReached()) {
+                        break;
+                    }
+                }
             }
-        } while (continuationToken != null);
-        return MassiveRecoverCartResult.builder()
+        } while (continuationToken != null && !checkpointer.isDeadlineReached());
+        MassiveRecoverCartResult result = MassiveRecoverCartResult.builder()
                 .cartItems(cartItems)
                 .errorCounter(errorCounter)
+                .savedCounter(savedCounter)
                 .build();
+        if (continuationToken != null) {
+            return checkpointer.interrupt(result);
+        }
+        checkpointer.complete();
+        return checkpointer.addPreviousProgress(result);
     }
 
     public static BigDecimal getAmount(BizEvent bizEvent) {
@@ -556,4 +918,12 @@ public class BizEventToReceiptUtils {
         return true;
     }
 
+    /**
+     * Loader of the receipt to recover
+     */
+    @FunctionalInterface
+    private interface ReceiptLoader {
+
+        Receipt load() throws ReceiptNotFoundException;
+    }
 }
@@ -0,0 +1,160 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import com.azure.cosmos.models.FeedResponse;
+import com.microsoft.azure.functions.ExecutionContext;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.BizEventCosmosClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptRecoveryCandidate;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.ReceiptNotFoundException;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Utils of the recovery driven by the receipt change feed.
+ * <p>
+ * Every change of a receipt in a recoverable status updates its entry in the due-time index with the time from which
+ * the receipt has to be recovered, the same age used by the scheduled full scans. The scheduled recovery then reads
+ * only the entries that are due instead of all the receipts in the recoverable statuses.
+ */
+public class ChangeFeedRecoveryUtils {
+
+    private static final int PAGE_SIZE = 100;
+
+    /**
+     * Hide from public usage.
+     */
+    private ChangeFeedRecoveryUtils() {
+    }
+
+    /**
+     * @return true if the receipts have to be recovered through the change feed due-time index
+     */
+    public static boolean isChangeFeedRecoveryEnabled() {
+        return Boolean.parseBoolean(System.getenv().getOrDefault("CHANGE_FEED_RECOVERY_ENABLED", "false"));
+    }
+
+    /**
+     * Build the entry of the due-time index of a changed receipt
+     *
+     * @param receipt the changed receipt
+     * @return the recovery candidate, null if the receipt is not in a recoverable status
+     */
+    public static ReceiptRecoveryCandidate toRecoveryCandidate(Receipt receipt) {
+        if (receipt == null || receipt.getStatus() == null) {
+            return null;
+        }
+        Long dueAt = switch (receipt.getStatus()) {
+            case FAILED, NOT_QUEUE_SENT -> receipt.getInserted_at();
+            case INSERTED -> receipt.getInserted_at() + getMillisEnv("MAX_DATE_DIFF_MILLIS");
+            case IO_ERROR_TO_NOTIFY -> receipt.getGenerated_at();
+            case GENERATED -> receipt.getGenerated_at() + getMillisEnv("MAX_DATE_DIFF_NOTIFY_MILLIS");
+            default -> null;
+        };
+        if (dueAt == null) {
+            return null;
+        }
+        return ReceiptRecoveryCandidate.builder()
+                .id(receipt.getId())
+                .eventId(receipt.getEventId())
+                .status(receipt.getStatus())
+                .isCart(receipt.getIsCart())
+                .dueAt(dueAt)
+                .build();
+    }
+
+    /**
+     * Recover the receipts of the due entries of the index.
+     * <p>
+     * The receipt is read by id and recovered only if it is still in the status of its entry, the entry is removed
+     * once the receipt is recovered or if it is stale. The recovered receipts are saved with a bulk upsert at the end
+     * of every page and their entries are removed only once saved, so a run stopped before the end never loses the
+     * entry of a receipt not saved yet. The entries of the receipts that could not be recovered or saved are kept, to
+     * be retried on the next execution.
+     *
+     * @return the result of the recovery
+     */
+    public static MassiveRecoverResult recoverDueReceipts(
+            ExecutionContext context,
+            BizEventToReceiptService bizEventToReceiptService,
+            BizEventCosmosClient bizEventCosmosClient,
+            ReceiptCosmosService receiptCosmosService,
+            Logger logger) {
+        RecoveredReceiptCollector collector = new RecoveredReceiptCollector(receiptCosmosService, true);
+        long now = System.currentTimeMillis();
+        String continuationToken = null;
+        do {
+            Iterable<FeedResponse<ReceiptRecoveryCandidate>> feedResponseIterator =
+                    receiptCosmosService.getDueRecoveryCandidates(now, continuationToken, PAGE_SIZE);
+
+            for (FeedResponse<ReceiptRecoveryCandidate> page : feedResponseIterator) {
+                List<ReceiptRecoveryCandidate> restoredCandidates = new ArrayList<>();
+                for (ReceiptRecoveryCandidate candidate : page.getResults()) {
+                    if (recoverCandidate(candidate, context, bizEventToReceiptService, bizEventCosmosClient,
+                            receiptCosmosService, logger, collector)) {
+                        restoredCandidates.add(candidate);
+                    }
+                }
+                collector.flush();
+                Set<String> failedSaveIds = new HashSet<>(collector.getFailedSaveIds());
+                restoredCandidates.stream()
+                        .filter(candidate -> !failedSaveIds.contains(candidate.getId()))
+                        .forEach(receiptCosmosService::deleteRecoveryCandidate);
+                continuationToken = page.getContinuationToken();
+            }
+        } while (continuationToken != null);
+        return collector.getResult();
+    }
+
+    /**
+     * @return true if the receipt was restored and its entry has to be removed once the receipt is saved
+     */
+    private static boolean recoverCandidate(
+            ReceiptRecoveryCandidate candidate,
+            ExecutionContext context,
+            BizEventToReceiptService bizEventToReceiptService,
+            BizEventCosmosClient bizEventCosmosClient,
+            ReceiptCosmosService receiptCosmosService,
+            Logger logger,
+            RecoveredReceiptCollector collector) {
+        try {
+            Receipt receipt = receiptCosmosService.getReceiptById(candidate.getId());
+            if (receipt.getStatus() != candidate.getStatus()) {
+                receiptCosmosService.deleteRecoveryCandidate(candidate);
+                return false;
+            }
+            Receipt restored = isNotNotifiedStatus(receipt.getStatus()) ?
+                    RecoverNotNotifiedReceiptUtils.restoreReceipt(receipt) :
+                    BizEventToReceiptUtils.getEvent(receipt.getEventId(), context, bizEventToReceiptService,
+                            bizEventCosmosClient, receiptCosmosService, receipt, logger,
+                            Boolean.TRUE.equals(receipt.getIsCart()));
+            if (restored != null) {
+                collector.add(restored);
+                return true;
+            }
+            receiptCosmosService.deleteRecoveryCandidate(candidate);
+        } catch (ReceiptNotFoundException e) {
+            receiptCosmosService.deleteRecoveryCandidate(candidate);
+        } catch (Exception e) {
+            logger.error("[{}] Error recovering the receipt with id {}", context.getFunctionName(), candidate.getId(), e);
+            collector.addError();
+        }
+        return false;
+    }
+
+    private static boolean isNotNotifiedStatus(ReceiptStatusType status) {
+        return status == ReceiptStatusType.GENERATED || status == ReceiptStatusType.IO_ERROR_TO_NOTIFY;
+    }
+
+    private static long getMillisEnv(String name) {
+        String value = System.getenv(name);
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+}
@@ -0,0 +1,220 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import com.azure.cosmos.CosmosDiagnostics;
+import com.azure.cosmos.CosmosDiagnosticsContext;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosBulkItemResponse;
+import com.azure.cosmos.models.CosmosBulkOperationResponse;
+import com.azure.cosmos.models.CosmosItemResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records latency, request charge (RU), pages, retries and throttles of the CosmosDB operations.
+ * <p>
+ * The diagnostics of the operations slower than COSMOS_DIAGNOSTICS_LATENCY_THRESHOLD_MILLIS or more expensive than
+ * COSMOS_DIAGNOSTICS_REQUEST_CHARGE_THRESHOLD are logged. The request charges and the throttles are also reported to
+ * the {@link RequestUnitBudget} of the job that performed the operation, if any.
+ */
+public class CosmosMetricsUtils {
+
+    private static final Logger logger = LoggerFactory.getLogger(CosmosMetricsUtils.class);
+
+    public static final String PATH_POINT_READ = "point-read";
+    public static final String PATH_QUERY = "query";
+    public static final String PATH_READ_MANY = "read-many";
+    public static final String PATH_WRITE = "write";
+    public static final String PATH_BULK = "bulk";
+
+    private static final String LATENCY_METRIC_NAME = "cosmos.operation.latency";
+    private static final String REQUEST_CHARGE_METRIC_NAME = "cosmos.operation.request.charge";
+    private static final String PAGES_METRIC_NAME = "cosmos.operation.pages";
+    private static final String RETRIES_METRIC_NAME = "cosmos.operation.retries";
+    private static final String THROTTLES_METRIC_NAME = "cosmos.operation.throttles";
+
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * Hide from public usage.
+     */
+    private CosmosMetricsUtils() {
+    }
+
+    /**
+     * Record latency and request charge of an operation
+     *
+     * @param container     the CosmosDB container
+     * @param operation     the name of the operation
+     * @param path          the path used to perform the operation, e.g. {@link #PATH_POINT_READ} or {@link #PATH_QUERY}
+     * @param startNanos    the start of the operation, in {@link System#nanoTime()} scale
+     * @param requestCharge the request units consumed by the operation
+     */
+    public static void recordOperation(String container, String operation, String path, long startNanos, double requestCharge) {
+        recordOperation(container, operation, path, startNanos, requestCharge, null);
+    }
+
+    /**
+     * Record latency, request charge and diagnostics of an operation
+     *
+     * @param container     the CosmosDB container
+     * @param operation     the name of the operation
+     * @param path          the path used to perform the operation, e.g. {@link #PATH_POINT_READ} or {@link #PATH_QUERY}
+     * @param startNanos    the start of the operation, in {@link System#nanoTime()} scale
+     * @param requestCharge the request units consumed by the operation
+     * @param diagnostics   the diagnostics of the operation, may be null
+     */
+    public static void recordOperation(String container, String operation, String path, long startNanos,
+                                       double requestCharge, CosmosDiagnostics diagnostics) {
+        recordOperation(container, operation, path, Duration.ofNanos(System.nanoTime() - startNanos), requestCharge, diagnostics);
+    }
+
+    /**
+     * Record latency and request charge of an operation
+     *
+     * @param container     the CosmosDB container
+     * @param operation     the name of the operation
+     * @param path          the path used to perform the operation, e.g. {@link #PATH_POINT_READ} or {@link #PATH_QUERY}
+     * @param latency       the latency of the operation
+     * @param requestCharge the request units consumed by the operation
+     */
+    public static void recordOperation(String container, String operation, String path, Duration latency, double requestCharge) {
+        recordOperation(container, operation, path, latency, requestCharge, null);
+    }
+
+    /**
+     * Record latency, request charge and diagnostics of an operation, or of a single page of a query.
+     * <p>
+     * The retries are read from the diagnostics context, the diagnostics are logged if the latency or the request
+     * charge cross the configured thresholds.
+     *
+     * @param container     the CosmosDB container
+     * @param operation     the name of the operation
+     * @param path          the path used to perform the operation, e.g. {@link #PATH_POINT_READ} or {@link #PATH_QUERY}
+     * @param latency       the latency of the operation
+     * @param requestCharge the request units consumed by the operation
+     * @param diagnostics   the diagnostics of the operation, may be null
+     */
+    public static void recordOperation(String container, String operation, String path, Duration latency,
+                                       double requestCharge, CosmosDiagnostics diagnostics) {
+        Tags tags = Tags.of("container", String.valueOf(container), "operation", operation, "path", path);
+        Timer.builder(LATENCY_METRIC_NAME)
+                .description("Latency of the CosmosDB operations")
+                .tags(tags)
+                .register(MetricsRegistryUtils.getRegistry())
+                .record(latency.toNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder(REQUEST_CHARGE_METRIC_NAME)
+                .description("Request units consumed by the CosmosDB operations")
+                .baseUnit("RU")
+                .tags(tags)
+                .register(MetricsRegistryUtils.getRegistry())
+                .record(requestCharge);
+        RequestUnitBudget.chargeCurrent(requestCharge);
+        Counter.builder(PAGES_METRIC_NAME)
+                .description("Responses (query pages) returned by the CosmosDB operations")
+                .tags(tags)
+                .register(MetricsRegistryUtils.getRegistry())
+                .increment();
+
+        CosmosDiagnosticsContext diagnosticsContext = diagnostics != null ? diagnostics.getDiagnosticsContext() : null;
+        if (diagnosticsContext != null) {
+            DistributionSummary.builder(RETRIES_METRIC_NAME)
+                    .description("Retries performed by the SDK for the CosmosDB operations")
+                    .tags(tags)
+                    .register(MetricsRegistryUtils.getRegistry())
+                    .record(diagnosticsContext.getRetryCount());
+        }
+
+        if (latency.toMillis() > getLatencyThresholdMillis() || requestCharge > getRequestChargeThreshold()) {
+            logger.warn("CosmosDB operation {} ({}) on container {} took {} ms and consumed {} RU, diagnostics: {}",
+                    operation, path, container, latency.toMillis(), requestCharge, diagnostics);
+        }
+    }
+
+    /**
+     * Record a failed operation, counting it as throttled if it failed with status 429
+     *
+     * @param container  the CosmosDB container
+     * @param operation  the name of the operation
+     * @param path       the path used to perform the operation
+     * @param startNanos the start of the operation, in {@link System#nanoTime()} scale
+     * @param exception  the exception thrown by the operation
+     */
+    public static void recordFailure(String container, String operation, String path, long startNanos, CosmosException exception) {
+        if (exception.getStatusCode() == STATUS_TOO_MANY_REQUESTS) {
+            recordThrottle(container, operation, path, exception.getRetryAfterDuration());
+        }
+        recordOperation(container, operation, path, startNanos, exception.getRequestCharge(), exception.getDiagnostics());
+    }
+
+    /**
+     * Execute and record a single item operation (create, upsert, delete...)
+     *
+     * @param container the CosmosDB container
+     * @param operation the name of the operation
+     * @param path      the path used to perform the operation
+     * @param call      the operation
+     * @param <T>       the type of the item
+     * @return the response of the operation
+     */
+    public static <T> CosmosItemResponse<T> recordItemOperation(
+            String container, String operation, String path, Supplier<CosmosItemResponse<T>> call) {
+        long start = System.nanoTime();
+        try {
+            CosmosItemResponse<T> response = call.get();
+            if (response != null) {
+                recordOperation(container, operation, path, start, response.getRequestCharge(), response.getDiagnostics());
+            }
+            return response;
+        } catch (CosmosException e) {
+            recordFailure(container, operation, path, start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Record the outcome of a single operation of a bulk request
+     *
+     * @param container the CosmosDB container
+     * @param operation the name of the bulk operation
+     * @param response  the response of the single operation
+     * @param <T>       the type of the context of the bulk operation
+     */
+    public static <T> void recordBulkOperation(String container, String operation, CosmosBulkOperationResponse<T> response) {
+        CosmosBulkItemResponse itemResponse = response.getResponse();
+        if (itemResponse != null) {
+            if (itemResponse.getStatusCode() == STATUS_TOO_MANY_REQUESTS) {
+                recordThrottle(container, operation, PATH_BULK, itemResponse.getRetryAfterDuration());
+            }
+            Duration latency = itemResponse.getDuration() != null ? itemResponse.getDuration() : Duration.ZERO;
+            recordOperation(container, operation, PATH_BULK, latency, itemResponse.getRequestCharge(),
+                    itemResponse.getCosmosDiagnostics());
+        } else if (response.getException() instanceof CosmosException e && e.getStatusCode() == STATUS_TOO_MANY_REQUESTS) {
+            recordThrottle(container, operation, PATH_BULK, e.getRetryAfterDuration());
+        }
+    }
+
+    private static void recordThrottle(String container, String operation, String path, Duration retryAfter) {
+        RequestUnitBudget.throttleCurrent(retryAfter);
+        Counter.builder(THROTTLES_METRIC_NAME)
+                .description("CosmosDB operations rejected with status " + STATUS_TOO_MANY_REQUESTS)
+                .tags(Tags.of("container", String.valueOf(container), "operation", operation, "path", path))
+                .register(MetricsRegistryUtils.getRegistry())
+                .increment();
+    }
+
+    private static long getLatencyThresholdMillis() {
+        return Long.parseLong(System.getenv().getOrDefault("COSMOS_DIAGNOSTICS_LATENCY_THRESHOLD_MILLIS", "1000"));
+    }
+
+    private static double getRequestChargeThreshold() {
+        return Double.parseDouble(System.getenv().getOrDefault("COSMOS_DIAGNOSTICS_REQUEST_CHARGE_THRESHOLD", "100"));
+    }
+}
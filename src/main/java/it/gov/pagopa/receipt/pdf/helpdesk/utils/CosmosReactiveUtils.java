@@ -0,0 +1,54 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import com.azure.cosmos.models.FeedResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public class CosmosReactiveUtils {
+
+    /**
+     * Hide from public usage.
+     */
+    private CosmosReactiveUtils() {
+    }
+
+    /**
+     * @return true if CosmosDB has to be accessed through the non-blocking clients
+     */
+    public static boolean isCosmosReactiveEnabled() {
+        return Boolean.parseBoolean(System.getenv().getOrDefault("COSMOS_REACTIVE_ENABLED", "false"));
+    }
+
+    /**
+     * @return the number of query pages requested to CosmosDB ahead of the one being processed
+     */
+    public static int getPagePrefetch() {
+        return Integer.parseInt(System.getenv().getOrDefault("COSMOS_REACTIVE_PAGE_PREFETCH", "2"));
+    }
+
+    /**
+     * Apply the action to every page of the stream, one page at a time, while up to COSMOS_REACTIVE_PAGE_PREFETCH
+     * following pages are fetched. The method returns when the whole stream is processed.
+     * <p>
+     * The action runs on the bounded elastic scheduler, so it can perform blocking calls, with the
+     * {@link RequestUnitBudget} of the calling thread bound.
+     *
+     * @param pages  the stream of the pages
+     * @param action the action applied to the documents of every page
+     * @param <T>    the type of the documents
+     */
+    public static <T> void forEachPage(Flux<FeedResponse<T>> pages, Consumer<List<T>> action) {
+        RequestUnitBudget budget = RequestUnitBudget.current();
+        pages.publishOn(Schedulers.boundedElastic(), getPagePrefetch())
+                .doOnNext(page -> {
+                    try (RequestUnitBudget.Scope ignored = RequestUnitBudget.bind(budget)) {
+                        action.accept(page.getResults());
+                    }
+                })
+                .then()
+                .block();
+    }
+}
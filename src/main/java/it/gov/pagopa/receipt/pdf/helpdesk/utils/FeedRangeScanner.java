@@ -0,0 +1,114 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import com.azure.cosmos.models.FeedRange;
+import com.azure.cosmos.models.FeedResponse;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Scanner of a CosmosDB container that queries every feed range on its own worker.
+ * <p>
+ * Every worker follows the continuation token of its range and puts the pages in a bounded queue, so the workers
+ * are slowed down when the pages are not consumed fast enough. The pages are consumed on the calling thread.
+ * At most MASSIVE_RECOVER_FEED_RANGE_CONCURRENCY ranges are scanned at the same time and at most
+ * MASSIVE_RECOVER_FEED_RANGE_QUEUE_SIZE pages wait in the queue.
+ */
+public class FeedRangeScanner {
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final int maxConcurrency = Integer.parseInt(System.getenv().getOrDefault("MASSIVE_RECOVER_FEED_RANGE_CONCURRENCY", "4"));
+    private final int queueSize = Integer.parseInt(System.getenv().getOrDefault("MASSIVE_RECOVER_FEED_RANGE_QUEUE_SIZE", "10"));
+
+    /**
+     * @return true if the massive recovery has to scan the feed ranges of the receipt container in parallel
+     */
+    public static boolean isFeedRangeScanEnabled() {
+        return Boolean.parseBoolean(System.getenv().getOrDefault("MASSIVE_RECOVER_FEED_RANGE_ENABLED", "false"));
+    }
+
+    /**
+     * Scan the given feed ranges in parallel and consume their pages as soon as they are read
+     *
+     * @param feedRanges   the feed ranges of the container
+     * @param pageSize     the page size
+     * @param pageReader   the query of a single feed range
+     * @param pageConsumer the consumer of the documents of every page
+     * @param <T>          the type of the documents
+     */
+    public <T> void scan(
+            List<FeedRange> feedRanges,
+            Integer pageSize,
+            FeedRangePageReader<T> pageReader,
+            Consumer<List<T>> pageConsumer
+    ) {
+        if (feedRanges == null || feedRanges.isEmpty()) {
+            return;
+        }
+        BlockingQueue<List<T>> pages = new ArrayBlockingQueue<>(this.queueSize);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.maxConcurrency, feedRanges.size()));
+        RequestUnitBudget budget = RequestUnitBudget.current();
+        try {
+            List<Future<Void>> workers = feedRanges.stream()
+                    .map(feedRange -> executor.submit(() -> {
+                        try (RequestUnitBudget.Scope ignored = RequestUnitBudget.bind(budget)) {
+                            return scanFeedRange(feedRange, pageSize, pageReader, pages);
+                        }
+                    }))
+                    .toList();
+            executor.shutdown();
+
+            while (!executor.isTerminated() || !pages.isEmpty()) {
+                List<T> page = pages.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (page != null) {
+                    pageConsumer.accept(page);
+                }
+            }
+            for (Future<Void> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Feed range scan interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Feed range scan failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T> Void scanFeedRange(
+            FeedRange feedRange,
+            Integer pageSize,
+            FeedRangePageReader<T> pageReader,
+            BlockingQueue<List<T>> pages
+    ) throws InterruptedException {
+        String continuationToken = null;
+        do {
+            for (FeedResponse<T> page : pageReader.read(feedRange, continuationToken, pageSize)) {
+                pages.put(page.getResults());
+                continuationToken = page.getContinuationToken();
+            }
+        } while (continuationToken != null);
+        return null;
+    }
+
+    /**
+     * Paged query on a single feed range
+     *
+     * @param <T> the type of the documents
+     */
+    @FunctionalInterface
+    public interface FeedRangePageReader<T> {
+
+        Iterable<FeedResponse<T>> read(FeedRange feedRange, String continuationToken, Integer pageSize);
+    }
+}
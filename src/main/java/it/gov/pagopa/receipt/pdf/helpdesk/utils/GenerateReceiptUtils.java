@@ -27,6 +27,14 @@ public class GenerateReceiptUtils {
     	
     }
 
+    /**
+     * @return true if the PDFs have to be streamed from the PDF Engine to the Blob Storage
+     * without being saved in the working directory
+     */
+    public static boolean isPdfStreamingEnabled() {
+        return Boolean.parseBoolean(System.getenv().getOrDefault("PDF_STREAMING_ENABLED", "false"));
+    }
+
     public static Path createWorkingDirectory() throws IOException {
         File workingDirectory = new File(WORKING_DIRECTORY_PATH);
         if (!workingDirectory.exists()) {
@@ -0,0 +1,91 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.logging.LoggingMeterRegistry;
+import io.micrometer.core.instrument.logging.LoggingRegistryConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Provides the registry on which the application meters are recorded.
+ * <p>
+ * The Micrometer global registry drops every measurement until a registry is added to it, so on first access the
+ * exporter selected by METRICS_EXPORTER is added: with "logging" (default) the meters are published to the
+ * application log every METRICS_EXPORT_STEP_SECONDS and shipped to the monitoring stack with the other logs, with
+ * "none" they are not exported.
+ */
+public class MetricsRegistryUtils {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRegistryUtils.class);
+
+    public static final String EXPORTER_LOGGING = "logging";
+    public static final String EXPORTER_NONE = "none";
+
+    private static volatile boolean configured = false;
+
+    /**
+     * Hide from public usage.
+     */
+    private MetricsRegistryUtils() {
+    }
+
+    /**
+     * Retrieve the registry on which the meters must be registered, adding the configured exporter on first access
+     *
+     * @return the global registry
+     */
+    public static MeterRegistry getRegistry() {
+        if (!configured) {
+            configure();
+        }
+        return Metrics.globalRegistry;
+    }
+
+    private static synchronized void configure() {
+        if (configured) {
+            return;
+        }
+        String exporter = System.getenv().getOrDefault("METRICS_EXPORTER", EXPORTER_LOGGING);
+        Duration step = Duration.ofSeconds(Long.parseLong(System.getenv().getOrDefault("METRICS_EXPORT_STEP_SECONDS", "60")));
+        MeterRegistry registry = createRegistry(exporter, step);
+        if (registry != null) {
+            Metrics.addRegistry(registry);
+        }
+        logger.info("[{}] Metrics exported with exporter {} every {} s",
+                MetricsRegistryUtils.class.getSimpleName(), registry != null ? exporter : EXPORTER_NONE, step.toSeconds());
+        configured = true;
+    }
+
+    /**
+     * Create the exporting registry
+     *
+     * @param exporter the name of the exporter, {@link #EXPORTER_LOGGING} or {@link #EXPORTER_NONE}
+     * @param step     the interval between two publications of the meters
+     * @return the registry, null if the meters must not be exported
+     */
+    static MeterRegistry createRegistry(String exporter, Duration step) {
+        if (EXPORTER_LOGGING.equalsIgnoreCase(exporter)) {
+            LoggingRegistryConfig config = new LoggingRegistryConfig() {
+                @Override
+                public String get(String key) {
+                    return null;
+                }
+
+                @Override
+                public Duration step() {
+                    return step;
+                }
+            };
+            return new LoggingMeterRegistry(config, Clock.SYSTEM);
+        }
+        if (!EXPORTER_NONE.equalsIgnoreCase(exporter)) {
+            logger.warn("[{}] Unknown metrics exporter {}, the metrics are not exported",
+                    MetricsRegistryUtils.class.getSimpleName(), exporter);
+        }
+        return null;
+    }
+}
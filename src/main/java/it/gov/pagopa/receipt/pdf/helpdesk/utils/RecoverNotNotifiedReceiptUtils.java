@@ -1,8 +1,12 @@
 package it.gov.pagopa.receipt.pdf.helpdesk.utils;
 
+import com.azure.cosmos.models.CosmosPatchOperations;
 import com.azure.cosmos.models.FeedResponse;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptSummary;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.ReceiptBulkWriteResult;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
 
 import java.util.ArrayList;
@@ -10,6 +14,9 @@ import java.util.List;
 
 public class RecoverNotNotifiedReceiptUtils {
 
+    private static final String RESTORE_FILTER_PREDICATE = String.format("FROM c WHERE c.status IN ('%s', '%s')",
+            ReceiptStatusType.IO_ERROR_TO_NOTIFY, ReceiptStatusType.GENERATED);
+
     public static Receipt restoreReceipt(Receipt receipt) {
         receipt.setStatus(ReceiptStatusType.GENERATED);
         receipt.setNotificationNumRetry(0);
@@ -24,28 +31,169 @@ public class RecoverNotNotifiedReceiptUtils {
         return receipt;
     }
 
+    /**
+     * Build the partial update with the same changes of {@link #restoreReceipt(Receipt)}
+     *
+     * @return the patch operations
+     */
+    public static CosmosPatchOperations restorePatchOperations() {
+        return CosmosPatchOperations.create()
+                .set("/status", ReceiptStatusType.GENERATED)
+                .set("/notificationNumRetry", 0)
+                .set("/notified_at", 0)
+                .set("/reasonErr", null)
+                .set("/reasonErrPayer", null);
+    }
+
     public static List<Receipt> receiptMassiveRestore(ReceiptStatusType statusType, ReceiptCosmosService receiptCosmosService) {
+        return receiptMassiveRestoreByStatus(statusType, receiptCosmosService).getReceiptList();
+    }
+
+    /**
+     * Restore the not notified receipts with the provided status, see {@link RecoveredReceiptCollector} for how the
+     * restored receipts are saved.
+     * <p>
+     * If RECOVER_NOT_NOTIFIED_PATCH_ENABLED is true only the receipt summaries are read and every page is restored with
+     * a bulk of partial updates, applied only if the receipt is unchanged and still in {@link ReceiptStatusType#GENERATED}
+     * or {@link ReceiptStatusType#IO_ERROR_TO_NOTIFY} status.
+     * <p>
+     * If MASSIVE_RECOVER_FEED_RANGE_ENABLED is true the feed ranges of the receipt container are scanned in parallel,
+     * see {@link FeedRangeScanner}, unless the restore is checkpointed, see
+     * {@link RecoveryCheckpointer#allowsUnresumableScan()}.
+     * <p>
+     * The request units consumed by the restore are limited to RECOVER_NOT_NOTIFIED_MASSIVE_MAX_RU_PER_SECOND, see
+     * {@link RequestUnitBudget}.
+     *
+     * @param statusType the status of the receipts
+     * @param receiptCosmosService the receipt service
+     * @return the result of the restore
+     */
+    public static MassiveRecoverResult receiptMassiveRestoreByStatus(ReceiptStatusType statusType, ReceiptCosmosService receiptCosmosService) {
+        return receiptMassiveRestoreByStatus(statusType, receiptCosmosService, RecoveryCheckpointer.disabled());
+    }
 
+    /**
+     * Restore the not notified receipts with the provided status, resuming from and saving the checkpoints of the
+     * job, see {@link RecoveryCheckpointer} and {@link #receiptMassiveRestoreByStatus(ReceiptStatusType, ReceiptCosmosService)}.
+     *
+     * @param statusType the status of the receipts
+     * @param receiptCosmosService the receipt service
+     * @param checkpointer the checkpoints of the job
+     * @return the result of the restore
+     */
+    public static MassiveRecoverResult receiptMassiveRestoreByStatus(
+            ReceiptStatusType statusType,
+            ReceiptCosmosService receiptCosmosService,
+            RecoveryCheckpointer checkpointer) {
+        try (RequestUnitBudget budget = RequestUnitBudget.open("RECOVER_NOT_NOTIFIED_MASSIVE_MAX_RU_PER_SECOND")) {
+            return receiptMassiveRestoreByStatus(statusType, receiptCosmosService, budget, checkpointer);
+        }
+    }
+
+    private static MassiveRecoverResult receiptMassiveRestoreByStatus(
+            ReceiptStatusType statusType,
+            ReceiptCosmosService receiptCosmosService,
+            RequestUnitBudget budget,
+            RecoveryCheckpointer checkpointer) {
+        if (Boolean.parseBoolean(System.getenv().getOrDefault("RECOVER_NOT_NOTIFIED_PATCH_ENABLED", "false"))) {
+            return receiptMassivePatchByStatus(statusType, receiptCosmosService, budget, checkpointer);
+        }
+        RecoveredReceiptCollector collector = new RecoveredReceiptCollector(receiptCosmosService, checkpointer.isEnabled());
+        boolean unresumableScan = checkpointer.allowsUnresumableScan();
+        if (unresumableScan && CosmosReactiveUtils.isCosmosReactiveEnabled()) {
+            CosmosReactiveUtils.forEachPage(receiptCosmosService.streamNotNotifiedReceiptByStatus(100, statusType),
+                    receipts -> {
+                        budget.acquire();
+                        receipts.forEach(receipt -> collector.add(restoreReceipt(receipt)));
+                        collector.flush();
+                    });
+            return collector.getResult();
+        }
+        if (unresumableScan && FeedRangeScanner.isFeedRangeScanEnabled()) {
+            new FeedRangeScanner().scan(receiptCosmosService.getReceiptFeedRanges(), 100,
+                    (feedRange, token, pageSize) -> receiptCosmosService.getNotNotifiedReceiptByStatus(feedRange, token, pageSize, statusType),
+                    receipts -> {
+                        budget.acquire();
+                        receipts.forEach(receipt -> collector.add(restoreReceipt(receipt)));
+                        collector.flush();
+                    });
+            return collector.getResult();
+        }
 
-        List<Receipt> receiptList = new ArrayList<>();
-        String continuationToken = null;
+        String continuationToken = checkpointer.getContinuationToken();
         do {
 
             Iterable<FeedResponse<Receipt>> feedResponseIterator =
                     receiptCosmosService.getNotNotifiedReceiptByStatus(continuationToken, 100, statusType);
 
             for (FeedResponse<Receipt> page : feedResponseIterator) {
+                budget.acquire();
                 for (Receipt receipt : page.getResults()) {
                     Receipt restoredReceipt = restoreReceipt(receipt);
-                    receiptList.add(restoredReceipt);
+                    collector.add(restoredReceipt);
                 }
+                collector.flush();
                 continuationToken = page.getContinuationToken();
-
+                if (continuationToken != null) {
+                    checkpointer.save(continuationToken,
+                            RecoveryCheckpointer.lastProcessedId(page.getResults(), Receipt::getId),
+                            collector.getSavedCounter(), collector.getErrorCounter());
+                    if (checkpointer.isDeadlineReached()) {
+                        break;
+                    }
+                }
             }
-        } while (continuationToken != null);
+        } while (continuationToken != null && !checkpointer.isDeadlineReached());
+
+        MassiveRecoverResult result = collector.getResult();
+        if (continuationToken != null) {
+            return checkpointer.interrupt(result);
+        }
+        checkpointer.complete();
+        return checkpointer.addPreviousProgress(result);
+    }
 
+    private static MassiveRecoverResult receiptMassivePatchByStatus(
+            ReceiptStatusType statusType,
+            ReceiptCosmosService receiptCosmosService,
+            RequestUnitBudget budget,
+            RecoveryCheckpointer checkpointer) {
+        int savedCounter = 0;
+        List<String> failedSaveIds = new ArrayList<>();
+        String continuationToken = checkpointer.getContinuationToken();
+        do {
+            Iterable<FeedResponse<ReceiptSummary>> feedResponseIterator =
+                    receiptCosmosService.getNotNotifiedReceiptSummaryByStatus(continuationToken, 100, statusType);
 
-        return receiptList;
+            for (FeedResponse<ReceiptSummary> page : feedResponseIterator) {
+                budget.acquire();
+                ReceiptBulkWriteResult writeResult = receiptCosmosService.patchReceiptsInBulk(
+                        page.getResults(), restorePatchOperations(), RESTORE_FILTER_PREDICATE);
+                savedCounter += writeResult.getSavedCounter();
+                failedSaveIds.addAll(writeResult.getFailedIds());
+                continuationToken = page.getContinuationToken();
+                if (continuationToken != null) {
+                    checkpointer.save(continuationToken,
+                            RecoveryCheckpointer.lastProcessedId(page.getResults(), ReceiptSummary::getId),
+                            savedCounter, failedSaveIds.size());
+                    if (checkpointer.isDeadlineReached()) {
+                        break;
+                    }
+                }
+            }
+        } while (continuationToken != null && !checkpointer.isDeadlineReached());
+
+        MassiveRecoverResult result = MassiveRecoverResult.builder()
+                .receiptList(new ArrayList<>())
+                .errorCounter(failedSaveIds.size())
+                .savedCounter(savedCounter)
+                .failedSaveIds(failedSaveIds)
+                .build();
+        if (continuationToken != null) {
+            return checkpointer.interrupt(result);
+        }
+        checkpointer.complete();
+        return checkpointer.addPreviousProgress(result);
     }
 
     private RecoverNotNotifiedReceiptUtils() {}
@@ -0,0 +1,158 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.RecoveryLeaseLostException;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.ReceiptBulkWriteResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collector of the receipts recovered by a massive recovery.
+ * <p>
+ * By default the receipts are kept in memory and returned in the {@link MassiveRecoverResult}, to be saved by the
+ * output binding of the function. If MASSIVE_RECOVER_BULK_ENABLED is true they are instead saved on CosmosDB with a
+ * bulk upsert as soon as MASSIVE_RECOVER_BULK_BATCH_SIZE receipts are collected and at the end of every page.
+ * The receipts of a checkpointed recovery are always saved with the bulk upsert, so that every checkpoint only covers
+ * receipts already saved.
+ * <p>
+ * The bulk upserts are charged to the {@link RequestUnitBudget} of the job that created the collector, whatever
+ * thread collects the receipt that fills the batch.
+ */
+public class RecoveredReceiptCollector {
+
+    private final Logger logger = LoggerFactory.getLogger(RecoveredReceiptCollector.class);
+
+    private final boolean bulkEnabled;
+    private final int bulkBatchSize = Integer.parseInt(System.getenv().getOrDefault("MASSIVE_RECOVER_BULK_BATCH_SIZE", "100"));
+
+    private final ReceiptCosmosService receiptCosmosService;
+    private final RequestUnitBudget budget = RequestUnitBudget.current();
+
+    private final List<Receipt> receiptList = new ArrayList<>();
+    private final List<String> failedSaveIds = new ArrayList<>();
+    private final Map<ReceiptStatusType, Integer> recoveredByStatus = new EnumMap<>(ReceiptStatusType.class);
+    private int errorCounter;
+    private int savedCounter;
+
+    public RecoveredReceiptCollector(ReceiptCosmosService receiptCosmosService) {
+        this(receiptCosmosService, false);
+    }
+
+    /**
+     * @param receiptCosmosService the receipt service
+     * @param forceBulk            true if the receipts have to be saved with the bulk upsert regardless of
+     *                             MASSIVE_RECOVER_BULK_ENABLED
+     */
+    public RecoveredReceiptCollector(ReceiptCosmosService receiptCosmosService, boolean forceBulk) {
+        this.receiptCosmosService = receiptCosmosService;
+        this.bulkEnabled = forceBulk ||
+                Boolean.parseBoolean(System.getenv().getOrDefault("MASSIVE_RECOVER_BULK_ENABLED", "false"));
+    }
+
+    /**
+     * Collect a recovered receipt, saving the pending ones if the batch is full
+     *
+     * @param receipt the recovered receipt
+     */
+    public synchronized void add(Receipt receipt) {
+        add(receipt, null);
+    }
+
+    /**
+     * Collect a recovered receipt, counting it by the status it had before the recovery
+     *
+     * @param receipt    the recovered receipt
+     * @param fromStatus the status of the receipt before the recovery, null if unknown
+     */
+    public synchronized void add(Receipt receipt, ReceiptStatusType fromStatus) {
+        if (receipt != null && fromStatus != null) {
+            this.recoveredByStatus.merge(fromStatus, 1, Integer::sum);
+        }
+        if (!this.bulkEnabled) {
+            this.receiptList.add(receipt);
+            return;
+        }
+        if (receipt != null) {
+            this.receiptList.add(receipt);
+            if (this.receiptList.size() >= this.bulkBatchSize) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Count a receipt that could not be recovered
+     */
+    public synchronized void addError() {
+        this.errorCounter++;
+    }
+
+    /**
+     * Save the pending receipts with a bulk upsert, if the bulk write is enabled
+     */
+    public synchronized void flush() {
+        if (!this.bulkEnabled || this.receiptList.isEmpty()) {
+            return;
+        }
+        List<Receipt> batch = new ArrayList<>(this.receiptList);
+        this.receiptList.clear();
+        try (RequestUnitBudget.Scope ignored = RequestUnitBudget.bind(this.budget)) {
+            ReceiptBulkWriteResult writeResult = this.receiptCosmosService.saveReceiptsInBulk(batch);
+            this.savedCounter += writeResult.getSavedCounter();
+            writeResult.getFailedIds().forEach(id -> logger.error("Bulk save of the receipt with id {} failed", id));
+            this.failedSaveIds.addAll(writeResult.getFailedIds());
+            this.errorCounter += writeResult.getFailedIds().size();
+        } catch (RecoveryLeaseLostException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            logger.error("Bulk save of {} receipts failed", batch.size(), e);
+            batch.forEach(receipt -> this.failedSaveIds.add(receipt.getId()));
+            this.errorCounter += batch.size();
+        }
+    }
+
+    /**
+     * @return the number of receipts saved so far
+     */
+    public synchronized int getSavedCounter() {
+        return this.savedCounter;
+    }
+
+    /**
+     * @return the ids of the receipts whose bulk write failed so far
+     */
+    public synchronized List<String> getFailedSaveIds() {
+        return new ArrayList<>(this.failedSaveIds);
+    }
+
+    /**
+     * @return the number of receipts that could not be recovered or saved so far
+     */
+    public synchronized int getErrorCounter() {
+        return this.errorCounter;
+    }
+
+    /**
+     * Save the pending receipts and build the result of the recovery
+     *
+     * @return the result of the recovery
+     */
+    public synchronized MassiveRecoverResult getResult() {
+        flush();
+        return MassiveRecoverResult.builder()
+                .receiptList(new ArrayList<>(this.receiptList))
+                .errorCounter(this.errorCounter)
+                .savedCounter(this.savedCounter)
+                .failedSaveIds(new ArrayList<>(this.failedSaveIds))
+                .recoveredByStatus(new EnumMap<>(this.recoveredByStatus))
+                .build();
+    }
+}
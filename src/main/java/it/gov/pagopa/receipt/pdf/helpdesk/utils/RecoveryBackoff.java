@@ -0,0 +1,139 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosPatchOperations;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.RecoveryLeaseLostException;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import org.apache.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Backoff of the failed receipts that the massive recovery cannot recover.
+ * <p>
+ * If RECOVER_BACKOFF_ENABLED is true every failed recovery attempt is recorded on the receipt: the attempt counter
+ * is incremented and the next attempt is postponed by RECOVER_BACKOFF_BASE_MINUTES, doubled at every attempt up to
+ * RECOVER_BACKOFF_MAX_MINUTES. The failed receipts queries skip the receipts whose next attempt is not due yet, so
+ * the receipts that keep failing are not read on every execution. After RECOVER_BACKOFF_MAX_ATTEMPTS attempts the
+ * receipt is moved to {@link ReceiptStatusType#TO_REVIEW} and no longer recovered.
+ */
+public class RecoveryBackoff {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecoveryBackoff.class);
+
+    private static final String BACKOFF_FILTER_PREDICATE = String.format("FROM c WHERE c.status IN ('%s', '%s')",
+            ReceiptStatusType.FAILED, ReceiptStatusType.NOT_QUEUE_SENT);
+
+    /**
+     * Hide from public usage.
+     */
+    private RecoveryBackoff() {
+    }
+
+    /**
+     * @return true if the failed recovery attempts have to be recorded on the receipts
+     */
+    public static boolean isBackoffEnabled() {
+        return Boolean.parseBoolean(System.getenv().getOrDefault("RECOVER_BACKOFF_ENABLED", "false"));
+    }
+
+    /**
+     * Compute the time of the next recovery attempt of a receipt
+     *
+     * @param attempts the failed attempts so far, including the last one
+     * @param now      the time of the last attempt
+     * @return the time of the next attempt
+     */
+    public static long nextRecoverAt(int attempts, long now) {
+        long baseMinutes = Long.parseLong(System.getenv().getOrDefault("RECOVER_BACKOFF_BASE_MINUTES", "15"));
+        long maxMinutes = Long.parseLong(System.getenv().getOrDefault("RECOVER_BACKOFF_MAX_MINUTES", "1440"));
+        int exponent = Math.min(Math.max(attempts - 1, 0), 30);
+        long delayMinutes = Math.min(baseMinutes << exponent, maxMinutes);
+        return now + TimeUnit.MINUTES.toMillis(delayMinutes);
+    }
+
+    /**
+     * Record a failed recovery attempt of a receipt, if RECOVER_BACKOFF_ENABLED is true. The receipt is moved to
+     * {@link ReceiptStatusType#TO_REVIEW} once it reaches RECOVER_BACKOFF_MAX_ATTEMPTS attempts.
+     * <p>
+     * Only the {@link ReceiptStatusType#FAILED} and {@link ReceiptStatusType#NOT_QUEUE_SENT} receipts are backed off,
+     * as only their query skips the receipts whose next attempt is not due yet. The patch is applied only if the
+     * receipt is still in one of those statuses, so a receipt moved forward in the meantime is left untouched.
+     *
+     * @param receiptId            the id of the receipt
+     * @param status               the status of the receipt before the attempt
+     * @param previousAttempts     the failed attempts recorded on the receipt before this one
+     * @param receiptCosmosService the receipt service
+     */
+    public static void recordFailedAttempt(String receiptId, ReceiptStatusType status, int previousAttempts,
+                                           ReceiptCosmosService receiptCosmosService) {
+        if (!isBackoffEnabled() || receiptId == null ||
+                (status != ReceiptStatusType.FAILED && status != ReceiptStatusType.NOT_QUEUE_SENT)) {
+            return;
+        }
+        int attempts = previousAttempts + 1;
+        CosmosPatchOperations patchOperations = CosmosPatchOperations.create()
+                .set("/recoverNumRetry", attempts)
+                .set("/next_recover_at", nextRecoverAt(attempts, System.currentTimeMillis()));
+        if (isMaxAttemptsReached(receiptId, attempts)) {
+            patchOperations.set("/status", ReceiptStatusType.TO_REVIEW);
+        }
+        try {
+            receiptCosmosService.patchReceipt(receiptId, patchOperations, BACKOFF_FILTER_PREDICATE);
+        } catch (RecoveryLeaseLostException e) {
+            throw e;
+        } catch (CosmosException e) {
+            if (e.getStatusCode() == HttpStatus.SC_PRECONDITION_FAILED) {
+                logger.info("Receipt {} is no longer failed, the failed recovery attempt is not recorded", receiptId);
+                return;
+            }
+            logger.warn("Unable to record the failed recovery attempt of the receipt {}", receiptId, e);
+        } catch (RuntimeException e) {
+            logger.warn("Unable to record the failed recovery attempt of the receipt {}", receiptId, e);
+        }
+    }
+
+    /**
+     * Record a failed recovery attempt on a receipt that is going to be saved as
+     * {@link ReceiptStatusType#NOT_QUEUE_SENT}, if RECOVER_BACKOFF_ENABLED is true: the attempt is saved together
+     * with the receipt. The receipt is moved to {@link ReceiptStatusType#TO_REVIEW} once it reaches
+     * RECOVER_BACKOFF_MAX_ATTEMPTS attempts.
+     *
+     * @param receipt the receipt whose recovery failed
+     */
+    public static void applyFailedAttempt(Receipt receipt) {
+        if (!isBackoffEnabled()) {
+            return;
+        }
+        int attempts = receipt.getRecoverNumRetry() + 1;
+        receipt.setRecoverNumRetry(attempts);
+        receipt.setNext_recover_at(nextRecoverAt(attempts, System.currentTimeMillis()));
+        if (isMaxAttemptsReached(receipt.getId(), attempts)) {
+            receipt.setStatus(ReceiptStatusType.TO_REVIEW);
+        }
+    }
+
+    private static boolean isMaxAttemptsReached(String receiptId, int attempts) {
+        int maxAttempts = Integer.parseInt(System.getenv().getOrDefault("RECOVER_BACKOFF_MAX_ATTEMPTS", "10"));
+        if (attempts < maxAttempts) {
+            return false;
+        }
+        logger.warn("Receipt {} not recovered after {} attempts, moved to {}", receiptId, attempts,
+                ReceiptStatusType.TO_REVIEW);
+        return true;
+    }
+
+    /**
+     * Clear the failed recovery attempts of a recovered receipt
+     *
+     * @param receipt the recovered receipt
+     */
+    public static void clearAttempts(Receipt receipt) {
+        receipt.setRecoverNumRetry(0);
+        receipt.setNext_recover_at(0);
+    }
+}
@@ -0,0 +1,276 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryCheckpoint;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverCartResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Checkpoints of a resumable massive recovery job.
+ * <p>
+ * If MASSIVE_RECOVER_CHECKPOINT_ENABLED is true the job saves its continuation token, its counters and the id of the
+ * last processed document after every page, once the results of the page are saved. A new invocation of the same
+ * job resumes from the saved continuation token and the checkpoint is removed when the job completes.
+ * <p>
+ * Jobs submitted through the asynchronous API are always checkpointed, see {@link RecoveryJobCheckpointer}.
+ * <p>
+ * Only the sequential page scan can be resumed: the reactive and the feed range scans have no single continuation
+ * token, so a checkpointed job always scans its pages sequentially, see {@link #allowsUnresumableScan()}.
+ * <p>
+ * The scheduled recoveries are checkpointed if RECOVERY_TIME_BUDGET_SECONDS is positive: they stop after the first
+ * page that ends past their deadline, see {@link #openWithDeadline}, and the next execution resumes from the
+ * checkpoint.
+ */
+public class RecoveryCheckpointer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecoveryCheckpointer.class);
+
+    private static final RecoveryCheckpointer DISABLED = new RecoveryCheckpointer(null, null, null);
+
+    private final String jobId;
+    private final ReceiptCosmosService receiptCosmosService;
+    private final RecoveryCheckpoint previous;
+    private boolean saved;
+    private long deadline = Long.MAX_VALUE;
+
+    RecoveryCheckpointer(String jobId, ReceiptCosmosService receiptCosmosService, RecoveryCheckpoint previous) {
+        this.jobId = jobId;
+        this.receiptCosmosService = receiptCosmosService;
+        this.previous = previous;
+        this.saved = previous != null;
+    }
+
+    /**
+     * @return true if the massive recovery jobs have to be checkpointed
+     */
+    public static boolean isCheckpointEnabled() {
+        return Boolean.parseBoolean(System.getenv().getOrDefault("MASSIVE_RECOVER_CHECKPOINT_ENABLED", "false"));
+    }
+
+    /**
+     * @return a checkpointer that never saves nor resumes
+     */
+    public static RecoveryCheckpointer disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Open the checkpoints of a job, loading the last one if the job has to be resumed
+     *
+     * @param jobId                the id of the job
+     * @param receiptCosmosService the service that stores the checkpoints
+     * @return the checkpointer, disabled if MASSIVE_RECOVER_CHECKPOINT_ENABLED is not true
+     */
+    public static RecoveryCheckpointer open(String jobId, ReceiptCosmosService receiptCosmosService) {
+        if (!isCheckpointEnabled()) {
+            return DISABLED;
+        }
+        RecoveryCheckpoint previous = receiptCosmosService.getRecoveryCheckpoint(jobId);
+        if (previous != null) {
+            logger.info("Resuming job {} after document {}, {} recovered and {} errors so far",
+                    jobId, previous.getLastProcessedId(), previous.getRecoveredCounter(), previous.getErrorCounter());
+        }
+        return new RecoveryCheckpointer(jobId, receiptCosmosService, previous);
+    }
+
+    /**
+     * @return the deadline of a scheduled recovery starting now, after RECOVERY_TIME_BUDGET_SECONDS, or
+     * {@link Long#MAX_VALUE} if the scheduled recoveries have no time budget
+     */
+    public static long getTimeBudgetDeadline() {
+        long timeBudgetSeconds = Long.parseLong(System.getenv().getOrDefault("RECOVERY_TIME_BUDGET_SECONDS", "0"));
+        if (timeBudgetSeconds <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeBudgetSeconds);
+    }
+
+    /**
+     * Open the checkpoints of a scheduled recovery that has to stop at the given deadline, loading the last one if
+     * the previous execution stopped before completing
+     *
+     * @param jobId                the id of the job
+     * @param receiptCosmosService the service that stores the checkpoints
+     * @param deadline             the deadline of the execution, see {@link #getTimeBudgetDeadline()}
+     * @return the checkpointer, disabled if the execution has no deadline
+     */
+    public static RecoveryCheckpointer openWithDeadline(String jobId, ReceiptCosmosService receiptCosmosService,
+                                                        long deadline) {
+        if (deadline == Long.MAX_VALUE) {
+            return DISABLED;
+        }
+        RecoveryCheckpoint previous = receiptCosmosService.getRecoveryCheckpoint(jobId);
+        if (previous != null) {
+            logger.info("Resuming scheduled job {} after document {}", jobId, previous.getLastProcessedId());
+        }
+        return new RecoveryCheckpointer(jobId, receiptCosmosService, previous).withDeadline(deadline);
+    }
+
+    /**
+     * @param deadline the time after which the job stops at the end of the current page
+     * @return this checkpointer
+     */
+    RecoveryCheckpointer withDeadline(long deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * @return true if the job has to stop after the current page, never for a job without deadline
+     */
+    public boolean isDeadlineReached() {
+        return System.currentTimeMillis() >= this.deadline;
+    }
+
+    /**
+     * @return true if the checkpoints are saved
+     */
+    public boolean isEnabled() {
+        return this.receiptCosmosService != null;
+    }
+
+    /**
+     * The reactive and the feed range scans cannot save a checkpoint, stop at a deadline nor be resumed. A job that is
+     * checkpointed, e.g. a job submitted through the asynchronous API or a scheduled recovery with a time budget,
+     * uses the sequential page scan even if COSMOS_REACTIVE_ENABLED or MASSIVE_RECOVER_FEED_RANGE_ENABLED is true.
+     *
+     * @return true if the job may use the reactive or the feed range scan
+     */
+    public boolean allowsUnresumableScan() {
+        if (!isEnabled()) {
+            return true;
+        }
+        if (CosmosReactiveUtils.isCosmosReactiveEnabled() || FeedRangeScanner.isFeedRangeScanEnabled()) {
+            logger.warn("Job {} is checkpointed, it scans its pages sequentially instead of with the reactive or " +
+                    "the feed range scan", this.jobId);
+        }
+        return false;
+    }
+
+    /**
+     * @return the continuation token to resume from, null to start from the beginning
+     */
+    public String getContinuationToken() {
+        return this.previous != null ? this.previous.getContinuationToken() : null;
+    }
+
+    /**
+     * Save the progress of the job after a page
+     *
+     * @param continuationToken the continuation token of the next page
+     * @param lastProcessedId   the id of the last processed document
+     * @param recoveredCounter  the documents recovered by this invocation so far
+     * @param errorCounter      the errors of this invocation so far
+     */
+    public void save(String continuationToken, String lastProcessedId, int recoveredCounter, int errorCounter) {
+        if (!isEnabled()) {
+            return;
+        }
+        RecoveryCheckpoint checkpoint = RecoveryCheckpoint.builder()
+                .id(this.jobId)
+                .continuationToken(continuationToken)
+                .lastProcessedId(lastProcessedId)
+                .recoveredCounter(getPreviousRecoveredCounter() + recoveredCounter)
+                .errorCounter(getPreviousErrorCounter() + errorCounter)
+                .updatedAt(System.currentTimeMillis())
+                .build();
+        this.receiptCosmosService.saveRecoveryCheckpoint(checkpoint);
+        this.saved = true;
+        onSaved(checkpoint);
+    }
+
+    /**
+     * Called after every saved checkpoint
+     *
+     * @param checkpoint the saved checkpoint, with the counters of all the invocations of the job
+     */
+    protected void onSaved(RecoveryCheckpoint checkpoint) {
+    }
+
+    /**
+     * Remove the checkpoint of the completed job
+     */
+    public void complete() {
+        if (!isEnabled() || !this.saved) {
+            return;
+        }
+        try {
+            this.receiptCosmosService.deleteRecoveryCheckpoint(this.jobId);
+            this.saved = false;
+        } catch (RuntimeException e) {
+            logger.error("Failed to remove the checkpoint of the completed job {}", this.jobId, e);
+        }
+    }
+
+    /**
+     * Mark the result of a job stopped at its deadline, the checkpoint is kept so that the job is resumed
+     *
+     * @param result the result of this invocation
+     * @return the given result, with the counters of the previous invocations
+     */
+    public MassiveRecoverResult interrupt(MassiveRecoverResult result) {
+        logger.info("Job {} stopped at its deadline, it resumes from its checkpoint", this.jobId);
+        result.setInterrupted(true);
+        return addPreviousProgress(result);
+    }
+
+    /**
+     * Mark the result of a job stopped at its deadline, the checkpoint is kept so that the job is resumed
+     *
+     * @param result the result of this invocation
+     * @return the given result, with the counters of the previous invocations
+     */
+    public MassiveRecoverCartResult interrupt(MassiveRecoverCartResult result) {
+        logger.info("Job {} stopped at its deadline, it resumes from its checkpoint", this.jobId);
+        result.setInterrupted(true);
+        return addPreviousProgress(result);
+    }
+
+    /**
+     * Add the counters of the previous invocations to the result of the job
+     *
+     * @param result the result of this invocation
+     * @return the given result
+     */
+    public MassiveRecoverResult addPreviousProgress(MassiveRecoverResult result) {
+        result.setSavedCounter(result.getSavedCounter() + getPreviousRecoveredCounter());
+        result.setErrorCounter(result.getErrorCounter() + getPreviousErrorCounter());
+        return result;
+    }
+
+    /**
+     * Add the counters of the previous invocations to the result of the job
+     *
+     * @param result the result of this invocation
+     * @return the given result
+     */
+    public MassiveRecoverCartResult addPreviousProgress(MassiveRecoverCartResult result) {
+        result.setSavedCounter(result.getSavedCounter() + getPreviousRecoveredCounter());
+        result.setErrorCounter(result.getErrorCounter() + getPreviousErrorCounter());
+        return result;
+    }
+
+    /**
+     * @param documents the documents of a page
+     * @param idGetter  the id of a document
+     * @param <T>       the type of the documents
+     * @return the id of the last document of the page, null if the page is empty
+     */
+    public static <T> String lastProcessedId(List<T> documents, Function<T, String> idGetter) {
+        return documents.isEmpty() ? null : idGetter.apply(documents.get(documents.size() - 1));
+    }
+
+    private int getPreviousRecoveredCounter() {
+        return this.previous != null ? this.previous.getRecoveredCounter() : 0;
+    }
+
+    private int getPreviousErrorCounter() {
+        return this.previous != null ? this.previous.getErrorCounter() : 0;
+    }
+}
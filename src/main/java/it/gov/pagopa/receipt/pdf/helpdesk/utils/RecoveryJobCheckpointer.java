@@ -0,0 +1,94 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryCheckpoint;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.RecoveryJobCancelledException;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkpoints of a massive recovery job executed in background.
+ * <p>
+ * The job is always checkpointed, so a retried execution resumes where the previous one stopped. Every saved
+ * checkpoint also updates the progress of the job, and the job stops with a {@link RecoveryJobCancelledException}
+ * if its cancellation was requested in the meantime.
+ * <p>
+ * If RECOVERY_JOB_TIME_BUDGET_SECONDS is positive every execution stops after the first page that ends past its time
+ * budget, so that it never reaches the function timeout, and the job is queued again to resume from its checkpoint.
+ */
+public class RecoveryJobCheckpointer extends RecoveryCheckpointer {
+
+    private final RecoveryJob job;
+    private final RecoveryJobService recoveryJobService;
+    private int succeeded;
+    private int failed;
+
+    RecoveryJobCheckpointer(RecoveryJob job, ReceiptCosmosService receiptCosmosService,
+                            RecoveryJobService recoveryJobService, RecoveryCheckpoint previous) {
+        super(getCheckpointId(job), receiptCosmosService, previous);
+        this.job = job;
+        this.recoveryJobService = recoveryJobService;
+        if (previous != null) {
+            this.succeeded = previous.getRecoveredCounter();
+            this.failed = previous.getErrorCounter();
+        }
+    }
+
+    /**
+     * Open the checkpoints of a job, loading the last one if the job is resumed
+     *
+     * @param job                  the running job
+     * @param receiptCosmosService the service that stores the checkpoints
+     * @param recoveryJobService   the service that stores the progress of the job
+     * @return the checkpointer
+     */
+    public static RecoveryJobCheckpointer open(RecoveryJob job, ReceiptCosmosService receiptCosmosService,
+                                               RecoveryJobService recoveryJobService) {
+        RecoveryJobCheckpointer checkpointer = new RecoveryJobCheckpointer(job, receiptCosmosService,
+                recoveryJobService, receiptCosmosService.getRecoveryCheckpoint(getCheckpointId(job)));
+        checkpointer.withDeadline(getJobTimeBudgetDeadline());
+        return checkpointer;
+    }
+
+    /**
+     * @return the deadline of a job execution starting now, after RECOVERY_JOB_TIME_BUDGET_SECONDS, or
+     * {@link Long#MAX_VALUE} if the executions have no time budget
+     */
+    public static long getJobTimeBudgetDeadline() {
+        long timeBudgetSeconds = Long.parseLong(System.getenv().getOrDefault("RECOVERY_JOB_TIME_BUDGET_SECONDS", "240"));
+        if (timeBudgetSeconds <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeBudgetSeconds);
+    }
+
+    /**
+     * @return the documents recovered as of the last checkpoint
+     */
+    public int getSucceeded() {
+        return this.succeeded;
+    }
+
+    /**
+     * @return the documents that failed as of the last checkpoint
+     */
+    public int getFailed() {
+        return this.failed;
+    }
+
+    @Override
+    protected void onSaved(RecoveryCheckpoint checkpoint) {
+        this.succeeded = checkpoint.getRecoveredCounter();
+        this.failed = checkpoint.getErrorCounter();
+        RecoveryJob updated = this.recoveryJobService.updateProgress(this.job, this.succeeded, this.failed);
+        if (updated != null && updated.isCancelRequested()) {
+            throw new RecoveryJobCancelledException(String.format("Job %s cancelled", this.job.getId()));
+        }
+    }
+
+    private static String getCheckpointId(RecoveryJob job) {
+        return "RecoveryJob-" + job.getId();
+    }
+}
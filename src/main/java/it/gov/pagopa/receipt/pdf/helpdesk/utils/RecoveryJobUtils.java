@@ -0,0 +1,66 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.HttpRequestMessage;
+import com.microsoft.azure.functions.HttpResponseMessage;
+import com.microsoft.azure.functions.HttpStatus;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.UnableToQueueException;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.ProblemJson;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
+import org.slf4j.Logger;
+
+import java.util.Optional;
+
+public class RecoveryJobUtils {
+
+    /**
+     * Hide from public usage.
+     */
+    private RecoveryJobUtils() {
+    }
+
+    /**
+     * @return true if the massive HTTP functions have to submit the recovery as a background job
+     */
+    public static boolean isAsyncJobEnabled() {
+        return Boolean.parseBoolean(System.getenv().getOrDefault("MASSIVE_RECOVER_ASYNC_ENABLED", "false"));
+    }
+
+    /**
+     * Submit a massive recovery job and build the response of the massive HTTP function
+     *
+     * @param request            the HTTP request
+     * @param recoveryJobService the job service
+     * @param status             the status to recover
+     * @param context            the function context
+     * @param logger             the function logger
+     * @return response with {@link HttpStatus#ACCEPTED} and the job, whose progress is available at jobs/{id}
+     */
+    public static HttpResponseMessage submitJob(
+            HttpRequestMessage<Optional<String>> request,
+            RecoveryJobService recoveryJobService,
+            String status,
+            ExecutionContext context,
+            Logger logger) {
+        try {
+            RecoveryJob job = recoveryJobService.submitJob(context.getFunctionName(), status);
+            logger.info("[{}] submitted recovery job {} for status {}", context.getFunctionName(), job.getId(), status);
+            return request
+                    .createResponseBuilder(HttpStatus.ACCEPTED)
+                    .header("Location", "jobs/" + job.getId())
+                    .body(job)
+                    .build();
+        } catch (UnableToQueueException e) {
+            logger.error("[{}] Unable to submit the recovery job", context.getFunctionName(), e);
+            return request
+                    .createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ProblemJson.builder()
+                            .title(HttpStatus.INTERNAL_SERVER_ERROR.name())
+                            .detail(e.getMessage())
+                            .status(HttpStatus.INTERNAL_SERVER_ERROR.value())
+                            .build())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryLease;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.RecoveryLeaseLostException;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distributed lock of a scheduled recovery, so that only one function instance runs it at a time when the function
+ * app is scaled out.
+ * <p>
+ * If RECOVERY_LEASE_ENABLED is true the lock is a lease document on CosmosDB, acquired for
+ * RECOVERY_LEASE_DURATION_SECONDS and renewed in background every third of its duration while the recovery runs.
+ * Every change of the lease is conditioned on the etag read before, so two instances can never hold the lease
+ * together: an instance takes over the lease only when it expires and increments its fencing token.
+ * <p>
+ * Before every write of the recovery, e.g. a queue send, a page flush or a checkpoint, {@link #checkHeld()} stops an
+ * instance whose lease is lost or expired, e.g. because its renewal failed. The check is local, so an instance paused
+ * right after it can still write once: only the checkpoints carry the fencing token and are rejected by CosmosDB
+ * when a later holder saved them, see {@link it.gov.pagopa.receipt.pdf.helpdesk.service.impl.LeaseFencedReceiptCosmosServiceImpl}.
+ * Before publishing its results the recovery also verifies it still holds the lease, see {@link #verify()}.
+ */
+public class RecoveryLeaseLock implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecoveryLeaseLock.class);
+
+    private static final String OWNER = System.getenv().getOrDefault("WEBSITE_INSTANCE_ID", UUID.randomUUID().toString());
+
+    private static final ScheduledExecutorService RENEWAL_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recovery-lease-renewal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final RecoveryLeaseLock DISABLED = new RecoveryLeaseLock(null, null, 0);
+
+    private final ReceiptCosmosService receiptCosmosService;
+    private final long durationMillis;
+    private volatile RecoveryLease lease;
+    private volatile boolean held;
+    private ScheduledFuture<?> renewal;
+
+    RecoveryLeaseLock(ReceiptCosmosService receiptCosmosService, RecoveryLease lease, long durationMillis) {
+        this.receiptCosmosService = receiptCosmosService;
+        this.lease = lease;
+        this.durationMillis = durationMillis;
+        this.held = receiptCosmosService == null || lease != null;
+    }
+
+    /**
+     * @return true if the scheduled recoveries have to hold a lease while they run
+     */
+    public static boolean isLeaseEnabled() {
+        return Boolean.parseBoolean(System.getenv().getOrDefault("RECOVERY_LEASE_ENABLED", "false"));
+    }
+
+    /**
+     * Try to acquire the lease of a scheduled recovery, starting its renewal if acquired
+     *
+     * @param leaseId              the id of the lease, e.g. the function name
+     * @param receiptCosmosService the receipt service
+     * @return the lock, held if the lease was acquired or leases are disabled
+     */
+    public static RecoveryLeaseLock tryAcquire(String leaseId, ReceiptCosmosService receiptCosmosService) {
+        if (!isLeaseEnabled()) {
+            return DISABLED;
+        }
+        long durationMillis = TimeUnit.SECONDS.toMillis(
+                Long.parseLong(System.getenv().getOrDefault("RECOVERY_LEASE_DURATION_SECONDS", "300")));
+        RecoveryLease acquired = acquire(leaseId, receiptCosmosService, durationMillis);
+        RecoveryLeaseLock lock = new RecoveryLeaseLock(receiptCosmosService, acquired, durationMillis);
+        if (acquired != null) {
+            logger.info("Lease {} acquired by {} with fencing token {}", leaseId, OWNER, acquired.getFencingToken());
+            lock.startRenewal();
+        } else {
+            logger.info("Lease {} held by another instance, recovery skipped", leaseId);
+        }
+        return lock;
+    }
+
+    private static RecoveryLease acquire(String leaseId, ReceiptCosmosService receiptCosmosService, long durationMillis) {
+        RecoveryLease current = receiptCosmosService.getRecoveryLease(leaseId);
+        long now = System.currentTimeMillis();
+        if (current == null) {
+            return receiptCosmosService.createRecoveryLease(newLease(leaseId, 1, now, durationMillis, null));
+        }
+        if (current.getExpiresAt() > now) {
+            return null;
+        }
+        return receiptCosmosService.replaceRecoveryLease(
+                newLease(leaseId, current.getFencingToken() + 1, now, durationMillis, current.getEtag()));
+    }
+
+    private static RecoveryLease newLease(String leaseId, long fencingToken, long now, long durationMillis, String etag) {
+        return RecoveryLease.builder()
+                .id(leaseId)
+                .owner(OWNER)
+                .fencingToken(fencingToken)
+                .acquiredAt(now)
+                .expiresAt(now + durationMillis)
+                .ttl((int) TimeUnit.MILLISECONDS.toSeconds(durationMillis * 2))
+                .etag(etag)
+                .build();
+    }
+
+    private void startRenewal() {
+        long period = Math.max(this.durationMillis / 3, 1);
+        this.renewal = RENEWAL_EXECUTOR.scheduleAtFixedRate(this::verify, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return true if the lease is held by this instance, always true if leases are disabled
+     */
+    public synchronized boolean isHeld() {
+        return this.held;
+    }
+
+    /**
+     * Check, without calling CosmosDB, that the lease is still held and not expired before a write of the recovery.
+     * The check does not fence the write itself, see {@link #getFencingToken()} for the writes fenced by CosmosDB.
+     *
+     * @throws RecoveryLeaseLostException if the lease was lost or expired without being renewed
+     */
+    public void checkHeld() {
+        if (this.receiptCosmosService == null) {
+            return;
+        }
+        RecoveryLease current = this.lease;
+        if (!this.held || current == null || current.getExpiresAt() <= System.currentTimeMillis()) {
+            throw new RecoveryLeaseLostException(String.format("Lease %s with fencing token %s lost",
+                    current != null ? current.getId() : null, current != null ? current.getFencingToken() : 0));
+        }
+    }
+
+    /**
+     * @return the fencing token of the held lease, saved with the checkpoints of the recovery so that CosmosDB rejects
+     * the checkpoints of a previous holder, 0 if leases are disabled or the lease was not acquired
+     */
+    public synchronized long getFencingToken() {
+        return this.lease != null ? this.lease.getFencingToken() : 0;
+    }
+
+    /**
+     * Renew the lease, verifying it is still held by this instance
+     *
+     * @return true if the lease is still held, always true if leases are disabled
+     */
+    public synchronized boolean verify() {
+        if (this.receiptCosmosService == null || !this.held) {
+            return this.held;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            RecoveryLease renewed = this.receiptCosmosService.replaceRecoveryLease(this.lease.toBuilder()
+                    .expiresAt(now + this.durationMillis)
+                    .build());
+            if (renewed == null) {
+                logger.warn("Lease {} with fencing token {} lost", this.lease.getId(), this.lease.getFencingToken());
+                release(false);
+                return false;
+            }
+            this.lease = renewed;
+        } catch (RuntimeException e) {
+            logger.warn("Unable to renew the lease {}", this.lease.getId(), e);
+            if (this.lease.getExpiresAt() <= now) {
+                release(false);
+            }
+        }
+        return this.held;
+    }
+
+    /**
+     * Stop the renewal and release the lease, if held
+     */
+    @Override
+    public synchronized void close() {
+        if (this.receiptCosmosService == null) {
+            return;
+        }
+        release(this.held);
+    }
+
+    private void release(boolean deleteLease) {
+        this.held = false;
+        if (this.renewal != null) {
+            this.renewal.cancel(false);
+        }
+        if (deleteLease) {
+            try {
+                this.receiptCosmosService.deleteRecoveryLease(this.lease);
+            } catch (RuntimeException e) {
+                logger.warn("Unable to release the lease {}, it expires at {}", this.lease.getId(), this.lease.getExpiresAt(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.BizEventCosmosClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static it.gov.pagopa.receipt.pdf.helpdesk.utils.BizEventToReceiptUtils.massiveRecoverByStatus;
+
+/**
+ * Planner of the recovery of several receipt statuses in the same run.
+ * <p>
+ * The statuses read by the same query are recovered with a single scan: {@link ReceiptStatusType#FAILED} and
+ * {@link ReceiptStatusType#NOT_QUEUE_SENT} share the failed receipts query, so requesting both of them scans the
+ * failed receipts once instead of twice. The receipts of the different scans are merged by id, so every receipt is
+ * returned once per run.
+ */
+public class RecoveryPlanner {
+
+    private static final List<ReceiptStatusType> SCAN_ORDER = List.of(ReceiptStatusType.INSERTED, ReceiptStatusType.FAILED);
+
+    /**
+     * Hide from public usage.
+     */
+    private RecoveryPlanner() {
+    }
+
+    /**
+     * Plan the scans needed to recover the given statuses
+     *
+     * @param statusTypes the statuses to recover
+     * @return the distinct statuses to scan, the inserted receipts always before the failed ones so that the receipts
+     * recovered by the failed scan, that become inserted, are not scanned again
+     * @throws IllegalArgumentException if no status is specified
+     * @throws IllegalStateException    if a status cannot be recovered
+     */
+    public static Set<ReceiptStatusType> planScans(Collection<ReceiptStatusType> statusTypes) {
+        if (statusTypes == null || statusTypes.isEmpty()) {
+            throw new IllegalArgumentException("at least one status must be specified");
+        }
+        Set<ReceiptStatusType> requested = EnumSet.noneOf(ReceiptStatusType.class);
+        for (ReceiptStatusType statusType : statusTypes) {
+            requested.add(getScanStatus(statusType));
+        }
+        Set<ReceiptStatusType> scans = new LinkedHashSet<>();
+        for (ReceiptStatusType scanStatus : SCAN_ORDER) {
+            if (requested.contains(scanStatus)) {
+                scans.add(scanStatus);
+            }
+        }
+        return scans;
+    }
+
+    /**
+     * Recover the receipts with the given statuses, scanning once the statuses read by the same query.
+     * <p>
+     * The result counts the recovered receipts by the status they had before the recovery.
+     * <p>
+     * If the run has a deadline every scan is checkpointed with the id of the job followed by the scanned status, a
+     * scan stopped at the deadline skips the following ones, see {@link RecoveryCheckpointer#openWithDeadline}.
+     *
+     * @param statusTypes the statuses to recover
+     * @param jobId       the id of the job, e.g. the function name
+     * @param deadline    the deadline of the run, {@link Long#MAX_VALUE} for none
+     * @return the merged result of the scans
+     */
+    public static MassiveRecoverResult massiveRecoverByStatuses(
+            ExecutionContext context,
+            BizEventToReceiptService bizEventToReceiptService,
+            BizEventCosmosClient bizEventCosmosClient,
+            ReceiptCosmosService receiptCosmosService,
+            Logger logger,
+            Collection<ReceiptStatusType> statusTypes,
+            String jobId,
+            long deadline) {
+        Map<String, Receipt> receipts = new LinkedHashMap<>();
+        List<String> failedSaveIds = new ArrayList<>();
+        Map<ReceiptStatusType, Integer> recoveredByStatus = new EnumMap<>(ReceiptStatusType.class);
+        int errorCounter = 0;
+        int savedCounter = 0;
+        boolean interrupted = false;
+        for (ReceiptStatusType scanStatus : planScans(statusTypes)) {
+            MassiveRecoverResult scanResult = massiveRecoverByStatus(
+                    context, bizEventToReceiptService, bizEventCosmosClient, receiptCosmosService, logger, scanStatus,
+                    RecoveryCheckpointer.openWithDeadline(jobId + "-" + scanStatus, receiptCosmosService, deadline));
+            scanResult.getReceiptList().stream()
+                    .filter(receipt -> receipt != null && receipt.getId() != null)
+                    .forEach(receipt -> receipts.putIfAbsent(receipt.getId(), receipt));
+            failedSaveIds.addAll(scanResult.getFailedSaveIds());
+            scanResult.getRecoveredByStatus().forEach((status, count) -> recoveredByStatus.merge(status, count, Integer::sum));
+            errorCounter += scanResult.getErrorCounter();
+            savedCounter += scanResult.getSavedCounter();
+            if (scanResult.isInterrupted()) {
+                interrupted = true;
+                break;
+            }
+        }
+        return MassiveRecoverResult.builder()
+                .receiptList(new ArrayList<>(receipts.values()))
+                .errorCounter(errorCounter)
+                .savedCounter(savedCounter)
+                .failedSaveIds(failedSaveIds)
+                .recoveredByStatus(recoveredByStatus)
+                .interrupted(interrupted)
+                .build();
+    }
+
+    private static ReceiptStatusType getScanStatus(ReceiptStatusType statusType) {
+        if (ReceiptStatusType.FAILED.equals(statusType) || ReceiptStatusType.NOT_QUEUE_SENT.equals(statusType)) {
+            return ReceiptStatusType.FAILED;
+        }
+        if (ReceiptStatusType.INSERTED.equals(statusType)) {
+            return ReceiptStatusType.INSERTED;
+        }
+        String errMsg = String.format("Unexpected status for retrieving failed receipt: %s", statusType);
+        throw new IllegalStateException(errMsg);
+    }
+}
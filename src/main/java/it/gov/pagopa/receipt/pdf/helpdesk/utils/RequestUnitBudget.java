@@ -0,0 +1,190 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket of request units (RU) that limits the rate of a massive recovery job.
+ * <p>
+ * The job declares its max RU/s share with an environment variable and calls {@link #acquire()} before every unit of
+ * work. The budget is bound to the thread that opens it, and to the worker threads of the job with
+ * {@link #bind(RequestUnitBudget)}: the actual request charge of every CosmosDB operation performed by a bound thread,
+ * as recorded by {@link CosmosMetricsUtils}, is taken from the bucket, so the job waits whenever it spent more than
+ * its share. The operations of the HTTP functions and of the other jobs are not charged to it.
+ * <p>
+ * When an operation of the job is throttled (status 429) the job pauses for the suggested retry-after and its rate is
+ * halved, then the rate recovers over time by a fraction of the share per second.
+ * <p>
+ * A share lower or equal to zero means that the job is not limited.
+ */
+public class RequestUnitBudget implements AutoCloseable {
+
+    private static final ThreadLocal<RequestUnitBudget> CURRENT = new ThreadLocal<>();
+
+    private static final double MIN_RATE_FRACTION = 0.1;
+    private static final double RATE_RECOVERY_FRACTION_PER_SECOND = 0.05;
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final double maxRequestUnitsPerSecond;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+    private Scope scope;
+
+    RequestUnitBudget(double maxRequestUnitsPerSecond) {
+        this.maxRequestUnitsPerSecond = maxRequestUnitsPerSecond;
+        this.rate = maxRequestUnitsPerSecond;
+        this.tokens = maxRequestUnitsPerSecond;
+        this.lastRefillNanos = System.nanoTime();
+        this.pausedUntilNanos = this.lastRefillNanos;
+    }
+
+    /**
+     * Open the budget of a job, bound to the current thread until it is closed
+     *
+     * @param maxRequestUnitsPerSecondEnv the name of the environment variable with the max RU/s share of the job
+     * @return the budget, to be closed when the job ends
+     */
+    public static RequestUnitBudget open(String maxRequestUnitsPerSecondEnv) {
+        RequestUnitBudget budget = new RequestUnitBudget(
+                Double.parseDouble(System.getenv().getOrDefault(maxRequestUnitsPerSecondEnv, "0")));
+        budget.scope = bind(budget);
+        return budget;
+    }
+
+    /**
+     * @return the budget bound to the current thread, null if the thread does not run a job
+     */
+    public static RequestUnitBudget current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Charge the operations of the current thread to the given budget, until the returned scope is closed.
+     * The jobs bind their budget to the worker threads that perform their operations.
+     *
+     * @param budget the budget, null to charge the operations to no budget
+     * @return the scope, that restores the previous budget of the thread when closed
+     */
+    public static Scope bind(RequestUnitBudget budget) {
+        RequestUnitBudget previous = CURRENT.get();
+        CURRENT.set(budget);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Charge the request units consumed by an operation to the budget bound to the current thread, if any
+     *
+     * @param requestCharge the request units
+     */
+    static void chargeCurrent(double requestCharge) {
+        RequestUnitBudget budget = CURRENT.get();
+        if (budget != null && budget.isLimited()) {
+            budget.charge(requestCharge);
+        }
+    }
+
+    /**
+     * Slow down the budget bound to the current thread, if any, after a throttled operation
+     *
+     * @param retryAfter the retry-after suggested by CosmosDB, may be null
+     */
+    static void throttleCurrent(Duration retryAfter) {
+        RequestUnitBudget budget = CURRENT.get();
+        if (budget != null && budget.isLimited()) {
+            budget.throttle(retryAfter);
+        }
+    }
+
+    /**
+     * Wait until the job has budget left
+     */
+    public void acquire() {
+        if (!isLimited()) {
+            return;
+        }
+        long waitNanos;
+        while ((waitNanos = getWaitNanos()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for request unit budget", e);
+            }
+        }
+    }
+
+    /**
+     * @return the current rate of the job in RU/s
+     */
+    public synchronized double getRate() {
+        refill();
+        return this.rate;
+    }
+
+    synchronized void charge(double requestCharge) {
+        refill();
+        this.tokens -= requestCharge;
+    }
+
+    synchronized void throttle(Duration retryAfter) {
+        refill();
+        Duration pause = retryAfter != null && !retryAfter.isZero() ? retryAfter : DEFAULT_RETRY_AFTER;
+        this.pausedUntilNanos = Math.max(this.pausedUntilNanos, System.nanoTime() + pause.toNanos());
+        this.rate = Math.max(this.maxRequestUnitsPerSecond * MIN_RATE_FRACTION, this.rate / 2);
+        this.tokens = Math.min(this.tokens, 0);
+    }
+
+    private synchronized long getWaitNanos() {
+        refill();
+        long pauseNanos = this.pausedUntilNanos - System.nanoTime();
+        long deficitNanos = this.tokens > 0 ? 0 :
+                Math.max(1, (long) Math.ceil(-this.tokens / this.rate * TimeUnit.SECONDS.toNanos(1)));
+        return Math.max(pauseNanos, deficitNanos);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - this.lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        this.tokens = Math.min(this.rate, this.tokens + elapsedSeconds * this.rate);
+        if (now > this.pausedUntilNanos) {
+            double recoverySeconds = (now - Math.max(this.lastRefillNanos, this.pausedUntilNanos))
+                    / (double) TimeUnit.SECONDS.toNanos(1);
+            this.rate = Math.min(this.maxRequestUnitsPerSecond,
+                    this.rate + this.maxRequestUnitsPerSecond * RATE_RECOVERY_FRACTION_PER_SECOND * recoverySeconds);
+        }
+        this.lastRefillNanos = now;
+    }
+
+    private boolean isLimited() {
+        return this.maxRequestUnitsPerSecond > 0;
+    }
+
+    /**
+     * Stop charging the operations of the thread that opened this budget to it
+     */
+    @Override
+    public void close() {
+        this.scope.close();
+    }
+
+    /**
+     * Binding of a budget to a thread
+     */
+    public interface Scope extends AutoCloseable {
+
+        /**
+         * Restore the previous budget of the thread
+         */
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,105 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import it.gov.pagopa.receipt.pdf.helpdesk.model.TemplateBundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Registry of the PDF template bundle, loaded once in memory and shared by all the PDF Engine requests.
+ * <p>
+ * By default the active bundle is the template.zip packaged with the application. If PDF_TEMPLATE_PATH is specified
+ * the bundle is read from that file instead, and it is hot-swapped as soon as the file changes (checked at most once
+ * every PDF_TEMPLATE_RELOAD_INTERVAL_MILLIS). If the file cannot be read the current bundle keeps being served until
+ * the next check. Only the active bundle is kept: the requests already holding the previous one keep their own
+ * reference until they complete.
+ */
+public class TemplateRegistry {
+
+    private static final String CLASSPATH_TEMPLATE_NAME = "template.zip";
+
+    private static TemplateRegistry instance = null;
+
+    private final Logger logger = LoggerFactory.getLogger(TemplateRegistry.class);
+
+    private final String templatePath = System.getenv().getOrDefault("PDF_TEMPLATE_PATH", "");
+    private final long reloadIntervalMillis = Long.parseLong(System.getenv().getOrDefault("PDF_TEMPLATE_RELOAD_INTERVAL_MILLIS", "60000"));
+
+    private volatile TemplateBundle activeBundle;
+    private volatile String activeFileVersion;
+    private volatile long nextReloadCheck;
+
+    TemplateRegistry() {
+    }
+
+    public static synchronized TemplateRegistry getInstance() {
+        if (instance == null) {
+            instance = new TemplateRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Retrieve the active template bundle, loading it on first access
+     *
+     * @return the active bundle
+     * @throws IOException if no bundle has ever been loaded and it cannot be loaded
+     */
+    public TemplateBundle getActiveTemplate() throws IOException {
+        TemplateBundle bundle = this.activeBundle;
+        if (bundle != null && (this.templatePath.isEmpty() || System.currentTimeMillis() < this.nextReloadCheck)) {
+            return bundle;
+        }
+        synchronized (this) {
+            if (this.activeBundle == null || (!this.templatePath.isEmpty() && System.currentTimeMillis() >= this.nextReloadCheck)) {
+                loadActiveTemplate();
+            }
+            return this.activeBundle;
+        }
+    }
+
+    private void loadActiveTemplate() throws IOException {
+        if (this.templatePath.isEmpty()) {
+            try (InputStream is = TemplateRegistry.class.getClassLoader().getResourceAsStream(CLASSPATH_TEMPLATE_NAME)) {
+                if (is == null) {
+                    throw new FileNotFoundException(String.format("Template %s not found in classpath", CLASSPATH_TEMPLATE_NAME));
+                }
+                swap(TemplateBundle.of(CLASSPATH_TEMPLATE_NAME, is.readAllBytes()));
+            }
+            return;
+        }
+
+        try {
+            Path path = Path.of(this.templatePath);
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            String fileVersion = attributes.lastModifiedTime().toMillis() + "-" + attributes.size();
+            if (this.activeBundle == null || !fileVersion.equals(this.activeFileVersion)) {
+                swap(TemplateBundle.of(path.getFileName().toString(), Files.readAllBytes(path)));
+                this.activeFileVersion = fileVersion;
+            }
+        } catch (IOException e) {
+            if (this.activeBundle == null) {
+                throw e;
+            }
+            logger.error("[{}] Unable to reload the template bundle from {}, keeping the bundle with hash {}",
+                    TemplateRegistry.class.getSimpleName(), this.templatePath, this.activeBundle.getHash(), e);
+        }
+        this.nextReloadCheck = System.currentTimeMillis() + this.reloadIntervalMillis;
+    }
+
+    private void swap(TemplateBundle bundle) {
+        TemplateBundle previous = this.activeBundle;
+        if (previous != null && previous.getHash().equals(bundle.getHash())) {
+            return;
+        }
+        logger.info("[{}] Activated template bundle {} with hash {} ({} bytes)",
+                TemplateRegistry.class.getSimpleName(), bundle.getName(), bundle.getHash(), bundle.getSize());
+        this.activeBundle = bundle;
+    }
+}
@@ -0,0 +1,83 @@
+package it.gov.pagopa.receipt.pdf.helpdesk;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.HttpRequestMessage;
+import com.microsoft.azure.functions.HttpResponseMessage;
+import com.microsoft.azure.functions.HttpStatus;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.RecoveryJobState;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
+import it.gov.pagopa.receipt.pdf.helpdesk.util.HttpResponseMessageMock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.stubbing.Answer;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+class CancelRecoveryJobTest {
+
+    private static final String JOB_ID = "jobId";
+
+    @Mock
+    private ExecutionContext executionContextMock;
+
+    @Mock
+    private RecoveryJobService recoveryJobServiceMock;
+
+    @Mock
+    private HttpRequestMessage<Optional<String>> requestMock;
+
+    private CancelRecoveryJob sut;
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    public void openMocks() {
+        closeable = MockitoAnnotations.openMocks(this);
+        sut = spy(new CancelRecoveryJob(recoveryJobServiceMock));
+
+        doAnswer((Answer<HttpResponseMessage.Builder>) invocation -> {
+            HttpStatus status = (HttpStatus) invocation.getArguments()[0];
+            return new HttpResponseMessageMock.HttpResponseMessageBuilderMock().status(status);
+        }).when(requestMock).createResponseBuilder(any(HttpStatus.class));
+    }
+
+    @AfterEach
+    public void releaseMocks() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    void cancelRecoveryJobSuccess() {
+        RecoveryJob job = RecoveryJob.builder().id(JOB_ID).state(RecoveryJobState.RUNNING).cancelRequested(true).build();
+        when(recoveryJobServiceMock.cancelJob(JOB_ID)).thenReturn(job);
+
+        // test execution
+        HttpResponseMessage response = sut.run(requestMock, JOB_ID, executionContextMock);
+
+        // test assertion
+        assertNotNull(response);
+        assertEquals(HttpStatus.ACCEPTED, response.getStatus());
+        assertEquals(job, response.getBody());
+    }
+
+    @Test
+    void cancelRecoveryJobNotFound() {
+        // test execution
+        HttpResponseMessage response = sut.run(requestMock, JOB_ID, executionContextMock);
+
+        // test assertion
+        assertNotNull(response);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatus());
+    }
+}
@@ -0,0 +1,104 @@
+package it.gov.pagopa.receipt.pdf.helpdesk;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.HttpRequestMessage;
+import com.microsoft.azure.functions.HttpResponseMessage;
+import com.microsoft.azure.functions.HttpStatus;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.RecoveryJobState;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.ProblemJson;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
+import it.gov.pagopa.receipt.pdf.helpdesk.util.HttpResponseMessageMock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.stubbing.Answer;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+class GetRecoveryJobTest {
+
+    private static final String JOB_ID = "jobId";
+
+    @Mock
+    private ExecutionContext executionContextMock;
+
+    @Mock
+    private RecoveryJobService recoveryJobServiceMock;
+
+    @Mock
+    private HttpRequestMessage<Optional<String>> requestMock;
+
+    private GetRecoveryJob sut;
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    public void openMocks() {
+        closeable = MockitoAnnotations.openMocks(this);
+        sut = spy(new GetRecoveryJob(recoveryJobServiceMock));
+
+        doAnswer((Answer<HttpResponseMessage.Builder>) invocation -> {
+            HttpStatus status = (HttpStatus) invocation.getArguments()[0];
+            return new HttpResponseMessageMock.HttpResponseMessageBuilderMock().status(status);
+        }).when(requestMock).createResponseBuilder(any(HttpStatus.class));
+    }
+
+    @AfterEach
+    public void releaseMocks() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    void getRecoveryJobSuccess() {
+        RecoveryJob job = RecoveryJob.builder()
+                .id(JOB_ID)
+                .state(RecoveryJobState.RUNNING)
+                .processed(150)
+                .succeeded(140)
+                .failed(10)
+                .throughput(12.5)
+                .build();
+        when(recoveryJobServiceMock.getJob(JOB_ID)).thenReturn(job);
+
+        // test execution
+        HttpResponseMessage response = sut.run(requestMock, JOB_ID, executionContextMock);
+
+        // test assertion
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatus());
+        assertEquals(job, response.getBody());
+    }
+
+    @Test
+    void getRecoveryJobNotFound() {
+        // test execution
+        HttpResponseMessage response = sut.run(requestMock, JOB_ID, executionContextMock);
+
+        // test assertion
+        assertNotNull(response);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatus());
+        ProblemJson problemJson = (ProblemJson) response.getBody();
+        assertNotNull(problemJson);
+        assertEquals(HttpStatus.NOT_FOUND.value(), problemJson.getStatus());
+    }
+
+    @Test
+    void getRecoveryJobForMissingJobId() {
+        // test execution
+        HttpResponseMessage response = sut.run(requestMock, "", executionContextMock);
+
+        // test assertion
+        assertNotNull(response);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatus());
+    }
+}
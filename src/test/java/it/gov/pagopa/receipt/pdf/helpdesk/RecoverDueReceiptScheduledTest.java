@@ -0,0 +1,171 @@
+package it.gov.pagopa.receipt.pdf.helpdesk;
+
+import com.azure.cosmos.models.ModelBridgeInternal;
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.OutputBinding;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.BizEventCosmosClientImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReasonError;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptRecoveryCandidate;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.ReceiptNotFoundException;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.ReceiptBulkWriteResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SystemStubsExtension.class)
+class RecoverDueReceiptScheduledTest {
+
+    @Mock
+    private ExecutionContext contextMock;
+    @Mock
+    private ReceiptCosmosService receiptCosmosServiceMock;
+    @Mock
+    private BizEventCosmosClientImpl bizEventCosmosClientMock;
+    @Mock
+    private BizEventToReceiptService bizEventToReceiptServiceMock;
+
+    @Captor
+    private ArgumentCaptor<List<Receipt>> receiptCaptor;
+
+    @Spy
+    private OutputBinding<List<Receipt>> documentdb;
+
+    @SystemStub
+    private EnvironmentVariables environment;
+
+    private AutoCloseable closeable;
+
+    private RecoverDueReceiptScheduled sut;
+
+    @BeforeEach
+    public void openMocks() {
+        closeable = MockitoAnnotations.openMocks(this);
+        sut = new RecoverDueReceiptScheduled(bizEventToReceiptServiceMock, bizEventCosmosClientMock, receiptCosmosServiceMock);
+    }
+
+    @AfterEach
+    public void releaseMocks() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    void recoverDueReceiptScheduledSuccess() throws ReceiptNotFoundException {
+        environment.set("CHANGE_FEED_RECOVERY_ENABLED", "true");
+
+        ReceiptRecoveryCandidate dueCandidate = candidate("1", ReceiptStatusType.IO_ERROR_TO_NOTIFY);
+        ReceiptRecoveryCandidate staleCandidate = candidate("2", ReceiptStatusType.GENERATED);
+        ReceiptRecoveryCandidate missingCandidate = candidate("3", ReceiptStatusType.GENERATED);
+        when(receiptCosmosServiceMock.getDueRecoveryCandidates(anyLong(), any(), any()))
+                .thenReturn(Collections.singletonList(ModelBridgeInternal.createFeedResponse(
+                        List.of(dueCandidate, staleCandidate, missingCandidate), Collections.emptyMap())));
+
+        Receipt dueReceipt = receipt("1", ReceiptStatusType.IO_ERROR_TO_NOTIFY);
+        dueReceipt.setReasonErr(new ReasonError(500, "error"));
+        when(receiptCosmosServiceMock.getReceiptById("1")).thenReturn(dueReceipt);
+        when(receiptCosmosServiceMock.getReceiptById("2")).thenReturn(receipt("2", ReceiptStatusType.IO_NOTIFIED));
+        when(receiptCosmosServiceMock.getReceiptById("3")).thenThrow(ReceiptNotFoundException.class);
+        when(receiptCosmosServiceMock.saveReceiptsInBulk(anyList())).thenReturn(
+                ReceiptBulkWriteResult.builder().savedCounter(1).failedIds(Collections.emptyList()).build());
+
+        // test execution
+        assertDoesNotThrow(() -> sut.run("info", documentdb, contextMock));
+
+        verify(receiptCosmosServiceMock).saveReceiptsInBulk(receiptCaptor.capture());
+        assertEquals(1, receiptCaptor.getValue().size());
+        Receipt captured = receiptCaptor.getValue().get(0);
+        assertEquals("1", captured.getId());
+        assertEquals(ReceiptStatusType.GENERATED, captured.getStatus());
+        assertNull(captured.getReasonErr());
+        verify(documentdb).setValue(Collections.emptyList());
+
+        verify(receiptCosmosServiceMock).deleteRecoveryCandidate(dueCandidate);
+        verify(receiptCosmosServiceMock).deleteRecoveryCandidate(staleCandidate);
+        verify(receiptCosmosServiceMock).deleteRecoveryCandidate(missingCandidate);
+        verifyNoInteractions(bizEventCosmosClientMock);
+    }
+
+    @Test
+    void recoverDueReceiptScheduledKeepsCandidateOnError() throws ReceiptNotFoundException {
+        environment.set("CHANGE_FEED_RECOVERY_ENABLED", "true");
+
+        ReceiptRecoveryCandidate candidate = candidate("1", ReceiptStatusType.GENERATED);
+        when(receiptCosmosServiceMock.getDueRecoveryCandidates(anyLong(), any(), any()))
+                .thenReturn(Collections.singletonList(ModelBridgeInternal.createFeedResponse(
+                        List.of(candidate), Collections.emptyMap())));
+        when(receiptCosmosServiceMock.getReceiptById("1")).thenThrow(new RuntimeException("error"));
+
+        // test execution
+        assertDoesNotThrow(() -> sut.run("info", documentdb, contextMock));
+
+        verify(documentdb).setValue(receiptCaptor.capture());
+        assertEquals(0, receiptCaptor.getValue().size());
+        verify(receiptCosmosServiceMock, never()).deleteRecoveryCandidate(any());
+    }
+
+    @Test
+    void recoverDueReceiptScheduledKeepsCandidateOnFailedSave() throws ReceiptNotFoundException {
+        environment.set("CHANGE_FEED_RECOVERY_ENABLED", "true");
+
+        ReceiptRecoveryCandidate candidate = candidate("1", ReceiptStatusType.GENERATED);
+        when(receiptCosmosServiceMock.getDueRecoveryCandidates(anyLong(), any(), any()))
+                .thenReturn(Collections.singletonList(ModelBridgeInternal.createFeedResponse(
+                        List.of(candidate), Collections.emptyMap())));
+        when(receiptCosmosServiceMock.getReceiptById("1")).thenReturn(receipt("1", ReceiptStatusType.GENERATED));
+        when(receiptCosmosServiceMock.saveReceiptsInBulk(anyList())).thenReturn(
+                ReceiptBulkWriteResult.builder().savedCounter(0).failedIds(List.of("1")).build());
+
+        // test execution
+        assertDoesNotThrow(() -> sut.run("info", documentdb, contextMock));
+
+        verify(receiptCosmosServiceMock).saveReceiptsInBulk(anyList());
+        verify(receiptCosmosServiceMock, never()).deleteRecoveryCandidate(any());
+    }
+
+    @Test
+    void recoverDueReceiptScheduledDisabled() {
+        // test execution
+        assertDoesNotThrow(() -> sut.run("info", documentdb, contextMock));
+
+        verify(documentdb, never()).setValue(any());
+        verifyNoInteractions(receiptCosmosServiceMock);
+    }
+
+    private static ReceiptRecoveryCandidate candidate(String id, ReceiptStatusType status) {
+        return ReceiptRecoveryCandidate.builder().id(id).eventId("event" + id).status(status).build();
+    }
+
+    private static Receipt receipt(String id, ReceiptStatusType status) {
+        Receipt receipt = new Receipt();
+        receipt.setId(id);
+        receipt.setEventId("event" + id);
+        receipt.setStatus(status);
+        return receipt;
+    }
+}
@@ -13,6 +13,7 @@ import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.BizEventNotFoundException;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
 import it.gov.pagopa.receipt.pdf.helpdesk.util.HttpResponseMessageMock;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -46,6 +47,8 @@ class RecoverFailedCartMassiveScheduledTest {
     private BizEventCosmosClientImpl bizEventCosmosClientMock;
     @Mock
     private BizEventToReceiptService bizEventToReceiptServiceMock;
+    @Mock
+    private ReceiptCosmosService receiptCosmosServiceMock;
 
     @Mock
     private HttpRequestMessage<Optional<String>> requestMock;
@@ -63,7 +66,7 @@ class RecoverFailedCartMassiveScheduledTest {
     @BeforeEach
     public void openMocks() {
         closeable = MockitoAnnotations.openMocks(this);
-        sut = spy(new RecoverFailedCartScheduled(bizEventToReceiptServiceMock, cartReceiptsCosmosClientMock));
+        sut = spy(new RecoverFailedCartScheduled(bizEventToReceiptServiceMock, cartReceiptsCosmosClientMock, receiptCosmosServiceMock));
     }
 
     @AfterEach
@@ -12,12 +12,14 @@ import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.CartItem;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.EventData;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReasonError;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryCheckpoint;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.BizEventNotFoundException;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.PDVTokenizerException;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.ProblemJson;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
 import it.gov.pagopa.receipt.pdf.helpdesk.util.HttpResponseMessageMock;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.AfterEach;
@@ -36,6 +38,7 @@ import java.util.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
+import static uk.org.webcompere.systemstubs.SystemStubs.withEnvironmentVariables;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -53,6 +56,11 @@ class RecoverFailedCartMassiveTest {
     private BizEventCosmosClientImpl bizEventCosmosClientMock;
     @Mock
     private BizEventToReceiptService bizEventToReceiptServiceMock;
+    @Mock
+    private ReceiptCosmosService receiptCosmosServiceMock;
+
+    @Mock
+    private RecoveryJobService recoveryJobServiceMock;
 
     @Mock
     private HttpRequestMessage<Optional<String>> requestMock;
@@ -70,7 +78,8 @@ class RecoverFailedCartMassiveTest {
     @BeforeEach
     public void openMocks() {
         closeable = MockitoAnnotations.openMocks(this);
-        sut = spy(new RecoverFailedCartMassive(bizEventToReceiptServiceMock, cartReceiptsCosmosClientMock));
+        sut = spy(new RecoverFailedCartMassive(bizEventToReceiptServiceMock, cartReceiptsCosmosClientMock,
+                receiptCosmosServiceMock, recoveryJobServiceMock));
     }
 
     @AfterEach
@@ -111,6 +120,42 @@ class RecoverFailedCartMassiveTest {
         assertEquals(CartStatusType.SENT, captured.getStatus());
     }
 
+    @Test
+    void recoverFailedCartMassiveResumedFromCheckpoint() throws Exception {
+        when(requestMock.getQueryParameters())
+                .thenReturn(Collections.singletonMap("status", CartStatusType.FAILED.name()));
+        when(receiptCosmosServiceMock.getRecoveryCheckpoint("RecoverFailedCartMassive-FAILED"))
+                .thenReturn(RecoveryCheckpoint.builder()
+                        .id("RecoverFailedCartMassive-FAILED")
+                        .continuationToken("token")
+                        .recoveredCounter(2)
+                        .build());
+
+        when(cartReceiptsCosmosClientMock.getFailedCarts("token", 100))
+                .thenReturn(Collections.singletonList(ModelBridgeInternal
+                        .createFeedResponse(Collections.singletonList(generateCart()),
+                                Collections.emptyMap())));
+        when(bizEventToReceiptServiceMock.createCartReceipt(any())).thenReturn(buildReceipt());
+
+        doAnswer((Answer<HttpResponseMessage.Builder>) invocation -> {
+            HttpStatus status = (HttpStatus) invocation.getArguments()[0];
+            return new HttpResponseMessageMock.HttpResponseMessageBuilderMock().status(status);
+        }).when(requestMock).createResponseBuilder(any(HttpStatus.class));
+
+        // test execution
+        HttpResponseMessage response = withEnvironmentVariables("MASSIVE_RECOVER_CHECKPOINT_ENABLED", "true")
+                .execute(() -> sut.run(requestMock, documentdb, contextMock));
+
+        // test assertion
+        assertEquals(HttpStatus.OK, response.getStatus());
+        assertEquals("Recovered 3 carts", response.getBody());
+
+        verify(cartReceiptsCosmosClientMock).upsertCart(argThat(cart -> cart.getStatus() == CartStatusType.SENT));
+        verify(documentdb).setValue(cartForReceiptCaptor.capture());
+        assertTrue(cartForReceiptCaptor.getValue().isEmpty());
+        verify(receiptCosmosServiceMock).deleteRecoveryCheckpoint("RecoverFailedCartMassive-FAILED");
+    }
+
     @Test
     void recoverInsertedReceiptMassiveSuccess() throws BizEventNotFoundException {
         when(requestMock.getQueryParameters())
@@ -1,5 +1,6 @@
 package it.gov.pagopa.receipt.pdf.helpdesk;
 
+import com.azure.cosmos.models.FeedRange;
 import com.azure.cosmos.models.ModelBridgeInternal;
 import com.microsoft.azure.functions.ExecutionContext;
 import com.microsoft.azure.functions.HttpRequestMessage;
@@ -17,12 +18,16 @@ import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.enumeration.BizEventStatu
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.CartItem;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.EventData;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptSummary;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.RecoveryJobState;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.BizEventNotFoundException;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.PDVTokenizerException;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.ProblemJson;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
 import it.gov.pagopa.receipt.pdf.helpdesk.util.HttpResponseMessageMock;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.AfterEach;
@@ -36,6 +41,7 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.stubbing.Answer;
+import reactor.core.publisher.Flux;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -49,6 +55,8 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
@@ -57,6 +65,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static uk.org.webcompere.systemstubs.SystemStubs.withEnvironmentVariables;
 
 @ExtendWith(MockitoExtension.class)
 class RecoverFailedReceiptMassiveTest {
@@ -69,6 +78,10 @@ class RecoverFailedReceiptMassiveTest {
     private ExecutionContext contextMock;
     @Mock
     private ReceiptCosmosService receiptCosmosServiceMock;
+
+    @Mock
+    private RecoveryJobService recoveryJobServiceMock;
+
     @Mock
     private BizEventCosmosClientImpl bizEventCosmosClientMock;
     @Mock
@@ -90,7 +103,8 @@ class RecoverFailedReceiptMassiveTest {
     @BeforeEach
     public void openMocks() {
         closeable = MockitoAnnotations.openMocks(this);
-        sut = spy(new RecoverFailedReceiptMassive(bizEventToReceiptServiceMock, bizEventCosmosClientMock, receiptCosmosServiceMock));
+        sut = spy(new RecoverFailedReceiptMassive(bizEventToReceiptServiceMock, bizEventCosmosClientMock,
+                receiptCosmosServiceMock, recoveryJobServiceMock));
     }
 
     @AfterEach
@@ -135,6 +149,33 @@ class RecoverFailedReceiptMassiveTest {
         assertEquals(1, captured.getEventData().getCart().size());
     }
 
+    @Test
+    @SneakyThrows
+    void recoverFailedReceiptMassiveSubmitsAsyncJob() {
+        when(requestMock.getQueryParameters())
+                .thenReturn(Collections.singletonMap("status", ReceiptStatusType.FAILED.name()));
+        when(contextMock.getFunctionName()).thenReturn("RecoverFailedReceiptMassive");
+        RecoveryJob job = RecoveryJob.builder().id("jobId").state(RecoveryJobState.QUEUED).build();
+        when(recoveryJobServiceMock.submitJob("RecoverFailedReceiptMassive", ReceiptStatusType.FAILED.name()))
+                .thenReturn(job);
+
+        doAnswer((Answer<HttpResponseMessage.Builder>) invocation -> {
+            HttpStatus status = (HttpStatus) invocation.getArguments()[0];
+            return new HttpResponseMessageMock.HttpResponseMessageBuilderMock().status(status);
+        }).when(requestMock).createResponseBuilder(any(HttpStatus.class));
+
+        // test execution
+        HttpResponseMessage response = withEnvironmentVariables("MASSIVE_RECOVER_ASYNC_ENABLED", "true")
+                .execute(() -> sut.run(requestMock, documentdb, contextMock));
+
+        // test assertion
+        assertEquals(HttpStatus.ACCEPTED, response.getStatus());
+        assertEquals(job, response.getBody());
+        assertEquals("jobs/jobId", response.getHeader("Location"));
+        verify(receiptCosmosServiceMock, never()).getFailedReceiptByStatus(any(), any(), any());
+        verify(documentdb, never()).setValue(any());
+    }
+
     @Test
     @SneakyThrows
     void recoverFailedReceiptMassiveFailMissingStatusParam() {
@@ -238,6 +279,360 @@ class RecoverFailedReceiptMassiveTest {
         assertEquals(1, captured.getEventData().getCart().size());
     }
 
+    @Test
+    @SneakyThrows
+    void recoverFailedReceiptMassiveReactivePartialOK() {
+        when(requestMock.getQueryParameters())
+                .thenReturn(Collections.singletonMap("status", ReceiptStatusType.FAILED.name()));
+
+        List<Receipt> receiptList = new ArrayList<>();
+        receiptList.add(createFailedReceipt());
+        Receipt receipt = createFailedReceipt();
+        receipt.setEventData(null);
+        receiptList.add(receipt);
+
+        when(receiptCosmosServiceMock.streamFailedReceiptByStatus(any(), any()))
+                .thenReturn(Flux.just(ModelBridgeInternal.createFeedResponse(receiptList, Collections.emptyMap())));
+
+        doThrow(PDVTokenizerException.class)
+                .when(bizEventToReceiptServiceMock).tokenizeFiscalCodes(any(), any(), any());
+
+        when(bizEventCosmosClientMock.getBizEventDocument(anyString()))
+                .thenAnswer(invocation -> generateValidBizEvent(EVENT_ID));
+
+        doAnswer((Answer<HttpResponseMessage.Builder>) invocation -> {
+            HttpStatus status = (HttpStatus) invocation.getArguments()[0];
+            return new HttpResponseMessageMock.HttpResponseMessageBuilderMock().status(status);
+        }).when(requestMock).createResponseBuilder(any(HttpStatus.class));
+
+        // test execution
+        HttpResponseMessage response = withEnvironmentVariables("COSMOS_REACTIVE_ENABLED", "true")
+                .execute(() -> sut.run(requestMock, documentdb, contextMock));
+
+        // test assertion
+        assertNotNull(response);
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatus());
+
+        ProblemJson problemJson = (ProblemJson) response.getBody();
+        assertNotNull(problemJson);
+        assertEquals(HttpStatus.MULTI_STATUS.value(), problemJson.getStatus());
+        assertEquals("Partial OK", problemJson.getTitle());
+
+        verify(documentdb).setValue(receiptCaptor.capture());
+        assertEquals(1, receiptCaptor.getValue().size());
+        Receipt captured = receiptCaptor.getValue().get(0);
+        assertEquals(ReceiptStatusType.INSERTED, captured.getStatus());
+        assertEquals(TOKENIZED_DEBTOR_FISCAL_CODE, captured.getEventData().getDebtorFiscalCode());
+        verify(receiptCosmosServiceMock, never()).getFailedReceiptByStatus(any(), any(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void recoverFailedReceiptMassiveProjectionOK() {
+        when(requestMock.getQueryParameters())
+                .thenReturn(Collections.singletonMap("status", ReceiptStatusType.FAILED.name()));
+
+        Receipt receipt = createFailedReceipt();
+        receipt.setId("receiptId");
+        ReceiptSummary summary = ReceiptSummary.builder()
+                .id(receipt.getId())
+                .eventId(receipt.getEventId())
+                .status(receipt.getStatus())
+                .build();
+
+        when(receiptCosmosServiceMock.getFailedReceiptSummaryByStatus(any(), any(), any()))
+                .thenReturn(Collections.singletonList(
+                        ModelBridgeInternal.createFeedResponse(Collections.singletonList(summary), Collections.emptyMap())));
+        when(receiptCosmosServiceMock.getReceiptById("receiptId")).thenReturn(receipt);
+
+        when(bizEventCosmosClientMock.getBizEventDocument(anyString()))
+                .thenAnswer(invocation -> generateValidBizEvent(EVENT_ID));
+
+        doAnswer((Answer<HttpResponseMessage.Builder>) invocation -> {
+            HttpStatus status = (HttpStatus) invocation.getArguments()[0];
+            return new HttpResponseMessageMock.HttpResponseMessageBuilderMock().status(status);
+        }).when(requestMock).createResponseBuilder(any(HttpStatus.class));
+
+        // test execution
+        HttpResponseMessage response = withEnvironmentVariables("MASSIVE_RECOVER_PROJECTION_ENABLED", "true")
+                .execute(() -> sut.run(requestMock, documentdb, contextMock));
+
+        // test assertion
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatus());
+
+        verify(documentdb).setValue(receiptCaptor.capture());
+        assertEquals(1, receiptCaptor.getValue().size());
+        Receipt captured = receiptCaptor.getValue().get(0);
+        assertEquals(ReceiptStatusType.INSERTED, captured.getStatus());
+        assertEquals("receiptId", captured.getId());
+        verify(receiptCosmosServiceMock, never()).getFailedReceiptByStatus(any(), any(), any());
+        verify(receiptCosmosServiceMock, never()).getReceipt(anyString());
+    }
+
+    @Test
+    @SneakyThrows
+    void recoverFailedReceiptMassivePrefetchBizEventsOfPage() {
+        when(requestMock.getQueryParameters())
+                .thenReturn(Collections.singletonMap("status", ReceiptStatusType.FAILED.name()));
+
+        Receipt missingEventReceipt = createFailedReceipt();
+        missingEventReceipt.setEventId("missing id");
+        when(receiptCosmosServiceMock.getFailedReceiptByStatus(any(), any(), any()))
+                .thenReturn(Collections.singletonList(ModelBridgeInternal.createFeedResponse(
+                        List.of(createFailedReceipt(), missingEventReceipt), Collections.emptyMap())));
+        BizEvent notValidBizEvent = generateValidBizEvent("missing id");
+        notValidBizEvent.setEventStatus(BizEventStatusType.NA);
+        when(bizEventCosmosClientMock.getBizEventDocuments(eq("prefetchBizEventDocuments"), argThat(ids -> ids.size() == 2
+                && ids.containsAll(List.of(EVENT_ID, "missing id")))))
+                .thenReturn(List.of(generateValidBizEvent(EVENT_ID), notValidBizEvent));
+
+        doAnswer((Answer<HttpResponseMessage.Builder>) invocation -> {
+            HttpStatus status = (HttpStatus) invocation.getArguments()[0];
+            return new HttpResponseMessageMock.HttpResponseMessageBuilderMock().status(status);
+        }).when(requestMock).createResponseBuilder(any(HttpStatus.class));
+
+        // test execution
+        HttpResponseMessage response = withEnvironmentVariables("MASSIVE_RECOVER_BIZ_EVENT_PREFETCH_ENABLED", "true")
+                .execute(() -> sut.run(requestMock, documentdb, contextMock));
+
+        // test assertion
+        assertNotNull(response);
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatus());
+        assertEquals(HttpStatus.MULTI_STATUS.value(), ((ProblemJson) response.getBody()).getStatus());
+
+        verify(documentdb).setValue(receiptCaptor.capture());
+        assertEquals(1, receiptCaptor.getValue().size());
+        assertEquals(EVENT_ID, receiptCaptor.getValue().get(0).getEventId());
+        verify(bizEventCosmosClientMock, never()).getBizEventDocument(anyString());
+    }
+
+    @Test
+    @SneakyThrows
+    void recoverFailedReceiptMassiveReactivePrefetchBizEventsOfPage() {
+        when(requestMock.getQueryParameters())
+                .thenReturn(Collections.singletonMap("status", ReceiptStatusType.FAILED.name()));
+
+        when(receiptCosmosServiceMock.streamFailedReceiptByStatus(any(), any()))
+                .thenReturn(Flux.just(ModelBridgeInternal.createFeedResponse(
+                        List.of(createFailedReceipt()), Collections.emptyMap())));
+        when(bizEventCosmosClientMock.getBizEventDocuments(eq("prefetchBizEventDocuments"), argThat(ids -> ids.size() == 1
+                && ids.contains(EVENT_ID))))
+                .thenReturn(List.of(generateValidBizEvent(EVENT_ID)));
+
+        doAnswer((Answer<HttpResponseMessage.Builder>) invocation -> {
+            HttpStatus status = (HttpStatus) invocation.getArguments()[0];
+            return new HttpResponseMessageMock.HttpResponseMessageBuilderMock().status(status);
+        }).when(requestMock).createResponseBuilder(any(HttpStatus.class));
+
+        // test execution
+        HttpResponseMessage response = withEnvironmentVariables("COSMOS_REACTIVE_ENABLED", "true",
+                "MASSIVE_RECOVER_BIZ_EVENT_PREFETCH_ENABLED", "true")
+                .execute(() -> sut.run(requestMock, documentdb, contextMock));
+
+        // test assertion
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatus());
+
+        verify(documentdb).setValue(receiptCaptor.capture());
+        assertEquals(1, receiptCaptor.getValue().size());
+        assertEquals(EVENT_ID, receiptCaptor.getValue().get(0).getEventId());
+        verify(bizEventCosmosClientMock, never()).getBizEventDocument(anyString());
+        verify(receiptCosmosServiceMock, never()).getFailedReceiptByStatus(any(), any(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void recoverFailedReceiptMassiveFeedRangeScanOK() {
+        when(requestMock.getQueryParameters())
+                .thenReturn(Collections.singletonMap("status", ReceiptStatusType.FAILED.name()));
+
+        FeedRange firstRange = mock(FeedRange.class);
+        FeedRange secondRange = mock(FeedRange.class);
+        when(receiptCosmosServiceMock.getReceiptFeedRanges()).thenReturn(List.of(firstRange, secondRange));
+        when(receiptCosmosServiceMock.getFailedReceiptByStatus(any(FeedRange.class), any(), any(), any()))
+                .thenAnswer(invocation -> Collections.singletonList(ModelBridgeInternal.createFeedResponse(
+                        Collections.singletonList(createFailedReceipt()), Collections.emptyMap())));
+
+        when(bizEventCosmosClientMock.getBizEventDocument(anyString()))
+                .thenAnswer(invocation -> generateValidBizEvent(EVENT_ID));
+
+        doAnswer((Answer<HttpResponseMessage.Builder>) invocation -> {
+            HttpStatus status = (HttpStatus) invocation.getArguments()[0];
+            return new HttpResponseMessageMock.HttpResponseMessageBuilderMock().status(status);
+        }).when(requestMock).createResponseBuilder(any(HttpStatus.class));
+
+        // test execution
+        HttpResponseMessage response = withEnvironmentVariables("MASSIVE_RECOVER_FEED_RANGE_ENABLED", "true")
+                .execute(() -> sut.run(requestMock, documentdb, contextMock));
+
+        // test assertion
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatus());
+
+        verify(documentdb).setValue(receiptCaptor.capture());
+        assertEquals(2, receiptCaptor.getValue().size());
+        verify(receiptCosmosServiceMock).getFailedReceiptByStatus(eq(firstRange), any(), any(), any());
+        verify(receiptCosmosServiceMock).getFailedReceiptByStatus(eq(secondRange), any(), any(), any());
+        verify(receiptCosmosServiceMock, never()).getFailedReceiptByStatus(any(), any(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void recoverFailedReceiptMassiveProjectionSkipReadOfInvalidEvent() {
+        when(requestMock.getQueryParameters())
+                .thenReturn(Collections.singletonMap("status", ReceiptStatusType.FAILED.name()));
+
+        ReceiptSummary summary = ReceiptSummary.builder()
+                .id("receiptId")
+                .eventId(EVENT_ID)
+                .status(ReceiptStatusType.FAILED)
+                .build();
+
+        when(receiptCosmosServiceMock.getFailedReceiptSummaryByStatus(any(), any(), any()))
+                .thenReturn(Collections.singletonList(
+                        ModelBridgeInternal.createFeedResponse(Collections.singletonList(summary), Collections.emptyMap())));
+
+        BizEvent bizEvent = generateValidBizEvent(EVENT_ID);
+        bizEvent.setEventStatus(BizEventStatusType.NA);
+        when(bizEventCosmosClientMock.getBizEventDocument(anyString())).thenReturn(bizEvent);
+
+        doAnswer((Answer<HttpResponseMessage.Builder>) invocation -> {
+            HttpStatus status = (HttpStatus) invocation.getArguments()[0];
+            return new HttpResponseMessageMock.HttpResponseMessageBuilderMock().status(status);
+        }).when(requestMock).createResponseBuilder(any(HttpStatus.class));
+
+        // test execution
+        HttpResponseMessage response = withEnvironmentVariables("MASSIVE_RECOVER_PROJECTION_ENABLED", "true")
+                .execute(() -> sut.run(requestMock, documentdb, contextMock));
+
+        // test assertion
+        assertNotNull(response);
+        verify(receiptCosmosServiceMock, never()).getReceiptById(anyString());
+    }
+
+    @Test
+    @SneakyThrows
+    void recoverFailedReceiptMassiveProjectionWithFeedRangeScanOK() {
+        when(requestMock.getQueryParameters())
+                .thenReturn(Collections.singletonMap("status", ReceiptStatusType.FAILED.name()));
+
+        Receipt receipt = createFailedReceipt();
+        receipt.setId("receiptId");
+        ReceiptSummary summary = ReceiptSummary.builder()
+                .id(receipt.getId())
+                .eventId(receipt.getEventId())
+                .status(receipt.getStatus())
+                .build();
+
+        FeedRange firstRange = mock(FeedRange.class);
+        FeedRange secondRange = mock(FeedRange.class);
+        when(receiptCosmosServiceMock.getReceiptFeedRanges()).thenReturn(List.of(firstRange, secondRange));
+        when(receiptCosmosServiceMock.getFailedReceiptSummaryByStatus(eq(firstRange), any(), any(), any()))
+                .thenReturn(Collections.singletonList(
+                        ModelBridgeInternal.createFeedResponse(Collections.singletonList(summary), Collections.emptyMap())));
+        when(receiptCosmosServiceMock.getFailedReceiptSummaryByStatus(eq(secondRange), any(), any(), any()))
+                .thenReturn(Collections.singletonList(
+                        ModelBridgeInternal.createFeedResponse(Collections.emptyList(), Collections.emptyMap())));
+        when(receiptCosmosServiceMock.getReceiptById("receiptId")).thenReturn(receipt);
+
+        when(bizEventCosmosClientMock.getBizEventDocument(anyString()))
+                .thenAnswer(invocation -> generateValidBizEvent(EVENT_ID));
+
+        doAnswer((Answer<HttpResponseMessage.Builder>) invocation -> {
+            HttpStatus status = (HttpStatus) invocation.getArguments()[0];
+            return new HttpResponseMessageMock.HttpResponseMessageBuilderMock().status(status);
+        }).when(requestMock).createResponseBuilder(any(HttpStatus.class));
+
+        // test execution
+        HttpResponseMessage response = withEnvironmentVariables("MASSIVE_RECOVER_PROJECTION_ENABLED", "true",
+                "MASSIVE_RECOVER_FEED_RANGE_ENABLED", "true")
+                .execute(() -> sut.run(requestMock, documentdb, contextMock));
+
+        // test assertion
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatus());
+
+        verify(documentdb).setValue(receiptCaptor.capture());
+        assertEquals(1, receiptCaptor.getValue().size());
+        assertEquals("receiptId", receiptCaptor.getValue().get(0).getId());
+        verify(receiptCosmosServiceMock, never()).getFailedReceiptSummaryByStatus(any(), any(), any());
+        verify(receiptCosmosServiceMock, never()).getFailedReceiptByStatus(any(FeedRange.class), any(), any(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void recoverFailedReceiptMassiveProjectionWithReactiveScanOK() {
+        when(requestMock.getQueryParameters())
+                .thenReturn(Collections.singletonMap("status", ReceiptStatusType.FAILED.name()));
+
+        Receipt receipt = createFailedReceipt();
+        receipt.setId("receiptId");
+        ReceiptSummary summary = ReceiptSummary.builder()
+                .id(receipt.getId())
+                .eventId(receipt.getEventId())
+                .status(receipt.getStatus())
+                .build();
+
+        when(receiptCosmosServiceMock.streamFailedReceiptSummaryByStatus(any(), any()))
+                .thenReturn(Flux.just(ModelBridgeInternal.createFeedResponse(
+                        Collections.singletonList(summary), Collections.emptyMap())));
+        when(receiptCosmosServiceMock.getReceiptById("receiptId")).thenReturn(receipt);
+
+        when(bizEventCosmosClientMock.getBizEventDocument(anyString()))
+                .thenAnswer(invocation -> generateValidBizEvent(EVENT_ID));
+
+        doAnswer((Answer<HttpResponseMessage.Builder>) invocation -> {
+            HttpStatus status = (HttpStatus) invocation.getArguments()[0];
+            return new HttpResponseMessageMock.HttpResponseMessageBuilderMock().status(status);
+        }).when(requestMock).createResponseBuilder(any(HttpStatus.class));
+
+        // test execution
+        HttpResponseMessage response = withEnvironmentVariables("MASSIVE_RECOVER_PROJECTION_ENABLED", "true",
+                "COSMOS_REACTIVE_ENABLED", "true")
+                .execute(() -> sut.run(requestMock, documentdb, contextMock));
+
+        // test assertion
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatus());
+
+        verify(documentdb).setValue(receiptCaptor.capture());
+        assertEquals(1, receiptCaptor.getValue().size());
+        assertEquals("receiptId", receiptCaptor.getValue().get(0).getId());
+        verify(receiptCosmosServiceMock, never()).streamFailedReceiptByStatus(any(), any());
+        verify(receiptCosmosServiceMock, never()).getFailedReceiptSummaryByStatus(any(), any(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void recoverFailedReceiptMassiveBacksOffInvalidEvent() {
+        when(requestMock.getQueryParameters())
+                .thenReturn(Collections.singletonMap("status", ReceiptStatusType.FAILED.name()));
+
+        Receipt receipt = createFailedReceipt();
+        receipt.setRecoverNumRetry(2);
+        when(receiptCosmosServiceMock.getFailedReceiptByStatus(any(), any(), any()))
+                .thenReturn(Collections.singletonList(ModelBridgeInternal
+                        .createFeedResponse(Collections.singletonList(receipt), Collections.emptyMap())));
+
+        BizEvent bizEvent = generateValidBizEvent(EVENT_ID);
+        bizEvent.setEventStatus(BizEventStatusType.NA);
+        when(bizEventCosmosClientMock.getBizEventDocument(anyString())).thenReturn(bizEvent);
+
+        doAnswer((Answer<HttpResponseMessage.Builder>) invocation -> {
+            HttpStatus status = (HttpStatus) invocation.getArguments()[0];
+            return new HttpResponseMessageMock.HttpResponseMessageBuilderMock().status(status);
+        }).when(requestMock).createResponseBuilder(any(HttpStatus.class));
+
+        // test execution
+        HttpResponseMessage response = withEnvironmentVariables("RECOVER_BACKOFF_ENABLED", "true")
+                .execute(() -> sut.run(requestMock, documentdb, contextMock));
+
+        // test assertion
+        assertNotNull(response);
+        verify(receiptCosmosServiceMock).patchReceipt(eq("a valid id"), any(), any());
+    }
+
     @Test
     @SneakyThrows
     void recoverFailedReceiptMassiveFailNoSuchElementInIterator() {
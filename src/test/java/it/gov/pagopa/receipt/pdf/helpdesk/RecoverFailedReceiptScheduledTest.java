@@ -14,6 +14,7 @@ import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.enumeration.BizEventStatu
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.CartItem;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.EventData;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryLease;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.BizEventNotFoundException;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
@@ -92,19 +93,15 @@ class RecoverFailedReceiptScheduledTest {
         sut = spy(new RecoverFailedReceiptScheduled(bizEventToReceiptServiceMock, bizEventCosmosClientMock, receiptCosmosServiceMock));
         when(receiptCosmosServiceMock.getFailedReceiptByStatus(any(), any(), eq(ReceiptStatusType.FAILED)))
                 .thenReturn(Collections.singletonList(ModelBridgeInternal
-                        .createFeedResponse(Collections.singletonList(
-                                        createFailedReceipt(EVENT_ID_1, ReceiptStatusType.FAILED)),
+                        .createFeedResponse(List.of(
+                                        createFailedReceipt(EVENT_ID_1, ReceiptStatusType.FAILED),
+                                        createFailedReceipt(EVENT_ID_3, ReceiptStatusType.NOT_QUEUE_SENT)),
                                 Collections.emptyMap())));
         when(receiptCosmosServiceMock.getFailedReceiptByStatus(any(), any(), eq(ReceiptStatusType.INSERTED)))
                 .thenReturn(Collections.singletonList(ModelBridgeInternal
                         .createFeedResponse(Collections.singletonList(
                                         createFailedReceipt(EVENT_ID_2, ReceiptStatusType.INSERTED)),
                                 Collections.emptyMap())));
-        when(receiptCosmosServiceMock.getFailedReceiptByStatus(any(), any(), eq(ReceiptStatusType.NOT_QUEUE_SENT)))
-                .thenReturn(Collections.singletonList(ModelBridgeInternal
-                        .createFeedResponse(Collections.singletonList(
-                                        createFailedReceipt(EVENT_ID_3, ReceiptStatusType.NOT_QUEUE_SENT)),
-                                Collections.emptyMap())));
 
         when(bizEventCosmosClientMock.getBizEventDocument(EVENT_ID_1))
                 .thenReturn(generateValidBizEvent(EVENT_ID_1));
@@ -118,6 +115,8 @@ class RecoverFailedReceiptScheduledTest {
 
         verify(documentdb).setValue(receiptCaptor.capture());
         assertEquals(3, receiptCaptor.getValue().size());
+        verify(receiptCosmosServiceMock).getFailedReceiptByStatus(any(), any(), eq(ReceiptStatusType.FAILED));
+        verify(receiptCosmosServiceMock, never()).getFailedReceiptByStatus(any(), any(), eq(ReceiptStatusType.NOT_QUEUE_SENT));
 
         Receipt captured = receiptCaptor.getValue().get(0);
         assertEquals(ReceiptStatusType.INSERTED, captured.getStatus());
@@ -157,6 +156,51 @@ class RecoverFailedReceiptScheduledTest {
 
     }
 
+    @Test
+    void recoverFailedReceiptScheduledSkippedWhenLeaseHeldByAnotherInstance() {
+        environment.set("RECOVERY_LEASE_ENABLED", "true");
+        when(receiptCosmosServiceMock.getRecoveryLease("RecoverFailedReceiptScheduled"))
+                .thenReturn(RecoveryLease.builder()
+                        .id("RecoverFailedReceiptScheduled")
+                        .owner("another-instance")
+                        .fencingToken(1)
+                        .expiresAt(System.currentTimeMillis() + 300000)
+                        .build());
+        sut = spy(new RecoverFailedReceiptScheduled(bizEventToReceiptServiceMock, bizEventCosmosClientMock, receiptCosmosServiceMock));
+
+        // test execution
+        assertDoesNotThrow(() -> sut.run("info", documentdb, contextMock));
+
+        verify(documentdb, never()).setValue(any());
+        verify(receiptCosmosServiceMock, never()).getFailedReceiptByStatus(any(), any(), any());
+        verify(receiptCosmosServiceMock, never()).createRecoveryLease(any());
+    }
+
+    @Test
+    void recoverFailedReceiptScheduledStopsWritingWhenLeaseLost() throws BizEventNotFoundException {
+        environment.set("RECOVERY_LEASE_ENABLED", "true");
+        when(receiptCosmosServiceMock.createRecoveryLease(any()))
+                .thenReturn(RecoveryLease.builder()
+                        .id("RecoverFailedReceiptScheduled")
+                        .fencingToken(1)
+                        .expiresAt(System.currentTimeMillis() - 1)
+                        .build());
+        when(receiptCosmosServiceMock.getFailedReceiptByStatus(any(), any(), any()))
+                .thenReturn(Collections.singletonList(ModelBridgeInternal
+                        .createFeedResponse(Collections.singletonList(
+                                        createFailedReceipt(EVENT_ID_1, ReceiptStatusType.FAILED)),
+                                Collections.emptyMap())));
+        when(bizEventCosmosClientMock.getBizEventDocument(EVENT_ID_1))
+                .thenReturn(generateValidBizEvent(EVENT_ID_1));
+        sut = spy(new RecoverFailedReceiptScheduled(bizEventToReceiptServiceMock, bizEventCosmosClientMock, receiptCosmosServiceMock));
+
+        // test execution
+        assertDoesNotThrow(() -> sut.run("info", documentdb, contextMock));
+
+        verify(bizEventToReceiptServiceMock, never()).handleSendMessageToQueue(any(), any());
+        verify(documentdb, never()).setValue(any());
+    }
+
     private BizEvent generateValidBizEvent(String eventId) {
         BizEvent item = new BizEvent();
 
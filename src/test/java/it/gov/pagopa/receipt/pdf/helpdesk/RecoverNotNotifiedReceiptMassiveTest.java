@@ -8,9 +8,12 @@ import com.microsoft.azure.functions.HttpStatus;
 import com.microsoft.azure.functions.OutputBinding;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReasonError;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptSummary;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.ProblemJson;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.ReceiptBulkWriteResult;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
 import it.gov.pagopa.receipt.pdf.helpdesk.util.HttpResponseMessageMock;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -33,12 +36,15 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static uk.org.webcompere.systemstubs.SystemStubs.withEnvironmentVariables;
 
 @ExtendWith(MockitoExtension.class)
 class RecoverNotNotifiedReceiptMassiveTest {
@@ -50,6 +56,9 @@ class RecoverNotNotifiedReceiptMassiveTest {
     @Mock
     private ReceiptCosmosService receiptCosmosServiceMock;
 
+    @Mock
+    private RecoveryJobService recoveryJobServiceMock;
+
     @Mock
     private HttpRequestMessage<Optional<String>> requestMock;
 
@@ -66,7 +75,7 @@ class RecoverNotNotifiedReceiptMassiveTest {
     @BeforeEach
     public void openMocks() {
         closeable = MockitoAnnotations.openMocks(this);
-        sut = spy(new RecoverNotNotifiedReceiptMassive(receiptCosmosServiceMock));
+        sut = spy(new RecoverNotNotifiedReceiptMassive(receiptCosmosServiceMock, recoveryJobServiceMock));
     }
 
     @AfterEach
@@ -156,6 +165,40 @@ class RecoverNotNotifiedReceiptMassiveTest {
         assertNull(captured2.getReasonErrPayer());
     }
 
+    @Test
+    void recoverNotNotifiedReceiptMassiveWithPatchSuccess() throws Exception {
+        when(requestMock.getQueryParameters())
+                .thenReturn(Collections.singletonMap("status", ReceiptStatusType.IO_ERROR_TO_NOTIFY.name()));
+
+        FeedResponse feedResponseMock = mock(FeedResponse.class);
+        List<ReceiptSummary> summaryList = List.of(
+                ReceiptSummary.builder().id("1").etag("etag1").status(ReceiptStatusType.IO_ERROR_TO_NOTIFY).build(),
+                ReceiptSummary.builder().id("2").etag("etag2").status(ReceiptStatusType.IO_ERROR_TO_NOTIFY).build());
+        when(feedResponseMock.getResults()).thenReturn(summaryList);
+        when(receiptCosmosServiceMock.getNotNotifiedReceiptSummaryByStatus(any(), any(), any()))
+                .thenReturn(Collections.singletonList(feedResponseMock));
+        when(receiptCosmosServiceMock.patchReceiptsInBulk(eq(summaryList), any(), anyString()))
+                .thenReturn(ReceiptBulkWriteResult.builder().savedCounter(2).failedIds(Collections.emptyList()).build());
+
+        doAnswer((Answer<HttpResponseMessage.Builder>) invocation -> {
+            HttpStatus status = (HttpStatus) invocation.getArguments()[0];
+            return new HttpResponseMessageMock.HttpResponseMessageBuilderMock().status(status);
+        }).when(requestMock).createResponseBuilder(any(HttpStatus.class));
+
+        // test execution
+        HttpResponseMessage response = withEnvironmentVariables("RECOVER_NOT_NOTIFIED_PATCH_ENABLED", "true")
+                .execute(() -> sut.run(requestMock, documentReceipts, executionContextMock));
+
+        // test assertion
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatus());
+        assertNotNull(response.getBody());
+
+        verify(receiptCosmosServiceMock, never()).getNotNotifiedReceiptByStatus(any(), any(), any());
+        verify(documentReceipts).setValue(receiptCaptor.capture());
+        assertEquals(0, receiptCaptor.getValue().size());
+    }
+
     @Test
     void recoverNotNotifiedReceiptMassiveSuccessWithNoReceiptUpdated() {
         when(requestMock.getQueryParameters())
@@ -0,0 +1,112 @@
+package it.gov.pagopa.receipt.pdf.helpdesk;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.OutputBinding;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptRecoveryCandidate;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(SystemStubsExtension.class)
+class RecoverReceiptChangeFeedTest {
+
+    @Mock
+    private ExecutionContext contextMock;
+
+    @Captor
+    private ArgumentCaptor<List<ReceiptRecoveryCandidate>> candidateCaptor;
+
+    @Spy
+    private OutputBinding<List<ReceiptRecoveryCandidate>> candidates;
+
+    @SystemStub
+    private EnvironmentVariables environment;
+
+    private AutoCloseable closeable;
+
+    private final RecoverReceiptChangeFeed sut = new RecoverReceiptChangeFeed();
+
+    @BeforeEach
+    public void openMocks() {
+        closeable = MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    public void releaseMocks() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    void processReceiptChangesIndexesRecoverableReceipts() {
+        environment.set("CHANGE_FEED_RECOVERY_ENABLED", "true");
+        environment.set("MAX_DATE_DIFF_MILLIS", "1000");
+        environment.set("MAX_DATE_DIFF_NOTIFY_MILLIS", "2000");
+
+        List<Receipt> items = List.of(
+                receipt("1", ReceiptStatusType.INSERTED),
+                receipt("2", ReceiptStatusType.FAILED),
+                receipt("3", ReceiptStatusType.GENERATED),
+                receipt("4", ReceiptStatusType.IO_ERROR_TO_NOTIFY),
+                receipt("5", ReceiptStatusType.IO_NOTIFIED));
+
+        // test execution
+        assertDoesNotThrow(() -> sut.processReceiptChanges(items, candidates, contextMock));
+
+        verify(candidates).setValue(candidateCaptor.capture());
+        List<ReceiptRecoveryCandidate> captured = candidateCaptor.getValue();
+        assertEquals(4, captured.size());
+        assertEquals(11_000L, captured.get(0).getDueAt());
+        assertEquals(10_000L, captured.get(1).getDueAt());
+        assertEquals(22_000L, captured.get(2).getDueAt());
+        assertEquals(20_000L, captured.get(3).getDueAt());
+        assertEquals(ReceiptStatusType.IO_ERROR_TO_NOTIFY, captured.get(3).getStatus());
+    }
+
+    @Test
+    void processReceiptChangesWithoutRecoverableReceipts() {
+        environment.set("CHANGE_FEED_RECOVERY_ENABLED", "true");
+
+        // test execution
+        assertDoesNotThrow(() -> sut.processReceiptChanges(
+                List.of(receipt("1", ReceiptStatusType.IO_NOTIFIED)), candidates, contextMock));
+
+        verify(candidates, never()).setValue(any());
+    }
+
+    @Test
+    void processReceiptChangesDisabled() {
+        // test execution
+        assertDoesNotThrow(() -> sut.processReceiptChanges(
+                List.of(receipt("1", ReceiptStatusType.FAILED)), candidates, contextMock));
+
+        verify(candidates, never()).setValue(any());
+    }
+
+    private static Receipt receipt(String id, ReceiptStatusType status) {
+        Receipt receipt = new Receipt();
+        receipt.setId(id);
+        receipt.setStatus(status);
+        receipt.setInserted_at(10_000L);
+        receipt.setGenerated_at(20_000L);
+        return receipt;
+    }
+}
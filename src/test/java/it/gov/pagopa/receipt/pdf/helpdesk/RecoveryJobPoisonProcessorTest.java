@@ -0,0 +1,61 @@
+package it.gov.pagopa.receipt.pdf.helpdesk;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.RecoveryJobState;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecoveryJobPoisonProcessorTest {
+
+    private static final String JOB_ID = "jobId";
+
+    private ExecutionContext contextMock;
+    private RecoveryJobService recoveryJobServiceMock;
+
+    private RecoveryJobPoisonProcessor sut;
+
+    @BeforeEach
+    void setUp() {
+        contextMock = mock(ExecutionContext.class);
+        recoveryJobServiceMock = mock(RecoveryJobService.class);
+        sut = new RecoveryJobPoisonProcessor(recoveryJobServiceMock);
+    }
+
+    @Test
+    void processRecoveryJobPoisonMarksRunningJobFailed() {
+        RecoveryJob job = RecoveryJob.builder().id(JOB_ID).state(RecoveryJobState.RUNNING).succeeded(3).failed(1).build();
+        when(recoveryJobServiceMock.getJob(JOB_ID)).thenReturn(job);
+
+        sut.processRecoveryJobPoison(JOB_ID, contextMock);
+
+        verify(recoveryJobServiceMock).completeJob(eq(job), eq(RecoveryJobState.FAILED), eq(3), eq(1), anyString());
+    }
+
+    @Test
+    void processRecoveryJobPoisonIgnoresEndedJob() {
+        when(recoveryJobServiceMock.getJob(JOB_ID))
+                .thenReturn(RecoveryJob.builder().id(JOB_ID).state(RecoveryJobState.CANCELLED).build());
+
+        sut.processRecoveryJobPoison(JOB_ID, contextMock);
+
+        verify(recoveryJobServiceMock, never()).completeJob(any(), any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void processRecoveryJobPoisonIgnoresMissingJob() {
+        sut.processRecoveryJobPoison(JOB_ID, contextMock);
+
+        verify(recoveryJobServiceMock, never()).completeJob(any(), any(), anyInt(), anyInt(), any());
+    }
+}
@@ -0,0 +1,241 @@
+package it.gov.pagopa.receipt.pdf.helpdesk;
+
+import com.azure.cosmos.models.FeedResponse;
+import com.microsoft.azure.functions.ExecutionContext;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.BizEventCosmosClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.CartReceiptsCosmosClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryCheckpoint;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.RecoveryJobState;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.UnableToQueueException;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.ReceiptBulkWriteResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.org.webcompere.systemstubs.SystemStubs.withEnvironmentVariables;
+
+class RecoveryJobProcessorTest {
+
+    private static final String JOB_ID = "jobId";
+
+    @Mock
+    private ExecutionContext contextMock;
+
+    @Mock
+    private BizEventToReceiptService bizEventToReceiptServiceMock;
+
+    @Mock
+    private BizEventCosmosClient bizEventCosmosClientMock;
+
+    @Mock
+    private CartReceiptsCosmosClient cartReceiptsCosmosClientMock;
+
+    @Mock
+    private ReceiptCosmosService receiptCosmosServiceMock;
+
+    @Mock
+    private RecoveryJobService recoveryJobServiceMock;
+
+    private RecoveryJobProcessor sut;
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    public void openMocks() {
+        closeable = MockitoAnnotations.openMocks(this);
+        sut = new RecoveryJobProcessor(bizEventToReceiptServiceMock, bizEventCosmosClientMock,
+                cartReceiptsCosmosClientMock, receiptCosmosServiceMock, recoveryJobServiceMock);
+    }
+
+    @AfterEach
+    public void releaseMocks() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    void processRecoveryJobCompleted() {
+        RecoveryJob job = buildJob(RecoveryJobState.QUEUED);
+        when(recoveryJobServiceMock.getJob(JOB_ID)).thenReturn(job);
+        when(recoveryJobServiceMock.startJob(job)).thenReturn(job);
+        when(recoveryJobServiceMock.updateProgress(any(), anyInt(), anyInt())).thenReturn(job);
+        mockNotNotifiedPages();
+
+        sut.processRecoveryJob(JOB_ID, contextMock);
+
+        verify(recoveryJobServiceMock).updateProgress(job, 1, 0);
+        verify(recoveryJobServiceMock).completeJob(job, RecoveryJobState.COMPLETED, 2, 0, null);
+        verify(receiptCosmosServiceMock).deleteRecoveryCheckpoint("RecoveryJob-" + JOB_ID);
+    }
+
+    @Test
+    void processRecoveryJobCancelledWhileRunning() {
+        RecoveryJob job = buildJob(RecoveryJobState.QUEUED);
+        RecoveryJob cancelled = buildJob(RecoveryJobState.RUNNING);
+        cancelled.setCancelRequested(true);
+        when(recoveryJobServiceMock.getJob(JOB_ID)).thenReturn(job);
+        when(recoveryJobServiceMock.startJob(job)).thenReturn(job);
+        when(recoveryJobServiceMock.updateProgress(any(), anyInt(), anyInt())).thenReturn(cancelled);
+        mockNotNotifiedPages();
+
+        sut.processRecoveryJob(JOB_ID, contextMock);
+
+        verify(receiptCosmosServiceMock, never()).getNotNotifiedReceiptByStatus(eq("next"), any(), any());
+        verify(receiptCosmosServiceMock).deleteRecoveryCheckpoint("RecoveryJob-" + JOB_ID);
+        verify(recoveryJobServiceMock).completeJob(job, RecoveryJobState.CANCELLED, 1, 0, null);
+    }
+
+    @Test
+    void processRecoveryJobResumesFromCheckpoint() {
+        RecoveryJob job = buildJob(RecoveryJobState.RUNNING);
+        when(recoveryJobServiceMock.getJob(JOB_ID)).thenReturn(job);
+        when(recoveryJobServiceMock.startJob(job)).thenReturn(job);
+        when(receiptCosmosServiceMock.getRecoveryCheckpoint("RecoveryJob-" + JOB_ID)).thenReturn(
+                RecoveryCheckpoint.builder().id("RecoveryJob-" + JOB_ID).continuationToken("next").recoveredCounter(1).build());
+        mockNotNotifiedPages();
+
+        sut.processRecoveryJob(JOB_ID, contextMock);
+
+        verify(receiptCosmosServiceMock, never()).getNotNotifiedReceiptByStatus(isNull(), any(), any());
+        verify(recoveryJobServiceMock).completeJob(job, RecoveryJobState.COMPLETED, 2, 0, null);
+    }
+
+    @Test
+    void processRecoveryJobWithReactiveAndFeedRangeScansUpdatesProgress() throws Exception {
+        RecoveryJob job = buildJob(RecoveryJobState.QUEUED);
+        when(recoveryJobServiceMock.getJob(JOB_ID)).thenReturn(job);
+        when(recoveryJobServiceMock.startJob(job)).thenReturn(job);
+        when(recoveryJobServiceMock.updateProgress(any(), anyInt(), anyInt())).thenReturn(job);
+        mockNotNotifiedPages();
+
+        withEnvironmentVariables("COSMOS_REACTIVE_ENABLED", "true", "MASSIVE_RECOVER_FEED_RANGE_ENABLED", "true")
+                .execute(() -> sut.processRecoveryJob(JOB_ID, contextMock));
+
+        verify(recoveryJobServiceMock).updateProgress(job, 1, 0);
+        verify(recoveryJobServiceMock).completeJob(job, RecoveryJobState.COMPLETED, 2, 0, null);
+    }
+
+    @Test
+    void processRecoveryJobRequeuedAtTimeBudget() throws Exception {
+        RecoveryJob job = buildJob(RecoveryJobState.QUEUED);
+        when(recoveryJobServiceMock.getJob(JOB_ID)).thenReturn(job);
+        when(recoveryJobServiceMock.startJob(job)).thenReturn(job);
+        when(recoveryJobServiceMock.updateProgress(any(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            Thread.sleep(1100);
+            return job;
+        });
+        mockNotNotifiedPages();
+
+        withEnvironmentVariables("RECOVERY_JOB_TIME_BUDGET_SECONDS", "1")
+                .execute(() -> sut.processRecoveryJob(JOB_ID, contextMock));
+
+        verify(receiptCosmosServiceMock, never()).getNotNotifiedReceiptByStatus(eq("next"), any(), any());
+        verify(receiptCosmosServiceMock, never()).deleteRecoveryCheckpoint(anyString());
+        verify(recoveryJobServiceMock).requeueJob(job, 1, 0);
+        verify(recoveryJobServiceMock, never()).completeJob(any(), any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void processRecoveryJobFailedWhenNotRequeued() throws Exception {
+        RecoveryJob job = buildJob(RecoveryJobState.QUEUED);
+        when(recoveryJobServiceMock.getJob(JOB_ID)).thenReturn(job);
+        when(recoveryJobServiceMock.startJob(job)).thenReturn(job);
+        when(recoveryJobServiceMock.updateProgress(any(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            Thread.sleep(1100);
+            return job;
+        });
+        doThrow(new UnableToQueueException("error")).when(recoveryJobServiceMock).requeueJob(any(), anyInt(), anyInt());
+        mockNotNotifiedPages();
+
+        withEnvironmentVariables("RECOVERY_JOB_TIME_BUDGET_SECONDS", "1")
+                .execute(() -> sut.processRecoveryJob(JOB_ID, contextMock));
+
+        verify(recoveryJobServiceMock).completeJob(job, RecoveryJobState.FAILED, 1, 0, "error");
+    }
+
+    @Test
+    void processRecoveryJobCancelledBeforeStart() {
+        RecoveryJob job = buildJob(RecoveryJobState.QUEUED);
+        job.setCancelRequested(true);
+        when(recoveryJobServiceMock.getJob(JOB_ID)).thenReturn(job);
+
+        sut.processRecoveryJob(JOB_ID, contextMock);
+
+        verify(recoveryJobServiceMock, never()).startJob(any());
+        verify(recoveryJobServiceMock).completeJob(job, RecoveryJobState.CANCELLED, 0, 0, null);
+    }
+
+    @Test
+    void processRecoveryJobAlreadyEnded() {
+        when(recoveryJobServiceMock.getJob(JOB_ID)).thenReturn(buildJob(RecoveryJobState.COMPLETED));
+
+        sut.processRecoveryJob(JOB_ID, contextMock);
+
+        verify(recoveryJobServiceMock, never()).startJob(any());
+        verify(recoveryJobServiceMock, never()).completeJob(any(), any(), anyInt(), anyInt(), anyString());
+    }
+
+    @Test
+    void processRecoveryJobFailed() {
+        RecoveryJob job = buildJob(RecoveryJobState.QUEUED);
+        job.setType("Unknown");
+        when(recoveryJobServiceMock.getJob(JOB_ID)).thenReturn(job);
+        when(recoveryJobServiceMock.startJob(job)).thenReturn(job);
+
+        sut.processRecoveryJob(JOB_ID, contextMock);
+
+        verify(recoveryJobServiceMock).completeJob(eq(job), eq(RecoveryJobState.FAILED), eq(0), eq(0), anyString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockNotNotifiedPages() {
+        FeedResponse<Receipt> firstPage = mock(FeedResponse.class);
+        when(firstPage.getResults()).thenReturn(List.of(buildReceipt("1")));
+        when(firstPage.getContinuationToken()).thenReturn("next");
+        FeedResponse<Receipt> lastPage = mock(FeedResponse.class);
+        when(lastPage.getResults()).thenReturn(List.of(buildReceipt("2")));
+        when(receiptCosmosServiceMock.getNotNotifiedReceiptByStatus(isNull(), any(), any()))
+                .thenReturn(Collections.singletonList(firstPage));
+        when(receiptCosmosServiceMock.getNotNotifiedReceiptByStatus(eq("next"), any(), any()))
+                .thenReturn(Collections.singletonList(lastPage));
+        when(receiptCosmosServiceMock.saveReceiptsInBulk(anyList())).thenAnswer(invocation ->
+                ReceiptBulkWriteResult.builder()
+                        .savedCounter(((List<?>) invocation.getArgument(0)).size())
+                        .failedIds(Collections.emptyList())
+                        .build());
+    }
+
+    private static RecoveryJob buildJob(RecoveryJobState state) {
+        return RecoveryJob.builder()
+                .id(JOB_ID)
+                .type("RecoverNotNotifiedReceiptMassive")
+                .status(ReceiptStatusType.GENERATED.name())
+                .state(state)
+                .build();
+    }
+
+    private static Receipt buildReceipt(String id) {
+        return Receipt.builder().id(id).eventId(id).status(ReceiptStatusType.GENERATED).build();
+    }
+}
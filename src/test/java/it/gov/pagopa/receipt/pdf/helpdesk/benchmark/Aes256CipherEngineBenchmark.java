@@ -0,0 +1,74 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.benchmark;
+
+import it.gov.pagopa.receipt.pdf.helpdesk.utils.Aes256CipherEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of the decryption deriving the key on every call (previous behaviour of
+ * Aes256Utils) with the one of {@link Aes256CipherEngine}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=it.gov.pagopa.receipt.pdf.helpdesk.benchmark.Aes256CipherEngineBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Aes256CipherEngineBenchmark {
+
+    private static final String SECRET_KEY = "benchmark-secret-key";
+    private static final String SALT = "benchmark-salt";
+    private static final String PAYLOAD = "{\"id\":\"biz-event-id\",\"debtor\":{\"fullName\":\"John Doe\"}}";
+
+    private Aes256CipherEngine engine;
+    private String encrypted;
+
+    @Setup
+    public void setUp() throws Exception {
+        engine = new Aes256CipherEngine(List.of(new Aes256CipherEngine.KeyVersion("", SECRET_KEY, SALT)));
+        encrypted = engine.encrypt(PAYLOAD);
+    }
+
+    @Benchmark
+    public String decryptDerivingKeyOnEveryCall() throws Exception {
+        byte[] encryptedData = Base64.getDecoder().decode(encrypted);
+        SecretKeySpec secretKeySpec = Aes256CipherEngine.deriveKey(SECRET_KEY, SALT);
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.DECRYPT_MODE, secretKeySpec, new IvParameterSpec(encryptedData, 0, 16));
+        return new String(cipher.doFinal(encryptedData, 16, encryptedData.length - 16), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String decryptWithCachedKey() throws Exception {
+        return engine.decrypt(encrypted);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(Aes256CipherEngineBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
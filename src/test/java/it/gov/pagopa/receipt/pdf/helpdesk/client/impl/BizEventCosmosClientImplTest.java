@@ -3,17 +3,30 @@ package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
 import com.azure.cosmos.CosmosClient;
 import com.azure.cosmos.CosmosContainer;
 import com.azure.cosmos.CosmosDatabase;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosItemIdentity;
+import com.azure.cosmos.models.CosmosItemResponse;
+import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.models.ModelBridgeInternal;
+import com.azure.cosmos.models.PartitionKey;
+import com.azure.cosmos.models.SqlQuerySpec;
 import com.azure.cosmos.util.CosmosPagedIterable;
+import io.micrometer.core.instrument.Metrics;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.BizEvent;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.enumeration.BizEventStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.BizEventNotFoundException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.org.webcompere.systemstubs.SystemStubs.withEnvironmentVariables;
 
@@ -48,8 +61,9 @@ class BizEventCosmosClientImplTest {
         when(mockIterator.next()).thenReturn(bizEvent);
 
         when(mockIterable.iterator()).thenReturn(mockIterator);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
 
-        when(mockContainer.queryItems(anyString(), any(), eq(BizEvent.class))).thenReturn(
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(BizEvent.class))).thenReturn(
                 mockIterable
         );
         when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
@@ -77,8 +91,9 @@ class BizEventCosmosClientImplTest {
         when(mockIterator.hasNext()).thenReturn(false);
 
         when(mockIterable.iterator()).thenReturn(mockIterator);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
 
-        when(mockContainer.queryItems(anyString(), any(), eq(BizEvent.class))).thenReturn(
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(BizEvent.class))).thenReturn(
                 mockIterable
         );
         when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
@@ -89,4 +104,119 @@ class BizEventCosmosClientImplTest {
         Assertions.assertThrows(BizEventNotFoundException.class, () -> client.getBizEventDocument("an invalid receipt id"));
     }
 
-}
\ No newline at end of file
+    @Test
+    void runOkPointRead() throws Exception {
+        String BIZ_EVENT_ID = "a valid event id";
+
+        CosmosContainer mockContainer = mock(CosmosContainer.class);
+        CosmosClient mockClient = mockClientWithContainer(mockContainer);
+
+        BizEvent bizEvent = new BizEvent();
+        bizEvent.setId(BIZ_EVENT_ID);
+        bizEvent.setEventStatus(BizEventStatusType.DONE);
+        CosmosItemResponse<BizEvent> mockResponse = mock(CosmosItemResponse.class);
+        when(mockResponse.getItem()).thenReturn(bizEvent);
+        when(mockResponse.getRequestCharge()).thenReturn(1.0);
+
+        when(mockContainer.readItem(BIZ_EVENT_ID, new PartitionKey(BIZ_EVENT_ID), BizEvent.class)).thenReturn(mockResponse);
+
+        withEnvironmentVariables("COSMOS_BIZ_EVENT_PARTITION_KEY_PATH", "/id").execute(() -> {
+            BizEventCosmosClientImpl client = new BizEventCosmosClientImpl(mockClient);
+
+            BizEvent bizEventResponse = client.getBizEventDocument(BIZ_EVENT_ID);
+            Assertions.assertEquals(BIZ_EVENT_ID, bizEventResponse.getId());
+        });
+        verify(mockContainer, never()).queryItems(any(SqlQuerySpec.class), any(), eq(BizEvent.class));
+    }
+
+    @Test
+    void runKoPointReadInvalidStatus() throws Exception {
+        String BIZ_EVENT_ID = "a valid event id";
+
+        CosmosContainer mockContainer = mock(CosmosContainer.class);
+        CosmosClient mockClient = mockClientWithContainer(mockContainer);
+
+        BizEvent bizEvent = new BizEvent();
+        bizEvent.setId(BIZ_EVENT_ID);
+        bizEvent.setEventStatus(BizEventStatusType.RETRY);
+        CosmosItemResponse<BizEvent> mockResponse = mock(CosmosItemResponse.class);
+        when(mockResponse.getItem()).thenReturn(bizEvent);
+
+        when(mockContainer.readItem(BIZ_EVENT_ID, new PartitionKey(BIZ_EVENT_ID), BizEvent.class)).thenReturn(mockResponse);
+
+        withEnvironmentVariables("COSMOS_BIZ_EVENT_PARTITION_KEY_PATH", "/id").execute(() -> {
+            BizEventCosmosClientImpl client = new BizEventCosmosClientImpl(mockClient);
+
+            Assertions.assertThrows(BizEventNotFoundException.class, () -> client.getBizEventDocument(BIZ_EVENT_ID));
+        });
+    }
+
+    @Test
+    void runKoPointReadNotFound() throws Exception {
+        CosmosContainer mockContainer = mock(CosmosContainer.class);
+        CosmosClient mockClient = mockClientWithContainer(mockContainer);
+
+        CosmosException mockException = mock(CosmosException.class);
+        when(mockException.getStatusCode()).thenReturn(404);
+        when(mockContainer.readItem(anyString(), any(PartitionKey.class), eq(BizEvent.class))).thenThrow(mockException);
+
+        withEnvironmentVariables("COSMOS_BIZ_EVENT_PARTITION_KEY_PATH", "/id").execute(() -> {
+            BizEventCosmosClientImpl client = new BizEventCosmosClientImpl(mockClient);
+
+            Assertions.assertThrows(BizEventNotFoundException.class, () -> client.getBizEventDocument("an invalid event id"));
+        });
+    }
+
+    @Test
+    void runOkReadManyBizEvents() throws Exception {
+        String BIZ_EVENT_ID = "a valid event id";
+
+        CosmosContainer mockContainer = mock(CosmosContainer.class);
+        CosmosClient mockClient = mockClientWithContainer(mockContainer);
+
+        BizEvent bizEvent = new BizEvent();
+        bizEvent.setId(BIZ_EVENT_ID);
+        when(mockContainer.readMany(anyList(), eq(BizEvent.class)))
+                .thenReturn(ModelBridgeInternal.createFeedResponse(List.of(bizEvent), Collections.emptyMap()));
+
+        withEnvironmentVariables("COSMOS_BIZ_EVENT_PARTITION_KEY_PATH", "/id").execute(() -> {
+            BizEventCosmosClientImpl client = new BizEventCosmosClientImpl(mockClient);
+
+            List<BizEvent> bizEventResponse = client.getBizEventDocuments("readManyOperation", List.of(BIZ_EVENT_ID));
+            Assertions.assertEquals(1, bizEventResponse.size());
+            Assertions.assertEquals(BIZ_EVENT_ID, bizEventResponse.get(0).getId());
+        });
+        verify(mockContainer).readMany(
+                argThat((List<CosmosItemIdentity> identities) -> identities.size() == 1
+                        && BIZ_EVENT_ID.equals(identities.get(0).getId())),
+                eq(BizEvent.class));
+        verify(mockContainer, never()).queryItems(any(SqlQuerySpec.class), any(), eq(BizEvent.class));
+        Assertions.assertNotNull(Metrics.globalRegistry.find("cosmos.operation.request.charge")
+                .tags("operation", "readManyOperation", "path", "read-many").summary());
+    }
+
+    @Test
+    void runOkQueryBizEventsByIds() {
+        CosmosContainer mockContainer = mock(CosmosContainer.class);
+        CosmosClient mockClient = mockClientWithContainer(mockContainer);
+
+        CosmosPagedIterable<BizEvent> mockIterable = mock(CosmosPagedIterable.class);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(CosmosQueryRequestOptions.class), eq(BizEvent.class)))
+                .thenReturn(mockIterable);
+
+        BizEventCosmosClientImpl client = new BizEventCosmosClientImpl(mockClient);
+
+        Assertions.assertDoesNotThrow(() -> client.getBizEventDocuments("queryOperation", List.of("an event id")));
+        verify(mockContainer).queryItems(any(SqlQuerySpec.class), any(CosmosQueryRequestOptions.class), eq(BizEvent.class));
+        verify(mockContainer, never()).readMany(anyList(), eq(BizEvent.class));
+    }
+
+    private CosmosClient mockClientWithContainer(CosmosContainer mockContainer) {
+        CosmosClient mockClient = mock(CosmosClient.class);
+        CosmosDatabase mockDatabase = mock(CosmosDatabase.class);
+        when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
+        when(mockClient.getDatabase(any())).thenReturn(mockDatabase);
+        return mockClient;
+    }
+}
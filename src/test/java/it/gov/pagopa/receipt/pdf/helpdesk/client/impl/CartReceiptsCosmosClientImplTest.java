@@ -3,6 +3,7 @@ package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
 import com.azure.cosmos.CosmosClient;
 import com.azure.cosmos.CosmosContainer;
 import com.azure.cosmos.CosmosDatabase;
+import com.azure.cosmos.models.SqlQuerySpec;
 import com.azure.cosmos.util.CosmosPagedIterable;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartForReceipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
@@ -39,6 +40,7 @@ class CartReceiptsCosmosClientImplTest {
         CosmosContainer mockContainer = mock(CosmosContainer.class);
 
         CosmosPagedIterable mockIterable = mock(CosmosPagedIterable.class);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
 
         Iterator<CartForReceipt> mockIterator = mock(Iterator.class);
         CartForReceipt cartForReceipt = new CartForReceipt();
@@ -49,7 +51,7 @@ class CartReceiptsCosmosClientImplTest {
 
         when(mockIterable.iterator()).thenReturn(mockIterator);
 
-        when(mockContainer.queryItems(anyString(), any(), eq(CartForReceipt.class))).thenReturn(
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(CartForReceipt.class))).thenReturn(
                 mockIterable
         );
         when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
@@ -73,6 +75,7 @@ class CartReceiptsCosmosClientImplTest {
         CosmosContainer mockContainer = mock(CosmosContainer.class);
 
         CosmosPagedIterable mockIterable = mock(CosmosPagedIterable.class);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
 
         Iterator<Receipt> mockIterator = mock(Iterator.class);
 
@@ -80,7 +83,7 @@ class CartReceiptsCosmosClientImplTest {
 
         when(mockIterable.iterator()).thenReturn(mockIterator);
 
-        when(mockContainer.queryItems(anyString(), any(), eq(CartForReceipt.class))).thenReturn(
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(CartForReceipt.class))).thenReturn(
                 mockIterable
         );
         when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
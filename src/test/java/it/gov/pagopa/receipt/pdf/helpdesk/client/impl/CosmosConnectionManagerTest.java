@@ -0,0 +1,128 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
+
+import com.azure.cosmos.ConsistencyLevel;
+import com.azure.cosmos.CosmosAsyncClient;
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosClient;
+import com.azure.cosmos.CosmosClientBuilder;
+import com.azure.cosmos.CosmosContainer;
+import com.azure.cosmos.CosmosException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static uk.org.webcompere.systemstubs.SystemStubs.withEnvironmentVariables;
+
+class CosmosConnectionManagerTest {
+
+    private static final String ENDPOINT = "https://localhost:8081";
+    private static final String KEY = "key";
+
+    @Test
+    void getClientSameEndpointReturnsSharedClient() {
+        CosmosConnectionManager manager = spy(new CosmosConnectionManager());
+        CosmosClientBuilder builder = mock(CosmosClientBuilder.class);
+        CosmosClient cosmosClient = mock(CosmosClient.class);
+        doReturn(builder).when(manager).newClientBuilder(any(), any(), any());
+        when(builder.buildClient()).thenReturn(cosmosClient);
+
+        assertSame(cosmosClient, manager.getClient(ENDPOINT, KEY, null));
+        assertSame(cosmosClient, manager.getClient(ENDPOINT, KEY, null));
+
+        verify(manager).newClientBuilder(ENDPOINT, KEY, null);
+        verify(builder).buildClient();
+    }
+
+    @Test
+    void getClientDifferentConsistencyReturnsDifferentClient() {
+        CosmosConnectionManager manager = spy(new CosmosConnectionManager());
+        CosmosClientBuilder builder = mock(CosmosClientBuilder.class);
+        doReturn(builder).when(manager).newClientBuilder(any(), any(), any());
+        when(builder.buildClient()).thenReturn(mock(CosmosClient.class), mock(CosmosClient.class));
+
+        CosmosClient defaultClient = manager.getClient(ENDPOINT, KEY, null);
+        CosmosClient strongClient = manager.getClient(ENDPOINT, KEY, ConsistencyLevel.STRONG);
+
+        assertNotSame(defaultClient, strongClient);
+        verify(manager).newClientBuilder(eq(ENDPOINT), eq(KEY), isNull());
+        verify(manager).newClientBuilder(ENDPOINT, KEY, ConsistencyLevel.STRONG);
+    }
+
+    @Test
+    void getAsyncClientSameEndpointReturnsSharedClient() {
+        CosmosConnectionManager manager = spy(new CosmosConnectionManager());
+        CosmosClientBuilder builder = mock(CosmosClientBuilder.class);
+        CosmosAsyncClient cosmosAsyncClient = mock(CosmosAsyncClient.class);
+        doReturn(builder).when(manager).newClientBuilder(any(), any(), any());
+        when(builder.buildAsyncClient()).thenReturn(cosmosAsyncClient);
+
+        assertSame(cosmosAsyncClient, manager.getAsyncClient(ENDPOINT, KEY, null));
+        assertSame(cosmosAsyncClient, manager.getAsyncClient(ENDPOINT, KEY, null));
+
+        verify(builder).buildAsyncClient();
+    }
+
+    @Test
+    void getClientInvalidEndpointThrows() {
+        CosmosConnectionManager manager = new CosmosConnectionManager();
+
+        assertThrows(IllegalArgumentException.class, () -> manager.getClient("", KEY, null));
+    }
+
+    @Test
+    void newClientBuilderWithConfiguration() throws Exception {
+        withEnvironmentVariables(
+                "COSMOS_CONNECTION_MODE", "gateway",
+                "COSMOS_PREFERRED_REGIONS", "West Europe, North Europe"
+        ).execute(() -> {
+            CosmosClientBuilder builder = new CosmosConnectionManager()
+                    .newClientBuilder(ENDPOINT, KEY, ConsistencyLevel.STRONG);
+
+            assertNotNull(builder);
+        });
+    }
+
+    @Test
+    void prewarmOpensConnections() {
+        CosmosConnectionManager manager = new CosmosConnectionManager();
+        CosmosContainer container = mock(CosmosContainer.class);
+
+        manager.prewarm(container);
+
+        verify(container).openConnectionsAndInitCaches();
+    }
+
+    @Test
+    void prewarmErrorIsIgnored() {
+        CosmosConnectionManager manager = new CosmosConnectionManager();
+        CosmosContainer container = mock(CosmosContainer.class);
+        doThrow(mock(CosmosException.class)).when(container).openConnectionsAndInitCaches();
+
+        assertDoesNotThrow(() -> manager.prewarm(container));
+    }
+
+    @Test
+    void prewarmAsyncErrorIsIgnored() {
+        CosmosConnectionManager manager = new CosmosConnectionManager();
+        CosmosAsyncContainer container = mock(CosmosAsyncContainer.class);
+        when(container.openConnectionsAndInitCaches()).thenReturn(Mono.error(new RuntimeException("error")));
+
+        assertDoesNotThrow(() -> manager.prewarm(container));
+
+        verify(container).openConnectionsAndInitCaches();
+    }
+
+    @Test
+    void prewarmDisabled() throws Exception {
+        CosmosContainer container = mock(CosmosContainer.class);
+
+        withEnvironmentVariables("COSMOS_PREWARM_ENABLED", "false")
+                .execute(() -> new CosmosConnectionManager().prewarm(container));
+
+        verifyNoInteractions(container);
+    }
+}
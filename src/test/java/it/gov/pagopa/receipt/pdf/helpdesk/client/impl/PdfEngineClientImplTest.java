@@ -1,11 +1,17 @@
 package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.logging.LoggingMeterRegistry;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.TemplateBundle;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.request.PdfEngineRequest;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.response.PdfContent;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.response.PdfEngineResponse;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.junit.jupiter.api.Assertions;
@@ -16,10 +22,14 @@ import uk.org.webcompere.systemstubs.jupiter.SystemStub;
 import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(SystemStubsExtension.class)
@@ -31,6 +41,54 @@ class PdfEngineClientImplTest {
     @Test
     void testSingleton() {
         Assertions.assertDoesNotThrow(PdfEngineClientImpl::getInstance);
+        MeterRegistry exportingRegistry = Metrics.globalRegistry.getRegistries().stream()
+                .filter(LoggingMeterRegistry.class::isInstance)
+                .findFirst()
+                .orElseThrow();
+        Assertions.assertNotNull(exportingRegistry.find("pdf.engine.http.pool.connections").tag("state", "leased").gauge());
+    }
+
+    @Test
+    void runOkReusingClient() throws Exception {
+        File tempDirectory = new File("temp");
+        if (!tempDirectory.exists()) {
+            Files.createDirectory(tempDirectory.toPath());
+        }
+
+        File targetFile = File.createTempFile("tempFile", ".txt", tempDirectory);
+        PdfEngineRequest pdfEngineRequest = new PdfEngineRequest();
+        try {
+            pdfEngineRequest.setTemplate(targetFile.toURI().toURL());
+            pdfEngineRequest.setData("");
+        } finally {
+            targetFile.deleteOnExit();
+            tempDirectory.deleteOnExit();
+        }
+
+        HttpClientBuilder mockBuilder = mock(HttpClientBuilder.class);
+        CloseableHttpClient mockClient = mock(CloseableHttpClient.class);
+
+        CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+        StatusLine mockStatusLine = mock(StatusLine.class);
+        when(mockStatusLine.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+        when(mockResponse.getStatusLine()).thenReturn(mockStatusLine);
+
+        HttpEntity mockEntity = mock(HttpEntity.class);
+        when(mockEntity.getContent()).thenAnswer(invocation -> InputStream.nullInputStream());
+        when(mockResponse.getEntity()).thenReturn(mockEntity);
+
+        when(mockClient.execute(any())).thenReturn(mockResponse);
+        when(mockBuilder.build()).thenReturn(mockClient);
+
+        PdfEngineClientImpl client = new PdfEngineClientImpl(mockBuilder);
+        PdfEngineResponse firstResponse = client.generatePDF(pdfEngineRequest, tempDirectory.toPath());
+        PdfEngineResponse secondResponse = client.generatePDF(pdfEngineRequest, tempDirectory.toPath());
+
+        Assertions.assertTrue(new File(firstResponse.getTempPdfPath()).delete());
+        Assertions.assertTrue(new File(secondResponse.getTempPdfPath()).delete());
+        Assertions.assertEquals(HttpStatus.SC_OK, secondResponse.getStatusCode());
+        verify(mockBuilder, times(1)).build();
+        verify(mockClient, times(0)).close();
     }
 
     @Test
@@ -79,6 +137,111 @@ class PdfEngineClientImplTest {
         Assertions.assertEquals(HttpStatus.SC_OK, pdfEngineResponse.getStatusCode());
     }
 
+    @Test
+    void runOkWithTemplateBundle() throws Exception {
+        File tempDirectory = new File("temp");
+        if (!tempDirectory.exists()) {
+            Files.createDirectory(tempDirectory.toPath());
+        }
+        tempDirectory.deleteOnExit();
+
+        PdfEngineRequest pdfEngineRequest = new PdfEngineRequest();
+        pdfEngineRequest.setTemplateBundle(TemplateBundle.of("template.zip", "zip content".getBytes(StandardCharsets.UTF_8)));
+        pdfEngineRequest.setData("{}");
+
+        HttpClientBuilder mockBuilder = mock(HttpClientBuilder.class);
+        CloseableHttpClient mockClient = mock(CloseableHttpClient.class);
+
+        CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+        StatusLine mockStatusLine = mock(StatusLine.class);
+        when(mockStatusLine.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+        when(mockResponse.getStatusLine()).thenReturn(mockStatusLine);
+
+        HttpEntity mockEntity = mock(HttpEntity.class);
+        when(mockEntity.getContent()).thenReturn(InputStream.nullInputStream());
+        when(mockResponse.getEntity()).thenReturn(mockEntity);
+
+        when(mockClient.execute(argThat(request -> {
+            try {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                ((HttpPost) request).getEntity().writeTo(body);
+                return body.toString(StandardCharsets.UTF_8).contains("zip content");
+            } catch (IOException e) {
+                return false;
+            }
+        }))).thenReturn(mockResponse);
+        when(mockBuilder.build()).thenReturn(mockClient);
+
+        PdfEngineClientImpl client = new PdfEngineClientImpl(mockBuilder);
+        PdfEngineResponse pdfEngineResponse = client.generatePDF(pdfEngineRequest, tempDirectory.toPath());
+
+        Assertions.assertEquals(HttpStatus.SC_OK, pdfEngineResponse.getStatusCode());
+        Assertions.assertTrue(new File(pdfEngineResponse.getTempPdfPath()).delete());
+    }
+
+    @Test
+    void runOkStreamingInMemory() throws Exception {
+        PdfEngineRequest pdfEngineRequest = new PdfEngineRequest();
+        pdfEngineRequest.setTemplateBundle(TemplateBundle.of("template.zip", "zip content".getBytes(StandardCharsets.UTF_8)));
+        pdfEngineRequest.setData("{}");
+        pdfEngineRequest.setStreamResponse(true);
+
+        byte[] pdf = "pdf content".getBytes(StandardCharsets.UTF_8);
+        HttpClientBuilder mockBuilder = mockBuilderReturningPdf(pdf, pdf.length);
+
+        PdfEngineClientImpl client = new PdfEngineClientImpl(mockBuilder);
+        PdfEngineResponse pdfEngineResponse = client.generatePDF(pdfEngineRequest, null);
+
+        Assertions.assertEquals(HttpStatus.SC_OK, pdfEngineResponse.getStatusCode());
+        Assertions.assertNull(pdfEngineResponse.getTempPdfPath());
+        Assertions.assertFalse(pdfEngineResponse.getPdfContent().isSpilled());
+        Assertions.assertArrayEquals(pdf, pdfEngineResponse.getPdfContent().toBinaryData().toBytes());
+    }
+
+    @Test
+    void runOkStreamingSpilledOverToDisk() throws Exception {
+        environmentVariables.set("PDF_STREAMING_MAX_IN_MEMORY_BYTES", "4");
+
+        PdfEngineRequest pdfEngineRequest = new PdfEngineRequest();
+        pdfEngineRequest.setTemplateBundle(TemplateBundle.of("template.zip", "zip content".getBytes(StandardCharsets.UTF_8)));
+        pdfEngineRequest.setData("{}");
+        pdfEngineRequest.setStreamResponse(true);
+
+        byte[] pdf = "pdf content bigger than the threshold".getBytes(StandardCharsets.UTF_8);
+        HttpClientBuilder mockBuilder = mockBuilderReturningPdf(pdf, -1);
+
+        PdfEngineClientImpl client = new PdfEngineClientImpl(mockBuilder);
+        PdfEngineResponse pdfEngineResponse = client.generatePDF(pdfEngineRequest, null);
+
+        Assertions.assertEquals(HttpStatus.SC_OK, pdfEngineResponse.getStatusCode());
+        PdfContent pdfContent = pdfEngineResponse.getPdfContent();
+        Assertions.assertTrue(pdfContent.isSpilled());
+        Assertions.assertEquals(pdf.length, pdfContent.getLength());
+        Assertions.assertArrayEquals(pdf, Files.readAllBytes(pdfContent.getSpillFile()));
+
+        pdfContent.close();
+        Assertions.assertFalse(Files.exists(pdfContent.getSpillFile()));
+    }
+
+    private HttpClientBuilder mockBuilderReturningPdf(byte[] pdf, long contentLength) throws IOException {
+        HttpClientBuilder mockBuilder = mock(HttpClientBuilder.class);
+        CloseableHttpClient mockClient = mock(CloseableHttpClient.class);
+
+        CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+        StatusLine mockStatusLine = mock(StatusLine.class);
+        when(mockStatusLine.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+        when(mockResponse.getStatusLine()).thenReturn(mockStatusLine);
+
+        HttpEntity mockEntity = mock(HttpEntity.class);
+        when(mockEntity.getContent()).thenReturn(new ByteArrayInputStream(pdf));
+        when(mockEntity.getContentLength()).thenReturn(contentLength);
+        when(mockResponse.getEntity()).thenReturn(mockEntity);
+
+        when(mockClient.execute(any())).thenReturn(mockResponse);
+        when(mockBuilder.build()).thenReturn(mockClient);
+        return mockBuilder;
+    }
+
     @Test
     void runKoUnauthorized() throws IOException {
 
@@ -2,6 +2,7 @@ package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
 
 import com.azure.core.http.HttpResponse;
 import com.azure.core.http.rest.Response;
+import com.azure.core.util.BinaryData;
 import com.azure.core.util.Context;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
@@ -76,6 +77,37 @@ class ReceiptBlobClientImplTest {
 
     }
 
+    @Test
+    void runOkWithBinaryData() {
+        BlobServiceClient mockServiceClient = mock(BlobServiceClient.class);
+        BlobContainerClient mockContainer = mock(BlobContainerClient.class);
+        BlobClient mockClient = mock(BlobClient.class);
+
+        Response mockBlockItem = mock(Response.class);
+
+        when(mockBlockItem.getStatusCode()).thenReturn(HttpStatus.CREATED.value());
+
+        when(mockClient.uploadWithResponse(any(), eq(null), eq(null))).thenReturn(
+                mockBlockItem
+        );
+        String validBlobName = "a valid blob name";
+        String validBlobUrl = "a valid blob url";
+        when(mockClient.getBlobName()).thenReturn(validBlobName);
+        when(mockClient.getBlobUrl()).thenReturn(validBlobUrl);
+
+        when(mockContainer.getBlobClient("filename.pdf")).thenReturn(mockClient);
+
+        when(mockServiceClient.getBlobContainerClient(any())).thenReturn(mockContainer);
+
+        ReceiptBlobClientImpl receiptBlobClient = new ReceiptBlobClientImpl(mockServiceClient);
+
+        BlobStorageResponse response = receiptBlobClient.savePdfDataToBlobStorage(BinaryData.fromBytes(new byte[]{1, 2, 3}), "filename");
+
+        assertEquals(HttpStatus.CREATED.value(), response.getStatusCode());
+        assertEquals(validBlobName, response.getDocumentName());
+        assertEquals(validBlobUrl, response.getDocumentUrl());
+    }
+
     @Test
     void runKo() {
         BlobServiceClient mockServiceClient = mock(BlobServiceClient.class);
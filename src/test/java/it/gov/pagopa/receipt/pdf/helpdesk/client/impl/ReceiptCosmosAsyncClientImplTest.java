@@ -0,0 +1,115 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
+
+import com.azure.cosmos.CosmosAsyncClient;
+import com.azure.cosmos.CosmosAsyncContainer;
+import com.azure.cosmos.CosmosAsyncDatabase;
+import com.azure.cosmos.models.FeedResponse;
+import com.azure.cosmos.models.ModelBridgeInternal;
+import com.azure.cosmos.models.SqlQuerySpec;
+import com.azure.cosmos.util.CosmosPagedFlux;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReceiptCosmosAsyncClientImplTest {
+
+    private CosmosAsyncContainer mockContainer;
+
+    private ReceiptCosmosAsyncClientImpl client;
+
+    @BeforeEach
+    void setUp() {
+        CosmosAsyncClient mockClient = mock(CosmosAsyncClient.class);
+        CosmosAsyncDatabase mockDatabase = mock(CosmosAsyncDatabase.class);
+        mockContainer = mock(CosmosAsyncContainer.class);
+        when(mockClient.getDatabase(any())).thenReturn(mockDatabase);
+        when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
+
+        client = new ReceiptCosmosAsyncClientImpl(mockClient);
+    }
+
+    @Test
+    void getFailedReceiptDocumentsAsyncSuccess() {
+        mockQuery(Flux.just(buildPage(), buildPage()));
+
+        List<FeedResponse<Receipt>> pages = client.getFailedReceiptDocumentsAsync(null, 100).collectList().block();
+
+        assertNotNull(pages);
+        assertEquals(2, pages.size());
+    }
+
+    @Test
+    void getInsertedReceiptDocumentsAsyncSuccess() {
+        mockQuery(Flux.just(buildPage()));
+
+        FeedResponse<Receipt> page = client.getInsertedReceiptDocumentsAsync(null, 100).blockFirst();
+
+        assertNotNull(page);
+        assertEquals(1, page.getResults().size());
+    }
+
+    @Test
+    void getGeneratedReceiptDocumentsAsyncSuccess() {
+        mockQuery(Flux.just(buildPage()));
+
+        List<FeedResponse<Receipt>> pages = client.getGeneratedReceiptDocumentsAsync(null, 100).collectList().block();
+
+        assertNotNull(pages);
+        assertEquals(1, pages.size());
+    }
+
+    @Test
+    void getIOErrorToNotifyReceiptDocumentsAsyncEmpty() {
+        mockQuery(Flux.empty());
+
+        List<FeedResponse<Receipt>> pages = client.getIOErrorToNotifyReceiptDocumentsAsync(null, 100).collectList().block();
+
+        assertNotNull(pages);
+        assertEquals(0, pages.size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getFailedReceiptSummariesAsyncSuccess() {
+        CosmosPagedFlux<ReceiptSummary> mockFlux = mock(CosmosPagedFlux.class);
+        when(mockFlux.handle(any(Consumer.class))).thenReturn(mockFlux);
+        when(mockFlux.byPage(nullable(String.class), anyInt())).thenReturn(Flux.just(ModelBridgeInternal.createFeedResponse(
+                Collections.singletonList(new ReceiptSummary()), Collections.emptyMap())));
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(ReceiptSummary.class))).thenReturn(mockFlux);
+
+        List<FeedResponse<ReceiptSummary>> pages = client.getFailedReceiptSummariesAsync(null, 100).collectList().block();
+
+        assertNotNull(pages);
+        assertEquals(1, pages.size());
+        verify(mockContainer, never()).queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class));
+    }
+
+    private static FeedResponse<Receipt> buildPage() {
+        return ModelBridgeInternal.createFeedResponse(Collections.singletonList(new Receipt()), Collections.emptyMap());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockQuery(Flux<FeedResponse<Receipt>> pages) {
+        CosmosPagedFlux<Receipt> mockFlux = mock(CosmosPagedFlux.class);
+        when(mockFlux.handle(any(Consumer.class))).thenReturn(mockFlux);
+        when(mockFlux.byPage(nullable(String.class), anyInt())).thenReturn(pages);
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class))).thenReturn(mockFlux);
+    }
+}
@@ -3,26 +3,42 @@ package it.gov.pagopa.receipt.pdf.helpdesk.client.impl;
 import com.azure.cosmos.CosmosClient;
 import com.azure.cosmos.CosmosContainer;
 import com.azure.cosmos.CosmosDatabase;
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosBulkExecutionOptions;
+import com.azure.cosmos.models.CosmosBulkOperationResponse;
+import com.azure.cosmos.models.CosmosItemOperation;
+import com.azure.cosmos.models.CosmosItemOperationType;
 import com.azure.cosmos.models.CosmosItemRequestOptions;
+import com.azure.cosmos.models.CosmosPatchOperations;
+import com.azure.cosmos.models.CosmosQueryRequestOptions;
 import com.azure.cosmos.models.CosmosItemResponse;
+import com.azure.cosmos.models.FeedRange;
 import com.azure.cosmos.models.PartitionKey;
+import com.azure.cosmos.models.SqlQuerySpec;
 import com.azure.cosmos.util.CosmosPagedIterable;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.IOMessage;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptSummary;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.IoMessageNotFoundException;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.ReceiptNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.org.webcompere.systemstubs.SystemStubs.withEnvironmentVariables;
 
@@ -56,6 +72,7 @@ class ReceiptCosmosClientImplTest {
         CosmosContainer mockContainer = mock(CosmosContainer.class);
 
         CosmosPagedIterable mockIterable = mock(CosmosPagedIterable.class);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
 
         Iterator<Receipt> mockIterator = mock(Iterator.class);
         Receipt receipt = new Receipt();
@@ -66,7 +83,7 @@ class ReceiptCosmosClientImplTest {
 
         when(mockIterable.iterator()).thenReturn(mockIterator);
 
-        when(mockContainer.queryItems(anyString(), any(), eq(Receipt.class))).thenReturn(
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class))).thenReturn(
                 mockIterable
         );
         when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
@@ -83,6 +100,7 @@ class ReceiptCosmosClientImplTest {
         CosmosContainer mockContainer = mock(CosmosContainer.class);
 
         CosmosPagedIterable mockIterable = mock(CosmosPagedIterable.class);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
 
         Iterator<Receipt> mockIterator = mock(Iterator.class);
 
@@ -90,7 +108,7 @@ class ReceiptCosmosClientImplTest {
 
         when(mockIterable.iterator()).thenReturn(mockIterator);
 
-        when(mockContainer.queryItems(anyString(), any(), eq(Receipt.class))).thenReturn(
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class))).thenReturn(
                 mockIterable
         );
         when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
@@ -105,6 +123,7 @@ class ReceiptCosmosClientImplTest {
         CosmosContainer mockContainer = mock(CosmosContainer.class);
 
         CosmosPagedIterable mockIterable = mock(CosmosPagedIterable.class);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
 
         Iterator<Receipt> mockIterator = mock(Iterator.class);
         Receipt receipt = new Receipt();
@@ -115,7 +134,7 @@ class ReceiptCosmosClientImplTest {
 
         when(mockIterable.iterator()).thenReturn(mockIterator);
 
-        when(mockContainer.queryItems(anyString(), any(), eq(Receipt.class))).thenReturn(
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class))).thenReturn(
                 mockIterable
         );
         when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
@@ -130,6 +149,7 @@ class ReceiptCosmosClientImplTest {
         CosmosContainer mockContainer = mock(CosmosContainer.class);
 
         CosmosPagedIterable mockIterable = mock(CosmosPagedIterable.class);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
 
         Iterator<Receipt> mockIterator = mock(Iterator.class);
         Receipt receipt = new Receipt();
@@ -140,7 +160,7 @@ class ReceiptCosmosClientImplTest {
 
         when(mockIterable.iterator()).thenReturn(mockIterator);
 
-        when(mockContainer.queryItems(anyString(), any(), eq(Receipt.class))).thenReturn(
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class))).thenReturn(
                 mockIterable
         );
         when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
@@ -158,7 +178,8 @@ class ReceiptCosmosClientImplTest {
         when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
 
         CosmosPagedIterable mockIterable = mock(CosmosPagedIterable.class);
-        when(mockContainer.queryItems(anyString(), any(), eq(Receipt.class))).thenReturn(mockIterable);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class))).thenReturn(mockIterable);
 
         Iterator<Receipt> mockIterator = mock(Iterator.class);
         when(mockIterable.iterator()).thenReturn(mockIterator);
@@ -180,7 +201,8 @@ class ReceiptCosmosClientImplTest {
         when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
 
         CosmosPagedIterable mockIterable = mock(CosmosPagedIterable.class);
-        when(mockContainer.queryItems(anyString(), any(), eq(Receipt.class))).thenReturn(mockIterable);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class))).thenReturn(mockIterable);
 
         Iterator<Receipt> mockIterator = mock(Iterator.class);
         when(mockIterable.iterator()).thenReturn(mockIterator);
@@ -200,6 +222,7 @@ class ReceiptCosmosClientImplTest {
         CosmosContainer mockContainer = mock(CosmosContainer.class);
 
         CosmosPagedIterable mockIterable = mock(CosmosPagedIterable.class);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
 
         Iterator<IOMessage> mockIterator = mock(Iterator.class);
         IOMessage ioMessage = new IOMessage();
@@ -211,7 +234,7 @@ class ReceiptCosmosClientImplTest {
 
         when(mockIterable.iterator()).thenReturn(mockIterator);
 
-        when(mockContainer.queryItems(anyString(), any(), eq(IOMessage.class))).thenReturn(
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(IOMessage.class))).thenReturn(
                 mockIterable
         );
         when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
@@ -230,6 +253,7 @@ class ReceiptCosmosClientImplTest {
         CosmosContainer mockContainer = mock(CosmosContainer.class);
 
         CosmosPagedIterable mockIterable = mock(CosmosPagedIterable.class);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
 
         Iterator<Receipt> mockIterator = mock(Iterator.class);
 
@@ -237,7 +261,7 @@ class ReceiptCosmosClientImplTest {
 
         when(mockIterable.iterator()).thenReturn(mockIterator);
 
-        when(mockContainer.queryItems(anyString(), any(), eq(IOMessage.class))).thenReturn(
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(IOMessage.class))).thenReturn(
                 mockIterable
         );
         when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
@@ -264,4 +288,181 @@ class ReceiptCosmosClientImplTest {
 
         assertEquals(mockResponse, response);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getReceiptDocumentByIdSuccess() {
+        CosmosDatabase mockDatabase = mock(CosmosDatabase.class);
+        CosmosContainer mockContainer = mock(CosmosContainer.class);
+        CosmosItemResponse<Receipt> mockResponse = mock(CosmosItemResponse.class);
+
+        Receipt receipt = new Receipt();
+        receipt.setId(RECEIPT_ID);
+        when(mockResponse.getItem()).thenReturn(receipt);
+
+        when(mockClient.getDatabase(any())).thenReturn(mockDatabase);
+        when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
+        when(mockContainer.readItem(RECEIPT_ID, new PartitionKey(RECEIPT_ID), Receipt.class)).thenReturn(mockResponse);
+
+        Receipt receiptResponse = assertDoesNotThrow(() -> client.getReceiptDocumentById(RECEIPT_ID));
+
+        assertEquals(RECEIPT_ID, receiptResponse.getId());
+        verify(mockContainer, never()).queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class));
+    }
+
+    @Test
+    void getReceiptDocumentByIdFail() {
+        CosmosDatabase mockDatabase = mock(CosmosDatabase.class);
+        CosmosContainer mockContainer = mock(CosmosContainer.class);
+        CosmosException mockException = mock(CosmosException.class);
+        when(mockException.getStatusCode()).thenReturn(404);
+
+        when(mockClient.getDatabase(any())).thenReturn(mockDatabase);
+        when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
+        when(mockContainer.readItem(any(), any(PartitionKey.class), eq(Receipt.class))).thenThrow(mockException);
+
+        assertThrows(ReceiptNotFoundException.class, () -> client.getReceiptDocumentById("an invalid receipt id"));
+    }
+
+    @Test
+    void getFailedReceiptSummariesSuccess() {
+        CosmosDatabase mockDatabase = mock(CosmosDatabase.class);
+        CosmosContainer mockContainer = mock(CosmosContainer.class);
+
+        CosmosPagedIterable mockIterable = mock(CosmosPagedIterable.class);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
+
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(ReceiptSummary.class))).thenReturn(
+                mockIterable
+        );
+        when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
+        when(mockClient.getDatabase(any())).thenReturn(mockDatabase);
+
+        assertDoesNotThrow(() -> client.getFailedReceiptSummaries(null, 100));
+
+        verify(mockContainer, never()).queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class));
+    }
+
+    @Test
+    void getFailedReceiptSummariesOfFeedRangeSuccess() {
+        CosmosDatabase mockDatabase = mock(CosmosDatabase.class);
+        CosmosContainer mockContainer = mock(CosmosContainer.class);
+
+        CosmosPagedIterable mockIterable = mock(CosmosPagedIterable.class);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
+
+        FeedRange feedRange = mock(FeedRange.class);
+        when(mockContainer.queryItems(any(SqlQuerySpec.class),
+                argThat((CosmosQueryRequestOptions options) -> feedRange.equals(options.getFeedRange())),
+                eq(ReceiptSummary.class))).thenReturn(mockIterable);
+        when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
+        when(mockClient.getDatabase(any())).thenReturn(mockDatabase);
+
+        assertDoesNotThrow(() -> client.getFailedReceiptSummaries(feedRange, null, 100));
+
+        verify(mockContainer, never()).queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class));
+    }
+
+    @Test
+    void getInsertedReceiptSummariesSuccess() {
+        CosmosDatabase mockDatabase = mock(CosmosDatabase.class);
+        CosmosContainer mockContainer = mock(CosmosContainer.class);
+
+        CosmosPagedIterable mockIterable = mock(CosmosPagedIterable.class);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
+
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(ReceiptSummary.class))).thenReturn(
+                mockIterable
+        );
+        when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
+        when(mockClient.getDatabase(any())).thenReturn(mockDatabase);
+
+        assertDoesNotThrow(() -> client.getInsertedReceiptSummaries(null, 100));
+    }
+
+    @Test
+    void getGeneratedReceiptSummariesSuccess() {
+        CosmosDatabase mockDatabase = mock(CosmosDatabase.class);
+        CosmosContainer mockContainer = mock(CosmosContainer.class);
+
+        CosmosPagedIterable mockIterable = mock(CosmosPagedIterable.class);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
+
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(ReceiptSummary.class))).thenReturn(
+                mockIterable
+        );
+        when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
+        when(mockClient.getDatabase(any())).thenReturn(mockDatabase);
+
+        assertDoesNotThrow(() -> client.getGeneratedReceiptSummaries(null, 100));
+
+        verify(mockContainer, never()).queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class));
+    }
+
+    @Test
+    void getIOErrorToNotifyReceiptSummariesSuccess() {
+        CosmosDatabase mockDatabase = mock(CosmosDatabase.class);
+        CosmosContainer mockContainer = mock(CosmosContainer.class);
+
+        CosmosPagedIterable mockIterable = mock(CosmosPagedIterable.class);
+        when(mockIterable.handle(any())).thenReturn(mockIterable);
+
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(ReceiptSummary.class))).thenReturn(
+                mockIterable
+        );
+        when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
+        when(mockClient.getDatabase(any())).thenReturn(mockDatabase);
+
+        assertDoesNotThrow(() -> client.getIOErrorToNotifyReceiptSummaries(null, 100));
+    }
+
+    @Test
+    void patchReceiptsInBulkSuccess() {
+        CosmosDatabase mockDatabase = mock(CosmosDatabase.class);
+        CosmosContainer mockContainer = mock(CosmosContainer.class);
+        CosmosBulkOperationResponse<Object> mockResponse = mock(CosmosBulkOperationResponse.class);
+
+        ReceiptSummary receipt = ReceiptSummary.builder().id(RECEIPT_ID).etag("etag").build();
+
+        when(mockClient.getDatabase(any())).thenReturn(mockDatabase);
+        when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
+        when(mockContainer.executeBulkOperations(anyIterable(), any(CosmosBulkExecutionOptions.class)))
+                .thenReturn(Collections.singletonList(mockResponse));
+
+        Iterable<CosmosBulkOperationResponse<Object>> response = assertDoesNotThrow(() ->
+                client.patchReceiptsInBulk(List.of(receipt), CosmosPatchOperations.create().set("/status", "GENERATED"),
+                        "FROM c WHERE c.status = 'GENERATED'"));
+
+        assertEquals(mockResponse, response.iterator().next());
+        ArgumentCaptor<Iterable<CosmosItemOperation>> operationsCaptor = ArgumentCaptor.forClass(Iterable.class);
+        verify(mockContainer).executeBulkOperations(operationsCaptor.capture(), any(CosmosBulkExecutionOptions.class));
+        CosmosItemOperation operation = operationsCaptor.getValue().iterator().next();
+        assertEquals(RECEIPT_ID, operation.getId());
+        assertEquals(CosmosItemOperationType.PATCH, operation.getOperationType());
+        assertEquals(new PartitionKey(RECEIPT_ID), operation.getPartitionKeyValue());
+    }
+
+    @Test
+    void upsertReceiptsInBulkSuccess() {
+        CosmosDatabase mockDatabase = mock(CosmosDatabase.class);
+        CosmosContainer mockContainer = mock(CosmosContainer.class);
+        CosmosBulkOperationResponse<Object> mockResponse = mock(CosmosBulkOperationResponse.class);
+
+        Receipt receipt = new Receipt();
+        receipt.setId(RECEIPT_ID);
+
+        when(mockClient.getDatabase(any())).thenReturn(mockDatabase);
+        when(mockDatabase.getContainer(any())).thenReturn(mockContainer);
+        when(mockContainer.executeBulkOperations(anyIterable(), any(CosmosBulkExecutionOptions.class)))
+                .thenReturn(Collections.singletonList(mockResponse));
+
+        Iterable<CosmosBulkOperationResponse<Object>> response =
+                assertDoesNotThrow(() -> client.upsertReceiptsInBulk(List.of(receipt)));
+
+        assertEquals(mockResponse, response.iterator().next());
+        ArgumentCaptor<Iterable<CosmosItemOperation>> operationsCaptor = ArgumentCaptor.forClass(Iterable.class);
+        verify(mockContainer).executeBulkOperations(operationsCaptor.capture(), any(CosmosBulkExecutionOptions.class));
+        CosmosItemOperation operation = operationsCaptor.getValue().iterator().next();
+        assertEquals(receipt, operation.getItem());
+        assertEquals(new PartitionKey(RECEIPT_ID), operation.getPartitionKeyValue());
+    }
+}
@@ -0,0 +1,88 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.client.query;
+
+import com.azure.cosmos.CosmosContainer;
+import com.azure.cosmos.models.FeedResponse;
+import com.azure.cosmos.models.SqlParameter;
+import com.azure.cosmos.models.SqlQuerySpec;
+import com.azure.cosmos.util.CosmosPagedIterable;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CosmosQueryTest {
+
+    private static final CosmosQuery<Receipt> QUERY = CosmosQuery.of("getReceiptDocument",
+            "SELECT * FROM c WHERE c.eventId = @eventId", Receipt.class);
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(registry);
+    }
+
+    @Test
+    void toSpecBindsParameters() {
+        SqlQuerySpec spec = QUERY.toSpec(new SqlParameter("@eventId", "an id"));
+
+        assertEquals("SELECT * FROM c WHERE c.eventId = @eventId", spec.getQueryText());
+        assertEquals(1, spec.getParameters().size());
+        assertEquals("@eventId", spec.getParameters().get(0).getName());
+        assertEquals("an id", spec.getParameters().get(0).getValue(String.class));
+    }
+
+    @Test
+    void withNameKeepsQueryText() {
+        CosmosQuery<Receipt> renamed = QUERY.withName("prefetchReceiptDocument");
+
+        assertEquals("prefetchReceiptDocument", renamed.getName());
+        assertEquals(QUERY.getText(), renamed.getText());
+        assertSame(QUERY.getItemType(), renamed.getItemType());
+        assertEquals("getReceiptDocument", QUERY.getName());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void executeRecordsRequestChargeOfEveryPage() {
+        CosmosContainer mockContainer = mock(CosmosContainer.class);
+        CosmosPagedIterable<Receipt> mockIterable = mock(CosmosPagedIterable.class);
+        FeedResponse<Receipt> mockPage = mock(FeedResponse.class);
+        ArgumentCaptor<Consumer<FeedResponse<Receipt>>> handlerCaptor = ArgumentCaptor.forClass(Consumer.class);
+
+        when(mockContainer.getId()).thenReturn("receipt");
+        when(mockContainer.queryItems(any(SqlQuerySpec.class), any(), eq(Receipt.class))).thenReturn(mockIterable);
+        when(mockIterable.handle(handlerCaptor.capture())).thenReturn(mockIterable);
+        when(mockPage.getRequestCharge()).thenReturn(2.5);
+
+        CosmosPagedIterable<Receipt> result = QUERY.execute(mockContainer, new SqlParameter("@eventId", "an id"));
+        handlerCaptor.getValue().accept(mockPage);
+
+        assertSame(mockIterable, result);
+        DistributionSummary summary = registry.find("cosmos.operation.request.charge")
+                .tags("container", "receipt", "operation", "getReceiptDocument", "path", "query")
+                .summary();
+        assertNotNull(summary);
+        assertEquals(2.5, summary.totalAmount());
+    }
+}
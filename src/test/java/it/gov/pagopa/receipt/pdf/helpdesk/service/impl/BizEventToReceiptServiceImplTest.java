@@ -7,6 +7,7 @@ import com.microsoft.azure.functions.HttpStatus;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.BizEventCosmosClient;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.ReceiptCosmosClientImpl;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.ReceiptQueueClientImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartForReceipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.BizEvent;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
@@ -22,8 +23,11 @@ import org.mockito.quality.Strictness;
 import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -62,6 +66,30 @@ class BizEventToReceiptServiceImplTest {
         assertDoesNotThrow(() -> bizEventToReceiptService.getCartBizEvents("1"));
     }
     
+    @Test
+    void run_OK_getCartBizEventsByIds() {
+        CartForReceipt cart = CartForReceipt.builder().id("1").cartPaymentId(Set.of("2", "3")).build();
+        List<BizEvent> bizEvents = List.of(new BizEvent(), new BizEvent());
+        doReturn(bizEvents).when(bizEventCosmosClientMock).getBizEventDocuments("getAllBizEventDocument", cart.getCartPaymentId());
+
+        assertEquals(bizEvents, bizEventToReceiptService.getCartBizEvents(cart));
+        verify(bizEventCosmosClientMock, never()).getAllBizEventDocument(any(), any(), any());
+    }
+
+    @Test
+    void run_OK_getCartBizEventsByIdsFallbackToCartId() {
+        CartForReceipt cart = CartForReceipt.builder().id("1").cartPaymentId(Set.of("2", "3")).build();
+        doReturn(Collections.singletonList(new BizEvent())).when(bizEventCosmosClientMock)
+                .getBizEventDocuments("getAllBizEventDocument", cart.getCartPaymentId());
+        FeedResponse feedResponseMock = mock(FeedResponse.class);
+        when(feedResponseMock.getResults()).thenReturn(List.of(new BizEvent(), new BizEvent()));
+        doReturn(Collections.singletonList(feedResponseMock)).when(bizEventCosmosClientMock)
+                .getAllBizEventDocument(Mockito.eq("1"), any(), any());
+
+        assertEquals(2, bizEventToReceiptService.getCartBizEvents(cart).size());
+        verify(bizEventCosmosClientMock).getAllBizEventDocument(Mockito.eq("1"), any(), any());
+    }
+    
     @SuppressWarnings("unchecked")
 	@Test
     void run_OK_handleSaveRecipt() {
@@ -14,6 +14,7 @@ import it.gov.pagopa.receipt.pdf.helpdesk.exception.TemplateDataMappingException
 import it.gov.pagopa.receipt.pdf.helpdesk.model.PdfGeneration;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.PdfMetadata;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.response.BlobStorageResponse;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.response.PdfContent;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.response.PdfEngineResponse;
 import it.gov.pagopa.receipt.pdf.helpdesk.model.template.ReceiptPDFTemplate;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.BuildTemplateService;
@@ -23,6 +24,10 @@ import org.apache.http.HttpStatus;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
 
 import java.io.File;
 import java.io.IOException;
@@ -35,6 +40,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.*;
 
+@ExtendWith(SystemStubsExtension.class)
 class GenerateReceiptPdfServiceImplTest {
 
     private static final String VALID_CF_DEBTOR = "JHNDOE00A01F205N";
@@ -53,6 +59,9 @@ class GenerateReceiptPdfServiceImplTest {
     private static File outputPdfPayer;
     private static File tempDirectoryPayer;
 
+    @SystemStub
+    private EnvironmentVariables environmentVariables;
+
     private PdfEngineClient pdfEngineClientMock;
     private ReceiptBlobClient receiptBlobClientMock;
     private BuildTemplateService buildTemplateServiceMock;
@@ -114,6 +123,33 @@ class GenerateReceiptPdfServiceImplTest {
         verify(receiptBlobClientMock).savePdfToBlobStorage(any(), anyString());
     }
 
+    @Test
+    void generateReceiptsPayerNullStreamingWithSuccess() throws Exception {
+        Receipt receiptOnly = getReceiptWithOnlyDebtor(true);
+        BizEvent bizEventOnly = getBizEventWithOnlyDebtor();
+
+        PdfEngineResponse pdfEngineResponse = new PdfEngineResponse();
+        pdfEngineResponse.setStatusCode(SC_OK);
+        pdfEngineResponse.setPdfContent(PdfContent.inMemory(new byte[]{1, 2, 3}));
+        doReturn(pdfEngineResponse)
+                .when(pdfEngineClientMock).generatePDF(any(), any());
+        doReturn(getBlobStorageResponse(com.microsoft.azure.functions.HttpStatus.CREATED.value()))
+                .when(receiptBlobClientMock).savePdfDataToBlobStorage(any(), anyString());
+        doReturn(new ReceiptPDFTemplate())
+                .when(buildTemplateServiceMock).buildTemplate(any(), anyBoolean(), any());
+
+        PdfGeneration pdfGeneration = sut.generateReceipts(receiptOnly, Collections.singletonList(bizEventOnly), null);
+
+        assertNotNull(pdfGeneration);
+        assertTrue(pdfGeneration.isGenerateOnlyDebtor());
+        assertNotNull(pdfGeneration.getDebtorMetadata());
+        assertNull(pdfGeneration.getDebtorMetadata().getErrorMessage());
+        assertEquals(SC_OK, pdfGeneration.getDebtorMetadata().getStatusCode());
+
+        verify(receiptBlobClientMock).savePdfDataToBlobStorage(any(), anyString());
+        verify(receiptBlobClientMock, never()).savePdfToBlobStorage(any(), anyString());
+    }
+
     @Test
     void generateReceiptsSameDebtorPayerWithSuccess() throws Exception {
         Receipt receiptOnly = getReceiptWithDebtorPayer(VALID_CF_DEBTOR, true, true);
@@ -177,6 +213,34 @@ class GenerateReceiptPdfServiceImplTest {
         verify(receiptBlobClientMock, times(2)).savePdfToBlobStorage(any(), anyString());
     }
 
+    @Test
+    void generateReceiptsDifferentDebtorPayerTimeout() throws Exception {
+        environmentVariables.set("PDF_GENERATION_TIMEOUT_MILLIS", "100");
+        GenerateReceiptPdfService sutWithTimeout =
+                new GenerateReceiptPdfServiceImpl(pdfEngineClientMock, receiptBlobClientMock, buildTemplateServiceMock);
+
+        Receipt receiptOnly = getReceiptWithDebtorPayer(VALID_CF_PAYER, true, true);
+        BizEvent bizEventOnly = getBizEventWithDebtorPayer(VALID_CF_PAYER);
+
+        doAnswer(invocation -> {
+            Thread.sleep(5000);
+            return getPdfEngineResponse(SC_OK, outputPdfDebtor.getPath());
+        }).when(pdfEngineClientMock).generatePDF(any(), any());
+        doReturn(new ReceiptPDFTemplate())
+                .when(buildTemplateServiceMock).buildTemplate(any(), anyBoolean(), any());
+
+        PdfGeneration pdfGeneration = sutWithTimeout.generateReceipts(receiptOnly, Collections.singletonList(bizEventOnly), Path.of("/tmp"));
+
+        assertNotNull(pdfGeneration);
+        assertFalse(pdfGeneration.isGenerateOnlyDebtor());
+        assertNotNull(pdfGeneration.getDebtorMetadata().getErrorMessage());
+        assertEquals(ReasonErrorCode.ERROR_PDF_ENGINE.getCode(), pdfGeneration.getDebtorMetadata().getStatusCode());
+        assertNotNull(pdfGeneration.getPayerMetadata().getErrorMessage());
+        assertEquals(ReasonErrorCode.ERROR_PDF_ENGINE.getCode(), pdfGeneration.getPayerMetadata().getStatusCode());
+
+        verify(receiptBlobClientMock, never()).savePdfToBlobStorage(any(), anyString());
+    }
+
     @Test
     void generateReceiptsPayerNullFailPDFEngineCallReturn500() throws Exception {
         Receipt receiptOnly = getReceiptWithOnlyDebtor(true);
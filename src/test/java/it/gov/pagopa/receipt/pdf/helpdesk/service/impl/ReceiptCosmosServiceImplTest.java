@@ -1,26 +1,45 @@
 package it.gov.pagopa.receipt.pdf.helpdesk.service.impl;
 
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosBulkItemResponse;
+import com.azure.cosmos.models.CosmosBulkOperationResponse;
+import com.azure.cosmos.models.CosmosItemOperation;
+import com.azure.cosmos.models.CosmosPatchOperations;
+import com.azure.cosmos.models.FeedRange;
 import com.azure.cosmos.models.FeedResponse;
+import com.azure.cosmos.models.ModelBridgeInternal;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.CartReceiptsCosmosClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.ReceiptCosmosAsyncClient;
 import it.gov.pagopa.receipt.pdf.helpdesk.client.ReceiptCosmosClient;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.cart.CartForReceipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.IOMessage;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.ReceiptSummary;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryCheckpoint;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.CartNotFoundException;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.IoMessageNotFoundException;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.ReceiptNotFoundException;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.RecoveryLeaseLostException;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.ReceiptBulkWriteResult;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
 
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -65,6 +84,162 @@ class ReceiptCosmosServiceImplTest {
         assertThrows(ReceiptNotFoundException.class, () -> sut.getReceipt(anyString()));
     }
 
+    @Test
+    void getReceiptByIdSuccess() throws ReceiptNotFoundException {
+        when(receiptCosmosClientMock.getReceiptDocumentById(anyString())).thenReturn(new Receipt());
+
+        Receipt receipt = assertDoesNotThrow(() -> sut.getReceiptById("receiptId"));
+
+        assertNotNull(receipt);
+    }
+
+    @Test
+    void getReceiptByIdFailClientThrowsReceiptNotFound() throws ReceiptNotFoundException {
+        when(receiptCosmosClientMock.getReceiptDocumentById(anyString())).thenThrow(ReceiptNotFoundException.class);
+
+        assertThrows(ReceiptNotFoundException.class, () -> sut.getReceiptById("receiptId"));
+    }
+
+    @Test
+    void getFailedReceiptSummaryByStatusSuccessWithStatusFailed() {
+        FeedResponse feedResponseMock = mock(FeedResponse.class);
+        when(receiptCosmosClientMock.getFailedReceiptSummaries(anyString(), anyInt()))
+                .thenReturn(Collections.singletonList(feedResponseMock));
+
+        assertDoesNotThrow(() -> sut.getFailedReceiptSummaryByStatus("continuation", 100, ReceiptStatusType.FAILED));
+
+        verify(receiptCosmosClientMock, never()).getFailedReceiptDocuments(any(), any());
+    }
+
+    @Test
+    void getFailedReceiptSummaryByStatusSuccessWithStatusInserted() {
+        FeedResponse feedResponseMock = mock(FeedResponse.class);
+        when(receiptCosmosClientMock.getInsertedReceiptSummaries(anyString(), anyInt()))
+                .thenReturn(Collections.singletonList(feedResponseMock));
+
+        assertDoesNotThrow(() -> sut.getFailedReceiptSummaryByStatus("continuation", 100, ReceiptStatusType.INSERTED));
+    }
+
+    @Test
+    void getFailedReceiptSummaryByStatusFailUnexpectedStatus() {
+        assertThrows(IllegalStateException.class,
+                () -> sut.getFailedReceiptSummaryByStatus("continuation", 100, ReceiptStatusType.GENERATED));
+    }
+
+    @Test
+    void saveReceiptsInBulkReportsFailedReceipts() {
+        CosmosBulkOperationResponse<Object> successResponse = mock(CosmosBulkOperationResponse.class);
+        CosmosBulkItemResponse successItemResponse = mock(CosmosBulkItemResponse.class);
+        when(successItemResponse.isSuccessStatusCode()).thenReturn(true);
+        when(successResponse.getResponse()).thenReturn(successItemResponse);
+
+        CosmosBulkOperationResponse<Object> failedResponse = mock(CosmosBulkOperationResponse.class);
+        CosmosItemOperation failedOperation = mock(CosmosItemOperation.class);
+        when(failedOperation.getId()).thenReturn("failedId");
+        when(failedResponse.getOperation()).thenReturn(failedOperation);
+
+        when(receiptCosmosClientMock.upsertReceiptsInBulk(any())).thenReturn(List.of(successResponse, failedResponse));
+
+        ReceiptBulkWriteResult result = sut.saveReceiptsInBulk(List.of(new Receipt(), new Receipt()));
+
+        assertEquals(1, result.getSavedCounter());
+        assertEquals(List.of("failedId"), result.getFailedIds());
+    }
+
+    @Test
+    void patchReceiptsInBulkSkipsChangedReceipts() {
+        CosmosBulkOperationResponse<Object> successResponse = mock(CosmosBulkOperationResponse.class);
+        CosmosBulkItemResponse successItemResponse = mock(CosmosBulkItemResponse.class);
+        when(successItemResponse.isSuccessStatusCode()).thenReturn(true);
+        when(successResponse.getResponse()).thenReturn(successItemResponse);
+
+        CosmosBulkOperationResponse<Object> changedResponse = mock(CosmosBulkOperationResponse.class);
+        CosmosBulkItemResponse changedItemResponse = mock(CosmosBulkItemResponse.class);
+        when(changedItemResponse.getStatusCode()).thenReturn(412);
+        when(changedResponse.getResponse()).thenReturn(changedItemResponse);
+
+        CosmosBulkOperationResponse<Object> failedResponse = mock(CosmosBulkOperationResponse.class);
+        CosmosBulkItemResponse failedItemResponse = mock(CosmosBulkItemResponse.class);
+        when(failedItemResponse.getStatusCode()).thenReturn(429);
+        when(failedResponse.getResponse()).thenReturn(failedItemResponse);
+        CosmosItemOperation failedOperation = mock(CosmosItemOperation.class);
+        when(failedOperation.getId()).thenReturn("failedId");
+        when(failedResponse.getOperation()).thenReturn(failedOperation);
+
+        when(receiptCosmosClientMock.patchReceiptsInBulk(any(), any(), any()))
+                .thenReturn(List.of(successResponse, changedResponse, failedResponse));
+
+        ReceiptBulkWriteResult result = sut.patchReceiptsInBulk(
+                List.of(new ReceiptSummary(), new ReceiptSummary(), new ReceiptSummary()),
+                CosmosPatchOperations.create(), "FROM c");
+
+        assertEquals(1, result.getSavedCounter());
+        assertEquals(List.of("failedId"), result.getFailedIds());
+    }
+
+    @Test
+    void getNotNotifiedReceiptSummaryByStatusSuccessWithStatusGenerated() {
+        FeedResponse feedResponseMock = mock(FeedResponse.class);
+        when(receiptCosmosClientMock.getGeneratedReceiptSummaries(anyString(), anyInt()))
+                .thenReturn(Collections.singletonList(feedResponseMock));
+
+        assertDoesNotThrow(() -> sut.getNotNotifiedReceiptSummaryByStatus("continuation", 100, ReceiptStatusType.GENERATED));
+
+        verify(receiptCosmosClientMock, never()).getGeneratedReceiptDocuments(any(), any());
+    }
+
+    @Test
+    void getNotNotifiedReceiptSummaryByStatusSuccessWithStatusIOErrorToNotify() {
+        FeedResponse feedResponseMock = mock(FeedResponse.class);
+        when(receiptCosmosClientMock.getIOErrorToNotifyReceiptSummaries(anyString(), anyInt()))
+                .thenReturn(Collections.singletonList(feedResponseMock));
+
+        assertDoesNotThrow(() -> sut.getNotNotifiedReceiptSummaryByStatus("continuation", 100, ReceiptStatusType.IO_ERROR_TO_NOTIFY));
+    }
+
+    @Test
+    void getNotNotifiedReceiptSummaryByStatusFailUnexpectedStatus() {
+        assertThrows(IllegalStateException.class,
+                () -> sut.getNotNotifiedReceiptSummaryByStatus("continuation", 100, ReceiptStatusType.FAILED));
+    }
+
+    @Test
+    void getFailedReceiptByStatusInFeedRange() {
+        FeedRange feedRange = mock(FeedRange.class);
+        FeedResponse feedResponseMock = mock(FeedResponse.class);
+        when(receiptCosmosClientMock.getFailedReceiptDocuments(feedRange, null, 100))
+                .thenReturn(Collections.singletonList(feedResponseMock));
+
+        Iterable<FeedResponse<Receipt>> response =
+                assertDoesNotThrow(() -> sut.getFailedReceiptByStatus(feedRange, null, 100, ReceiptStatusType.NOT_QUEUE_SENT));
+
+        assertEquals(feedResponseMock, response.iterator().next());
+        verify(receiptCosmosClientMock, never()).getFailedReceiptDocuments(any(), any());
+    }
+
+    @Test
+    void getNotNotifiedReceiptByStatusInFeedRange() {
+        FeedRange feedRange = mock(FeedRange.class);
+        FeedResponse feedResponseMock = mock(FeedResponse.class);
+        when(receiptCosmosClientMock.getGeneratedReceiptDocuments(feedRange, null, 100))
+                .thenReturn(Collections.singletonList(feedResponseMock));
+
+        Iterable<FeedResponse<Receipt>> response =
+                assertDoesNotThrow(() -> sut.getNotNotifiedReceiptByStatus(feedRange, null, 100, ReceiptStatusType.GENERATED));
+
+        assertEquals(feedResponseMock, response.iterator().next());
+        assertThrows(IllegalStateException.class,
+                () -> sut.getNotNotifiedReceiptByStatus(feedRange, null, 100, ReceiptStatusType.FAILED));
+    }
+
+    @Test
+    void saveReceiptsInBulkEmptyList() {
+        ReceiptBulkWriteResult result = sut.saveReceiptsInBulk(Collections.emptyList());
+
+        assertEquals(0, result.getSavedCounter());
+        verify(receiptCosmosClientMock, never()).upsertReceiptsInBulk(any());
+    }
+
     @Test
     void getNotNotifiedReceiptByStatusSuccessWithStatusGenerated() {
         FeedResponse feedResponseMock = mock(FeedResponse.class);
@@ -227,4 +402,146 @@ class ReceiptCosmosServiceImplTest {
 
         assertThrows(CartNotFoundException.class, () -> sut.getCart(anyString()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void streamFailedReceiptByStatusWithoutAsyncClient() {
+        FeedResponse<Receipt> page = ModelBridgeInternal.createFeedResponse(
+                Collections.singletonList(new Receipt()), Collections.emptyMap());
+        when(receiptCosmosClientMock.getFailedReceiptDocuments(isNull(), anyInt()))
+                .thenReturn(Collections.singletonList(page));
+
+        List<FeedResponse<Receipt>> pages = sut.streamFailedReceiptByStatus(100, ReceiptStatusType.FAILED)
+                .collectList()
+                .block();
+
+        assertNotNull(pages);
+        assertEquals(1, pages.size());
+    }
+
+    @Test
+    void streamFailedReceiptByStatusWithAsyncClient() {
+        ReceiptCosmosAsyncClient receiptCosmosAsyncClientMock = mock(ReceiptCosmosAsyncClient.class);
+        sut = new ReceiptCosmosServiceImpl(receiptCosmosClientMock, cartReceiptsCosmosClientMock, receiptCosmosAsyncClientMock);
+        FeedResponse<Receipt> page = ModelBridgeInternal.createFeedResponse(
+                Collections.singletonList(new Receipt()), Collections.emptyMap());
+        when(receiptCosmosAsyncClientMock.getInsertedReceiptDocumentsAsync(isNull(), anyInt()))
+                .thenReturn(Flux.just(page, page));
+
+        List<FeedResponse<Receipt>> pages = sut.streamFailedReceiptByStatus(100, ReceiptStatusType.INSERTED)
+                .collectList()
+                .block();
+
+        assertNotNull(pages);
+        assertEquals(2, pages.size());
+        verify(receiptCosmosClientMock, never()).getInsertedReceiptDocuments(any(), anyInt());
+    }
+
+    @Test
+    void streamFailedReceiptSummaryByStatusWithAsyncClient() {
+        ReceiptCosmosAsyncClient receiptCosmosAsyncClientMock = mock(ReceiptCosmosAsyncClient.class);
+        sut = new ReceiptCosmosServiceImpl(receiptCosmosClientMock, cartReceiptsCosmosClientMock, receiptCosmosAsyncClientMock);
+        FeedResponse<ReceiptSummary> page = ModelBridgeInternal.createFeedResponse(
+                Collections.singletonList(new ReceiptSummary()), Collections.emptyMap());
+        when(receiptCosmosAsyncClientMock.getFailedReceiptSummariesAsync(isNull(), anyInt()))
+                .thenReturn(Flux.just(page));
+
+        List<FeedResponse<ReceiptSummary>> pages = sut.streamFailedReceiptSummaryByStatus(100, ReceiptStatusType.NOT_QUEUE_SENT)
+                .collectList()
+                .block();
+
+        assertNotNull(pages);
+        assertEquals(1, pages.size());
+        verify(receiptCosmosAsyncClientMock, never()).getFailedReceiptDocumentsAsync(any(), anyInt());
+    }
+
+    @Test
+    void getFailedReceiptSummaryByStatusOfFeedRange() {
+        FeedRange feedRange = mock(FeedRange.class);
+        FeedResponse<ReceiptSummary> page = ModelBridgeInternal.createFeedResponse(
+                Collections.singletonList(new ReceiptSummary()), Collections.emptyMap());
+        when(receiptCosmosClientMock.getInsertedReceiptSummaries(eq(feedRange), isNull(), anyInt()))
+                .thenReturn(Collections.singletonList(page));
+
+        Iterable<FeedResponse<ReceiptSummary>> pages =
+                sut.getFailedReceiptSummaryByStatus(feedRange, null, 100, ReceiptStatusType.INSERTED);
+
+        assertEquals(Collections.singletonList(page), pages);
+    }
+
+    @Test
+    void streamNotNotifiedReceiptByStatusWithAsyncClientInvalidStatus() {
+        ReceiptCosmosAsyncClient receiptCosmosAsyncClientMock = mock(ReceiptCosmosAsyncClient.class);
+        sut = new ReceiptCosmosServiceImpl(receiptCosmosClientMock, cartReceiptsCosmosClientMock, receiptCosmosAsyncClientMock);
+
+        Flux<FeedResponse<Receipt>> pages = sut.streamNotNotifiedReceiptByStatus(100, ReceiptStatusType.FAILED);
+
+        assertThrows(IllegalStateException.class, pages::blockLast);
+    }
+
+    @Test
+    void saveRecoveryCheckpointWithoutFencingTokenUpserts() {
+        RecoveryCheckpoint checkpoint = RecoveryCheckpoint.builder().id("jobId").build();
+
+        sut.saveRecoveryCheckpoint(checkpoint);
+
+        verify(receiptCosmosClientMock).upsertRecoveryCheckpoint(checkpoint);
+        verify(receiptCosmosClientMock, never()).patchRecoveryCheckpoint(any(), any(), any());
+    }
+
+    @Test
+    void saveRecoveryCheckpointWithFencingTokenPatchesOnlyOlderCheckpoints() {
+        RecoveryCheckpoint checkpoint = RecoveryCheckpoint.builder().id("jobId").fencingToken(4).build();
+
+        sut.saveRecoveryCheckpoint(checkpoint);
+
+        verify(receiptCosmosClientMock).patchRecoveryCheckpoint(eq("jobId"), any(),
+                argThat(filterPredicate -> filterPredicate.endsWith("c.fencingToken <= 4")));
+        verify(receiptCosmosClientMock, never()).upsertRecoveryCheckpoint(any());
+        verify(receiptCosmosClientMock, never()).createRecoveryCheckpoint(any());
+    }
+
+    @Test
+    void saveRecoveryCheckpointWithFencingTokenCreatesTheMissingCheckpoint() {
+        RecoveryCheckpoint checkpoint = RecoveryCheckpoint.builder().id("jobId").fencingToken(4).build();
+        CosmosException notFound = mock(CosmosException.class);
+        when(notFound.getStatusCode()).thenReturn(404);
+        when(receiptCosmosClientMock.patchRecoveryCheckpoint(eq("jobId"), any(), any())).thenThrow(notFound);
+
+        sut.saveRecoveryCheckpoint(checkpoint);
+
+        verify(receiptCosmosClientMock).createRecoveryCheckpoint(checkpoint);
+    }
+
+    @Test
+    void saveRecoveryCheckpointWithFencingTokenRejectedAfterTakeover() {
+        RecoveryCheckpoint checkpoint = RecoveryCheckpoint.builder().id("jobId").fencingToken(4).build();
+        CosmosException preconditionFailed = mock(CosmosException.class);
+        when(preconditionFailed.getStatusCode()).thenReturn(412);
+        when(receiptCosmosClientMock.patchRecoveryCheckpoint(eq("jobId"), any(), any())).thenThrow(preconditionFailed);
+
+        assertThrows(RecoveryLeaseLostException.class, () -> sut.saveRecoveryCheckpoint(checkpoint));
+
+        verify(receiptCosmosClientMock, never()).createRecoveryCheckpoint(any());
+    }
+
+    @Test
+    void deleteRecoveryCheckpointWithFencingTokenDeletesTheReadVersion() {
+        RecoveryCheckpoint stored = RecoveryCheckpoint.builder().id("jobId").fencingToken(4).etag("etag").build();
+        when(receiptCosmosClientMock.getRecoveryCheckpoint("jobId")).thenReturn(stored);
+
+        sut.deleteRecoveryCheckpoint("jobId", 4);
+
+        verify(receiptCosmosClientMock).deleteRecoveryCheckpoint(stored);
+        verify(receiptCosmosClientMock, never()).deleteRecoveryCheckpoint(anyString());
+    }
+
+    @Test
+    void deleteRecoveryCheckpointWithFencingTokenRejectedAfterTakeover() {
+        RecoveryCheckpoint stored = RecoveryCheckpoint.builder().id("jobId").fencingToken(5).etag("etag").build();
+        when(receiptCosmosClientMock.getRecoveryCheckpoint("jobId")).thenReturn(stored);
+
+        assertThrows(RecoveryLeaseLostException.class, () -> sut.deleteRecoveryCheckpoint("jobId", 4));
+
+        verify(receiptCosmosClientMock, never()).deleteRecoveryCheckpoint(any(RecoveryCheckpoint.class));
+    }
+}
@@ -0,0 +1,115 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.service.impl;
+
+import com.azure.core.http.rest.Response;
+import com.azure.cosmos.models.CosmosPatchOperations;
+import com.azure.storage.queue.models.SendMessageResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.RecoveryJobQueueClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryJob;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.RecoveryJobState;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.UnableToQueueException;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.RecoveryJobService;
+import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecoveryJobServiceImplTest {
+
+    private static final String JOB_ID = "jobId";
+
+    private ReceiptCosmosService receiptCosmosServiceMock;
+    private RecoveryJobQueueClient recoveryJobQueueClientMock;
+
+    private RecoveryJobService sut;
+
+    @BeforeEach
+    void setUp() {
+        receiptCosmosServiceMock = mock(ReceiptCosmosService.class);
+        recoveryJobQueueClientMock = mock(RecoveryJobQueueClient.class);
+        sut = new RecoveryJobServiceImpl(receiptCosmosServiceMock, recoveryJobQueueClientMock);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submitJobSuccess() throws UnableToQueueException {
+        Response<SendMessageResult> response = mock(Response.class);
+        when(response.getStatusCode()).thenReturn(HttpStatus.SC_CREATED);
+        when(recoveryJobQueueClientMock.sendMessageToQueue(anyString())).thenReturn(response);
+
+        RecoveryJob job = sut.submitJob("RecoverFailedReceiptMassive", "FAILED");
+
+        assertNotNull(job.getId());
+        assertEquals(RecoveryJobState.QUEUED, job.getState());
+        assertEquals("RecoverFailedReceiptMassive", job.getType());
+        assertEquals("FAILED", job.getStatus());
+        verify(receiptCosmosServiceMock).createRecoveryJob(job);
+        verify(recoveryJobQueueClientMock).sendMessageToQueue(job.getId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submitJobQueueFailure() {
+        Response<SendMessageResult> response = mock(Response.class);
+        when(response.getStatusCode()).thenReturn(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+        when(recoveryJobQueueClientMock.sendMessageToQueue(anyString())).thenReturn(response);
+        ArgumentCaptor<RecoveryJob> jobCaptor = ArgumentCaptor.forClass(RecoveryJob.class);
+
+        assertThrows(UnableToQueueException.class, () -> sut.submitJob("RecoverFailedReceiptMassive", "FAILED"));
+
+        verify(receiptCosmosServiceMock).createRecoveryJob(jobCaptor.capture());
+        verify(receiptCosmosServiceMock).patchRecoveryJob(eq(jobCaptor.getValue().getId()), any(CosmosPatchOperations.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void requeueJobSuccess() throws UnableToQueueException {
+        Response<SendMessageResult> response = mock(Response.class);
+        when(response.getStatusCode()).thenReturn(HttpStatus.SC_CREATED);
+        when(recoveryJobQueueClientMock.sendMessageToQueue(JOB_ID)).thenReturn(response);
+
+        sut.requeueJob(RecoveryJob.builder().id(JOB_ID).state(RecoveryJobState.RUNNING).build(), 1, 0);
+
+        verify(receiptCosmosServiceMock).patchRecoveryJob(eq(JOB_ID), any(CosmosPatchOperations.class));
+        verify(recoveryJobQueueClientMock).sendMessageToQueue(JOB_ID);
+    }
+
+    @Test
+    void requeueJobQueueFailure() {
+        when(recoveryJobQueueClientMock.sendMessageToQueue(JOB_ID)).thenThrow(RuntimeException.class);
+        RecoveryJob job = RecoveryJob.builder().id(JOB_ID).state(RecoveryJobState.RUNNING).build();
+
+        assertThrows(UnableToQueueException.class, () -> sut.requeueJob(job, 1, 0));
+    }
+
+    @Test
+    void cancelRunningJob() {
+        RecoveryJob cancelled = RecoveryJob.builder().id(JOB_ID).state(RecoveryJobState.RUNNING).cancelRequested(true).build();
+        when(receiptCosmosServiceMock.getRecoveryJob(JOB_ID))
+                .thenReturn(RecoveryJob.builder().id(JOB_ID).state(RecoveryJobState.RUNNING).build());
+        when(receiptCosmosServiceMock.patchRecoveryJob(eq(JOB_ID), any(CosmosPatchOperations.class))).thenReturn(cancelled);
+
+        assertSame(cancelled, sut.cancelJob(JOB_ID));
+    }
+
+    @Test
+    void cancelEndedJobIsNotPatched() {
+        RecoveryJob completed = RecoveryJob.builder().id(JOB_ID).state(RecoveryJobState.COMPLETED).build();
+        when(receiptCosmosServiceMock.getRecoveryJob(JOB_ID)).thenReturn(completed);
+
+        assertSame(completed, sut.cancelJob(JOB_ID));
+        verify(receiptCosmosServiceMock, never()).patchRecoveryJob(anyString(), any());
+    }
+}
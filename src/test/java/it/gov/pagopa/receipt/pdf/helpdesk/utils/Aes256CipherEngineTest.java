@@ -0,0 +1,153 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.Aes256Exception;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Aes256CipherEngineTest {
+
+    private static final String PAYLOAD = "{\"data\":\"test\"}";
+
+    private static final Aes256CipherEngine.KeyVersion CURRENT_KEY =
+            new Aes256CipherEngine.KeyVersion("current", "key", "salt");
+    private static final Aes256CipherEngine.KeyVersion PREVIOUS_KEY =
+            new Aes256CipherEngine.KeyVersion("v1", "previous-key", "previous-salt");
+
+    @Test
+    void encryptAndDecryptSuccess() throws Aes256Exception {
+        Aes256CipherEngine sut = new Aes256CipherEngine(List.of(CURRENT_KEY));
+
+        String encrypted = sut.encrypt(PAYLOAD);
+
+        assertNotEquals(PAYLOAD, encrypted);
+        assertEquals(PAYLOAD, sut.decrypt(encrypted));
+        assertEquals(PAYLOAD, sut.decrypt(encrypted));
+    }
+
+    @Test
+    void decryptWithPreviousKeyVersionSuccess() throws Aes256Exception {
+        String encryptedWithPrevious = new Aes256CipherEngine(List.of(PREVIOUS_KEY)).encrypt(PAYLOAD);
+
+        Aes256CipherEngine sut = new Aes256CipherEngine(List.of(CURRENT_KEY, PREVIOUS_KEY));
+
+        assertEquals("current", sut.getPrimaryVersion());
+        assertEquals(PAYLOAD, sut.decrypt(encryptedWithPrevious));
+    }
+
+    @Test
+    void decryptWithUnknownKeyVersionFail() throws Aes256Exception {
+        String encryptedWithPrevious = new Aes256CipherEngine(List.of(PREVIOUS_KEY)).encrypt(PAYLOAD);
+
+        Aes256CipherEngine sut = new Aes256CipherEngine(List.of(CURRENT_KEY));
+
+        assertThrows(Aes256Exception.class, () -> sut.decrypt(encryptedWithPrevious));
+    }
+
+    @Test
+    void encryptPrefixesKeyVersion() throws Aes256Exception {
+        String encrypted = new Aes256CipherEngine(List.of(CURRENT_KEY)).encrypt(PAYLOAD);
+
+        assertTrue(encrypted.startsWith("current:"));
+    }
+
+    @Test
+    void decryptWithPrefixedKeyVersionSuccess() throws Aes256Exception {
+        String encryptedWithPrevious = new Aes256CipherEngine(List.of(PREVIOUS_KEY)).encrypt(PAYLOAD);
+
+        Aes256CipherEngine sut = new Aes256CipherEngine(List.of(CURRENT_KEY, PREVIOUS_KEY));
+
+        assertTrue(encryptedWithPrevious.startsWith("v1:"));
+        assertEquals(PAYLOAD, sut.decrypt(encryptedWithPrevious));
+    }
+
+    @Test
+    void decryptLegacyWithoutPrefixSuccess() throws Aes256Exception {
+        String legacy = new Aes256CipherEngine(List.of(new Aes256CipherEngine.KeyVersion(null, "previous-key", "previous-salt")))
+                .encrypt(PAYLOAD);
+
+        Aes256CipherEngine sut = new Aes256CipherEngine(List.of(CURRENT_KEY, PREVIOUS_KEY), "v1");
+
+        assertFalse(legacy.contains(":"));
+        assertEquals(PAYLOAD, sut.decrypt(legacy));
+    }
+
+    @Test
+    void decryptLegacyWithPrimaryKeyByDefaultSuccess() throws Aes256Exception {
+        Aes256CipherEngine.KeyVersion unversionedKey = new Aes256CipherEngine.KeyVersion("", "key", "salt");
+        String legacy = new Aes256CipherEngine(List.of(unversionedKey)).encrypt(PAYLOAD);
+
+        Aes256CipherEngine sut = new Aes256CipherEngine(List.of(unversionedKey, PREVIOUS_KEY));
+
+        assertEquals(PAYLOAD, sut.decrypt(legacy));
+    }
+
+    @Test
+    void decryptLegacyDoesNotTryTheOtherKeysFail() throws Aes256Exception {
+        String legacy = new Aes256CipherEngine(List.of(new Aes256CipherEngine.KeyVersion(null, "previous-key", "previous-salt")))
+                .encrypt(PAYLOAD);
+
+        Aes256CipherEngine sut = new Aes256CipherEngine(List.of(CURRENT_KEY, PREVIOUS_KEY));
+
+        assertNotEquals(PAYLOAD, decryptOrNull(sut, legacy));
+    }
+
+    @Test
+    void createWithUnknownLegacyVersionFail() {
+        List<Aes256CipherEngine.KeyVersion> keyVersions = List.of(CURRENT_KEY, PREVIOUS_KEY);
+        assertThrows(Aes256Exception.class, () -> new Aes256CipherEngine(keyVersions, "v0"));
+    }
+
+    @Test
+    void decryptLegacyWithUnknownKeyFail() throws Aes256Exception {
+        String legacy = new Aes256CipherEngine(List.of(new Aes256CipherEngine.KeyVersion("", "other-key", "other-salt")))
+                .encrypt(PAYLOAD);
+
+        Aes256CipherEngine sut = new Aes256CipherEngine(List.of(CURRENT_KEY, PREVIOUS_KEY));
+
+        assertNotEquals(PAYLOAD, decryptOrNull(sut, legacy));
+    }
+
+    @Test
+    void createWithSeparatorInVersionFail() {
+        List<Aes256CipherEngine.KeyVersion> keyVersions = List.of(new Aes256CipherEngine.KeyVersion("v:1", "key", "salt"));
+        assertThrows(Aes256Exception.class, () -> new Aes256CipherEngine(keyVersions));
+    }
+
+    @Test
+    void decryptInvalidDataFail() throws Aes256Exception {
+        Aes256CipherEngine sut = new Aes256CipherEngine(List.of(CURRENT_KEY));
+
+        assertThrows(Aes256Exception.class, () -> sut.decrypt("==eyJkYXRhIjoidGVzdCJ9"));
+    }
+
+    @Test
+    void createWithoutKeyVersionsFail() {
+        List<Aes256CipherEngine.KeyVersion> keyVersions = Collections.emptyList();
+        assertThrows(Aes256Exception.class, () -> new Aes256CipherEngine(keyVersions));
+    }
+
+    @Test
+    void createWithEmptySaltFail() {
+        List<Aes256CipherEngine.KeyVersion> keyVersions = List.of(new Aes256CipherEngine.KeyVersion("current", "key", ""));
+        assertThrows(Aes256Exception.class, () -> new Aes256CipherEngine(keyVersions));
+    }
+
+    /**
+     * A wrong key produces a valid padding about once in 256 random IVs, so the value can also decrypt to garbage
+     */
+    private static String decryptOrNull(Aes256CipherEngine engine, String value) {
+        try {
+            return engine.decrypt(value);
+        } catch (Aes256Exception e) {
+            return null;
+        }
+    }
+}
@@ -10,9 +10,11 @@ import it.gov.pagopa.receipt.pdf.helpdesk.client.impl.ReceiptQueueClientImpl;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.*;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.enumeration.BizEventStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.event.enumeration.UserType;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.EventData;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
 import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
 import it.gov.pagopa.receipt.pdf.helpdesk.exception.PDVTokenizerException;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.PDVTokenizerServiceRetryWrapper;
 import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.BizEventToReceiptServiceImpl;
 import org.junit.jupiter.api.Test;
@@ -28,8 +30,14 @@ import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -63,6 +71,64 @@ class BizEventToReceiptUtilsTest {
 
     private final Logger logger = LoggerFactory.getLogger(BizEventToReceiptUtilsTest.class);
 
+    @Test
+    void forEachInParallelProcessesAllDocumentsConcurrently() {
+        List<Integer> documents = IntStream.range(0, 20).boxed().toList();
+        Set<Integer> processed = ConcurrentHashMap.newKeySet();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        BizEventToReceiptUtils.forEachInParallel(documents, document -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            processed.add(document);
+        });
+
+        assertEquals(20, processed.size());
+        assertTrue(maxInFlight.get() > 1);
+        assertTrue(maxInFlight.get() <= 8);
+    }
+
+    @Test
+    void forEachInParallelPropagatesUnhandledErrors() {
+        List<Integer> documents = List.of(1, 2, 3);
+
+        assertThrows(IllegalArgumentException.class, () -> BizEventToReceiptUtils.forEachInParallel(documents, document -> {
+            if (document == 2) {
+                throw new IllegalArgumentException("unexpected");
+            }
+        }));
+    }
+
+    @Test
+    void getEventNotQueueSentRecordsFailedAttempt() throws Exception {
+        BizEventToReceiptService bizEventToReceiptServiceMock = mock(BizEventToReceiptService.class);
+        when(bizEventCosmosClientMock.getBizEventDocument(EVENT_ID)).thenReturn(generateValidBizEvent(false, false));
+        doAnswer(invocation -> {
+            invocation.<Receipt>getArgument(1).setStatus(ReceiptStatusType.NOT_QUEUE_SENT);
+            return null;
+        }).when(bizEventToReceiptServiceMock).handleSendMessageToQueue(any(), any());
+        Receipt receipt = new Receipt();
+        receipt.setId(EVENT_ID);
+        receipt.setStatus(ReceiptStatusType.NOT_QUEUE_SENT);
+        receipt.setRecoverNumRetry(9);
+        receipt.setEventData(EventData.builder().debtorFiscalCode(TOKENIZED_DEBTOR_FISCAL_CODE).build());
+        environmentVariables.set("RECOVER_BACKOFF_ENABLED", "true");
+
+        Receipt result = BizEventToReceiptUtils.getEvent(EVENT_ID, mock(ExecutionContext.class),
+                bizEventToReceiptServiceMock, bizEventCosmosClientMock, null, receipt, logger, false);
+
+        assertSame(receipt, result);
+        assertEquals(10, result.getRecoverNumRetry());
+        assertTrue(result.getNext_recover_at() > System.currentTimeMillis());
+        assertEquals(ReceiptStatusType.TO_REVIEW, result.getStatus());
+    }
+
     @Test
     void createReceiptSuccessWithPaymentInfo() throws PDVTokenizerException, JsonProcessingException {
         when(pdvTokenizerServiceMock.generateTokenForFiscalCodeWithRetry(DEBTOR_FISCAL_CODE)).thenReturn(TOKENIZED_DEBTOR_FISCAL_CODE);
@@ -0,0 +1,100 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import com.azure.cosmos.CosmosException;
+import com.azure.cosmos.models.CosmosBulkItemResponse;
+import com.azure.cosmos.models.CosmosBulkOperationResponse;
+import com.azure.cosmos.models.CosmosItemResponse;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CosmosMetricsUtilsTest {
+
+    private static final String CONTAINER = "receipt";
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(registry);
+        registry.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordItemOperationSuccess() {
+        CosmosItemResponse<Object> response = mock(CosmosItemResponse.class);
+        when(response.getRequestCharge()).thenReturn(5.5);
+
+        CosmosItemResponse<Object> result = CosmosMetricsUtils.recordItemOperation(CONTAINER, "itemSuccess",
+                CosmosMetricsUtils.PATH_WRITE, () -> response);
+
+        assertSame(response, result);
+        assertEquals(5.5, registry.get("cosmos.operation.request.charge").tag("operation", "itemSuccess")
+                .summary().totalAmount());
+        assertEquals(1, registry.get("cosmos.operation.latency").tag("operation", "itemSuccess").timer().count());
+        assertEquals(1, registry.get("cosmos.operation.pages").tag("operation", "itemSuccess").counter().count());
+        assertNull(registry.find("cosmos.operation.throttles").tag("operation", "itemSuccess").counter());
+    }
+
+    @Test
+    void recordItemOperationThrottled() {
+        CosmosException exception = mock(CosmosException.class);
+        when(exception.getStatusCode()).thenReturn(429);
+        when(exception.getRequestCharge()).thenReturn(1.0);
+
+        assertThrows(CosmosException.class, () -> CosmosMetricsUtils.recordItemOperation(CONTAINER, "itemThrottled",
+                CosmosMetricsUtils.PATH_WRITE, () -> {
+                    throw exception;
+                }));
+
+        assertEquals(1, registry.get("cosmos.operation.throttles").tag("operation", "itemThrottled").counter().count());
+        assertEquals(1.0, registry.get("cosmos.operation.request.charge").tag("operation", "itemThrottled")
+                .summary().totalAmount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordBulkOperation() {
+        CosmosBulkItemResponse okItem = mock(CosmosBulkItemResponse.class);
+        when(okItem.getStatusCode()).thenReturn(200);
+        when(okItem.getRequestCharge()).thenReturn(10.0);
+        when(okItem.getDuration()).thenReturn(Duration.ofMillis(3));
+        CosmosBulkOperationResponse<Object> ok = mock(CosmosBulkOperationResponse.class);
+        when(ok.getResponse()).thenReturn(okItem);
+
+        CosmosBulkItemResponse throttledItem = mock(CosmosBulkItemResponse.class);
+        when(throttledItem.getStatusCode()).thenReturn(429);
+        CosmosBulkOperationResponse<Object> throttled = mock(CosmosBulkOperationResponse.class);
+        when(throttled.getResponse()).thenReturn(throttledItem);
+
+        CosmosBulkOperationResponse<Object> failed = mock(CosmosBulkOperationResponse.class);
+        when(failed.getException()).thenReturn(new RuntimeException());
+
+        CosmosMetricsUtils.recordBulkOperation(CONTAINER, "bulk", ok);
+        CosmosMetricsUtils.recordBulkOperation(CONTAINER, "bulk", throttled);
+        CosmosMetricsUtils.recordBulkOperation(CONTAINER, "bulk", failed);
+
+        assertEquals(2, registry.get("cosmos.operation.pages").tag("operation", "bulk").counter().count());
+        assertEquals(10.0, registry.get("cosmos.operation.request.charge").tag("operation", "bulk")
+                .summary().totalAmount());
+        assertEquals(1, registry.get("cosmos.operation.throttles").tag("operation", "bulk").counter().count());
+    }
+}
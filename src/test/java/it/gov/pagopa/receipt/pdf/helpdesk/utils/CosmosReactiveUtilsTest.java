@@ -0,0 +1,47 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import com.azure.cosmos.models.FeedResponse;
+import com.azure.cosmos.models.ModelBridgeInternal;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CosmosReactiveUtilsTest {
+
+    @Test
+    void forEachPageProcessesPagesInOrderWithBudgetBound() {
+        Flux<FeedResponse<String>> pages = Flux.just(
+                ModelBridgeInternal.createFeedResponse(List.of("1", "2"), Collections.emptyMap()),
+                ModelBridgeInternal.createFeedResponse(List.of("3"), Collections.emptyMap()));
+        List<List<String>> processed = new ArrayList<>();
+        List<RequestUnitBudget> budgets = new ArrayList<>();
+
+        try (RequestUnitBudget budget = RequestUnitBudget.open("COSMOS_REACTIVE_TEST_MAX_RU_PER_SECOND")) {
+            CosmosReactiveUtils.forEachPage(pages, documents -> {
+                processed.add(documents);
+                budgets.add(RequestUnitBudget.current());
+            });
+
+            assertEquals(List.of(List.of("1", "2"), List.of("3")), processed);
+            assertSame(budget, budgets.get(0));
+            assertSame(budget, budgets.get(1));
+        }
+    }
+
+    @Test
+    void forEachPagePropagatesErrors() {
+        Flux<FeedResponse<String>> pages = Flux.just(
+                ModelBridgeInternal.createFeedResponse(List.of("1"), Collections.emptyMap()));
+
+        assertThrows(IllegalStateException.class, () -> CosmosReactiveUtils.forEachPage(pages, documents -> {
+            throw new IllegalStateException("page failed");
+        }));
+    }
+}
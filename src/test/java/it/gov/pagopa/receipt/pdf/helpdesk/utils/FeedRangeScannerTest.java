@@ -0,0 +1,71 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import com.azure.cosmos.models.FeedRange;
+import com.azure.cosmos.models.FeedResponse;
+import com.azure.cosmos.models.ModelBridgeInternal;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static uk.org.webcompere.systemstubs.SystemStubs.withEnvironmentVariables;
+
+class FeedRangeScannerTest {
+
+    @Test
+    void scanConsumesThePagesOfEveryFeedRange() throws Exception {
+        FeedRange firstRange = mock(FeedRange.class);
+        FeedRange secondRange = mock(FeedRange.class);
+        Map<FeedRange, List<FeedResponse<String>>> pagesByRange = Map.of(
+                firstRange, List.of(page("a", "b"), page("c")),
+                secondRange, List.of(page("d")));
+        List<String> consumed = new ArrayList<>();
+
+        withEnvironmentVariables(
+                "MASSIVE_RECOVER_FEED_RANGE_CONCURRENCY", "2",
+                "MASSIVE_RECOVER_FEED_RANGE_QUEUE_SIZE", "1"
+        ).execute(() -> new FeedRangeScanner().scan(List.of(firstRange, secondRange), 100,
+                (feedRange, continuationToken, pageSize) -> pagesByRange.get(feedRange),
+                consumed::addAll));
+
+        Collections.sort(consumed);
+        assertEquals(List.of("a", "b", "c", "d"), consumed);
+    }
+
+    @Test
+    void scanWithoutFeedRanges() {
+        List<String> consumed = new ArrayList<>();
+
+        new FeedRangeScanner().scan(Collections.emptyList(), 100,
+                (feedRange, continuationToken, pageSize) -> List.of(page("a")),
+                consumed::addAll);
+
+        assertTrue(consumed.isEmpty());
+    }
+
+    @Test
+    void scanFailsIfAFeedRangeQueryFails() {
+        FeedRange feedRange = mock(FeedRange.class);
+        FeedRangeScanner scanner = new FeedRangeScanner();
+        List<FeedRange> feedRanges = List.of(feedRange);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> scanner.scan(feedRanges, 100,
+                (range, continuationToken, pageSize) -> {
+                    throw new RuntimeException("query error");
+                },
+                page -> {
+                }));
+
+        assertEquals("query error", e.getCause().getMessage());
+    }
+
+    private static FeedResponse<String> page(String... items) {
+        return ModelBridgeInternal.createFeedResponse(List.of(items), Collections.emptyMap());
+    }
+}
@@ -0,0 +1,42 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.logging.LoggingMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsRegistryUtilsTest {
+
+    @Test
+    void getRegistryAddsLoggingExporterByDefault() {
+        MeterRegistry registry = MetricsRegistryUtils.getRegistry();
+
+        assertSame(Metrics.globalRegistry, registry);
+        assertTrue(Metrics.globalRegistry.getRegistries().stream().anyMatch(LoggingMeterRegistry.class::isInstance));
+    }
+
+    @Test
+    void createRegistryLoggingSuccess() {
+        MeterRegistry registry = MetricsRegistryUtils.createRegistry("logging", Duration.ofSeconds(30));
+
+        assertInstanceOf(LoggingMeterRegistry.class, registry);
+        registry.close();
+    }
+
+    @Test
+    void createRegistryNoneReturnsNull() {
+        assertNull(MetricsRegistryUtils.createRegistry("none", Duration.ofSeconds(30)));
+    }
+
+    @Test
+    void createRegistryUnknownReturnsNull() {
+        assertNull(MetricsRegistryUtils.createRegistry("unknown", Duration.ofSeconds(30)));
+    }
+}
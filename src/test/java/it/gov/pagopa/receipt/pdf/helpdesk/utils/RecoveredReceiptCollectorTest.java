@@ -0,0 +1,139 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.ReceiptBulkWriteResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.org.webcompere.systemstubs.SystemStubs.withEnvironmentVariables;
+
+class RecoveredReceiptCollectorTest {
+
+    private ReceiptCosmosService receiptCosmosServiceMock;
+
+    @BeforeEach
+    void setUp() {
+        receiptCosmosServiceMock = mock(ReceiptCosmosService.class);
+    }
+
+    @Test
+    void collectWithoutBulkKeepsReceipts() {
+        RecoveredReceiptCollector collector = new RecoveredReceiptCollector(receiptCosmosServiceMock);
+
+        collector.add(receipt("1"));
+        collector.add(receipt("2"));
+        collector.addError();
+        collector.flush();
+        MassiveRecoverResult result = collector.getResult();
+
+        assertEquals(2, result.getReceiptList().size());
+        assertEquals(2, result.getRecoveredCounter());
+        assertEquals(1, result.getErrorCounter());
+        assertEquals(0, result.getSavedCounter());
+        verify(receiptCosmosServiceMock, never()).saveReceiptsInBulk(any());
+    }
+
+    @Test
+    void collectCountsRecoveredReceiptsByStatus() {
+        RecoveredReceiptCollector collector = new RecoveredReceiptCollector(receiptCosmosServiceMock);
+
+        collector.add(receipt("1"), ReceiptStatusType.FAILED);
+        collector.add(receipt("2"), ReceiptStatusType.NOT_QUEUE_SENT);
+        collector.add(receipt("3"), ReceiptStatusType.FAILED);
+        collector.add(null, ReceiptStatusType.FAILED);
+        MassiveRecoverResult result = collector.getResult();
+
+        assertEquals(2, result.getRecoveredByStatus().get(ReceiptStatusType.FAILED));
+        assertEquals(1, result.getRecoveredByStatus().get(ReceiptStatusType.NOT_QUEUE_SENT));
+        assertEquals(2, result.getRecoveredByStatus().size());
+    }
+
+    @Test
+    void collectWithBulkSavesEveryBatch() throws Exception {
+        when(receiptCosmosServiceMock.saveReceiptsInBulk(anyList())).thenAnswer(invocation -> {
+            List<Receipt> receipts = invocation.getArgument(0);
+            return ReceiptBulkWriteResult.builder()
+                    .savedCounter(receipts.size())
+                    .failedIds(Collections.emptyList())
+                    .build();
+        });
+
+        MassiveRecoverResult result = withEnvironmentVariables(
+                "MASSIVE_RECOVER_BULK_ENABLED", "true",
+                "MASSIVE_RECOVER_BULK_BATCH_SIZE", "2"
+        ).execute(() -> {
+            RecoveredReceiptCollector collector = new RecoveredReceiptCollector(receiptCosmosServiceMock);
+            collector.add(receipt("1"));
+            collector.add(null);
+            collector.add(receipt("2"));
+            collector.add(receipt("3"));
+            return collector.getResult();
+        });
+
+        assertTrue(result.getReceiptList().isEmpty());
+        assertEquals(3, result.getSavedCounter());
+        assertEquals(3, result.getRecoveredCounter());
+        assertEquals(0, result.getErrorCounter());
+        verify(receiptCosmosServiceMock, times(2)).saveReceiptsInBulk(anyList());
+    }
+
+    @Test
+    void collectWithBulkReportsFailedReceipts() throws Exception {
+        when(receiptCosmosServiceMock.saveReceiptsInBulk(anyList())).thenReturn(ReceiptBulkWriteResult.builder()
+                .savedCounter(1)
+                .failedIds(Collections.singletonList("2"))
+                .build());
+
+        MassiveRecoverResult result = withEnvironmentVariables("MASSIVE_RECOVER_BULK_ENABLED", "true")
+                .execute(() -> {
+                    RecoveredReceiptCollector collector = new RecoveredReceiptCollector(receiptCosmosServiceMock);
+                    collector.add(receipt("1"));
+                    collector.add(receipt("2"));
+                    collector.flush();
+                    return collector.getResult();
+                });
+
+        assertEquals(1, result.getSavedCounter());
+        assertEquals(1, result.getErrorCounter());
+        assertEquals(Collections.singletonList("2"), result.getFailedSaveIds());
+        verify(receiptCosmosServiceMock).saveReceiptsInBulk(anyList());
+    }
+
+    @Test
+    void collectWithBulkWriteError() throws Exception {
+        when(receiptCosmosServiceMock.saveReceiptsInBulk(anyList())).thenThrow(new RuntimeException("error"));
+
+        MassiveRecoverResult result = withEnvironmentVariables("MASSIVE_RECOVER_BULK_ENABLED", "true")
+                .execute(() -> {
+                    RecoveredReceiptCollector collector = new RecoveredReceiptCollector(receiptCosmosServiceMock);
+                    collector.add(receipt("1"));
+                    collector.add(receipt("2"));
+                    return collector.getResult();
+                });
+
+        assertEquals(0, result.getSavedCounter());
+        assertEquals(2, result.getErrorCounter());
+        assertEquals(List.of("1", "2"), result.getFailedSaveIds());
+    }
+
+    private static Receipt receipt(String id) {
+        Receipt receipt = new Receipt();
+        receipt.setId(id);
+        return receipt;
+    }
+}
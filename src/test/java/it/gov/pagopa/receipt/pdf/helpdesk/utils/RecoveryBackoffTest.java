@@ -0,0 +1,131 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import com.azure.cosmos.CosmosException;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static uk.org.webcompere.systemstubs.SystemStubs.withEnvironmentVariables;
+
+class RecoveryBackoffTest {
+
+    private static final String RECEIPT_ID = "receiptId";
+
+    private ReceiptCosmosService receiptCosmosServiceMock;
+
+    @BeforeEach
+    void setUp() {
+        receiptCosmosServiceMock = mock(ReceiptCosmosService.class);
+    }
+
+    @Test
+    void nextRecoverAtDoublesTheDelayUpToTheMaximum() {
+        long now = 1000L;
+
+        assertEquals(now + TimeUnit.MINUTES.toMillis(15), RecoveryBackoff.nextRecoverAt(1, now));
+        assertEquals(now + TimeUnit.MINUTES.toMillis(30), RecoveryBackoff.nextRecoverAt(2, now));
+        assertEquals(now + TimeUnit.MINUTES.toMillis(120), RecoveryBackoff.nextRecoverAt(4, now));
+        assertEquals(now + TimeUnit.MINUTES.toMillis(1440), RecoveryBackoff.nextRecoverAt(20, now));
+        assertEquals(now + TimeUnit.MINUTES.toMillis(1440), RecoveryBackoff.nextRecoverAt(Integer.MAX_VALUE, now));
+    }
+
+    @Test
+    void recordFailedAttemptDisabled() {
+        RecoveryBackoff.recordFailedAttempt(RECEIPT_ID, ReceiptStatusType.FAILED, 0, receiptCosmosServiceMock);
+
+        verifyNoInteractions(receiptCosmosServiceMock);
+    }
+
+    @Test
+    void recordFailedAttemptOfFailedReceipt() throws Exception {
+        withEnvironmentVariables("RECOVER_BACKOFF_ENABLED", "true").execute(() -> {
+            RecoveryBackoff.recordFailedAttempt(RECEIPT_ID, ReceiptStatusType.NOT_QUEUE_SENT, 9, receiptCosmosServiceMock);
+            RecoveryBackoff.recordFailedAttempt(RECEIPT_ID, ReceiptStatusType.FAILED, 0, receiptCosmosServiceMock);
+        });
+
+        verify(receiptCosmosServiceMock, times(2)).patchReceipt(eq(RECEIPT_ID), any(),
+                eq("FROM c WHERE c.status IN ('FAILED', 'NOT_QUEUE_SENT')"));
+    }
+
+    @Test
+    void recordFailedAttemptSkipsNotFailedReceipt() throws Exception {
+        withEnvironmentVariables("RECOVER_BACKOFF_ENABLED", "true").execute(() ->
+                RecoveryBackoff.recordFailedAttempt(RECEIPT_ID, ReceiptStatusType.INSERTED, 0, receiptCosmosServiceMock));
+
+        verifyNoInteractions(receiptCosmosServiceMock);
+    }
+
+    @Test
+    void recordFailedAttemptIgnoresPatchErrors() throws Exception {
+        doThrow(new IllegalStateException("patch failed")).when(receiptCosmosServiceMock).patchReceipt(any(), any(), any());
+
+        withEnvironmentVariables("RECOVER_BACKOFF_ENABLED", "true").execute(() -> assertDoesNotThrow(() ->
+                RecoveryBackoff.recordFailedAttempt(RECEIPT_ID, ReceiptStatusType.FAILED, 0, receiptCosmosServiceMock)));
+    }
+
+    @Test
+    void recordFailedAttemptIgnoresReceiptNoLongerFailed() throws Exception {
+        CosmosException preconditionFailed = mock(CosmosException.class);
+        when(preconditionFailed.getStatusCode()).thenReturn(412);
+        doThrow(preconditionFailed).when(receiptCosmosServiceMock).patchReceipt(any(), any(), any());
+
+        withEnvironmentVariables("RECOVER_BACKOFF_ENABLED", "true").execute(() -> assertDoesNotThrow(() ->
+                RecoveryBackoff.recordFailedAttempt(RECEIPT_ID, ReceiptStatusType.FAILED, 9, receiptCosmosServiceMock)));
+    }
+
+    @Test
+    void applyFailedAttemptDisabled() {
+        Receipt receipt = new Receipt();
+        receipt.setStatus(ReceiptStatusType.NOT_QUEUE_SENT);
+
+        RecoveryBackoff.applyFailedAttempt(receipt);
+
+        assertEquals(0, receipt.getRecoverNumRetry());
+        assertEquals(ReceiptStatusType.NOT_QUEUE_SENT, receipt.getStatus());
+    }
+
+    @Test
+    void applyFailedAttemptMovesToReviewAtMaxAttempts() throws Exception {
+        Receipt receipt = new Receipt();
+        receipt.setStatus(ReceiptStatusType.NOT_QUEUE_SENT);
+        receipt.setRecoverNumRetry(1);
+
+        withEnvironmentVariables("RECOVER_BACKOFF_ENABLED", "true", "RECOVER_BACKOFF_MAX_ATTEMPTS", "3").execute(() -> {
+            RecoveryBackoff.applyFailedAttempt(receipt);
+            assertEquals(2, receipt.getRecoverNumRetry());
+            assertEquals(ReceiptStatusType.NOT_QUEUE_SENT, receipt.getStatus());
+            assertTrue(receipt.getNext_recover_at() > System.currentTimeMillis());
+
+            RecoveryBackoff.applyFailedAttempt(receipt);
+            assertEquals(3, receipt.getRecoverNumRetry());
+            assertEquals(ReceiptStatusType.TO_REVIEW, receipt.getStatus());
+        });
+    }
+
+    @Test
+    void clearAttempts() {
+        Receipt receipt = new Receipt();
+        receipt.setRecoverNumRetry(3);
+        receipt.setNext_recover_at(1000L);
+
+        RecoveryBackoff.clearAttempts(receipt);
+
+        assertEquals(0, receipt.getRecoverNumRetry());
+        assertEquals(0, receipt.getNext_recover_at());
+    }
+}
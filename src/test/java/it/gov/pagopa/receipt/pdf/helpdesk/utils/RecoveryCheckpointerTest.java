@@ -0,0 +1,181 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import com.azure.cosmos.models.FeedResponse;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryCheckpoint;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.ReceiptBulkWriteResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith({MockitoExtension.class, SystemStubsExtension.class})
+class RecoveryCheckpointerTest {
+
+    private static final String JOB_ID = "job-FAILED";
+
+    @SystemStub
+    private EnvironmentVariables environment;
+
+    @Mock
+    private ReceiptCosmosService receiptCosmosServiceMock;
+
+    @Test
+    void openDisabled() {
+        RecoveryCheckpointer checkpointer = RecoveryCheckpointer.open(JOB_ID, receiptCosmosServiceMock);
+        checkpointer.save("token", "id", 1, 1);
+        checkpointer.complete();
+
+        assertFalse(checkpointer.isEnabled());
+        assertNull(checkpointer.getContinuationToken());
+        verifyNoInteractions(receiptCosmosServiceMock);
+    }
+
+    @Test
+    void resumeSaveAndComplete() {
+        environment.set("MASSIVE_RECOVER_CHECKPOINT_ENABLED", "true");
+        when(receiptCosmosServiceMock.getRecoveryCheckpoint(JOB_ID)).thenReturn(RecoveryCheckpoint.builder()
+                .id(JOB_ID)
+                .continuationToken("token")
+                .recoveredCounter(10)
+                .errorCounter(1)
+                .build());
+
+        RecoveryCheckpointer checkpointer = RecoveryCheckpointer.open(JOB_ID, receiptCosmosServiceMock);
+        assertTrue(checkpointer.isEnabled());
+        assertEquals("token", checkpointer.getContinuationToken());
+
+        checkpointer.save("next-token", "last-id", 5, 2);
+        ArgumentCaptor<RecoveryCheckpoint> captor = ArgumentCaptor.forClass(RecoveryCheckpoint.class);
+        verify(receiptCosmosServiceMock).saveRecoveryCheckpoint(captor.capture());
+        assertEquals(JOB_ID, captor.getValue().getId());
+        assertEquals("next-token", captor.getValue().getContinuationToken());
+        assertEquals("last-id", captor.getValue().getLastProcessedId());
+        assertEquals(15, captor.getValue().getRecoveredCounter());
+        assertEquals(3, captor.getValue().getErrorCounter());
+
+        checkpointer.complete();
+        verify(receiptCosmosServiceMock).deleteRecoveryCheckpoint(JOB_ID);
+
+        MassiveRecoverResult result = checkpointer.addPreviousProgress(MassiveRecoverResult.builder()
+                .receiptList(new ArrayList<>())
+                .savedCounter(5)
+                .errorCounter(2)
+                .build());
+        assertEquals(15, result.getRecoveredCounter());
+        assertEquals(3, result.getErrorCounter());
+    }
+
+    @Test
+    void completeWithoutCheckpoint() {
+        environment.set("MASSIVE_RECOVER_CHECKPOINT_ENABLED", "true");
+
+        RecoveryCheckpointer checkpointer = RecoveryCheckpointer.open(JOB_ID, receiptCosmosServiceMock);
+        checkpointer.complete();
+
+        assertNull(checkpointer.getContinuationToken());
+        verify(receiptCosmosServiceMock, never()).saveRecoveryCheckpoint(any());
+        verify(receiptCosmosServiceMock, never()).deleteRecoveryCheckpoint(anyString());
+    }
+
+    @Test
+    void timeBudgetDeadline() {
+        assertEquals(Long.MAX_VALUE, RecoveryCheckpointer.getTimeBudgetDeadline());
+        RecoveryCheckpointer checkpointer = RecoveryCheckpointer.openWithDeadline(JOB_ID, receiptCosmosServiceMock,
+                Long.MAX_VALUE);
+        assertFalse(checkpointer.isEnabled());
+        assertFalse(checkpointer.isDeadlineReached());
+        verifyNoInteractions(receiptCosmosServiceMock);
+
+        environment.set("RECOVERY_TIME_BUDGET_SECONDS", "60");
+        long deadline = RecoveryCheckpointer.getTimeBudgetDeadline();
+        assertTrue(deadline > System.currentTimeMillis() + 50000);
+        assertTrue(deadline <= System.currentTimeMillis() + 60000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recoveryStopsAtTheDeadlineKeepingTheCheckpoint() {
+        Receipt receipt = new Receipt();
+        receipt.setId("receipt-1");
+        receipt.setStatus(ReceiptStatusType.IO_ERROR_TO_NOTIFY);
+        FeedResponse<Receipt> firstPage = mock(FeedResponse.class);
+        FeedResponse<Receipt> secondPage = mock(FeedResponse.class);
+        when(firstPage.getResults()).thenReturn(List.of(receipt));
+        when(firstPage.getContinuationToken()).thenReturn("next-token");
+        when(receiptCosmosServiceMock.getNotNotifiedReceiptByStatus(null, 100, ReceiptStatusType.IO_ERROR_TO_NOTIFY))
+                .thenReturn(List.of(firstPage, secondPage));
+        when(receiptCosmosServiceMock.saveReceiptsInBulk(anyList())).thenReturn(ReceiptBulkWriteResult.builder()
+                .savedCounter(1)
+                .failedIds(List.of())
+                .build());
+
+        RecoveryCheckpointer checkpointer = RecoveryCheckpointer.openWithDeadline(JOB_ID, receiptCosmosServiceMock,
+                System.currentTimeMillis());
+        MassiveRecoverResult result = RecoverNotNotifiedReceiptUtils.receiptMassiveRestoreByStatus(
+                ReceiptStatusType.IO_ERROR_TO_NOTIFY, receiptCosmosServiceMock, checkpointer);
+
+        assertTrue(result.isInterrupted());
+        assertEquals(1, result.getSavedCounter());
+        ArgumentCaptor<RecoveryCheckpoint> captor = ArgumentCaptor.forClass(RecoveryCheckpoint.class);
+        verify(receiptCosmosServiceMock).saveRecoveryCheckpoint(captor.capture());
+        assertEquals("next-token", captor.getValue().getContinuationToken());
+        verify(receiptCosmosServiceMock, never()).deleteRecoveryCheckpoint(anyString());
+        verifyNoInteractions(secondPage);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkpointedRecoveryScansSequentiallyWithReactiveAndFeedRangeScans() {
+        environment.set("COSMOS_REACTIVE_ENABLED", "true");
+        environment.set("MASSIVE_RECOVER_FEED_RANGE_ENABLED", "true");
+        FeedResponse<Receipt> firstPage = mock(FeedResponse.class);
+        FeedResponse<Receipt> secondPage = mock(FeedResponse.class);
+        when(firstPage.getResults()).thenReturn(List.of());
+        when(firstPage.getContinuationToken()).thenReturn("next-token");
+        when(receiptCosmosServiceMock.getNotNotifiedReceiptByStatus(null, 100, ReceiptStatusType.GENERATED))
+                .thenReturn(List.of(firstPage, secondPage));
+
+        RecoveryCheckpointer checkpointer = RecoveryCheckpointer.openWithDeadline(JOB_ID, receiptCosmosServiceMock,
+                System.currentTimeMillis());
+        assertFalse(checkpointer.allowsUnresumableScan());
+        MassiveRecoverResult result = RecoverNotNotifiedReceiptUtils.receiptMassiveRestoreByStatus(
+                ReceiptStatusType.GENERATED, receiptCosmosServiceMock, checkpointer);
+
+        assertTrue(result.isInterrupted());
+        verify(receiptCosmosServiceMock).saveRecoveryCheckpoint(any());
+        verify(receiptCosmosServiceMock, never()).streamNotNotifiedReceiptByStatus(any(), any());
+        verify(receiptCosmosServiceMock, never()).getReceiptFeedRanges();
+        verifyNoInteractions(secondPage);
+        assertTrue(RecoveryCheckpointer.disabled().allowsUnresumableScan());
+    }
+
+    @Test
+    void lastProcessedId() {
+        assertNull(RecoveryCheckpointer.lastProcessedId(List.<String>of(), id -> id));
+        assertEquals("b", RecoveryCheckpointer.lastProcessedId(List.of("a", "b"), id -> id));
+    }
+}
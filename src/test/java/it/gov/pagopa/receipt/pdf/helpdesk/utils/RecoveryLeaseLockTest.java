@@ -0,0 +1,184 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryCheckpoint;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.RecoveryLease;
+import it.gov.pagopa.receipt.pdf.helpdesk.exception.RecoveryLeaseLostException;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.LeaseFencedBizEventToReceiptServiceImpl;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.impl.LeaseFencedReceiptCosmosServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static uk.org.webcompere.systemstubs.SystemStubs.withEnvironmentVariables;
+
+class RecoveryLeaseLockTest {
+
+    private static final String LEASE_ID = "RecoverFailedReceiptScheduled";
+
+    private ReceiptCosmosService receiptCosmosServiceMock;
+
+    @BeforeEach
+    void setUp() {
+        receiptCosmosServiceMock = mock(ReceiptCosmosService.class);
+    }
+
+    @Test
+    void disabledLockIsAlwaysHeld() {
+        RecoveryLeaseLock lock = RecoveryLeaseLock.tryAcquire(LEASE_ID, receiptCosmosServiceMock);
+
+        assertTrue(lock.isHeld());
+        assertTrue(lock.verify());
+        lock.close();
+        assertTrue(lock.isHeld());
+        verifyNoInteractions(receiptCosmosServiceMock);
+    }
+
+    @Test
+    void acquireCreatesTheMissingLeaseAndReleasesIt() throws Exception {
+        RecoveryLease created = lease(1, System.currentTimeMillis() + 300000, "etag-1");
+        when(receiptCosmosServiceMock.createRecoveryLease(any())).thenReturn(created);
+
+        RecoveryLeaseLock lock = withEnvironmentVariables("RECOVERY_LEASE_ENABLED", "true")
+                .execute(() -> RecoveryLeaseLock.tryAcquire(LEASE_ID, receiptCosmosServiceMock));
+
+        assertTrue(lock.isHeld());
+        assertEquals(1, lock.getFencingToken());
+        lock.close();
+        assertFalse(lock.isHeld());
+        verify(receiptCosmosServiceMock).deleteRecoveryLease(created);
+    }
+
+    @Test
+    void acquireSkipsTheLeaseHeldByAnotherInstance() throws Exception {
+        when(receiptCosmosServiceMock.getRecoveryLease(LEASE_ID))
+                .thenReturn(lease(3, System.currentTimeMillis() + 300000, "etag-3"));
+
+        RecoveryLeaseLock lock = withEnvironmentVariables("RECOVERY_LEASE_ENABLED", "true")
+                .execute(() -> RecoveryLeaseLock.tryAcquire(LEASE_ID, receiptCosmosServiceMock));
+
+        assertFalse(lock.isHeld());
+        assertFalse(lock.verify());
+        lock.close();
+        verify(receiptCosmosServiceMock, never()).createRecoveryLease(any());
+        verify(receiptCosmosServiceMock, never()).replaceRecoveryLease(any());
+        verify(receiptCosmosServiceMock, never()).deleteRecoveryLease(any());
+    }
+
+    @Test
+    void acquireTakesOverTheExpiredLeaseWithANewFencingToken() throws Exception {
+        when(receiptCosmosServiceMock.getRecoveryLease(LEASE_ID))
+                .thenReturn(lease(3, System.currentTimeMillis() - 1000, "etag-3"));
+        when(receiptCosmosServiceMock.replaceRecoveryLease(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0, RecoveryLease.class).toBuilder().etag("etag-4").build());
+
+        RecoveryLeaseLock lock = withEnvironmentVariables("RECOVERY_LEASE_ENABLED", "true")
+                .execute(() -> RecoveryLeaseLock.tryAcquire(LEASE_ID, receiptCosmosServiceMock));
+
+        ArgumentCaptor<RecoveryLease> leaseCaptor = ArgumentCaptor.forClass(RecoveryLease.class);
+        verify(receiptCosmosServiceMock).replaceRecoveryLease(leaseCaptor.capture());
+        assertEquals("etag-3", leaseCaptor.getValue().getEtag());
+        assertTrue(lock.isHeld());
+        assertEquals(4, lock.getFencingToken());
+        lock.close();
+    }
+
+    @Test
+    void verifyFailsWhenTheLeaseWasTakenOver() throws Exception {
+        when(receiptCosmosServiceMock.createRecoveryLease(any()))
+                .thenReturn(lease(1, System.currentTimeMillis() + 300000, "etag-1"));
+        when(receiptCosmosServiceMock.replaceRecoveryLease(any())).thenReturn(null);
+
+        RecoveryLeaseLock lock = withEnvironmentVariables("RECOVERY_LEASE_ENABLED", "true")
+                .execute(() -> RecoveryLeaseLock.tryAcquire(LEASE_ID, receiptCosmosServiceMock));
+
+        assertFalse(lock.verify());
+        assertFalse(lock.isHeld());
+        lock.close();
+        verify(receiptCosmosServiceMock, never()).deleteRecoveryLease(any());
+    }
+
+    @Test
+    void lostLeaseFencesTheWritesOfTheRecovery() throws Exception {
+        when(receiptCosmosServiceMock.createRecoveryLease(any()))
+                .thenReturn(lease(1, System.currentTimeMillis() + 300000, "etag-1"));
+        when(receiptCosmosServiceMock.replaceRecoveryLease(any())).thenReturn(null);
+
+        RecoveryLeaseLock lock = withEnvironmentVariables("RECOVERY_LEASE_ENABLED", "true")
+                .execute(() -> RecoveryLeaseLock.tryAcquire(LEASE_ID, receiptCosmosServiceMock));
+        ReceiptCosmosService fencedService = new LeaseFencedReceiptCosmosServiceImpl(receiptCosmosServiceMock, lock);
+        BizEventToReceiptService bizEventToReceiptServiceMock = mock(BizEventToReceiptService.class);
+        BizEventToReceiptService fencedBizEventService =
+                new LeaseFencedBizEventToReceiptServiceImpl(bizEventToReceiptServiceMock, lock);
+
+        assertDoesNotThrow(lock::checkHeld);
+        fencedService.saveReceiptsInBulk(List.of());
+        verify(receiptCosmosServiceMock).saveReceiptsInBulk(List.of());
+
+        assertFalse(lock.verify());
+        assertThrows(RecoveryLeaseLostException.class, lock::checkHeld);
+        assertThrows(RecoveryLeaseLostException.class, () -> fencedService.patchReceipt("1", null, null));
+        assertThrows(RecoveryLeaseLostException.class,
+                () -> fencedBizEventService.handleSendMessageToQueue(List.of(), new Receipt()));
+        verify(receiptCosmosServiceMock, never()).patchReceipt(any(), any(), any());
+        verifyNoInteractions(bizEventToReceiptServiceMock);
+        lock.close();
+    }
+
+    @Test
+    void heldLeaseFencesTheCheckpointsWithItsToken() throws Exception {
+        when(receiptCosmosServiceMock.createRecoveryLease(any()))
+                .thenReturn(lease(7, System.currentTimeMillis() + 300000, "etag-7"));
+
+        RecoveryLeaseLock lock = withEnvironmentVariables("RECOVERY_LEASE_ENABLED", "true")
+                .execute(() -> RecoveryLeaseLock.tryAcquire(LEASE_ID, receiptCosmosServiceMock));
+        ReceiptCosmosService fencedService = new LeaseFencedReceiptCosmosServiceImpl(receiptCosmosServiceMock, lock);
+
+        fencedService.saveRecoveryCheckpoint(RecoveryCheckpoint.builder().id(LEASE_ID).build());
+        fencedService.deleteRecoveryCheckpoint(LEASE_ID);
+
+        ArgumentCaptor<RecoveryCheckpoint> checkpointCaptor = ArgumentCaptor.forClass(RecoveryCheckpoint.class);
+        verify(receiptCosmosServiceMock).saveRecoveryCheckpoint(checkpointCaptor.capture());
+        assertEquals(7, checkpointCaptor.getValue().getFencingToken());
+        verify(receiptCosmosServiceMock).deleteRecoveryCheckpoint(LEASE_ID, 7);
+        lock.close();
+    }
+
+    @Test
+    void expiredLeaseNotRenewedFencesTheWrites() throws Exception {
+        when(receiptCosmosServiceMock.createRecoveryLease(any()))
+                .thenReturn(lease(1, System.currentTimeMillis() - 1, "etag-1"));
+
+        RecoveryLeaseLock lock = withEnvironmentVariables("RECOVERY_LEASE_ENABLED", "true")
+                .execute(() -> RecoveryLeaseLock.tryAcquire(LEASE_ID, receiptCosmosServiceMock));
+
+        assertTrue(lock.isHeld());
+        assertThrows(RecoveryLeaseLostException.class, lock::checkHeld);
+        lock.close();
+    }
+
+    private static RecoveryLease lease(long fencingToken, long expiresAt, String etag) {
+        return RecoveryLease.builder()
+                .id(LEASE_ID)
+                .owner("another-instance")
+                .fencingToken(fencingToken)
+                .expiresAt(expiresAt)
+                .etag(etag)
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import it.gov.pagopa.receipt.pdf.helpdesk.client.BizEventCosmosClient;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.Receipt;
+import it.gov.pagopa.receipt.pdf.helpdesk.entity.receipt.enumeration.ReceiptStatusType;
+import it.gov.pagopa.receipt.pdf.helpdesk.model.MassiveRecoverResult;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.BizEventToReceiptService;
+import it.gov.pagopa.receipt.pdf.helpdesk.service.ReceiptCosmosService;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+class RecoveryPlannerTest {
+
+    @Test
+    void planScansMergesTheStatusesOfTheSameQuery() {
+        assertEquals(List.of(ReceiptStatusType.INSERTED, ReceiptStatusType.FAILED),
+                new ArrayList<>(RecoveryPlanner.planScans(List.of(ReceiptStatusType.NOT_QUEUE_SENT,
+                        ReceiptStatusType.FAILED, ReceiptStatusType.INSERTED))));
+        assertEquals(List.of(ReceiptStatusType.FAILED),
+                new ArrayList<>(RecoveryPlanner.planScans(List.of(ReceiptStatusType.NOT_QUEUE_SENT))));
+    }
+
+    @Test
+    void planScansRejectsInvalidStatuses() {
+        List<ReceiptStatusType> noStatus = Collections.emptyList();
+        List<ReceiptStatusType> generated = List.of(ReceiptStatusType.GENERATED);
+
+        assertThrows(IllegalArgumentException.class, () -> RecoveryPlanner.planScans(noStatus));
+        assertThrows(IllegalStateException.class, () -> RecoveryPlanner.planScans(generated));
+    }
+
+    @Test
+    void massiveRecoverByStatusesScansOnceAndMergesTheResults() {
+        ExecutionContext context = mock(ExecutionContext.class);
+        BizEventToReceiptService bizEventToReceiptService = mock(BizEventToReceiptService.class);
+        BizEventCosmosClient bizEventCosmosClient = mock(BizEventCosmosClient.class);
+        ReceiptCosmosService receiptCosmosService = mock(ReceiptCosmosService.class);
+        Logger logger = mock(Logger.class);
+
+        Map<ReceiptStatusType, Integer> insertedCounts = new EnumMap<>(ReceiptStatusType.class);
+        insertedCounts.put(ReceiptStatusType.INSERTED, 2);
+        Map<ReceiptStatusType, Integer> failedCounts = new EnumMap<>(ReceiptStatusType.class);
+        failedCounts.put(ReceiptStatusType.FAILED, 1);
+        failedCounts.put(ReceiptStatusType.NOT_QUEUE_SENT, 1);
+
+        try (MockedStatic<BizEventToReceiptUtils> utils = mockStatic(BizEventToReceiptUtils.class)) {
+            utils.when(() -> BizEventToReceiptUtils.massiveRecoverByStatus(any(), any(), any(), any(), any(),
+                            eq(ReceiptStatusType.INSERTED), any()))
+                    .thenReturn(MassiveRecoverResult.builder()
+                            .receiptList(List.of(receipt("1"), receipt("2")))
+                            .recoveredByStatus(insertedCounts)
+                            .build());
+            utils.when(() -> BizEventToReceiptUtils.massiveRecoverByStatus(any(), any(), any(), any(), any(),
+                            eq(ReceiptStatusType.FAILED), any()))
+                    .thenReturn(MassiveRecoverResult.builder()
+                            .receiptList(List.of(receipt("2"), receipt("3")))
+                            .errorCounter(1)
+                            .recoveredByStatus(failedCounts)
+                            .build());
+
+            MassiveRecoverResult result = RecoveryPlanner.massiveRecoverByStatuses(context, bizEventToReceiptService,
+                    bizEventCosmosClient, receiptCosmosService, logger, List.of(ReceiptStatusType.INSERTED,
+                            ReceiptStatusType.FAILED, ReceiptStatusType.NOT_QUEUE_SENT), "job", Long.MAX_VALUE);
+
+            assertEquals(List.of("1", "2", "3"), result.getReceiptList().stream().map(Receipt::getId).toList());
+            assertEquals(1, result.getErrorCounter());
+            assertEquals(2, result.getRecoveredByStatus().get(ReceiptStatusType.INSERTED));
+            assertEquals(1, result.getRecoveredByStatus().get(ReceiptStatusType.FAILED));
+            assertEquals(1, result.getRecoveredByStatus().get(ReceiptStatusType.NOT_QUEUE_SENT));
+            utils.verify(() -> BizEventToReceiptUtils.massiveRecoverByStatus(any(), any(), any(), any(), any(),
+                    eq(ReceiptStatusType.FAILED), any()), times(1));
+            utils.verify(() -> BizEventToReceiptUtils.massiveRecoverByStatus(any(), any(), any(), any(), any(),
+                    eq(ReceiptStatusType.NOT_QUEUE_SENT), any()), never());
+        }
+    }
+
+    private static Receipt receipt(String id) {
+        Receipt receipt = new Receipt();
+        receipt.setId(id);
+        return receipt;
+    }
+}
@@ -0,0 +1,120 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SystemStubsExtension.class)
+class RequestUnitBudgetTest {
+
+    private static final String MAX_RU_ENV = "TEST_MAX_RU_PER_SECOND";
+
+    @SystemStub
+    private EnvironmentVariables environment;
+
+    @Test
+    void acquireNotLimited() {
+        try (RequestUnitBudget budget = RequestUnitBudget.open(MAX_RU_ENV)) {
+            RequestUnitBudget.chargeCurrent(1_000_000);
+
+            long start = System.nanoTime();
+            budget.acquire();
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 50);
+        }
+    }
+
+    @Test
+    void acquireWaitsForChargedRequestUnits() {
+        environment.set(MAX_RU_ENV, "1000");
+        try (RequestUnitBudget budget = RequestUnitBudget.open(MAX_RU_ENV)) {
+            // the bucket starts full, charging 1200 RU leaves a deficit of about 200 RU, 200 ms at 1000 RU/s
+            RequestUnitBudget.chargeCurrent(1200);
+
+            long start = System.nanoTime();
+            budget.acquire();
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 100);
+        }
+    }
+
+    @Test
+    void throttleHalvesRateAndPauses() {
+        environment.set(MAX_RU_ENV, "1000");
+        try (RequestUnitBudget budget = RequestUnitBudget.open(MAX_RU_ENV)) {
+            RequestUnitBudget.throttleCurrent(Duration.ofMillis(150));
+            assertEquals(500, budget.getRate());
+
+            long start = System.nanoTime();
+            budget.acquire();
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 100);
+
+            // the rate recovers over time, not with the number of operations
+            for (int i = 0; i < 100; i++) {
+                RequestUnitBudget.chargeCurrent(0);
+            }
+            assertTrue(budget.getRate() < 600);
+        }
+    }
+
+    @Test
+    void rateRecoversOverTime() throws InterruptedException {
+        environment.set(MAX_RU_ENV, "1000");
+        try (RequestUnitBudget budget = RequestUnitBudget.open(MAX_RU_ENV)) {
+            budget.throttle(Duration.ofNanos(1));
+            double throttledRate = budget.getRate();
+
+            Thread.sleep(200);
+
+            // 5% of the share per second, about 10 RU/s after 200 ms
+            assertTrue(budget.getRate() > throttledRate);
+            assertTrue(budget.getRate() < 600);
+        }
+    }
+
+    @Test
+    void closedBudgetIsNotCharged() {
+        environment.set(MAX_RU_ENV, "1000");
+        RequestUnitBudget budget = RequestUnitBudget.open(MAX_RU_ENV);
+        budget.close();
+        RequestUnitBudget.throttleCurrent(Duration.ofMillis(150));
+
+        assertNull(RequestUnitBudget.current());
+        assertEquals(1000, budget.getRate());
+    }
+
+    @Test
+    void operationsOfOtherThreadsAreNotCharged() throws Exception {
+        environment.set(MAX_RU_ENV, "1000");
+        try (RequestUnitBudget budget = RequestUnitBudget.open(MAX_RU_ENV)) {
+            Thread other = new Thread(() -> RequestUnitBudget.throttleCurrent(Duration.ofMillis(150)));
+            other.start();
+            other.join();
+
+            assertEquals(1000, budget.getRate());
+        }
+    }
+
+    @Test
+    void boundThreadIsCharged() throws Exception {
+        environment.set(MAX_RU_ENV, "1000");
+        try (RequestUnitBudget budget = RequestUnitBudget.open(MAX_RU_ENV)) {
+            Thread worker = new Thread(() -> {
+                try (RequestUnitBudget.Scope ignored = RequestUnitBudget.bind(budget)) {
+                    RequestUnitBudget.throttleCurrent(Duration.ofMillis(150));
+                }
+                RequestUnitBudget.throttleCurrent(Duration.ofMillis(150));
+            });
+            worker.start();
+            worker.join();
+
+            assertEquals(500, budget.getRate(), 1);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package it.gov.pagopa.receipt.pdf.helpdesk.utils;
+
+import it.gov.pagopa.receipt.pdf.helpdesk.model.TemplateBundle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SystemStubsExtension.class)
+class TemplateRegistryTest {
+
+    @SystemStub
+    private EnvironmentVariables environmentVariables;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void getActiveTemplateFromClasspathLoadedOnce() throws IOException {
+        TemplateRegistry sut = new TemplateRegistry();
+
+        TemplateBundle bundle = sut.getActiveTemplate();
+
+        assertEquals("template.zip", bundle.getName());
+        assertTrue(bundle.getSize() > 0);
+        assertSame(bundle, sut.getActiveTemplate());
+    }
+
+    @Test
+    void getActiveTemplateFromFileHotSwapped() throws IOException {
+        Path templateFile = tempDir.resolve("custom-template.zip");
+        Files.writeString(templateFile, "version 1");
+        environmentVariables.set("PDF_TEMPLATE_PATH", templateFile.toString());
+        environmentVariables.set("PDF_TEMPLATE_RELOAD_INTERVAL_MILLIS", "0");
+
+        TemplateRegistry sut = new TemplateRegistry();
+        TemplateBundle firstVersion = sut.getActiveTemplate();
+
+        Files.writeString(templateFile, "version 2 of the template");
+        Files.setLastModifiedTime(templateFile, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        TemplateBundle secondVersion = sut.getActiveTemplate();
+
+        assertEquals("custom-template.zip", firstVersion.getName());
+        assertNotEquals(firstVersion.getHash(), secondVersion.getHash());
+        assertEquals("version 2 of the template",
+                StandardCharsets.UTF_8.decode(secondVersion.getContent()).toString());
+    }
+
+    @Test
+    void getActiveTemplateFromFileWithSameContentKeepsBundle() throws IOException {
+        Path templateFile = tempDir.resolve("custom-template.zip");
+        Files.writeString(templateFile, "version 1");
+        environmentVariables.set("PDF_TEMPLATE_PATH", templateFile.toString());
+        environmentVariables.set("PDF_TEMPLATE_RELOAD_INTERVAL_MILLIS", "0");
+
+        TemplateRegistry sut = new TemplateRegistry();
+        TemplateBundle firstVersion = sut.getActiveTemplate();
+
+        Files.setLastModifiedTime(templateFile, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+        assertSame(firstVersion, sut.getActiveTemplate());
+    }
+
+    @Test
+    void getActiveTemplateFromFileRemovedKeepsBundle() throws Exception {
+        Path templateFile = tempDir.resolve("custom-template.zip");
+        Files.writeString(templateFile, "version 1");
+        environmentVariables.set("PDF_TEMPLATE_PATH", templateFile.toString());
+        environmentVariables.set("PDF_TEMPLATE_RELOAD_INTERVAL_MILLIS", "500");
+
+        TemplateRegistry sut = new TemplateRegistry();
+        TemplateBundle firstVersion = sut.getActiveTemplate();
+
+        Files.delete(templateFile);
+        Thread.sleep(600);
+        assertSame(firstVersion, sut.getActiveTemplate());
+
+        // the failed reload postponed the next check
+        Files.writeString(templateFile, "version 2 of the template");
+        assertSame(firstVersion, sut.getActiveTemplate());
+    }
+
+    @Test
+    void getActiveTemplateFromMissingFileFail() {
+        environmentVariables.set("PDF_TEMPLATE_PATH", tempDir.resolve("missing.zip").toString());
+
+        TemplateRegistry sut = new TemplateRegistry();
+
+        assertThrows(NoSuchFileException.class, sut::getActiveTemplate);
+    }
+}